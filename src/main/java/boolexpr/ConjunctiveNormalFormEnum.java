@@ -0,0 +1,297 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+/**
+ * Conjunctive Normal Form is a boolean formula which is an AND of ORs.
+ *
+ * @author Timothy Hoffman
+ * 
+ * @param <P> type of the propositions
+ */
+public class ConjunctiveNormalFormEnum<P extends Enum<P>> extends NormalFormEnum<P, ConjunctiveNormalFormEnum<P>> {
+
+    private static final FormRules RULES = FormRules.CONJUNCTIVE;
+
+    /**
+     * Creates a {@link ConjunctiveNormalFormEnum} with a single phrase.
+     *
+     * NOTE: If the given {@link EnumSet} is empty, this is equivalent to
+     * {@link #getFalse()}. If {@code null}, then it's equivalent to
+     * {@link #getTrue()}.
+     *
+     * @param firstPhrase
+     */
+    protected ConjunctiveNormalFormEnum(EnumSet<P> firstPhrase) {
+        super(RULES, firstPhrase);
+    }
+
+    /**
+     * Creates a {@link ConjunctiveNormalFormEnum} with a single phrase
+     * containing a single proposition.
+     *
+     * @param firstProp
+     *
+     * @throws NullPointerException if {@code firstProp} is {@code null}
+     */
+    public ConjunctiveNormalFormEnum(P firstProp) {
+        super(RULES, firstProp);
+    }
+
+    /**
+     * Creates a {@link ConjunctiveNormalFormEnum} with no phrases. This is
+     * equivalent to {@link #getTrue()}.
+     *
+     * @param elementType
+     */
+    public ConjunctiveNormalFormEnum(Class<P> elementType) {
+        super(RULES, elementType);
+    }
+
+    /**
+     * Create a new {@link ConjunctiveNormalFormEnum} by performing a deep copy
+     * of an existing {@link ConjunctiveNormalFormEnum}.
+     *
+     * @param original     the {@link ConjunctiveNormalFormEnum} to duplicate
+     * @param unmodifiable whether or not the new instance should be marked as
+     *                     unmodifiable/immutable
+     */
+    public ConjunctiveNormalFormEnum(ConjunctiveNormalFormEnum<P> original, boolean unmodifiable) {
+        super(original, unmodifiable);
+    }
+
+    /**
+     * Copy constructor, performs a deep copy of the given
+     * {@link ConjunctiveNormalFormEnum}.
+     *
+     * NOTE: the resulting {@link ConjunctiveNormalFormEnum} is modifiable.
+     *
+     * @param original the {@link ConjunctiveNormalFormEnum} to duplicate
+     */
+    protected ConjunctiveNormalFormEnum(ConjunctiveNormalFormEnum<P> original) {
+        this(original, false);
+    }
+
+    @Override
+    public ConjunctiveNormalFormEnum<P> clone(boolean unmodifiable) {
+        return new ConjunctiveNormalFormEnum<>(this, unmodifiable);
+    }
+
+    @Override
+    protected ConjunctiveNormalFormEnum<P> create(EnumSet<P> firstPhrase) {
+        if (firstPhrase == null) {
+            //The phrase is 'null' when attempting to create an empty set.
+            //However, that will cause an NPE in the NormalFormEnum constructor.
+            //Instead, use the Class constructor with the enum type from @this.
+            return new ConjunctiveNormalFormEnum<>(this.enumType);
+        } else {
+            return new ConjunctiveNormalFormEnum<>(firstPhrase);
+        }
+    }
+
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> getFalse(Class<P> elementType) {
+        return new ConjunctiveNormalFormEnum<>(EnumSet.noneOf(elementType));
+    }
+
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> getTrue(Class<P> elementType) {
+        return new ConjunctiveNormalFormEnum<>(elementType);
+    }
+
+    /**
+     * Converts {@code this} into the equivalent
+     * {@link DisjunctiveNormalFormEnum} (see
+     * {@link NormalForm#dualize(boolexpr.NormalForm)}).
+     *
+     * @return a new {@link DisjunctiveNormalFormEnum} equivalent to
+     *         {@code this}
+     *
+     * @throws OperationAbortedException if the {@link OperationContext} of
+     *                                   the current thread aborts the
+     *                                   conversion
+     */
+    public DisjunctiveNormalFormEnum<P> toDNF() {
+        return dualize(new DisjunctiveNormalFormEnum<>(this.enumType));
+    }
+
+    /**
+     * {@link NormalForm.Builder} for {@link ConjunctiveNormalFormEnum}.
+     *
+     * @param <P>
+     */
+    public static final class Builder<P extends Enum<P>> extends NormalForm.Builder<EnumSet<P>, P, ConjunctiveNormalFormEnum<P>, Builder<P>> {
+
+        /**
+         * Creates a {@link Builder} with no phrases.
+         *
+         * @param elementType
+         */
+        public Builder(Class<P> elementType) {
+            super(new ConjunctiveNormalFormEnum<>(elementType));
+        }
+
+        /**
+         * Adds a new phrase containing the given elements.
+         *
+         * @param elems
+         *
+         * @return {@code this}
+         */
+        @SafeVarargs
+        public final Builder<P> addPhrase(P... elems) {
+            //NOTE: copied element-wise rather than via Arrays.asList(..) since
+            //  passing 'elems' on to another varargs method is not safe.
+            ArrayList<P> list = new ArrayList<>(elems.length);
+            for (P e : elems) {
+                list.add(e);
+            }
+            return super.addPhrase(list);
+        }
+    }
+
+    /**
+     * Returns a new {@link ConjunctiveNormalFormEnum} that is the result of
+     * performing the "and" operation on the two inputs.
+     *
+     * @param <P> type of the propositions
+     * @param in1
+     * @param in2
+     *
+     * @return
+     */
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> and(ConjunctiveNormalFormEnum<P> in1, ConjunctiveNormalFormEnum<P> in2) {
+        return new ConjunctiveNormalFormEnum<>(in1).and(in2);
+    }
+
+    /**
+     * Returns a new {@link ConjunctiveNormalFormEnum} that is the result of
+     * performing the "and" operation on the two inputs.
+     *
+     * @param <P> type of the propositions
+     * @param in1
+     * @param in2
+     *
+     * @return
+     */
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> and(P in1, P in2) {
+        return new ConjunctiveNormalFormEnum<>(in1).and(in2);
+    }
+
+    /**
+     * Returns a new {@link ConjunctiveNormalFormEnum} that is the result of
+     * performing the OR operation on the two inputs.
+     *
+     * @param <P> type of the propositions
+     * @param in1
+     * @param in2
+     *
+     * @return
+     */
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> or(ConjunctiveNormalFormEnum<P> in1, ConjunctiveNormalFormEnum<P> in2) {
+        return new ConjunctiveNormalFormEnum<>(in1).or(in2);
+    }
+
+    /**
+     * Returns a new {@link ConjunctiveNormalFormEnum} that is the result of
+     * performing the OR operation on the two inputs.
+     *
+     * @param <P> type of the propositions
+     * @param in1
+     * @param in2
+     *
+     * @return
+     */
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> or(P in1, P in2) {
+        return new ConjunctiveNormalFormEnum<>(in1).or(in2);
+    }
+
+    @Override
+    public String toString() {
+        return toString(false);
+    }
+
+    /**
+     * Builds a formatted {@link String} representation of {@code this} with the
+     * option to sort the items in the {@link String} returned.
+     *
+     * @param sorted
+     *
+     * @return
+     */
+    public String toString(boolean sorted) {
+        return "<" + super.toString(PrintingConnectives.CONJUNCTIVE_STD, sorted) + ">";
+    }
+
+    /**
+     * Parses a {@link ConjunctiveNormalFormEnum} from the given string (in the
+     * format generated by {@link #toString(boolean)}.
+     *
+     * @param <P>
+     * @param elementType
+     * @param inputStr
+     *
+     * @return
+     */
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> fromString(Class<P> elementType, String inputStr) {
+        //Peel off < and > from the beginning and end (resp.)
+        if (inputStr.startsWith("<")) {
+            inputStr = inputStr.substring(1);
+        }
+        if (inputStr.endsWith(">")) {
+            inputStr = inputStr.substring(0, inputStr.length() - 1);
+        }
+        //Use the superclass implementation
+        ConjunctiveNormalFormEnum<P> retVal = new ConjunctiveNormalFormEnum<>(elementType);
+        retVal.fromString(inputStr, PrintingConnectives.CONJUNCTIVE_STD);
+        return retVal;
+    }
+
+    /**
+     * Builds a CSV formatted {@link String} representation of {@code this} with
+     * the option to sort the items in the {@link String} returned.
+     *
+     * @param sorted
+     *
+     * @return
+     */
+    public String toCSVstring(boolean sorted) {
+        return super.toString(PrintingConnectives.CONJUNCTIVE_CSV, sorted);
+    }
+
+    /**
+     * Parses a {@link ConjunctiveNormalFormEnum} from the given string (in the
+     * format generated by {@link #toCSVstring(boolean)}.
+     *
+     * @param <P>
+     * @param elementType
+     * @param inputStr
+     *
+     * @return
+     */
+    public static <P extends Enum<P>> ConjunctiveNormalFormEnum<P> fromCSVString(Class<P> elementType, String inputStr) {
+        //Use the superclass implementation
+        ConjunctiveNormalFormEnum<P> retVal = new ConjunctiveNormalFormEnum<>(elementType);
+        retVal.fromString(inputStr, PrintingConnectives.CONJUNCTIVE_CSV);
+        return retVal;
+    }
+}
@@ -107,6 +107,50 @@ public class ConjunctiveNormalFormInt extends NormalFormInt<ConjunctiveNormalFor
         return RULES.getTrue(new ConjunctiveNormalFormInt());
     }
 
+    /**
+     * Converts {@code this} into the equivalent
+     * {@link DisjunctiveNormalFormInt} (see
+     * {@link NormalForm#dualize(boolexpr.NormalForm)}).
+     *
+     * @return a new {@link DisjunctiveNormalFormInt} equivalent to
+     *         {@code this}
+     *
+     * @throws OperationAbortedException if the {@link OperationContext} of
+     *                                   the current thread aborts the
+     *                                   conversion
+     */
+    public DisjunctiveNormalFormInt toDNF() {
+        return dualize(new DisjunctiveNormalFormInt());
+    }
+
+    /**
+     * {@link NormalForm.Builder} for {@link ConjunctiveNormalFormInt}.
+     */
+    public static final class Builder extends NormalForm.Builder<SparseBitSet, Integer, ConjunctiveNormalFormInt, Builder> {
+
+        /**
+         * Creates a {@link Builder} with no phrases.
+         */
+        public Builder() {
+            super(new ConjunctiveNormalFormInt());
+        }
+
+        /**
+         * Adds a new phrase containing the given elements.
+         *
+         * @param elems
+         *
+         * @return {@code this}
+         */
+        public Builder addPhrase(int... elems) {
+            SparseBitSet phrase = new SparseBitSet();
+            for (int e : elems) {
+                phrase.set(e);
+            }
+            return addNewPhrase(phrase);
+        }
+    }
+
     /**
      * Returns a new {@link ConjunctiveNormalFormInt} that is the result of
      * performing the "and" operation on the two inputs.
@@ -0,0 +1,123 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Conjunctive Normal Form is a boolean formula which is an AND of ORs. The
+ * phrases are stored in a zero-suppressed decision diagram (see
+ * {@link NormalFormZdd}) and can be converted to and from a
+ * {@link ConjunctiveNormalFormInt} (see
+ * {@link #ConjunctiveNormalFormZdd(boolexpr.ZddManager, boolexpr.ConjunctiveNormalFormInt)}
+ * and {@link #toNormalForm()}).
+ *
+ * @author Timothy Hoffman
+ */
+public class ConjunctiveNormalFormZdd extends NormalFormZdd<ConjunctiveNormalFormZdd> {
+
+    private static final FormRules RULES = FormRules.CONJUNCTIVE;
+
+    /**
+     * Creates an empty {@link ConjunctiveNormalFormZdd}. This is equivalent to
+     * {@link #getTrue(boolexpr.ZddManager)}.
+     *
+     * @param manager
+     */
+    public ConjunctiveNormalFormZdd(ZddManager manager) {
+        super(RULES, manager);
+    }
+
+    /**
+     * Create a {@link ConjunctiveNormalFormZdd} with a single proposition.
+     *
+     * @param manager
+     * @param firstProp
+     *
+     * @throws IllegalArgumentException if {@code firstProp} is negative
+     */
+    public ConjunctiveNormalFormZdd(ZddManager manager, int firstProp) {
+        super(RULES, manager, firstProp);
+    }
+
+    /**
+     * Create a {@link ConjunctiveNormalFormZdd} with the same phrases as the given
+     * {@link ConjunctiveNormalFormInt}.
+     *
+     * @param manager
+     * @param form
+     */
+    public ConjunctiveNormalFormZdd(ZddManager manager, ConjunctiveNormalFormInt form) {
+        super(RULES, manager, form);
+    }
+
+    /**
+     * Create a new {@link ConjunctiveNormalFormZdd} with the same phrases as an
+     * existing {@link ConjunctiveNormalFormZdd}.
+     *
+     * @param original     the {@link ConjunctiveNormalFormZdd} to duplicate
+     * @param unmodifiable whether or not the new instance should be marked as
+     *                     unmodifiable/immutable
+     */
+    public ConjunctiveNormalFormZdd(ConjunctiveNormalFormZdd original, boolean unmodifiable) {
+        super(original, unmodifiable);
+    }
+
+    @Override
+    public ConjunctiveNormalFormZdd clone(boolean unmodifiable) {
+        return new ConjunctiveNormalFormZdd(this, unmodifiable);
+    }
+
+    public static ConjunctiveNormalFormZdd getFalse(ZddManager manager) {
+        ConjunctiveNormalFormZdd retVal = new ConjunctiveNormalFormZdd(manager);
+        retVal.root = RULES.getFalseNode();
+        return retVal;
+    }
+
+    public static ConjunctiveNormalFormZdd getTrue(ZddManager manager) {
+        ConjunctiveNormalFormZdd retVal = new ConjunctiveNormalFormZdd(manager);
+        retVal.root = RULES.getTrueNode();
+        return retVal;
+    }
+
+    /**
+     * @return a new {@link ConjunctiveNormalFormInt} with the same phrases as
+     *         {@code this}
+     */
+    public ConjunctiveNormalFormInt toNormalForm() {
+        return toNormalFormInt(new ConjunctiveNormalFormInt());
+    }
+
+    @Override
+    public String toString() {
+        return toString(false);
+    }
+
+    /**
+     * Builds a formatted {@link String} representation of {@code this} (see
+     * {@link ConjunctiveNormalFormInt#toString(boolean)}).
+     *
+     * @param sorted
+     *
+     * @return
+     */
+    public String toString(boolean sorted) {
+        return toNormalForm().toString(sorted);
+    }
+}
@@ -20,6 +20,7 @@ package boolexpr;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.EnumSet;
 
 /**
@@ -117,6 +118,57 @@ public class DisjunctiveNormalFormEnum<P extends Enum<P>> extends NormalFormEnum
         return new DisjunctiveNormalFormEnum<>(EnumSet.noneOf(elementType));
     }
 
+    /**
+     * Converts {@code this} into the equivalent
+     * {@link ConjunctiveNormalFormEnum} (see
+     * {@link NormalForm#dualize(boolexpr.NormalForm)}).
+     *
+     * @return a new {@link ConjunctiveNormalFormEnum} equivalent to
+     *         {@code this}
+     *
+     * @throws OperationAbortedException if the {@link OperationContext} of
+     *                                   the current thread aborts the
+     *                                   conversion
+     */
+    public ConjunctiveNormalFormEnum<P> toCNF() {
+        return dualize(new ConjunctiveNormalFormEnum<>(this.enumType));
+    }
+
+    /**
+     * {@link NormalForm.Builder} for {@link DisjunctiveNormalFormEnum}.
+     *
+     * @param <P>
+     */
+    public static final class Builder<P extends Enum<P>> extends NormalForm.Builder<EnumSet<P>, P, DisjunctiveNormalFormEnum<P>, Builder<P>> {
+
+        /**
+         * Creates a {@link Builder} with no phrases.
+         *
+         * @param elementType
+         */
+        public Builder(Class<P> elementType) {
+            super(new DisjunctiveNormalFormEnum<>(elementType));
+        }
+
+        /**
+         * Adds a new phrase containing the given elements.
+         *
+         * @param elems
+         *
+         * @return {@code this}
+         */
+        @SafeVarargs
+        public final Builder<P> addPhrase(P... elems) {
+            //NOTE: copied element-wise rather than via Arrays.asList(..) since
+            //  passing 'elems' on to another varargs method is not safe.
+            ArrayList<P> list = new ArrayList<>(elems.length);
+            for (P e : elems) {
+                list.add(e);
+            }
+            return super.addPhrase(list);
+        }
+    }
+
     /**
      * Returns a new {@link DisjunctiveNormalFormEnum} that is the result of
      * performing the "and" operation on the two inputs.
@@ -110,6 +110,50 @@ public class DisjunctiveNormalFormInt extends NormalFormInt<DisjunctiveNormalFor
         return RULES.getTrue(new DisjunctiveNormalFormInt());
     }
 
+    /**
+     * Converts {@code this} into the equivalent
+     * {@link ConjunctiveNormalFormInt} (see
+     * {@link NormalForm#dualize(boolexpr.NormalForm)}).
+     *
+     * @return a new {@link ConjunctiveNormalFormInt} equivalent to
+     *         {@code this}
+     *
+     * @throws OperationAbortedException if the {@link OperationContext} of
+     *                                   the current thread aborts the
+     *                                   conversion
+     */
+    public ConjunctiveNormalFormInt toCNF() {
+        return dualize(new ConjunctiveNormalFormInt());
+    }
+
+    /**
+     * {@link NormalForm.Builder} for {@link DisjunctiveNormalFormInt}.
+     */
+    public static final class Builder extends NormalForm.Builder<SparseBitSet, Integer, DisjunctiveNormalFormInt, Builder> {
+
+        /**
+         * Creates a {@link Builder} with no phrases.
+         */
+        public Builder() {
+            super(new DisjunctiveNormalFormInt());
+        }
+
+        /**
+         * Adds a new phrase containing the given elements.
+         *
+         * @param elems
+         *
+         * @return {@code this}
+         */
+        public Builder addPhrase(int... elems) {
+            SparseBitSet phrase = new SparseBitSet();
+            for (int e : elems) {
+                phrase.set(e);
+            }
+            return addNewPhrase(phrase);
+        }
+    }
+
     /**
      * Returns a new {@link DisjunctiveNormalFormInt} that is the result of
      * performing the "and" operation on the two inputs.
@@ -269,79 +313,121 @@ public class DisjunctiveNormalFormInt extends NormalFormInt<DisjunctiveNormalFor
                 //
                 //Check all pairs of phrases with the same cardinality
                 //
-                //TODO: this nested loop structure could be done in parallel,
-                //  just need to make sure tryAddWithAbsorption(..) and
-                //  data.remove(..) are synchronized or queued.
-                //
+                //NOTE: Since we are considering a single pair of mutually
+                //  exclusive nodes, <A,B>, a phrase can only match the phrase
+                //  that is identical except it contains B instead of A (or vice
+                //  versa). This follows from the facts that there are no
+                //  identical phrases and that a phrase cannot contain both A
+                //  and B. Thus, the (quadratic) search for the matching pairs
+                //  does not depend on the changes made to 'this' for earlier
+                //  pairs and can be done in parallel. The changes are then made
+                //  sequentially in the same order as the search.
+                final int[] partners = new int[phrases.size()];
+                ExecutionPolicy policy = debug ? ExecutionPolicy.SEQUENTIAL : ExecutionPolicy.current();
+                MutexPartnerTask task = new MutexPartnerTask(phrases, mutexNodes, partners, debug,
+                        0, phrases.size(), RangeTask.grainFor(phrases.size(), policy.getParallelism()));
+                if (phrases.size() < Tuning.MIN_PARALLEL_MUTEX_GROUP.get()) {
+                    policy = ExecutionPolicy.SEQUENTIAL;
+                }
+                policy.invoke(task);
                 for (int i = 0; i < phrases.size(); i++) {
+                    if (partners[i] < 0) {
+                        continue;
+                    }
                     SparseBitSet phraseI = phrases.get(i);
-                    //ASSERT: no phrase should contain more than one of 'mutexNodes'
-                    assertNoForbiddenSiblings(phraseI, mutexNodes);
-                    for (int j = i + 1; j < phrases.size(); j++) {
-                        SparseBitSet phraseJ = phrases.get(j);
-
-                        if (debug) {
-                            System.out.println("    Checking " + phraseI + " and " + phraseJ);
-                        }
-
-                        //compute XOR of the phrases and see if it matches the mutual excluder
-                        SparseBitSet xor = SparseBitSet.xor(phraseI, phraseJ);
-                        if (mutexNodes.equals(xor)) {
-                            if (debug) {
-                                System.out.println("      mutual excluders (" + joinPoints + "," + mutexNodes + ") found in " + phraseI + " and " + phraseJ);
-                                System.out.println("      before: " + toString());
-                            }
-
-                            //Remove the phrases that are alike (other than the
-                            //  mutual excluders) from 'this'
-                            this.data.remove(phraseI);
-                            this.data.remove(phraseJ);
-
-                            //The intersection between the two phrases will be preserved
-                            //  even after siblings are found and removed
-                            //
-                            //TODO: since a phrase cannot be matched again, if we
-                            //  have already removed it from 'data' we could consume
-                            //  it here rather than cloning (done inside and(x,y)).
-                            //
-                            //
-                            SparseBitSet intersection = SparseBitSet.and(phraseI, phraseJ);
-
-                            //For each join point in the current MutualExcluder, add
-                            //  a replacement phrase containing the intersection and
-                            //  the join point
-                            for (int join = joinPoints.minSetBit(); join >= 0; join = joinPoints.nextSetBit(join + 1)) {
-                                //Copy intersection and add joinpoint
-                                SparseBitSet newSet = intersection.clone();
-                                newSet.set(join);
-                                this.tryAddWithAbsorption(newSet);
-                            }
-
-                            if (debug) {
-                                System.out.println("      after: " + toString());
-                            }
-
-                            //NOTE: Since we are considering a single pair of mutually
-                            //  exclusive nodes, <A,B>, once two phrases has been found
-                            //  that are identical except one contains A and the other
-                            //  contains B, it is not possible for either phrase to
-                            //  match with any other phrase (this follows from the
-                            //  facts that there are no identical phrases and that 
-                            //  a phrase cannot contain both A and B). Thus, we can
-                            //  remove the phrases from the list.
-                            //To prevent phraseJ from comparing against any other
-                            //  phrase, we remove it from the list.
-                            phrases.remove(phraseJ);
-                            //To prevent phraseI from comparing against any other
-                            //  phrase, we just break the inner loop.
-                            break;
-                        }//end if (xor.equals)
-                    }//end for j
-                }//end for i    
+                    SparseBitSet phraseJ = phrases.get(partners[i]);
+                    if (debug) {
+                        System.out.println("      mutual excluders (" + joinPoints + "," + mutexNodes + ") found in " + phraseI + " and " + phraseJ);
+                        System.out.println("      before: " + toString());
+                    }
+
+                    //Remove the phrases that are alike (other than the
+                    //  mutual excluders) from 'this'
+                    this.data.remove(phraseI);
+                    this.data.remove(phraseJ);
+
+                    //The intersection between the two phrases will be preserved
+                    //  even after siblings are found and removed
+                    //
+                    //TODO: since a phrase cannot be matched again, if we
+                    //  have already removed it from 'data' we could consume
+                    //  it here rather than cloning (done inside and(x,y)).
+                    //
+                    //
+                    SparseBitSet intersection = SparseBitSet.and(phraseI, phraseJ);
+
+                    //For each join point in the current MutualExcluder, add
+                    //  a replacement phrase containing the intersection and
+                    //  the join point
+                    for (int join = joinPoints.minSetBit(); join >= 0; join = joinPoints.nextSetBit(join + 1)) {
+                        //Copy intersection and add joinpoint
+                        SparseBitSet newSet = intersection.clone();
+                        newSet.set(join);
+                        this.tryAddWithAbsorption(newSet);
+                    }
+
+                    if (debug) {
+                        System.out.println("      after: " + toString());
+                    }
+                }//end for i
             }//end for phrase groupings
         }//end if(mutexNodes.cardinality)
     }
 
+    /**
+     * Finds the index of the matching phrase for each phrase in a group of
+     * {@link #simplifyWithMutexNodes(boolexpr.util.SparseBitSet, boolexpr.util.SparseBitSet, boolean)},
+     * i.e. the later phrase whose XOR with it equals the mutex nodes, or
+     * {@code -1} if there is no such phrase.
+     */
+    private static final class MutexPartnerTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final ArrayList<SparseBitSet> phrases;
+        final SparseBitSet mutexNodes;
+        final int[] partners;
+        final boolean debug;
+
+        MutexPartnerTask(ArrayList<SparseBitSet> phrases, SparseBitSet mutexNodes, int[] partners, boolean debug, int from, int to, int grain) {
+            super(from, to, grain);
+            this.phrases = phrases;
+            this.mutexNodes = mutexNodes;
+            this.partners = partners;
+            this.debug = debug;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new MutexPartnerTask(phrases, mutexNodes, partners, debug, from, to, grain);
+        }
+
+        @Override
+        protected void computeRange(int from, int to) {
+            for (int i = from; i < to; i++) {
+                partners[i] = -1;
+                SparseBitSet phraseI = phrases.get(i);
+                //ASSERT: no phrase should contain more than one of 'mutexNodes'
+                assertNoForbiddenSiblings(phraseI, mutexNodes);
+                for (int j = i + 1; j < phrases.size(); j++) {
+                    SparseBitSet phraseJ = phrases.get(j);
+
+                    if (debug) {
+                        System.out.println("    Checking " + phraseI + " and " + phraseJ);
+                    }
+
+                    //compute XOR of the phrases and see if it matches the mutual excluder
+                    SparseBitSet xor = SparseBitSet.xor(phraseI, phraseJ);
+                    if (mutexNodes.equals(xor)) {
+                        partners[i] = j;
+                        //NOTE: there is no other match for phraseI (see above)
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Remove from {@code this}, all phrases that contain more than one of the
      * elements in the specified {@link SparseBitSet}.
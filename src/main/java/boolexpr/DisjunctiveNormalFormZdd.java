@@ -0,0 +1,123 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Disjunctive Normal Form is a boolean formula which is an OR of ANDs. The
+ * phrases are stored in a zero-suppressed decision diagram (see
+ * {@link NormalFormZdd}) and can be converted to and from a
+ * {@link DisjunctiveNormalFormInt} (see
+ * {@link #DisjunctiveNormalFormZdd(boolexpr.ZddManager, boolexpr.DisjunctiveNormalFormInt)}
+ * and {@link #toNormalForm()}).
+ *
+ * @author Timothy Hoffman
+ */
+public class DisjunctiveNormalFormZdd extends NormalFormZdd<DisjunctiveNormalFormZdd> {
+
+    private static final FormRules RULES = FormRules.DISJUNCTIVE;
+
+    /**
+     * Creates an empty {@link DisjunctiveNormalFormZdd}. This is equivalent to
+     * {@link #getFalse(boolexpr.ZddManager)}.
+     *
+     * @param manager
+     */
+    public DisjunctiveNormalFormZdd(ZddManager manager) {
+        super(RULES, manager);
+    }
+
+    /**
+     * Create a {@link DisjunctiveNormalFormZdd} with a single proposition.
+     *
+     * @param manager
+     * @param firstProp
+     *
+     * @throws IllegalArgumentException if {@code firstProp} is negative
+     */
+    public DisjunctiveNormalFormZdd(ZddManager manager, int firstProp) {
+        super(RULES, manager, firstProp);
+    }
+
+    /**
+     * Create a {@link DisjunctiveNormalFormZdd} with the same phrases as the given
+     * {@link DisjunctiveNormalFormInt}.
+     *
+     * @param manager
+     * @param form
+     */
+    public DisjunctiveNormalFormZdd(ZddManager manager, DisjunctiveNormalFormInt form) {
+        super(RULES, manager, form);
+    }
+
+    /**
+     * Create a new {@link DisjunctiveNormalFormZdd} with the same phrases as an
+     * existing {@link DisjunctiveNormalFormZdd}.
+     *
+     * @param original     the {@link DisjunctiveNormalFormZdd} to duplicate
+     * @param unmodifiable whether or not the new instance should be marked as
+     *                     unmodifiable/immutable
+     */
+    public DisjunctiveNormalFormZdd(DisjunctiveNormalFormZdd original, boolean unmodifiable) {
+        super(original, unmodifiable);
+    }
+
+    @Override
+    public DisjunctiveNormalFormZdd clone(boolean unmodifiable) {
+        return new DisjunctiveNormalFormZdd(this, unmodifiable);
+    }
+
+    public static DisjunctiveNormalFormZdd getFalse(ZddManager manager) {
+        DisjunctiveNormalFormZdd retVal = new DisjunctiveNormalFormZdd(manager);
+        retVal.root = RULES.getFalseNode();
+        return retVal;
+    }
+
+    public static DisjunctiveNormalFormZdd getTrue(ZddManager manager) {
+        DisjunctiveNormalFormZdd retVal = new DisjunctiveNormalFormZdd(manager);
+        retVal.root = RULES.getTrueNode();
+        return retVal;
+    }
+
+    /**
+     * @return a new {@link DisjunctiveNormalFormInt} with the same phrases as
+     *         {@code this}
+     */
+    public DisjunctiveNormalFormInt toNormalForm() {
+        return toNormalFormInt(new DisjunctiveNormalFormInt());
+    }
+
+    @Override
+    public String toString() {
+        return toString(false);
+    }
+
+    /**
+     * Builds a formatted {@link String} representation of {@code this} (see
+     * {@link DisjunctiveNormalFormInt#toString(boolean)}).
+     *
+     * @param sorted
+     *
+     * @return
+     */
+    public String toString(boolean sorted) {
+        return toNormalForm().toString(sorted);
+    }
+}
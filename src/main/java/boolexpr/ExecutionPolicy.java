@@ -0,0 +1,468 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determines where the parallel parts of {@link NormalForm} operations (i.e.
+ * merge, cross product, resolution, and the mutex simplifier of
+ * {@link DisjunctiveNormalFormInt}) are executed. An {@link ExecutionPolicy}
+ * is one of:
+ * <ul>
+ * <li>{@link #SEQUENTIAL}: everything runs in the calling thread</li>
+ * <li>{@link #ofThreads(int)}: a dedicated {@link ForkJoinPool} (of daemon
+ * threads) with the given parallelism, created when first needed</li>
+ * <li>{@link #of(ForkJoinPool)}: a caller-supplied {@link ForkJoinPool}</li>
+ * <li>{@link #of(ExecutorService, int)}: a caller-supplied
+ * {@link ExecutorService} and the number of tasks it should be given at
+ * once</li>
+ * </ul>
+ *
+ * The policy used by an operation is the one given to {@link #use()} by the
+ * calling thread (for a single operation or group of operations) or else the
+ * global default (see {@link #setDefault(ExecutionPolicy)}), which uses one
+ * thread per available processor. For example, to run a single operation in
+ * the calling thread only:
+ * <pre>
+ * try (ExecutionPolicy.Scope s = ExecutionPolicy.SEQUENTIAL.use()) {
+ *     dnf.and(other);
+ * }
+ * </pre>
+ *
+ * NOTE: any operation started from within a parallel task uses the same
+ * policy (and {@link OperationContext}) as that task. The calling thread of an operation never waits for
+ * parallel work that has not started; with a {@link ForkJoinPool}, the work
+ * is stolen back (see {@link #of(ForkJoinPool)}) and with any other
+ * {@link ExecutorService}, the calling thread runs each part that is still
+ * queued. Thus, operations may be started from tasks running on the same
+ * executor.
+ *
+ * @author Timothy Hoffman
+ */
+public abstract class ExecutionPolicy {
+
+    /**
+     * Runs all operations in the calling thread.
+     */
+    public static final ExecutionPolicy SEQUENTIAL = new ExecutionPolicy() {
+        @Override
+        public int getParallelism() {
+            return 1;
+        }
+
+        @Override
+        /*package*/ void invoke(RangeTask task) {
+            task.computeRange(task.from, task.to);
+        }
+
+        @Override
+        public String toString() {
+            return "ExecutionPolicy{sequential}";
+        }
+    };
+
+    private static final ThreadLocal<ExecutionPolicy> CURRENT = new ThreadLocal<>();
+
+    private static volatile ExecutionPolicy defaultPolicy = null;
+
+    /**
+     * @return the global default {@link ExecutionPolicy}, initially
+     *         {@link #ofThreads(int)} with one thread per available processor
+     */
+    public static ExecutionPolicy getDefault() {
+        ExecutionPolicy retVal = defaultPolicy;
+        if (retVal == null) {
+            synchronized (ExecutionPolicy.class) {
+                retVal = defaultPolicy;
+                if (retVal == null) {
+                    defaultPolicy = retVal = ofThreads(Runtime.getRuntime().availableProcessors());
+                }
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Sets the global default {@link ExecutionPolicy}, used by every thread
+     * that has not called {@link #use()}.
+     *
+     * @param policy
+     *
+     * @throws NullPointerException if {@code policy} is {@code null}
+     */
+    public static void setDefault(ExecutionPolicy policy) {
+        if (policy == null) {
+            throw new NullPointerException();
+        }
+        defaultPolicy = policy;
+    }
+
+    /**
+     * @return the {@link ExecutionPolicy} in effect for the calling thread
+     */
+    public static ExecutionPolicy current() {
+        ExecutionPolicy retVal = CURRENT.get();
+        return retVal != null ? retVal : getDefault();
+    }
+
+    /**
+     * @param numThreads
+     *
+     * @return an {@link ExecutionPolicy} using a new {@link ForkJoinPool} with
+     *         the given parallelism (or {@link #SEQUENTIAL} if
+     *         {@code numThreads} is 1). The pool is created when the policy is
+     *         first used for a parallel operation and its threads are daemon
+     *         threads that terminate when idle.
+     *
+     * @throws IllegalArgumentException if {@code numThreads} is not positive
+     */
+    public static ExecutionPolicy ofThreads(int numThreads) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("numThreads must be positive: " + numThreads);
+        }
+        return numThreads == 1 ? SEQUENTIAL : new LazyForkJoin(numThreads);
+    }
+
+    /**
+     * @param pool
+     *
+     * @return an {@link ExecutionPolicy} using the given {@link ForkJoinPool}.
+     *         If an operation is started by a worker thread of {@code pool}, the
+     *         operation runs in that thread and forks its subtasks into
+     *         {@code pool} rather than waiting on it.
+     *
+     * @throws NullPointerException if {@code pool} is {@code null}
+     */
+    public static ExecutionPolicy of(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        return new ForkJoin(pool);
+    }
+
+    /**
+     * @param executor
+     * @param parallelism the number of tasks to give {@code executor} at once
+     *
+     * @return an {@link ExecutionPolicy} using the given
+     *         {@link ExecutorService} (or {@link #of(ForkJoinPool)} if it is a
+     *         {@link ForkJoinPool})
+     *
+     * @throws NullPointerException     if {@code executor} is {@code null}
+     * @throws IllegalArgumentException if {@code parallelism} is not positive
+     */
+    public static ExecutionPolicy of(ExecutorService executor, int parallelism) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (executor instanceof ForkJoinPool) {
+            return new ForkJoin((ForkJoinPool) executor);
+        }
+        return parallelism == 1 ? SEQUENTIAL : new Executor(executor, parallelism);
+    }
+
+    private ExecutionPolicy() {
+    }
+
+    /**
+     * Makes {@code this} the {@link ExecutionPolicy} of the calling thread
+     * until the returned {@link Scope} is closed.
+     *
+     * @return
+     */
+    public final Scope use() {
+        return new Scope(swap(this));
+    }
+
+    /**
+     * @return the maximum number of tasks that run at once (1 if sequential)
+     */
+    public abstract int getParallelism();
+
+    /**
+     * @return {@code true} iff every operation runs in the calling thread
+     */
+    public final boolean isSequential() {
+        return getParallelism() <= 1;
+    }
+
+    /**
+     * Runs the given task (in parallel if possible) and waits for it to
+     * finish.
+     *
+     * @param task
+     */
+    /*package*/ abstract void invoke(RangeTask task);
+
+    /**
+     * Sets the {@link ExecutionPolicy} of the current thread.
+     *
+     * @param policy
+     *
+     * @return the previous {@link ExecutionPolicy} of the current thread or
+     *         {@code null} if it did not have one
+     */
+    /*package*/ static ExecutionPolicy swap(ExecutionPolicy policy) {
+        ExecutionPolicy prev = CURRENT.get();
+        CURRENT.set(policy);
+        return prev;
+    }
+
+    /*package*/ static void restore(ExecutionPolicy prev) {
+        if (prev == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(prev);
+        }
+    }
+
+    /**
+     * Restores the previous {@link ExecutionPolicy} of a thread when closed.
+     *
+     * @see ExecutionPolicy#use()
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final ExecutionPolicy prev;
+
+        private Scope(ExecutionPolicy prev) {
+            this.prev = prev;
+        }
+
+        @Override
+        public void close() {
+            restore(prev);
+        }
+    }
+
+    private static class ForkJoin extends ExecutionPolicy {
+
+        private final ForkJoinPool pool;
+
+        ForkJoin(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        ForkJoinPool getPool() {
+            return pool;
+        }
+
+        @Override
+        public int getParallelism() {
+            return getPool().getParallelism();
+        }
+
+        @Override
+        /*package*/ void invoke(RangeTask task) {
+            task.policy = this;
+            ForkJoinPool p = getPool();
+            if (ForkJoinTask.getPool() == p) {
+                task.invoke();
+            } else {
+                p.invoke(task);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ExecutionPolicy{" + getPool() + "}";
+        }
+    }
+
+    private static final class LazyForkJoin extends ForkJoin {
+
+        private final int numThreads;
+
+        private volatile ForkJoinPool lazyPool = null;
+
+        LazyForkJoin(int numThreads) {
+            super(null);
+            this.numThreads = numThreads;
+        }
+
+        @Override
+        ForkJoinPool getPool() {
+            ForkJoinPool retVal = lazyPool;
+            if (retVal == null) {
+                synchronized (this) {
+                    retVal = lazyPool;
+                    if (retVal == null) {
+                        lazyPool = retVal = new ForkJoinPool(numThreads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+                            //Creates daemon threads with a descriptive name.
+                            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                            @Override
+                            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                                t.setName("NormalForm-" + threadNumber.getAndIncrement());
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        }, null, false);
+                    }
+                }
+            }
+            return retVal;
+        }
+
+        @Override
+        public int getParallelism() {
+            return numThreads;//NOTE: does not create the pool
+        }
+    }
+
+    private static final class Executor extends ExecutionPolicy {
+
+        private final ExecutorService executor;
+
+        private final int parallelism;
+
+        Executor(ExecutorService executor, int parallelism) {
+            this.executor = executor;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        @Override
+        /*package*/ void invoke(RangeTask task) {
+            //Without work stealing, the range is split into (at most) one
+            //  chunk per task and the results of the chunks are combined left
+            //  to right.
+            final int total = task.to - task.from;
+            final int numChunks = Math.min(parallelism, (total + task.grain - 1) / task.grain);
+            if (numChunks <= 1) {
+                task.computeRange(task.from, task.to);
+                return;
+            }
+            ArrayList<RangeTask> chunks = new ArrayList<>(numChunks);
+            ArrayList<FutureTask<Void>> futures = new ArrayList<>(numChunks);
+            final CountDownLatch finished = new CountDownLatch(numChunks);
+            for (int c = 0; c < numChunks; c++) {
+                final RangeTask chunk = task.split(task.from + (int) ((long) total * c / numChunks),
+                        task.from + (int) ((long) total * (c + 1) / numChunks));
+                chunks.add(chunk);
+                futures.add(new FutureTask<Void>(new Runnable() {
+                    @Override
+                    public void run() {
+                        ExecutionPolicy prev = swap(Executor.this);
+                        OperationContext prevContext = OperationContext.swap(chunk.context);
+                        try {
+                            chunk.context.checkpoint();
+                            chunk.computeRange(chunk.from, chunk.to);
+                        } finally {
+                            OperationContext.restore(prevContext);
+                            restore(prev);
+                            finished.countDown();
+                        }
+                    }
+                }, null));
+            }
+            for (int c = 1; c < numChunks; c++) {
+                executor.execute(futures.get(c));
+            }
+            //The calling thread runs every chunk that has not been started by
+            //  the executor (FutureTask#run() does nothing if the chunk has
+            //  already started) so it only waits on chunks that are running.
+            //  Thus, every chunk has started (and counts down 'finished' when
+            //  it ends) after this loop.
+            for (FutureTask<Void> f : futures) {
+                f.run();
+            }
+            //Wait for every chunk to end, even if some chunk failed, so that no
+            //  chunk is still running when the caller sees the result or the
+            //  failure (e.g. when a merge restores the form after a failure).
+            //NOTE: with the OperationContext#UNBOUNDED context, an operation
+            //  is never stopped so the calling thread keeps waiting when it is
+            //  interrupted and the interrupt status is restored afterwards.
+            boolean interrupted = false;
+            OperationAbortedException aborted = null;
+            try {
+                while (true) {
+                    try {
+                        finished.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        if (aborted == null && !task.context.isUnbounded()) {
+                            //Stop the chunks that are still running (which
+                            //  only affects their partial results).
+                            for (FutureTask<Void> f : futures) {
+                                f.cancel(true);
+                            }
+                            aborted = new OperationAbortedException(OperationAbortedException.Reason.INTERRUPTED, "operation interrupted", e);
+                        }
+                    }
+                }
+                if (aborted != null) {
+                    throw aborted;
+                }
+                for (int c = 0; c < numChunks;) {
+                    try {
+                        futures.get(c).get();
+                        c++;
+                    } catch (InterruptedException e) {
+                        interrupted = true;//the chunk has already ended
+                    }
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            RangeTask acc = chunks.get(0);
+            for (int c = 1; c < numChunks - 1; c++) {
+                RangeTask next = task.split(acc.from, chunks.get(c).to);
+                next.joined(acc, chunks.get(c));
+                acc = next;
+            }
+            task.joined(acc, chunks.get(numChunks - 1));
+        }
+
+        @Override
+        public String toString() {
+            return "ExecutionPolicy{" + executor + ", parallelism=" + parallelism + "}";
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import boolexpr.NormalForm.ResolutionCache;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves a system of symbolic placeholders whose expansions may refer to
+ * other placeholders (or to themselves), i.e. computes for every placeholder
+ * the expansion that results from repeatedly applying
+ * {@link NormalForm#resolveAll(java.util.Map)} with the whole system until
+ * nothing changes, without re-expanding every form in every round.
+ *
+ * The placeholders are grouped into the strongly-connected components of
+ * the graph where each placeholder depends on the placeholders appearing in
+ * its expansion. The components are processed in topological order so each
+ * component is resolved (once) against the final expansions of the
+ * components it depends on. Components that do not depend on each other are
+ * resolved in parallel (according to {@link ExecutionPolicy#current()}).
+ * Only within a cyclic component (i.e. mutually recursive placeholders or a
+ * placeholder referring to itself) is resolution repeated, via a worklist
+ * that re-resolves a placeholder only when the expansion of some placeholder
+ * it refers to has changed. Placeholders that refer to themselves remain
+ * symbolic in the final expansions.
+ *
+ * NOTE: the given {@link NormalForm}s are not modified.
+ *
+ * @author Timothy Hoffman
+ *
+ * @param <PhraseType>
+ * @param <ElemType>
+ * @param <ConcreteType>
+ */
+public final class FixpointResolver<PhraseType, ElemType, ConcreteType extends NormalForm<PhraseType, ElemType, ConcreteType>> {
+
+    /**
+     * The default maximum number of times a placeholder in a cyclic component
+     * is re-resolved before giving up.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+    private final ArrayList<ElemType> keys = new ArrayList<>();
+
+    private final ArrayList<ConcreteType> forms = new ArrayList<>();
+
+    private final int maxIterations;
+
+    private final ResolutionCache<PhraseType, ConcreteType> cache;
+
+    private int numComponents;
+
+    private int numCyclicComponents;
+
+    private int numLevels;
+
+    private final LongAdder numIterations = new LongAdder();
+
+    /**
+     * @param system map from each placeholder to its expansion (entries with
+     *               a {@code null} expansion are ignored like in
+     *               {@link NormalForm#resolveAll(java.util.Map)})
+     */
+    public FixpointResolver(Map<ElemType, ConcreteType> system) {
+        this(system, DEFAULT_MAX_ITERATIONS, null);
+    }
+
+    /**
+     * @param system        map from each placeholder to its expansion
+     *                      (entries with a {@code null} expansion are ignored
+     *                      like in {@link NormalForm#resolveAll(java.util.Map)})
+     * @param maxIterations maximum number of times each placeholder in a
+     *                      cyclic component is re-resolved
+     * @param cache         cache of the cross products of expansions to use
+     *                      for all resolutions, may be {@code null} to use a
+     *                      new (unbounded) cache for each call to
+     *                      {@link #resolve()}
+     */
+    public FixpointResolver(Map<ElemType, ConcreteType> system, int maxIterations,
+            ResolutionCache<PhraseType, ConcreteType> cache) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations must be positive: " + maxIterations);
+        }
+        for (Map.Entry<ElemType, ConcreteType> e : system.entrySet()) {
+            if (e.getKey() != null && e.getValue() != null) {
+                keys.add(e.getKey());
+                forms.add(e.getValue());
+            }
+        }
+        this.maxIterations = maxIterations;
+        this.cache = cache;
+    }
+
+    /**
+     * Computes the final expansion of every placeholder.
+     *
+     * @return new {@link Map} (in the iteration order of the given system)
+     *         from each placeholder to its final expansion
+     *
+     * @throws IllegalStateException if the expansions in some cyclic
+     *                               component do not stop changing within the
+     *                               maximum number of iterations
+     */
+    public Map<ElemType, ConcreteType> resolve() {
+        final int n = keys.size();
+        final ArrayList<ConcreteType> resolved = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            resolved.add(null);
+        }
+        numComponents = numCyclicComponents = numLevels = 0;
+        numIterations.reset();
+        if (n > 0) {
+            final int[][] deps = dependencies();
+            final int[] compOf = new int[n];
+            final ArrayList<int[]> comps = components(deps, compOf);
+            numComponents = comps.size();
+
+            //Group the components by level, i.e. the length of the longest
+            //  path of dependencies from the component, such that components
+            //  on the same level do not depend on each other.
+            //NOTE: components() returns each component after all of the
+            //  components it depends on.
+            final int[] levelOf = new int[comps.size()];
+            final ArrayList<ArrayList<int[]>> levels = new ArrayList<>();
+            for (int c = 0; c < comps.size(); c++) {
+                int level = 0;
+                for (int m : comps.get(c)) {
+                    for (int d : deps[m]) {
+                        if (compOf[d] != c) {
+                            level = Math.max(level, levelOf[compOf[d]] + 1);
+                        }
+                    }
+                }
+                levelOf[c] = level;
+                while (levels.size() <= level) {
+                    levels.add(new ArrayList<int[]>());
+                }
+                levels.get(level).add(comps.get(c));
+            }
+            numLevels = levels.size();
+
+            final ResolutionCache<PhraseType, ConcreteType> useCache = (cache != null)
+                    ? cache : new ResolutionCache<PhraseType, ConcreteType>(Integer.MAX_VALUE);
+            final ExecutionPolicy policy = ExecutionPolicy.current();
+            if (!policy.isSequential()) {
+                //NOTE: the given forms are read by several threads so first
+                //  make sure their cached statistics are computed.
+                for (ConcreteType f : forms) {
+                    warm(f);
+                }
+            }
+            for (ArrayList<int[]> level : levels) {
+                final int numInLevel = level.size();
+                ComponentTask task = new ComponentTask(level, deps, compOf, resolved, useCache, 0, numInLevel,
+                        RangeTask.grainFor(numInLevel, policy.getParallelism()));
+                (numInLevel == 1 ? ExecutionPolicy.SEQUENTIAL : policy).invoke(task);
+                if (!policy.isSequential()) {
+                    //NOTE: the final expansions are read by the components on
+                    //  later levels (maybe by several threads).
+                    for (int[] comp : level) {
+                        for (int m : comp) {
+                            warm(resolved.get(m));
+                        }
+                    }
+                }
+            }
+        }
+        LinkedHashMap<ElemType, ConcreteType> retVal = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            retVal.put(keys.get(i), resolved.get(i));
+        }
+        return retVal;
+    }
+
+    /**
+     * @return the number of strongly-connected components found by the last
+     *         call to {@link #resolve()}
+     */
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * @return the number of cyclic components found by the last call to
+     *         {@link #resolve()}
+     */
+    public int getNumCyclicComponents() {
+        return numCyclicComponents;
+    }
+
+    /**
+     * @return the number of groups of independent components processed in
+     *         turn by the last call to {@link #resolve()}
+     */
+    public int getNumLevels() {
+        return numLevels;
+    }
+
+    /**
+     * @return the number of times a placeholder in a cyclic component was
+     *         re-resolved by the last call to {@link #resolve()}
+     */
+    public long getNumIterations() {
+        return numIterations.sum();
+    }
+
+    /**
+     * @return for each placeholder, the (sorted) indices of the placeholders
+     *         appearing in its expansion
+     */
+    private int[][] dependencies() {
+        final int n = keys.size();
+        final ConcreteType any = forms.get(0);
+        final HashMap<ElemType, Integer> indexOf = new HashMap<>();
+        final PhraseType allKeys = any.createSingleton(null);//use 'null' to create empty phrase
+        for (int i = 0; i < n; i++) {
+            indexOf.put(keys.get(i), i);
+            any.add(allKeys, keys.get(i));
+        }
+        final int[][] deps = new int[n][];
+        final boolean[] seen = new boolean[n];
+        final int[] found = new int[n];
+        for (int i = 0; i < n; i++) {
+            final ConcreteType f = forms.get(i);
+            int count = 0;
+            for (PhraseType phrase : f.data) {
+                if (f.containsAny(allKeys, phrase)) {
+                    PhraseType keysInPhrase = f.intersection(phrase, allKeys);
+                    for (Iterator<ElemType> it = f.iterator(keysInPhrase, false); it.hasNext();) {
+                        int d = indexOf.get(it.next());
+                        if (!seen[d]) {
+                            seen[d] = true;
+                            found[count++] = d;
+                        }
+                    }
+                }
+            }
+            deps[i] = Arrays.copyOf(found, count);
+            Arrays.sort(deps[i]);
+            for (int d : deps[i]) {
+                seen[d] = false;
+            }
+        }
+        return deps;
+    }
+
+    /**
+     * Finds the strongly-connected components of the dependency graph via
+     * (an iterative version of) Tarjan's algorithm.
+     *
+     * @param deps
+     * @param compOf receives the index of the component of each placeholder
+     *
+     * @return the members of each component, where each component comes after
+     *         every component it depends on
+     */
+    private static ArrayList<int[]> components(int[][] deps, int[] compOf) {
+        final int n = deps.length;
+        final ArrayList<int[]> comps = new ArrayList<>();
+        final int[] index = new int[n];
+        final int[] lowLink = new int[n];
+        final boolean[] onStack = new boolean[n];
+        final int[] stack = new int[n];
+        final int[] callNode = new int[n];
+        final int[] callEdge = new int[n];
+        Arrays.fill(index, -1);
+        int nextIndex = 0;
+        int stackSize = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                final int v = callNode[depth];
+                if (callEdge[depth] < deps[v].length) {
+                    final int w = deps[v][callEdge[depth]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = 0;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                } else {
+                    if (lowLink[v] == index[v]) {
+                        int start = stackSize;
+                        do {
+                            start--;
+                        } while (stack[start] != v);
+                        int[] members = Arrays.copyOfRange(stack, start, stackSize);
+                        for (int i = start; i < stackSize; i++) {
+                            onStack[stack[i]] = false;
+                            compOf[stack[i]] = comps.size();
+                        }
+                        stackSize = start;
+                        comps.add(members);
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        final int u = callNode[depth];
+                        lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+                    }
+                }
+            }
+        }
+        return comps;
+    }
+
+    /**
+     * Resolves a single component whose dependencies outside of the component
+     * have already been resolved.
+     *
+     * @param members
+     * @param deps
+     * @param compOf
+     * @param resolved
+     * @param cache
+     *
+     * @return {@code true} iff the component is cyclic
+     */
+    private boolean resolveComponent(int[] members, int[][] deps, int[] compOf, ArrayList<ConcreteType> resolved,
+            ResolutionCache<PhraseType, ConcreteType> cache) {
+        final int comp = compOf[members[0]];
+        final boolean cyclic = members.length > 1 || Arrays.binarySearch(deps[members[0]], members[0]) >= 0;
+
+        //First, resolve the references to other components (once) using
+        //  their final expansions.
+        final HashMap<ElemType, ConcreteType> current = new HashMap<>();
+        for (int m : members) {
+            ConcreteType f = forms.get(m).clone(false);
+            HashMap<ElemType, ConcreteType> external = new HashMap<>();
+            for (int d : deps[m]) {
+                if (compOf[d] != comp) {
+                    external.put(keys.get(d), resolved.get(d));
+                }
+            }
+            if (!external.isEmpty()) {
+                f.resolveAll(external, cache);
+            }
+            current.put(keys.get(m), f);
+        }
+
+        //Then, if the component is cyclic, resolve the references within the
+        //  component until none of the expansions change. A copy of each
+        //  expansion is resolved with the current expansions of the members
+        //  and it is only revisited when the expansion of some member it
+        //  refers to has changed.
+        //NOTE: resolving can introduce references to other members of the
+        //  component that the original expansion did not have (ex: x=y, y=z,
+        //  z=x|w) so the members referring to a changed member are found
+        //  from the current expansions rather than from 'deps'.
+        if (cyclic) {
+            final int size = members.length;
+            final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+            final boolean[] queued = new boolean[size];
+            final int[] iterations = new int[size];
+            for (int i = 0; i < size; i++) {
+                worklist.add(i);
+                queued[i] = true;
+            }
+            while (!worklist.isEmpty()) {
+                final int i = worklist.poll();
+                queued[i] = false;
+                final ElemType key = keys.get(members[i]);
+                if (++iterations[i] > maxIterations) {
+                    throw new IllegalStateException("No fixpoint for " + key + " after " + maxIterations + " iterations");
+                }
+                numIterations.increment();
+
+                final ConcreteType prev = current.get(key);
+                final ConcreteType next = prev.clone(false);
+                if (next.resolveAll(current, cache) && !next.equals(prev)) {
+                    current.put(key, next);
+                    //NOTE: the expansions substituted into 'next' may refer to
+                    //  members themselves so it is also revisited.
+                    for (int u = 0; u < size; u++) {
+                        if (!queued[u] && (u == i || refersTo(current.get(keys.get(members[u])), key))) {
+                            queued[u] = true;
+                            worklist.add(u);
+                        }
+                    }
+                }
+            }
+        }
+        for (int m : members) {
+            resolved.set(m, current.get(keys.get(m)));
+        }
+        return cyclic;
+    }
+
+    /**
+     * @param f
+     * @param key
+     *
+     * @return {@code true} iff some phrase of {@code f} contains {@code key}
+     */
+    private boolean refersTo(ConcreteType f, ElemType key) {
+        for (PhraseType p : f.data) {
+            if (f.contains(p, key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the statistics cached by the phrases of the given
+     * {@link NormalForm} so that reading it does not modify it.
+     *
+     * @param f
+     */
+    private void warm(ConcreteType f) {
+        for (PhraseType p : f.data) {
+            f.size(p);
+        }
+    }
+
+    /**
+     * Resolves the components in the given range, which must not depend on
+     * each other.
+     */
+    private final class ComponentTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final ArrayList<int[]> levelRef;
+        final int[][] deps;
+        final int[] compOf;
+        final ArrayList<ConcreteType> resolved;
+        final ResolutionCache<PhraseType, ConcreteType> cache;
+
+        /**
+         * @param levelRef
+         * @param deps
+         * @param compOf
+         * @param resolved
+         * @param cache
+         * @param from     inclusive
+         * @param to       exclusive
+         * @param grain
+         */
+        ComponentTask(ArrayList<int[]> levelRef, int[][] deps, int[] compOf, ArrayList<ConcreteType> resolved,
+                ResolutionCache<PhraseType, ConcreteType> cache, int from, int to, int grain) {
+            super(from, to, grain);
+            this.levelRef = levelRef;
+            this.deps = deps;
+            this.compOf = compOf;
+            this.resolved = resolved;
+            this.cache = cache;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new ComponentTask(levelRef, deps, compOf, resolved, cache, from, to, grain);
+        }
+
+        @Override
+        protected void computeRange(int startIncl, int endExcl) {
+            int cyclic = 0;
+            for (int i = startIncl; i < endExcl; i++) {
+                if (resolveComponent(levelRef.get(i), deps, compOf, resolved, cache)) {
+                    cyclic++;
+                }
+            }
+            if (cyclic > 0) {
+                synchronized (FixpointResolver.this) {
+                    numCyclicComponents += cyclic;
+                }
+            }
+        }
+    }
+}
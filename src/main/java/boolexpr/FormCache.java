@@ -0,0 +1,305 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opt-in cache of the results of binary operations on {@link NormalForm}s,
+ * similar to the unique table and computed table of a BDD package:
+ * <ul>
+ * <li>the unique table maps every {@link NormalForm} passed to or returned
+ * from {@code this} to a canonical unmodifiable instance (see
+ * {@link #canonical(boolexpr.NormalForm)}) so that structurally equal forms
+ * are the same instance. It only weakly references the canonical forms (see
+ * {@link WeakInterner}).</li>
+ * <li>the computed table maps (operation, operand, operand) to the canonical
+ * result, where the operands are compared by reference since they are
+ * canonical. It holds at most {@link #getMaxEntries()} entries and evicts the
+ * least recently used entry when full.</li>
+ * </ul>
+ * Thus repeating {@link #and(boolexpr.NormalForm, boolexpr.NormalForm)} or
+ * {@link #or(boolexpr.NormalForm, boolexpr.NormalForm)} on equal operands
+ * returns the previous result without repeating the cross product or merge.
+ * The number of hits, misses, and evictions of the computed table are counted
+ * (see {@link #getHitRate()}).
+ *
+ * The results are unmodifiable; use {@code clone(false)} to obtain a
+ * modifiable copy. Lookups take constant time once the hash code of each
+ * unmodifiable operand is cached but the first lookup of a form takes time
+ * proportional to its number of phrases.
+ *
+ * NOTE: empty {@link DisjunctiveNormalFormEnum}s over different {@link Enum}
+ * types are equal so a separate {@link FormCache} should be used for each
+ * {@link Enum} type.
+ *
+ * NOTE: thread-safe. Concurrent misses on the same key may each compute the
+ * result but all of them return the same canonical instance.
+ *
+ * @author Timothy Hoffman
+ *
+ * @param <D> type of the cached {@link NormalForm}s
+ */
+public final class FormCache<D extends NormalForm<?, ?, D>> {
+
+    /**
+     * The cached operations, both of which are commutative.
+     */
+    public static enum Operation {
+        AND, OR
+    }
+
+    private static final class Key {
+
+        private final Operation op;
+
+        private final Object a;
+
+        private final Object b;
+
+        private final int hash;
+
+        /**
+         * NOTE: since the operations are commutative, the operands are
+         * ordered by identity hash code (equal identity hash codes of
+         * different operands only cause a miss).
+         */
+        Key(Operation op, Object a, Object b) {
+            final int ha = System.identityHashCode(a);
+            final int hb = System.identityHashCode(b);
+            this.op = op;
+            this.a = ha <= hb ? a : b;
+            this.b = ha <= hb ? b : a;
+            this.hash = (op.ordinal() * 31 + Math.min(ha, hb)) * 31 + Math.max(ha, hb);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.op == other.op && this.a == other.a && this.b == other.b;
+        }
+    }
+
+    private final int maxEntries;
+
+    private final WeakInterner<D> unique = new WeakInterner<>();
+
+    private final LinkedHashMap<Key, D> computed;
+
+    private long hits = 0;//guarded by computed
+
+    private long misses = 0;//guarded by computed
+
+    private long evictions = 0;//guarded by computed
+
+    /**
+     * @param maxEntries maximum number of entries in the computed table, at
+     *                   least 1
+     *
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     */
+    public FormCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.computed = new LinkedHashMap<Key, D>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, D> eldest) {
+                if (size() > FormCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param form
+     *
+     * @return the canonical unmodifiable instance equal to the given form
+     *         (which is an unmodifiable copy of the given form if no equal
+     *         form was seen before)
+     */
+    public D canonical(D form) {
+        return unique.intern(form.asUnmodifiable());
+    }
+
+    /**
+     * @param a
+     * @param b
+     *
+     * @return the canonical unmodifiable "and" of the given forms
+     *
+     * @see NormalForm#and(boolexpr.NormalForm)
+     */
+    public D and(D a, D b) {
+        return apply(Operation.AND, a, b);
+    }
+
+    /**
+     * @param a
+     * @param b
+     *
+     * @return the canonical unmodifiable "or" of the given forms
+     *
+     * @see NormalForm#or(boolexpr.NormalForm)
+     */
+    public D or(D a, D b) {
+        return apply(Operation.OR, a, b);
+    }
+
+    /**
+     * Returns the cached result of the given operation on the given operands
+     * or else computes it (on a modifiable copy of {@code a}) and caches it.
+     *
+     * NOTE: if the computation throws (e.g. {@link OperationAbortedException})
+     * then nothing is cached.
+     *
+     * @param op
+     * @param a
+     * @param b
+     *
+     * @return the canonical unmodifiable result
+     */
+    public D apply(Operation op, D a, D b) {
+        a = canonical(a);
+        b = canonical(b);
+        final Key key = new Key(op, a, b);
+        synchronized (computed) {
+            D result = computed.get(key);
+            if (result != null) {
+                hits++;
+                return result;
+            }
+            misses++;
+        }
+        D result = a.clone(false);
+        switch (op) {
+            case AND:
+                result.and(b);
+                break;
+            case OR:
+                result.or(b);
+                break;
+            default:
+                throw new AssertionError(op);
+        }
+        result = canonical(result);
+        synchronized (computed) {
+            computed.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the maximum number of entries in the computed table
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the number of entries in the computed table
+     */
+    public int size() {
+        synchronized (computed) {
+            return computed.size();
+        }
+    }
+
+    /**
+     * @return the number of canonical forms in the unique table (some of which
+     *         may already be unreachable but not yet collected)
+     */
+    public int getNumCanonical() {
+        return unique.size();
+    }
+
+    public long getHits() {
+        synchronized (computed) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (computed) {
+            return misses;
+        }
+    }
+
+    public long getEvictions() {
+        synchronized (computed) {
+            return evictions;
+        }
+    }
+
+    /**
+     * @return the fraction of lookups in the computed table that were hits, or
+     *         0 if there were no lookups
+     */
+    public double getHitRate() {
+        synchronized (computed) {
+            final long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counts.
+     */
+    public void resetStatistics() {
+        synchronized (computed) {
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+    }
+
+    /**
+     * Removes all entries from the computed table (without changing the
+     * statistics). The canonical forms remain in the unique table while they
+     * are referenced elsewhere.
+     */
+    public void clear() {
+        synchronized (computed) {
+            computed.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (computed) {
+            return "FormCache{size=" + computed.size() + "/" + maxEntries + ", hits=" + hits
+                    + ", misses=" + misses + ", evictions=" + evictions + '}';
+        }
+    }
+}
@@ -122,6 +122,56 @@ package boolexpr;
      */
     public <P, E, D extends NormalForm<P, E, D>> D or(D base, D newSentence);
 
+    /**
+     * Soundly over-approximates the given {@link NormalForm} (i.e. the result
+     * is implied by the original) until it is within the bounds of the given
+     * {@link WideningPolicy}.
+     *
+     * @param <P>
+     * @param <E>
+     * @param <D>
+     * @param base
+     * @param policy
+     *
+     * @return the number of phrases of {@code base} that were shortened or
+     *         dropped
+     */
+    public <P, E, D extends NormalForm<P, E, D>> int widen(D base, WideningPolicy policy);
+
+    /**
+     * @return the node of a {@link ZddManager} that represents the literal
+     *         {@code false} (see {@link NormalFormZdd})
+     */
+    public int getFalseNode();
+
+    /**
+     * @return the node of a {@link ZddManager} that represents the literal
+     *         {@code true} (see {@link NormalFormZdd})
+     */
+    public int getTrueNode();
+
+    /**
+     *
+     * @param zdd
+     * @param base        a node of {@code zdd}
+     * @param newSentence a node of {@code zdd}
+     *
+     * @return the node of {@code zdd} that represents
+     *         {@code base & newSentence}
+     */
+    public int and(ZddManager zdd, int base, int newSentence);
+
+    /**
+     *
+     * @param zdd
+     * @param base        a node of {@code zdd}
+     * @param newSentence a node of {@code zdd}
+     *
+     * @return the node of {@code zdd} that represents
+     *         {@code base | newSentence}
+     */
+    public int or(ZddManager zdd, int base, int newSentence);
+
     /**
      * Implementation of {@link FormRules} for disjunctive normal form.
      */
@@ -190,6 +240,46 @@ package boolexpr;
             base.merge(newSentence);
             return base;
         }
+
+        @Override
+        public <P, E, D extends NormalForm<P, E, D>> int widen(D base, WideningPolicy policy) {
+            base.checkModifiability();
+            //RULE: ( A&B | ... ) -> ( A | ... ) since A&B implies A
+            //dropping elements from a phrase weakens it so shorten the longest
+            //  phrases (which then may absorb others) until the bounds are met
+            //NOTE: terminates since the phrases become empty at the latest and
+            //  then only the single phrase "TRUE" remains
+            int retVal = base.shortenPhrases(policy, policy.getMaxPhraseSize());
+            while (base.getNumPhrases() > policy.getMaxPhrases()) {
+                retVal += base.shortenPhrases(policy, base.data.maxPhraseSize() - 1);
+            }
+            return retVal;
+        }
+
+        @Override
+        public int getFalseNode() {
+            //In DNF, FALSE contains no phrases
+            return ZddManager.EMPTY;
+        }
+
+        @Override
+        public int getTrueNode() {
+            //In DNF, TRUE contains only a single empty phrase
+            return ZddManager.BASE;
+        }
+
+        @Override
+        public int and(ZddManager zdd, int base, int newSentence) {
+            //outer operator is OR so each phrase of this must be joined
+            //  with each phrase of newSentence
+            return zdd.crossMin(base, newSentence);
+        }
+
+        @Override
+        public int or(ZddManager zdd, int base, int newSentence) {
+            //outer operator is OR so just add all phrases in the other to this
+            return zdd.unionMin(base, newSentence);
+        }
     };
 
     /**
@@ -260,5 +350,40 @@ package boolexpr;
             base.cross(newSentence);
             return base;
         }
+
+        @Override
+        public <P, E, D extends NormalForm<P, E, D>> int widen(D base, WideningPolicy policy) {
+            base.checkModifiability();
+            //RULE: ( A|B & ... ) -> ( ... ) since A|B & X implies X
+            //dropping a phrase weakens the sentence but dropping elements from
+            //  a phrase would strengthen it so drop the longest phrases (i.e.
+            //  the weakest constraints) until the bounds are met
+            return base.dropLongestPhrases(policy.getMaxPhrases(), policy.getMaxPhraseSize());
+        }
+
+        @Override
+        public int getFalseNode() {
+            //In CNF, FALSE contains only a single empty phrase
+            return ZddManager.BASE;
+        }
+
+        @Override
+        public int getTrueNode() {
+            //In CNF, TRUE contains no phrases
+            return ZddManager.EMPTY;
+        }
+
+        @Override
+        public int and(ZddManager zdd, int base, int newSentence) {
+            //outer operator is AND so just add all phrases in the other to this
+            return zdd.unionMin(base, newSentence);
+        }
+
+        @Override
+        public int or(ZddManager zdd, int base, int newSentence) {
+            //outer operator is AND so each phrase of this must be joined
+            //  with each phrase of newSentence
+            return zdd.crossMin(base, newSentence);
+        }
     };
 }
@@ -0,0 +1,48 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * The order in which {@link DisjunctiveNormalFormInt#compactIds(boolexpr.IdOrder)}
+ * (and {@link ConjunctiveNormalFormInt#compactIds(boolexpr.IdOrder)})
+ * assign the new (dense) ids to the elements in use.
+ *
+ * @author Timothy Hoffman
+ */
+public enum IdOrder {
+    /**
+     * The new ids are in the same relative order as the original ids.
+     */
+    ASCENDING,
+    /**
+     * The elements appearing in the most phrases get the smallest ids (ties
+     * are broken by the original ids).
+     */
+    FREQUENCY,
+    /**
+     * The elements that appear together in a phrase get consecutive ids (as
+     * far as possible), i.e. the ids are assigned in the order the elements
+     * are first encountered when visiting the phrases from largest to
+     * smallest.
+     */
+    COOCCURRENCE
+}
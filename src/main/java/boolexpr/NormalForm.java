@@ -22,7 +22,7 @@ package boolexpr;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Conjunctive or disjunctive normal form of a boolean expression with methods
@@ -46,6 +46,47 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      */
     private static final boolean ENABLE_DEBUG_ASSERTS = false;
 
+    /**
+     * Minimum number of phrases at which a {@link NormalForm} begins to
+     * maintain a subset/superset index (see {@link SetTrie}) of its phrases.
+     * Below this threshold, absorption checks simply scan all phrases which is
+     * faster than maintaining the index. Use {@link Integer#MAX_VALUE} to
+     * disable the index entirely.
+     *
+     * NOTE: initialized from {@link Tuning#SUBSET_INDEX_THRESHOLD}
+     */
+    public static int SUBSET_INDEX_THRESHOLD = Tuning.SUBSET_INDEX_THRESHOLD.getStored();
+
+    /**
+     * Minimum number of phrases at which a {@link NormalForm} begins to
+     * maintain an inverted index from each element to the phrases containing
+     * it (see {@link PostingIndex}). The index speeds up
+     * {@link #containsProp(java.lang.Object)},
+     * {@link #countProp(java.lang.Object)}, {@link #replaceAll(java.util.Map)},
+     * and {@link #resolveAll(java.util.Map)} when few phrases contain the
+     * elements of interest but requires memory proportional to the total
+     * number of elements in all phrases. The default,
+     * {@link Integer#MAX_VALUE}, disables the index entirely.
+     *
+     * NOTE: initialized from {@link Tuning#POSTING_INDEX_THRESHOLD}
+     */
+    public static int POSTING_INDEX_THRESHOLD = Tuning.POSTING_INDEX_THRESHOLD.getStored();
+
+    /**
+     * If {@code true}, every phrase added to a {@link NormalForm} is replaced
+     * by a canonical instance from a global weak intern table (see
+     * {@link #intern(java.lang.Object)}) so that equal phrases in different
+     * forms are the same object. This reduces the memory used by many forms
+     * over the same phrases and makes equality checks between canonical
+     * phrases a reference comparison, at the cost of a table lookup for each
+     * added phrase and of cloning each phrase before it is modified (since
+     * interned phrases are frozen). Phrases already contained in a form when
+     * this is enabled are not interned retroactively.
+     *
+     * NOTE: initialized from {@link Tuning#INTERN_PHRASES}
+     */
+    public static boolean INTERN_PHRASES = Tuning.INTERN_PHRASES.getStored() != 0;
+
     /**
      * Marks if {@code this} is modifiable. If {@code false}, any attempt to
      * modify will throw an {@link UnsupportedOperationException}.
@@ -54,6 +95,15 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      */
     protected final boolean preventModification;
 
+    /**
+     * Cached {@link #hashCode()} of an unmodifiable {@link NormalForm} (or 0
+     * if not yet computed) so that it can be looked up in hash tables (e.g.
+     * by {@link FormCache}) in constant time.
+     *
+     * NOTE: races are harmless since every thread computes the same value
+     */
+    private int cachedHash;
+
     /**
      *
      */
@@ -61,22 +111,27 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
 
     /**
      * The inner data is stored in an {@link EnumSet} for efficient storage. The
-     * outer data is stored in a {@link HashSet} for efficient lookup but
-     * whenever the hashed {@link EnumSet} changes, it must be rehashed.
+     * outer data is stored in a {@link PhraseSet} (grouped by phrase size) for
+     * efficient lookup but whenever the hashed {@link EnumSet} changes, it must
+     * be rehashed.
      */
-    protected final HashSet<PhraseType> data;
+    protected final PhraseSet<PhraseType> data;
 
     /**
-     * Base constructor. Creates an empty {@link NormalForm}.
+     * Base constructor. Creates an empty {@link NormalForm} or, if
+     * {@code shareWith} is non-{@code null}, one that shares the state of the
+     * given {@link PhraseSet} (see {@link PhraseSet#share(NormalForm)}).
      *
      * @param formRules
      * @param unmodifiable whether or not the new instance should be marked as
      *                     unmodifiable/immutable
+     * @param shareWith
      */
-    private NormalForm(FormRules formRules, boolean unmodifiable) {
+    private NormalForm(FormRules formRules, boolean unmodifiable, PhraseSet<PhraseType> shareWith) {
+        Tuning.calibrateAtStartup();
         this.preventModification = unmodifiable;
         this.formRules = formRules;
-        this.data = new HashSet<>();
+        this.data = shareWith == null ? new PhraseSet<>(this) : shareWith.share(this);
     }
 
     /**
@@ -88,7 +143,7 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @param firstPhrase
      */
     protected NormalForm(FormRules formRules, PhraseType firstPhrase) {
-        this(formRules, false);
+        this(formRules, false, null);
         //Since {@code this} is empty, just add directly (if non-null)
         if (firstPhrase != null) {
             data.add(firstPhrase);
@@ -101,11 +156,17 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @param formRules
      */
     protected NormalForm(FormRules formRules) {
-        this(formRules, false);
+        this(formRules, false, null);
     }
 
     /**
-     * Copy constructor, performs a deep copy of the given {@link NormalForm}.
+     * Copy constructor, creates a copy of the given {@link NormalForm} in
+     * constant time. The copy shares the {@link PhraseSet} state of
+     * {@code original} until either one is modified, at which point the
+     * modified one first takes a copy of it (see
+     * {@link #checkModifiability()}). The phrases remain shared and are only
+     * cloned when they are modified (see {@link #mutable(java.lang.Object)}).
+     * Thus, the copy behaves exactly like a deep copy.
      *
      * @param original     the {@link NormalForm} to duplicate
      * @param unmodifiable whether or not the new instance should be marked as
@@ -114,18 +175,12 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @throws NullPointerException if {@code original} is {@code null}
      */
     protected NormalForm(ConcreteType original, boolean unmodifiable) {
-        this(original.formRules, unmodifiable);
+        this(original.formRules, unmodifiable, original.data);
 
-        //NOTE: assert that absorption holds in {@code original}, so there is
-        //  no need to use tryAddWithAbsorption
+        //NOTE: absorption holds in {@code original} and thus in the copy
         if (ENABLE_DEBUG_ASSERTS) {
             assert original.satisfiesAbsorptionLaw();
         }
-
-        //Peform a deep copy by cloning the underlying phrases
-        for (PhraseType s : original.data) {
-            this.data.add(clone(s));
-        }
     }
 
     @SuppressWarnings("unchecked")
@@ -133,10 +188,22 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         return (ConcreteType) this;
     }
 
+    /**
+     * Checks that {@code this} is modifiable and ensures that {@code this} no
+     * longer shares its {@link PhraseSet} state with any copy made by the copy
+     * constructor so the caller is free to modify {@link #data} (but the
+     * phrases within it only via {@link #mutable(java.lang.Object)}).
+     *
+     * NOTE: every operation that modifies {@code this} must call this method
+     * before accessing {@link #data}.
+     *
+     * @throws UnsupportedOperationException if {@code this} is unmodifiable
+     */
     protected final void checkModifiability() {
         if (preventModification) {
             throw new UnsupportedOperationException("Modification is not allowed");
         }
+        data.ensureExclusive();
     }
 
     public final boolean isUnmodifiable() {
@@ -144,12 +211,15 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
     }
 
     /**
-     * Returns an unmodifiable copy of {@code this}.
+     * Returns an unmodifiable copy of {@code this}. This takes constant time
+     * since the copy shares the phrases of {@code this} (see the copy
+     * constructor) and, if {@code this} is already unmodifiable, {@code this}
+     * is returned.
      *
      * @return
      */
     public ConcreteType asUnmodifiable() {
-        return clone(true);
+        return preventModification ? getConcreteThis() : clone(true);
     }
 
     /**
@@ -237,15 +307,83 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      */
     //NOTE: not private so that MergeTask does not require synth bridge to call
     boolean absorbs(PhraseType x, PhraseType y) {
+        return absorbs(x, signature(x), y, signature(y));
+    }
+
+    /**
+     * Same as {@link #absorbs(java.lang.Object, java.lang.Object)} but uses
+     * the given signatures (see {@link #signature(java.lang.Object)}) so that
+     * loops can compute the signature of a fixed phrase only once.
+     *
+     * @param x
+     * @param sigX the signature of {@code x}
+     * @param y
+     * @param sigY the signature of {@code y}
+     *
+     * @return true iff x absorbs y
+     */
+    //NOTE: not private so that MergeTask does not require synth bridge to call
+    boolean absorbs(PhraseType x, long sigX, PhraseType y, long sigY) {
         //OBSERVATION: I printed out all calls to this method to discover if
         //  there was opportunity for caching the results. It turns out that
         //  only a very small percent of calls are duplicates.
         //
         //NOTE: I wonder if the size check is actually much slower than just
         //  doing the contains check...
+        //
+        //NOTE: most calls return false so first try to reject via signatures.
+        //  If 'x' has an element whose signature bit is not in 'y' then 'x'
+        //  cannot be a subset of 'y'.
+        if ((sigX & ~sigY) != 0L) {
+            if (COLLECT_ABSORPTION_STATS) {
+                SIGNATURE_REJECTIONS.increment();
+            }
+            return false;
+        }
+        if (COLLECT_ABSORPTION_STATS) {
+            FULL_ABSORPTION_CHECKS.increment();
+        }
         return /*size(y) < size(x) ? false :*/ containsAll(y, x);
     }
 
+    /**
+     * When {@code true}, phrase absorption checks are counted (see
+     * {@link #getNumSignatureRejections()} and
+     * {@link #getNumFullAbsorptionChecks()}). Disabled by default since there
+     * can be a very large number of checks.
+     */
+    public static boolean COLLECT_ABSORPTION_STATS = false;
+
+    private static final LongAdder SIGNATURE_REJECTIONS = new LongAdder();
+
+    private static final LongAdder FULL_ABSORPTION_CHECKS = new LongAdder();
+
+    /**
+     * @return the number of phrase absorption checks that were decided by the
+     *         phrase signatures alone (i.e. full checks that were avoided)
+     *         since the last {@link #resetAbsorptionCounters()}
+     */
+    public static long getNumSignatureRejections() {
+        return SIGNATURE_REJECTIONS.sum();
+    }
+
+    /**
+     * @return the number of phrase absorption checks that required the full
+     *         subset check since the last {@link #resetAbsorptionCounters()}
+     */
+    public static long getNumFullAbsorptionChecks() {
+        return FULL_ABSORPTION_CHECKS.sum();
+    }
+
+    /**
+     * Resets the counters reported by {@link #getNumSignatureRejections()}
+     * and {@link #getNumFullAbsorptionChecks()}.
+     */
+    public static void resetAbsorptionCounters() {
+        SIGNATURE_REJECTIONS.reset();
+        FULL_ABSORPTION_CHECKS.reset();
+    }
+
     /**
      * {@code this} absorbs {@code phrase} iff some phrase in {@code this}
      * absorbs {@code phrase}.
@@ -255,8 +393,18 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @return true iff {@code this} absorbs {@code phrase}
      */
     protected boolean thisAbsorbsPhrase(PhraseType phrase) {
-        for (PhraseType p : this.data) {
-            if (absorbs(p, phrase)) {
+        if (this.data.isIndexed()) {
+            return this.data.containsAbsorberOf(phrase);
+        }
+        //Only a phrase that is no larger can absorb 'phrase' and among the
+        //  phrases of the same size, only an equal phrase can absorb it.
+        final int phraseSize = size(phrase);
+        if (this.data.bucket(phraseSize).contains(phrase)) {
+            return true;
+        }
+        final long phraseSig = signature(phrase);
+        for (PhraseType p : this.data.smallerThan(phraseSize)) {
+            if (absorbs(p, signature(p), phrase, phraseSig)) {
                 return true;
             }
         }
@@ -296,7 +444,7 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @return
      */
     protected boolean satisfiesAbsorptionLaw() {
-        final HashSet<PhraseType> thisDataRef = this.data;
+        final PhraseSet<PhraseType> thisDataRef = this.data;
         for (PhraseType a : thisDataRef) {
             for (PhraseType b : thisDataRef) {
                 if (a != b) {
@@ -318,19 +466,36 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * it is not cloned within this method).
      *
      * @param newPhrase
+     *
+     * @return {@code true} iff {@code newPhrase} was added to {@code this}
      */
-    protected final void tryAddWithAbsorption(PhraseType newPhrase) {
+    protected final boolean tryAddWithAbsorption(PhraseType newPhrase) {
         checkModifiability();
         if (ENABLE_DEBUG_ASSERTS) {
             assert this.satisfiesAbsorptionLaw();
         }
-        for (Iterator<PhraseType> itr = data.iterator(); itr.hasNext();) {
-            PhraseType oldPhrase = itr.next();
-            if (absorbs(oldPhrase, newPhrase)) {
+        if (data.isIndexed()) {
+            return data.addWithAbsorption(newPhrase, false);
+        }
+        //A phrase can only absorb phrases that are at least as large as itself
+        //  so the smaller phrases are only checked for absorbing the new one
+        //  and the larger phrases are only checked for being absorbed by it.
+        //  Among phrases of the same size, only an equal phrase is relevant.
+        final int newSize = size(newPhrase);
+        if (data.bucket(newSize).contains(newPhrase)) {
+            return false;
+        }
+        final long newSig = signature(newPhrase);
+        for (PhraseType oldPhrase : data.smallerThan(newSize)) {
+            if (absorbs(oldPhrase, signature(oldPhrase), newPhrase, newSig)) {
                 //old absorbs new, so the new one should not be added
                 //it is enough that just one old phrase absorbs the new phrase
-                return;
-            } else if (absorbs(newPhrase, oldPhrase)) {
+                return false;
+            }
+        }
+        for (Iterator<PhraseType> itr = data.largerThan(newSize).iterator(); itr.hasNext();) {
+            PhraseType oldPhrase = itr.next();
+            if (absorbs(newPhrase, newSig, oldPhrase, signature(oldPhrase))) {
                 //new absorbs old so remove the old one
                 //new phrase may absorb multiple old phrases so keep searching
                 itr.remove();
@@ -338,6 +503,369 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         }
         //finally, add the new phrase
         data.add(newPhrase);
+        return true;
+    }
+
+    /**
+     * Add all of the given phrases to {@code this} (applying absorption law as
+     * necessary). This is equivalent to calling
+     * {@link #tryAddWithAbsorption(java.lang.Object)} with a clone of each
+     * phrase but much faster when there are many phrases.
+     *
+     * NOTE: the given phrases are not modified and {@code this} does not take
+     * ownership of them (i.e. they are cloned as needed).
+     *
+     * @param phrases
+     */
+    public void addAllPhrases(Collection<PhraseType> phrases) {
+        addAllPhrases_internal(phrases, true);
+    }
+
+    /**
+     * Bulk version of {@link #tryAddWithAbsorption(java.lang.Object)}. Rather
+     * than checking each new phrase against all others as it is added, the
+     * phrases (including those already in {@code this}) are ordered by
+     * increasing size and a single pass keeps each phrase that is not absorbed
+     * by (or equal to) an earlier kept phrase. A phrase can only be absorbed
+     * by a phrase that is no larger so no phrase is ever checked against a
+     * larger phrase and no kept phrase is ever removed.
+     *
+     * NOTE: {@code null} phrases are ignored.
+     *
+     * @param phrases
+     * @param cloneOnAdd if {@code false}, {@code this} takes ownership of the
+     *                   phrases that are added
+     */
+    protected final void addAllPhrases_internal(Collection<PhraseType> phrases, boolean cloneOnAdd) {
+        checkModifiability();
+        addAllPhrases_unchecked(phrases, cloneOnAdd, false);
+    }
+
+    /**
+     * Implementation of {@link #addAllPhrases_internal(java.util.Collection, boolean)}
+     * that does not check if {@code this} is modifiable (for use by
+     * {@link Builder}).
+     *
+     * @param phrases
+     * @param cloneOnAdd if {@code false}, {@code this} takes ownership of the
+     *                   phrases that are added
+     * @param parallel   if {@code true}, the absorption checks for large groups
+     *                   of phrases are run in parallel according to
+     *                   {@link ExecutionPolicy#current()}
+     */
+    private void addAllPhrases_unchecked(Collection<PhraseType> phrases, boolean cloneOnAdd, boolean parallel) {
+        if (ENABLE_DEBUG_ASSERTS) {
+            assert this.satisfiesAbsorptionLaw();
+        }
+        if (phrases.isEmpty()) {
+            return;
+        }
+        //Group the existing and new phrases by size (separately)
+        ArrayList<ArrayList<PhraseType>> existingBySize = new ArrayList<>();
+        for (PhraseType p : this.data) {
+            addToGroup(existingBySize, size(p), p);
+        }
+        ArrayList<ArrayList<PhraseType>> newBySize = new ArrayList<>();
+        int numNew = 0;
+        for (PhraseType p : phrases) {
+            if (p != null) {
+                addToGroup(newBySize, size(p), p);
+                numNew++;
+            }
+        }
+        if (numNew == 0) {
+            return;
+        }
+        //Single minimization pass by increasing size using a subset index of
+        //  the phrases kept so far. Existing phrases that are absorbed are
+        //  removed from 'this' and new phrases that are kept are added.
+        //NOTE: the phrases of each size are first checked against the kept
+        //  phrases of smaller sizes only (which can be done concurrently since
+        //  the index is not modified) and then the survivors are added to the
+        //  index, dropping duplicates. For each size, the existing phrases are
+        //  visited first so that they are kept rather than an equal new phrase.
+        //NOTE: SparseBitSet#hashCode() matches BitSet#hashCode() which has
+        //  many collisions when the elements are small so avoid hashing the
+        //  new phrases to find duplicates.
+        //NOTE: when 'this' is empty, the kept phrases are collected and added
+        //  at the end so the index can be reused by 'this.data'.
+        final boolean wasEmpty = this.data.isEmpty();
+        final ArrayList<PhraseType> result = wasEmpty ? new ArrayList<PhraseType>(numNew) : null;
+        final SetTrie<PhraseType> kept = new SetTrie<>();
+        for (int n = 0, max = Math.max(existingBySize.size(), newBySize.size()); n < max; n++) {
+            ArrayList<PhraseType> existingGroup = n < existingBySize.size() ? existingBySize.get(n) : null;
+            ArrayList<PhraseType> newGroup = n < newBySize.size() ? newBySize.get(n) : null;
+            int[][] existingKeys = existingGroup == null ? null : keysUnlessAbsorbed(existingGroup, kept, parallel);
+            int[][] newKeys = newGroup == null ? null : keysUnlessAbsorbed(newGroup, kept, parallel);
+            if (existingGroup != null) {
+                for (int i = 0, e = existingGroup.size(); i < e; i++) {
+                    PhraseType p = existingGroup.get(i);
+                    if (existingKeys[i] == null) {
+                        this.data.remove(p);
+                    } else {
+                        kept.add(existingKeys[i], p);
+                    }
+                }
+            }
+            if (newGroup != null) {
+                for (int i = 0, e = newGroup.size(); i < e; i++) {
+                    final int[] keys = newKeys[i];
+                    if (keys != null && !kept.contains(keys)) {
+                        PhraseType p = newGroup.get(i);
+                        if (cloneOnAdd) {
+                            p = clone(p);
+                        }
+                        kept.add(keys, p);
+                        if (wasEmpty) {
+                            result.add(p);
+                        } else {
+                            this.data.add(p);
+                        }
+                    }
+                }
+            }
+        }
+        if (wasEmpty) {
+            this.data.addAllWithIndex(result, kept);
+        }
+        if (ENABLE_DEBUG_ASSERTS) {
+            assert this.satisfiesAbsorptionLaw();
+        }
+    }
+
+    /**
+     * @param group
+     * @param kept
+     * @param parallel
+     *
+     * @return array parallel to {@code group} containing the sorted keys of
+     *         each phrase or {@code null} if the phrase is absorbed by some
+     *         phrase in {@code kept}
+     */
+    private int[][] keysUnlessAbsorbed(final ArrayList<PhraseType> group, final SetTrie<PhraseType> kept, boolean parallel) {
+        final int total = group.size();
+        final int[][] retVal = new int[total][];
+        final ExecutionPolicy policy = parallel ? ExecutionPolicy.current() : ExecutionPolicy.SEQUENTIAL;
+        final int minPerTask = Tuning.MIN_PHRASES_PER_TASK.getInt();
+        if (!policy.isSequential() && total >= 2L * minPerTask) {
+            final int grain = Math.max(minPerTask, RangeTask.grainFor(total, policy.getParallelism()));
+            policy.invoke(new KeysUnlessAbsorbedTask(group, kept, retVal, 0, total, grain));
+        } else {
+            keysUnlessAbsorbed(group, kept, retVal, 0, total);
+        }
+        return retVal;
+    }
+
+    private final class KeysUnlessAbsorbedTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final ArrayList<PhraseType> group;
+        final SetTrie<PhraseType> kept;
+        final int[][] dst;
+
+        KeysUnlessAbsorbedTask(ArrayList<PhraseType> group, SetTrie<PhraseType> kept, int[][] dst, int from, int to, int grain) {
+            super(from, to, grain);
+            this.group = group;
+            this.kept = kept;
+            this.dst = dst;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new KeysUnlessAbsorbedTask(group, kept, dst, from, to, grain);
+        }
+
+        @Override
+        protected void computeRange(int from, int to) {
+            keysUnlessAbsorbed(group, kept, dst, from, to);
+        }
+    }
+
+    private void keysUnlessAbsorbed(ArrayList<PhraseType> group, SetTrie<PhraseType> kept, int[][] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final int[] keys = toSortedKeys(group.get(i));
+            if (!kept.containsSubsetOf(keys)) {
+                dst[i] = keys;
+            }
+        }
+    }
+
+    private static <T> void addToGroup(ArrayList<ArrayList<T>> groups, int idx, T item) {
+        while (groups.size() <= idx) {
+            groups.add(null);
+        }
+        ArrayList<T> group = groups.get(idx);
+        if (group == null) {
+            groups.set(idx, group = new ArrayList<>());
+        }
+        group.add(item);
+    }
+
+    /**
+     * Collects phrases for a new {@link NormalForm} without applying the
+     * absorption law as each phrase is added. Instead, the absorption law is
+     * applied once to all of the collected phrases by {@link #build()} (see
+     * {@link #addAllPhrases(java.util.Collection)}). This is much faster than
+     * building a large {@link NormalForm} by adding one phrase at a time (i.e.
+     * via {@link #merge(NormalForm)}, {@link #and(NormalForm)}, etc.) when
+     * only the final result is needed.
+     *
+     * NOTE: a {@link Builder} is not thread-safe.
+     *
+     * @param <PhraseType>
+     * @param <ElemType>
+     * @param <ConcreteType>
+     * @param <BuilderType>  the concrete {@link Builder} type
+     */
+    public static abstract class Builder<PhraseType, ElemType, ConcreteType extends NormalForm<PhraseType, ElemType, ConcreteType>, BuilderType extends Builder<PhraseType, ElemType, ConcreteType, BuilderType>> {
+
+        /**
+         * An empty instance used to create the result of {@link #build()} and
+         * to access the phrase operations of {@code ConcreteType}. It is never
+         * modified.
+         */
+        private final ConcreteType template;
+
+        private ArrayList<PhraseType> phrases = new ArrayList<>();
+
+        private boolean unmodifiable = false;
+
+        private boolean parallel = false;
+
+        /**
+         * @param template an empty {@link NormalForm} of the type to build
+         */
+        protected Builder(ConcreteType template) {
+            assert template.isEmpty();
+            this.template = template;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected final BuilderType getConcreteThis() {
+            return (BuilderType) this;
+        }
+
+        /**
+         * Creates a new phrase containing the given elements.
+         *
+         * @param elems
+         *
+         * @return
+         */
+        private PhraseType createPhrase(Iterable<ElemType> elems) {
+            PhraseType retVal = template.createSingleton(null);
+            for (ElemType e : elems) {
+                template.add(retVal, e);
+            }
+            return retVal;
+        }
+
+        /**
+         * Adds a copy of the given phrase. {@code null} is ignored.
+         *
+         * @param phrase
+         *
+         * @return {@code this}
+         */
+        public BuilderType addPhrase(PhraseType phrase) {
+            if (phrase != null) {
+                phrases.add(template.clone(phrase));
+            }
+            return getConcreteThis();
+        }
+
+        /**
+         * Adds a new phrase containing the given elements.
+         *
+         * @param elems
+         *
+         * @return {@code this}
+         */
+        public BuilderType addPhrase(Collection<ElemType> elems) {
+            return addNewPhrase(createPhrase(elems));
+        }
+
+        /**
+         * Adds the given phrase without making a copy, i.e. the result of
+         * {@link #build()} takes ownership of the phrase.
+         *
+         * @param phrase a phrase that is not referenced elsewhere
+         *
+         * @return {@code this}
+         */
+        protected final BuilderType addNewPhrase(PhraseType phrase) {
+            phrases.add(phrase);
+            return getConcreteThis();
+        }
+
+        /**
+         * Adds every phrase in the given {@link NormalForm}. The phrases are
+         * shared with the given {@link NormalForm} rather than copied (see
+         * {@link NormalForm#mutable(java.lang.Object)}).
+         *
+         * @param form
+         *
+         * @return {@code this}
+         */
+        public BuilderType addAllPhrases(ConcreteType form) {
+            phrases.ensureCapacity(phrases.size() + form.data.size());
+            for (PhraseType p : form.data) {
+                template.freeze(p);
+                phrases.add(p);
+            }
+            return getConcreteThis();
+        }
+
+        /**
+         * @param unmodifiable whether or not the result of {@link #build()}
+         *                     should be marked as unmodifiable/immutable
+         *
+         * @return {@code this}
+         */
+        public BuilderType unmodifiable(boolean unmodifiable) {
+            this.unmodifiable = unmodifiable;
+            return getConcreteThis();
+        }
+
+        /**
+         * @param parallel whether or not {@link #build()} should run the
+         *                 absorption checks in parallel according to the
+         *                 {@link ExecutionPolicy} of the calling thread (only
+         *                 used when there are many phrases)
+         *
+         * @return {@code this}
+         */
+        public BuilderType parallel(boolean parallel) {
+            this.parallel = parallel;
+            return getConcreteThis();
+        }
+
+        /**
+         * @return the number of phrases added to {@code this} since it was
+         *         created or last built (including any duplicate or absorbed
+         *         phrases)
+         */
+        public int getNumPhrases() {
+            return phrases.size();
+        }
+
+        /**
+         * Creates a new {@link NormalForm} containing the phrases added to
+         * {@code this} after applying the absorption law. If no phrases were
+         * added, the result is empty. Afterwards, {@code this} is empty and can
+         * be reused.
+         *
+         * @return
+         */
+        public ConcreteType build() {
+            ConcreteType retVal = template.clone(unmodifiable);
+            //NOTE: the new instance takes ownership of the recorded phrases
+            //  since they were already copied as they were added.
+            ((NormalForm<PhraseType, ElemType, ConcreteType>) retVal).addAllPhrases_unchecked(phrases, false, parallel);
+            phrases = new ArrayList<>();
+            return retVal;
+        }
     }
 
     /**
@@ -368,6 +896,7 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
             if (ENABLE_DEBUG_ASSERTS) {
                 assert this.satisfiesAbsorptionLaw();
             }
+            widenIfNeeded(OperationContext.current());
         }
     }
 
@@ -417,25 +946,25 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         ArrayList<PhraseType> thisCopy = new ArrayList<>(this.data);
         this.data.clear();
         //NOTE: it is safe to modify/consume the phrases in 'thisCopy' 
-        //  since they have been removed from 'this'.
+        //  since they have been removed from 'this' (but shared phrases must
+        //  be cloned first, see mutable(..)).
         for (PhraseType phraseA : thisCopy) {
             if (contains(phraseA, newProp)) {
-                //cannot be absorbed so directly add it
-                add(phraseA, newProp);
+                //cannot be absorbed (nor changed) so directly add it
                 this.data.add(phraseA);
             } else {
                 //might be absorbed so postpone adding
-                add(phraseA, newProp);
-                maybeAbsorbed.add(phraseA);
+                PhraseType updated = mutable(phraseA);
+                add(updated, newProp);
+                maybeAbsorbed.add(updated);
             }
         }
+        //NOTE: phrases in 'maybeAbsorbed' cannot absorb each other (none of
+        //  them contained 'newProp' and they did not absorb each other before)
+        //  so they only need to be checked against the phrases in 'data'.
         for (Iterator<PhraseType> itr = maybeAbsorbed.iterator(); itr.hasNext();) {
-            PhraseType absorbee = itr.next();
-            for (PhraseType absorber : this.data) {
-                if (absorbs(absorber, absorbee)) {
-                    itr.remove();
-                    break;//break inner loop
-                }
+            if (thisAbsorbsPhrase(itr.next())) {
+                itr.remove();
             }
         }
         this.data.addAll(maybeAbsorbed);
@@ -514,11 +1043,11 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                 ArrayList<PhraseType> thisCopy = new ArrayList<>(this.data);
                 this.data.clear();
                 //NOTE: it is safe to modify/consume the phrases in 'thisCopy' 
-                //  and 'maybeAbsorbed' since they have been removed from 'this'.
+                //  and 'maybeAbsorbed' since they have been removed from 'this'
+                //  (but shared phrases must be cloned first, see mutable(..)).
                 for (PhraseType phraseA : thisCopy) {
                     if (containsAll(phraseA, newPhrase)) {
-                        //cannot be absorbed so directly add it
-                        addAll(phraseA, newPhrase);
+                        //cannot be absorbed (nor changed) so directly add it
                         this.data.add(phraseA);
                     } else {
                         //might be absorbed so postpone adding
@@ -527,36 +1056,43 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                 }
                 //Now, iterate the new phrase and add each elem in turn similar
                 //  to appendElemToEachPhrase_internal(..)
+                //NOTE: the lists are reused for every element (swapping the
+                //  roles of 'couldBeAbsorbed' and 'couldBeAbsorbedCopy') rather
+                //  than allocating new lists for each element.
+                ArrayList<PhraseType> maybeAbsorbed = new ArrayList<>();
+                ArrayList<PhraseType> couldBeAbsorbedCopy = new ArrayList<>(couldBeAbsorbed.size());
                 for (Iterator<ElemType> npItr = iterator(newPhrase, false); npItr.hasNext();) {
                     ElemType newProp = npItr.next();
-                    ArrayList<PhraseType> maybeAbsorbed = new ArrayList<>();
-                    //create a copy of data and clear data
-                    ArrayList<PhraseType> couldBeAbsorbedCopy = new ArrayList<>(couldBeAbsorbed);
+                    maybeAbsorbed.clear();
+                    //swap the lists so 'couldBeAbsorbedCopy' has the contents
+                    //  and 'couldBeAbsorbed' is empty
+                    ArrayList<PhraseType> tmp = couldBeAbsorbedCopy;
+                    couldBeAbsorbedCopy = couldBeAbsorbed;
+                    couldBeAbsorbed = tmp;
                     couldBeAbsorbed.clear();
                     //NOTE: it is safe to modify/consume the phrases in 'thisCopy' 
                     //  since they have been removed from 'this'.
                     for (PhraseType phraseA : couldBeAbsorbedCopy) {
                         if (contains(phraseA, newProp)) {
-                            //cannot be absorbed so directly add it
-                            add(phraseA, newProp);
+                            //cannot be absorbed (nor changed) so directly add it
                             couldBeAbsorbed.add(phraseA);
                         } else {
                             //might be absorbed so postpone adding
-                            add(phraseA, newProp);
-                            maybeAbsorbed.add(phraseA);
+                            PhraseType updated = mutable(phraseA);
+                            add(updated, newProp);
+                            maybeAbsorbed.add(updated);
                         }
                     }
                     OUTER:
                     for (Iterator<PhraseType> itr = maybeAbsorbed.iterator(); itr.hasNext();) {
                         PhraseType absorbee = itr.next();
-                        for (PhraseType absorber : this.data) {
-                            if (absorbs(absorber, absorbee)) {
-                                itr.remove();
-                                continue OUTER;//continue outer loop
-                            }
+                        if (thisAbsorbsPhrase(absorbee)) {
+                            itr.remove();
+                            continue;//continue outer loop
                         }
+                        final long absorbeeSig = signature(absorbee);
                         for (PhraseType absorber : couldBeAbsorbed) {
-                            if (absorbs(absorber, absorbee)) {
+                            if (absorbs(absorber, signature(absorber), absorbee, absorbeeSig)) {
                                 itr.remove();
                                 continue OUTER;//continue outer loop
                             }
@@ -583,130 +1119,145 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         }
     }
 
-    //Global static thread pool for use by any method, creates only Daemon
-    //  threads and allows 
-    protected static final ExecutorService POOL;
+    private final class MergeTask extends RangeTask {
 
-    static {
-        ThreadFactory threadFactory = new ThreadFactory() {
-            //Simplified version of Executors.defaultThreadFactory() that always
-            //  creates daemon threads with a more descriptive name.
-            private final AtomicInteger threadNumber = new AtomicInteger(1);
-            private final ThreadGroup group;
+        private static final long serialVersionUID = 1L;
 
-            {
-                SecurityManager s = System.getSecurityManager();
-                group = (s != null) ? s.getThreadGroup()
-                        : Thread.currentThread().getThreadGroup();
-            }
+        ArrayList<PhraseType> toRemove = new ArrayList<>();
+        final ArrayList<PhraseType> otherDataListRef;
 
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(group, r, "NormalForm-" + threadNumber.getAndIncrement());
-                if (!t.isDaemon()) {
-                    t.setDaemon(true);
+        /**
+         * @param otherDataListRef
+         * @param from             inclusive
+         * @param to               exclusive
+         * @param grain
+         */
+        MergeTask(ArrayList<PhraseType> otherDataListRef, int from, int to, int grain) {
+            super(from, to, grain);
+            this.otherDataListRef = otherDataListRef;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new MergeTask(otherDataListRef, from, to, grain);
+        }
+
+        @Override
+        protected void joined(RangeTask left, RangeTask right) {
+            final MergeTask l = half(left);
+            final MergeTask r = half(right);
+            toRemove = l.toRemove;
+            toRemove.addAll(r.toRemove);
+        }
+
+        @Override
+        protected void computeRange(int startIncl, int endExcl) {
+            //Just like the single-threaded version in merge(ConcreteType), iterate
+            //  'this.data' and check for absorption but only among the given range.
+            //  And instead of directly removing from 'this.data', store in the
+            //  'toRemove' list to be removed synchronously at a later time.
+
+            //Maybe make things faster by keeping local refs to this.*
+            final NormalForm<PhraseType, ElemType, ConcreteType> _this = NormalForm.this;
+            final PhraseSet<PhraseType> _thisData = _this.data;
+
+            //
+            //
+            //TODO: is this approach actually faster? I'm not convinced it is.
+            //The prior approach had the 'this' loop on the outside, however, 
+            //  there was an issue w/ making sure the clone(phrB) happened.
+            //UPDATE: actually, I think it's fine. The runtime of callGraphProc
+            //  was still around 14min for h2 so I don't think it's worse.
+            //
+            //
+            NEXT_PHRASE:
+            for (int i = startIncl; i < endExcl; i++) {
+                context.checkpoint();
+                PhraseType phrB = otherDataListRef.get(i);
+                //NOTE: 'phrB' cannot yet be null since it's only traversed once
+                //NOTE: Only the phrases from A that are no larger than B
+                //  can absorb B and only those that are no smaller can
+                //  be absorbed by B. For the same size, only an equal
+                //  phrase is relevant and it absorbs B.
+                final int sizeB = _this.size(phrB);
+                if (_thisData.bucket(sizeB).contains(phrB)) {
+                    otherDataListRef.set(i, null);
+                    continue;
                 }
-                if (t.getPriority() != Thread.NORM_PRIORITY) {
-                    t.setPriority(Thread.NORM_PRIORITY);
+                final long sigB = _this.signature(phrB);
+                for (PhraseType phrA : _thisData.smallerThan(sizeB)) {
+                    if (absorbs(phrA, _this.signature(phrA), phrB, sigB)) {
+                        //Phrase A absorbs phrase B, so B should not be added
+                        otherDataListRef.set(i, null);
+                        //break inner loop to proceed to next B w/o cloning
+                        //NOTE: since 'this' satisfies the absorption law,
+                        //  B cannot also absorb any phrase from A so there
+                        //  is nothing in 'toRemove' to undo.
+                        continue NEXT_PHRASE;
+                    }
+                }
+                for (PhraseType phrA : _thisData.largerThan(sizeB)) {
+                    //If A is already marked for removal, no need to check again
+                    //UPDATE: this check can actually be very slow!
+                    if (absorbs(phrB, sigB, phrA, _this.signature(phrA))) {
+                        //Phrase B absorbs phrase A, so mark A for removal
+                        toRemove.add(phrA);
+                        //It's possible for B to absorb more than one phrase
+                        //  from A so continue to loop over the all A.
+                    }
                 }
-                return t;
+                //Finally, if B is to be preserved/added, it will be shared by
+                //  two NormalForm instances so it must be frozen.
+                _this.freeze(phrB);
             }
-        };
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        ThreadPoolExecutor tempPool
-                = new ThreadPoolExecutor(numThreads, numThreads,
-                        30L, TimeUnit.SECONDS,//NOTE: if changing this, also consider chaning Helpers
-                        new LinkedBlockingQueue<Runnable>(), threadFactory);
-        tempPool.allowCoreThreadTimeOut(true);
-        POOL = tempPool;
+        }
     }
 
-    private class MergeTask implements Runnable {
+    /**
+     * Computes the cross product of the phrases of {@code this} with the
+     * phrases of {@code other} in the given range (see
+     * {@link #addAllUnions(java.util.List, java.util.List, int, int, boolexpr.OperationContext)}).
+     * The results of the halves are merged when they complete so they form a
+     * balanced tree of merges.
+     */
+    private final class CrossTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
 
-        final ArrayList<PhraseType> toRemove = new ArrayList<>();
-        final int currThreadNum;
-        final CountDownLatch latch;
+        final ArrayList<PhraseType> thisDataListRef;
         final ArrayList<PhraseType> otherDataListRef;
-        final int totalNumThreads;
+        ConcreteType result;
 
         /**
+         * @param thisDataListRef
          * @param otherDataListRef
-         * @param rangeBegin       inclusive
-         * @param rangeEnd         exclusive
+         * @param from             inclusive
+         * @param to               exclusive
+         * @param grain
          */
-        MergeTask(int currThreadNum, CountDownLatch latch, ArrayList<PhraseType> otherDataListRef, int totalNumThreads) {
-            this.currThreadNum = currThreadNum;
-            this.latch = latch;
+        CrossTask(ArrayList<PhraseType> thisDataListRef, ArrayList<PhraseType> otherDataListRef, int from, int to, int grain) {
+            super(from, to, grain);
+            this.thisDataListRef = thisDataListRef;
             this.otherDataListRef = otherDataListRef;
-            this.totalNumThreads = totalNumThreads;
         }
 
-        private int startIdx(int threadNum) {
-            //This formula (w/ intentional trucaction in the division) provides
-            //  the most equal distribution of tasks among threads.
-            return threadNum * otherDataListRef.size() / totalNumThreads;
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new CrossTask(thisDataListRef, otherDataListRef, from, to, grain);
         }
 
         @Override
-        public void run() {
-//            System.out.println("MergeTask starting: " + Thread.currentThread().getName());
-            try {
-                //Just like the single-threaded version in merge(ConcreteType), iterate
-                //  'this.data' and check for absorption but only among the given range.
-                //  And instead of directly removing from 'this.data', store in the
-                //  'toRemove' list to be removed synchronously at a later time.
-                final int startIncl = startIdx(currThreadNum);
-                final int endExcl = startIdx(currThreadNum + 1);
-                //Maybe make things faster by keeping local refs to this.*
-                final NormalForm<PhraseType, ElemType, ConcreteType> _this = NormalForm.this;
-                final HashSet<PhraseType> _thisData = _this.data;
+        protected void joined(RangeTask left, RangeTask right) {
+            final CrossTask l = half(left);
+            final CrossTask r = half(right);
+            result = mergeLarger(l.result, r.result);
+        }
 
-                //
-                //
-                //TODO: is this approach actually faster? I'm not convinced it is.
-                //The prior approach had the 'this' loop on the outside, however, 
-                //  there was an issue w/ making sure the clone(phrB) happened.
-                //UPDATE: actually, I think it's fine. The runtime of callGraphProc
-                //  was still around 14min for h2 so I don't think it's worse.
-                //
-                //
-                NEXT_PHRASE:
-                for (int i = startIncl; i < endExcl; i++) {
-//                System.out.println("Thread " + currThreadNum + " checking " + i);
-                    PhraseType phrB = otherDataListRef.get(i);
-                    //NOTE: 'phrB' cannot yet be null since it's only traversed once
-                    for (PhraseType phrA : _thisData) {
-                        //If A is already marked for removal, no need to check again
-                        //UPDATE: this check can actually be very slow!
-//                    if (!toRemove.contains(phrA)) {
-                        if (absorbs(phrB, phrA)) {
-                            //Phrase B absorbs phrase A, so mark A for removal
-                            toRemove.add(phrA);
-                            //It's possible for B to absorb more than one phrase
-                            //  from A so continue to loop over the all A.
-                            //In fact, this case appears first since absorbs(..)
-                            //  check can be time-consuming and it is more
-                            //  likely for this case to be hit.
-                        } else if (absorbs(phrA, phrB)) {
-                            //Phrase A absorbs phrase B, so B should not be added
-                            otherDataListRef.set(i, null);
-                            //break inner loop to proceed to next B w/o cloning
-                            continue NEXT_PHRASE;
-                        }
-//                    }
-                    }
-                    //Finally, if B is to be preserved/added, create a clone to
-                    //  ensure that two NormalForm instances do not contain the
-                    //  same phrase object.
-                    otherDataListRef.set(i, _this.clone(phrB));
-                }
-            } finally {
-                //Notify of completion
-                //NOTE: in finally block so that the latch will countdown and 
-                //  allows the executor to shutdown even when there is an error.
-//                System.out.println("MergeTask completed: " + Thread.currentThread().getName());
-                latch.countDown();
-            }
+        @Override
+        protected void computeRange(int startIncl, int endExcl) {
+            final ConcreteType partial = create(null);//use 'null' to create empty sentence
+            ((NormalForm<PhraseType, ElemType, ConcreteType>) partial).addAllUnions(thisDataListRef, otherDataListRef, startIncl, endExcl, context);
+            result = partial;
         }
     }
 
@@ -714,10 +1265,33 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * Add all phrases from {@code other} to {@code this} (applying absorption
      * law as necessary).
      *
+     * NOTE: checks the {@link OperationContext#current()} and if it aborts the
+     * merge, {@code this} is left unchanged.
+     *
      * @param other
+     *
+     * @throws OperationAbortedException
      */
     protected final void merge(ConcreteType other) {
+        merge(other, Tuning.MERGE_PARALLEL_OVERHEAD.get(), true);
+    }
+
+    /**
+     * Same as {@link #merge(boolexpr.NormalForm)} but with the given overhead
+     * in place of {@link Tuning#MERGE_PARALLEL_OVERHEAD} (i.e. to time both
+     * approaches without changing the global parameter).
+     *
+     * @param other
+     * @param parallelOverhead
+     * @param sample           whether the merge may be sampled for the online
+     *                         calibration of
+     *                         {@link Tuning#MERGE_PARALLEL_OVERHEAD}
+     *
+     * @throws OperationAbortedException
+     */
+    /*package*/ final void merge(ConcreteType other, long parallelOverhead, boolean sample) {
         checkModifiability();
+        final OperationContext ctx = OperationContext.current();
         //If {@code this} satisfies absorption, then the final result will
         //  satisify absorption after all data from other is added
         if (ENABLE_DEBUG_ASSERTS) {
@@ -740,21 +1314,42 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                 // ACTION: 'this' remains unchanged
             } else if (this.isEmpty()) {
                 // {} + {B} = {B}        (i.e. Identity law)
-                // ACTION: just add a clone of every phrase in 'other'
-                for (PhraseType ph : other.data) {
-                    this.data.add(clone(ph));
-                }
+                // ACTION: just share the phrases of 'other' (see PhraseSet)
+                ctx.checkLimits(other.data.size(), other.data.numProps());
+                this.data.replaceWithShared(other.data);
             } else if (this.getNumPhrases() == 1 && this.numPropsEquals(0)) {
                 // {()} + {B} = {()}     (i.e. Annulment law)
                 // ACTION: 'this' remains unchanged
             } else if (other.getNumPhrases() == 1 && other.numPropsEquals(0)) {
                 // {A} + {()} = {()}     (i.e. Annulment law)
-                // ACTION: clear 'this' and add a clone of phrase from 'other'
-                this.data.clear();
-                this.data.add(clone(other.data.iterator().next()));
+                // ACTION: clear 'this' and add the phrase from 'other'
+                this.data.replaceWithShared(other.data);
             } else if (this.equals(other)) {
                 // {A} x {A} = {A}      (i.e. Idempotent law)
                 // ACTION: 'this' remains unchanged
+            } else if (this.data.isIndexed()) {
+                //INDEXED APPROACH
+                //When 'this' maintains the subset/superset index, each phrase
+                //  from 'other' can be added using the index rather than
+                //  checking against every phrase in 'this'. Since 'other'
+                //  satisfies the absorption law, the phrases from 'other' that
+                //  are already added will never absorb (nor be absorbed by) any
+                //  later phrase from 'other' so the order does not matter. The
+                //  phrases that are actually added are shared with 'other'.
+                //NOTE: the phrases of 'this' are kept so they can be restored
+                //  if the merge is aborted (unless it cannot be aborted).
+                final ArrayList<PhraseType> before = ctx.isUnbounded() ? null : new ArrayList<>(this.data);
+                try {
+                    for (PhraseType phrB : other.data) {
+                        ctx.checkpoint();
+                        if (this.data.addWithAbsorption(phrB, true)) {
+                            ctx.checkLimits(this.data.size(), this.data.numProps());
+                        }
+                    }
+                } catch (OperationAbortedException ex) {
+                    restorePhrases(before);
+                    throw ex;
+                }
             } else {
                 //NOTE: the obvious approach for merge is to loop over 'other.data', 
                 //  clone each phrase, and add to this via tryAddWithAbsorption(..).
@@ -772,8 +1367,10 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                 //  and C is a constant. Based on a comparison of the runtime for the
                 //  two approaches in several of the DaCapo benchmarks, we let C=3000
                 //  and only 0.41% of the datapoints tested are categorized incorrectly.
+                //  C is now Tuning.MERGE_PARALLEL_OVERHEAD (3000 by default) which
+                //  can be overridden and is calibrated from sampled merges.
                 //NOTE: The original formula above can have integer overflow so convert:
-                //  ==  A * (B / N) + R - (A * B) < 0   let R=(N * N) + 3000
+                //  ==  A * (B / N) + R - (A * B) < 0   let R=(N * N) + C
                 //  ==  (A * ((B/N) - B)) + R < 0       factor A from the B expressions
                 //  ==  R < -(A * ((B/N) - B))          subtract AB expression on both sides
                 //  ==  R < A * -((B/N) - B)            move the negative
@@ -799,32 +1396,42 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
 
                 final int A = this.getNumPhrases();
                 final int B = other.getNumPhrases();//i.e. other.data.size()
-                final int N = Runtime.getRuntime().availableProcessors();
-                final int R = (N * N) + 3000;
-                final boolean USE_THREADS = (A > R) || ((B - (B / N)) > (R / A));
+                final ExecutionPolicy policy = ExecutionPolicy.current();
+                final int N = policy.getParallelism();
+                final int R = (int) Math.max(0, Math.min(Integer.MAX_VALUE, ((long) N * N) + parallelOverhead));
+                final boolean USE_THREADS = (N > 1) && ((A > R) || ((B - (B / N)) > (R / A)));
+                final boolean SAMPLE = (N > 1) && sample && Tuning.sampleMerge();
+                final long sampleStart = SAMPLE ? System.nanoTime() : 0;
                 if (USE_THREADS) {
                     useThreads = true;//TODO: TEMP: DEBUG
                     //MULTI-THREADED APPROACH
-                    CountDownLatch latch = new CountDownLatch(N);
-                    ArrayList<MergeTask> taskList = new ArrayList<>(N);
-                    for (int i = 0; i < N; i++) {
-                        MergeTask task = new MergeTask(i, latch, otherDataList, N);
-                        taskList.add(task);
-                        POOL.execute(task);
+                    //Recursively split 'otherDataList' into ranges that are
+                    //  processed in parallel (see RangeTask).
+                    //NOTE: the phrases of 'this' and 'other' are read by several
+                    //  threads so first make sure their cached statistics,
+                    //  including the signature, are computed (i.e. they are not
+                    //  modified by reads).
+                    for (PhraseType phraseA : this.data) {
+                        size(phraseA);
+                        signature(phraseA);
                     }
-                    // wait for the threads to be done
-                    try {
-                        latch.await();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace(System.err);
-                        throw new RuntimeException(e);
+                    for (PhraseType phraseB : otherDataList) {
+                        size(phraseB);
+                        signature(phraseB);
                     }
+                    MergeTask task = new MergeTask(otherDataList, 0, B, RangeTask.grainFor(B, N));
+                    ctx.checkpoint();
+                    policy.invoke(task);
                     //Perform removals from this.data
-                    for (MergeTask task : taskList) {
-                        this.data.removeAll(task.toRemove);
+                    this.data.removeAll(task.toRemove);
+                    try {
+                        checkLimitsWith(ctx, otherDataList);
+                    } catch (OperationAbortedException ex) {
+                        this.data.addAll(task.toRemove);
+                        throw ex;
                     }
                     //Perform additions to this.data from the pruned 'otherDataList'
-                    //  Cloning has already been done w/in the thread.
+                    //  Freezing has already been done w/in the thread.
                     for (PhraseType ph : otherDataList) {
                         if (ph != null) {
                             this.data.add(ph);
@@ -835,33 +1442,72 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                     //If phrase A from 'this' absorbs phrase B from 'other', then remove B from 'otherDataList'
                     //If phrase B absorbs phrase A, then remove A
                     //In the end, add a clone of each phrase remaining in B to A
+                    //NOTE: 'otherDataList' is ordered by increasing phrase size
+                    //  (see PhraseSet#iterator()) so the phrases from 'other'
+                    //  that are smaller than, the same size as, and larger than
+                    //  phrase A form consecutive ranges. Only smaller phrases
+                    //  can absorb A, only larger phrases can be absorbed by A,
+                    //  and among those with the same size only equal phrases.
                     final int otherSize = otherDataList.size();//size doesn't change b/c we don't remove
-                    for (Iterator<PhraseType> thisItr = this.data.iterator(); thisItr.hasNext();) {
-                        PhraseType phrA = thisItr.next();
-                        for (int i = 0; i < otherSize; i++) {
-                            PhraseType phrB = otherDataList.get(i);
-                            if (phrB != null) {
-                                if (absorbs(phrA, phrB)) {
-                                    //Phrase A absorbs phrase B, so B should not be added
-                                    otherDataList.set(i, null);
-                                } else if (absorbs(phrB, phrA)) {
-                                    //Phrase B absorbs phrase A, so remove A from this
-                                    thisItr.remove();
-                                    break;//break inner loop to proceed to next A from 'this'
+                    final int[] otherPhraseSizes = new int[otherSize];
+                    final long[] otherPhraseSigs = new long[otherSize];
+                    for (int i = 0; i < otherSize; i++) {
+                        PhraseType phrB = otherDataList.get(i);
+                        otherPhraseSizes[i] = size(phrB);
+                        otherPhraseSigs[i] = signature(phrB);
+                    }
+                    //NOTE: the phrases removed from 'this' are kept so they can
+                    //  be restored if the merge is aborted.
+                    final ArrayList<PhraseType> removed = new ArrayList<>();
+                    try {
+                        for (Iterator<PhraseType> thisItr = this.data.iterator(); thisItr.hasNext();) {
+                            ctx.checkpoint();
+                            PhraseType phrA = thisItr.next();
+                            final int sizeA = size(phrA);
+                            final long sigA = signature(phrA);
+                            for (int i = 0; i < otherSize; i++) {
+                                PhraseType phrB = otherDataList.get(i);
+                                if (phrB != null) {
+                                    final int sizeB = otherPhraseSizes[i];
+                                    if (sizeB < sizeA) {
+                                        if (absorbs(phrB, otherPhraseSigs[i], phrA, sigA)) {
+                                            //Phrase B absorbs phrase A, so remove A from this
+                                            thisItr.remove();
+                                            removed.add(phrA);
+                                            break;//break inner loop to proceed to next A from 'this'
+                                        }
+                                    } else if (sizeB == sizeA) {
+                                        if (phrA.equals(phrB)) {
+                                            //Phrase A absorbs phrase B, so B should not be added
+                                            otherDataList.set(i, null);
+                                        }
+                                    } else if (absorbs(phrA, sigA, phrB, otherPhraseSigs[i])) {
+                                        //Phrase A absorbs phrase B, so B should not be added
+                                        otherDataList.set(i, null);
+                                    }
                                 }
                             }
                         }
+                        checkLimitsWith(ctx, otherDataList);
+                    } catch (OperationAbortedException ex) {
+                        this.data.addAll(removed);
+                        throw ex;
                     }
                     //Perform additions to this.data from the pruned 'otherDataList'
-                    //  being sure to clone each phrase before adding so that 'this'
-                    //  and 'other' do not contain the same phrase objects.
+                    //  being sure to freeze each phrase before adding since 'this'
+                    //  and 'other' then contain the same phrase objects.
                     for (PhraseType ph : otherDataList) {
                         if (ph != null) {
-                            this.data.add(clone(ph));
+                            freeze(ph);
+                            this.data.add(ph);
                         }
                     }
                 }
+                if (SAMPLE) {
+                    Tuning.recordMerge(A, B, N, USE_THREADS, System.nanoTime() - sampleStart);
+                }
             }
+            widenIfNeeded(ctx);
         } finally {//TODO: TEMP: DEBUG
             if (PRINT_MERGE_STATS) {//TODO: TEMP: DEBUG
                 double elapsed = System.nanoTime() - start;//TODO: TEMP: DEBUG
@@ -874,10 +1520,54 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         }//TODO: TEMP: DEBUG
     }
 
+    /**
+     * Checks the limits of the given {@link OperationContext} for the result
+     * of adding the (non-{@code null}) phrases of the given list to
+     * {@code this}, assuming none of them is absorbed.
+     *
+     * @param ctx
+     * @param toAdd
+     *
+     * @throws OperationAbortedException
+     */
+    private void checkLimitsWith(OperationContext ctx, List<PhraseType> toAdd) {
+        if (ctx.isUnbounded()) {
+            return;
+        }
+        int numPhrases = this.data.size();
+        long numProps = this.data.numProps();
+        for (PhraseType ph : toAdd) {
+            if (ph != null) {
+                numPhrases++;
+                numProps += size(ph);
+            }
+        }
+        ctx.checkLimits(numPhrases, numProps);
+    }
+
+    /**
+     * Replaces the phrases of {@code this} with the given phrases, which must
+     * satisfy the absorption law, to undo an operation that was aborted. Does
+     * nothing if {@code phrases} is {@code null}.
+     *
+     * @param phrases
+     */
+    private void restorePhrases(Collection<PhraseType> phrases) {
+        if (phrases != null) {
+            this.data.clear();
+            this.data.addAll(phrases);
+        }
+    }
+
     /**
      * Performs a cross product between {@code this} and {@code other}.
      *
+     * NOTE: checks the {@link OperationContext#current()} and if it aborts the
+     * cross product, {@code this} is left unchanged.
+     *
      * @param other
+     *
+     * @throws OperationAbortedException
      */
     protected final void cross(ConcreteType other) {
         checkModifiability();
@@ -906,12 +1596,10 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
 //            long start = System.nanoTime();//TODO: TEMP: DEBUG
 
             // {()} x {B} = {B}     (i.e. Identity law)
-            // ACTION: just clear 'this' and add a clone of every phrase in 'other'
+            // ACTION: just share the phrases of 'other' (see PhraseSet)
             // NOTE: this should be faster than the loop below
-            this.data.clear();
-            for (PhraseType newPhrase : other.data) {
-                this.data.add(clone(newPhrase));
-            }
+            OperationContext.current().checkLimits(other.data.size(), other.data.numProps());
+            this.data.replaceWithShared(other.data);
 //            double elapsed = System.nanoTime() - start;//TODO: TEMP: DEBUG
 //            System.out.println("[NormalForm#cross_S1] " + (elapsed / 1_000_000) + ";" + thisStats + ";" + other.stats(true) + ";" + this.stats(true));//TODO: TEMP: DEBUG
         } else if (this.equals(other)) {
@@ -924,28 +1612,107 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
             //The obvious approach is to clone and clear 'this', loop over the
             //  clone, and loop over 'other' and union each phrase pair of
             //  phrases and finally use tryAddWithAbsorption(..) to add back to
-            //  'this'. However, that actually ends up being significantly
-            //  slower than the approach below, mainly due to excess absorption
-            //  checks which cross(PhraseType) optimizes.
+            //  'this'. This was previously much slower than crossing a clone
+            //  of 'this' with each phrase of 'other' via cross(PhraseType) and
+            //  merging the results. However, that approach clones every phrase
+            //  of 'this' for every phrase of 'other' and most of those clones
+            //  are absorbed by the merge. Instead, each union is computed into
+            //  a reusable scratch phrase and only the unions that are not
+            //  absorbed are kept (see addAllUnions(..)) which allocates far
+            //  less and is faster in all the cases I tested.
             //
-            //NOTE: although it would be fast to just add 'newThis' to data,
-            //  the merge with absorption check is necessary. Consider the
+            //NOTE: although it would be fast to just add the unions to data,
+            //  the absorption check is necessary. Consider the
             //  example: (7)(3,4) x (2)(5) = (3,4)(3,7)(5,7)
             //
-            //TODO: it's possible there could be more room to optimize but this
-            //  is significantly better than it was.
-            //The runtime of the merge(..) call significantly outweighs
-            //  everything else in the tests I ran (13ms vs <0.3ms)
-            ConcreteType origThis = this.clone(false);
+            //NOTE: the phrases of 'this' are not modified by addAllUnions(..)
+            //  so they can be read while 'this.data' is rebuilt (and restored
+            //  if the cross product is aborted).
+            final OperationContext ctx = OperationContext.current();
+            ctx.checkpoint();
+            final ArrayList<PhraseType> thisDataList = new ArrayList<>(this.data);
+            final ArrayList<PhraseType> otherDataList = new ArrayList<>(other.data);
             this.data.clear();
-            for (PhraseType phraseB : other.data) {
-                ConcreteType newThis = origThis.clone(false);
-                newThis.cross(phraseB);
-                this.merge(newThis);
+            final ExecutionPolicy policy = ExecutionPolicy.current();
+            final int B = otherDataList.size();
+            try {
+                if (!policy.isSequential() && ((long) thisDataList.size() * B) >= Tuning.CROSS_MIN_PARALLEL_PRODUCT.get()) {
+                    //MULTI-THREADED APPROACH
+                    //The partial products for ranges of the phrases of 'other' are
+                    //  computed in parallel and combined by a balanced tree of
+                    //  merges (see CrossTask). Since the result of a merge does not
+                    //  depend on the order, the result is the same as the single-
+                    //  threaded approach. To bound the number of partial products
+                    //  that are live at the same time, 'other' is processed in
+                    //  chunks.
+                    //NOTE: the phrases of 'this' and 'other' are read by several
+                    //  threads so first make sure their cached statistics are
+                    //  computed (i.e. they are not modified by reads).
+                    for (PhraseType phraseA : thisDataList) {
+                        size(phraseA);
+                    }
+                    for (PhraseType phraseB : otherDataList) {
+                        size(phraseB);
+                    }
+                    final int chunk = Math.max(1, Tuning.CROSS_CHUNK_SIZE.getInt());
+                    final int N = policy.getParallelism();
+                    for (int c = 0; c < B; c += chunk) {
+                        final int end = (int) Math.min(B, (long) c + chunk);
+                        CrossTask task = new CrossTask(thisDataList, otherDataList, c, end, RangeTask.grainFor(end - c, N));
+                        policy.invoke(task);
+                        this.merge(task.result);
+                    }
+                } else {
+                    //SINGLE-THREADED APPROACH
+                    addAllUnions(thisDataList, otherDataList, 0, B, ctx);
+                }
+            } catch (OperationAbortedException ex) {
+                restorePhrases(thisDataList);
+                throw ex;
             }
 //            double elapsed = System.nanoTime() - start;//TODO: TEMP: DEBUG
 //            System.out.println("[NormalForm#cross_S2] " + (elapsed / 1_000_000) + ";" + thisStats + ";" + other.stats(true) + ";" + this.stats(true));//TODO: TEMP: DEBUG
         }
+        widenIfNeeded(OperationContext.current());
+    }
+
+    /**
+     * Adds the union of each phrase in {@code phrasesA} with each phrase of
+     * {@code phrasesB} in the range {@code [from, to)} to {@code this},
+     * applying the absorption law. Each union is computed into a scratch
+     * phrase which is only kept (i.e. no longer used as scratch) when it is
+     * not absorbed by {@code this} so a new phrase is only allocated for the
+     * unions that are added.
+     *
+     * NOTE: the given phrases are not modified.
+     *
+     * @param phrasesA
+     * @param phrasesB
+     * @param from     inclusive
+     * @param to       exclusive
+     * @param ctx
+     *
+     * @throws OperationAbortedException
+     */
+    private void addAllUnions(List<PhraseType> phrasesA, List<PhraseType> phrasesB, int from, int to, OperationContext ctx) {
+        //NOTE: with a WideningPolicy, 'this' is widened as soon as it has too
+        //  many phrases so that it stays bounded while it is built.
+        final WideningPolicy widening = ctx.getWideningPolicy();
+        PhraseType scratch = null;
+        for (int i = from; i < to; i++) {
+            PhraseType phraseB = phrasesB.get(i);
+            for (PhraseType phraseA : phrasesA) {
+                ctx.checkpoint();
+                scratch = unionInto(scratch, phraseA, phraseB);
+                if (tryAddWithAbsorption(scratch)) {
+                    scratch = null;//owned by 'this' now
+                    ctx.checkLimits(this.data.size(), this.data.numProps());
+                    if (widening != null && this.data.size() > widening.getMaxPhrases()) {
+                        widen(widening);
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -992,6 +1759,315 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
 //            double elapsed = System.nanoTime() - start;//TODO: TEMP: DEBUG
 //            System.out.println("[NormalForm#cross_P2] " + (elapsed / 1_000_000) + ";" + thisStats + ";" + size(other) + ";" + this.stats(true));//TODO: TEMP: DEBUG
         }
+        widenIfNeeded(OperationContext.current());
+    }
+
+    /**
+     * Adds the dual of {@code this} (i.e. the equivalent formula in the other
+     * normal form) to the given empty {@link NormalForm}, which must use the
+     * opposite {@link FormRules}. Since the phrases contain only positive
+     * propositions, the phrases of the dual are exactly the minimal
+     * transversals of the phrases of {@code this} (i.e. the minimal sets that
+     * share at least one proposition with every phrase).
+     *
+     * The minimal transversals are computed using Berge's algorithm, adding
+     * one phrase of {@code this} at a time (see {@link #dualizationOrder()}).
+     * The transversals that already contain a proposition of the new phrase
+     * are kept and every other transversal is extended by each proposition of
+     * the new phrase. An extension is pruned when it contains a kept
+     * transversal (found using a {@link SetTrie}) and, since extensions never
+     * contain each other, no further absorption check is needed. When the
+     * product of the number of extended and kept transversals is at least
+     * {@link Tuning#DUALIZE_MIN_PARALLEL_PRODUCT}, the extensions are computed
+     * in parallel (see {@link DualizeTask}).
+     *
+     * NOTE: the intermediate transversals are kept as the sorted keys of their
+     * propositions (see {@link #toSortedKeys(java.lang.Object)}) and phrases
+     * are only created for the final ones.
+     *
+     * NOTE: checks the {@link OperationContext#current()} after each phrase so
+     * the intermediate results are bounded by its limits. If it aborts the
+     * operation, {@code target} is left unchanged.
+     *
+     * @param <D>    type of the dual {@link NormalForm}
+     * @param target empty {@link NormalForm} that receives the dual
+     *
+     * @return {@code target}
+     *
+     * @throws OperationAbortedException
+     */
+    protected final <D extends NormalForm<PhraseType, ElemType, D>> D dualize(D target) {
+        final NormalForm<PhraseType, ElemType, D> dual = target;
+        dual.checkModifiability();
+        assert dual.data.isEmpty() && dual.formRules != this.formRules;
+
+        final OperationContext ctx = OperationContext.current();
+        final ExecutionPolicy policy = ExecutionPolicy.current();
+        final HashMap<Integer, ElemType> elemsByKey = new HashMap<>();
+        //NOTE: the only transversal of no phrases is the empty set.
+        ArrayList<int[]> trans = new ArrayList<>();
+        trans.add(new int[0]);
+        for (PhraseType edge : dualizationOrder()) {
+            ctx.checkpoint();
+            for (Iterator<ElemType> it = iterator(edge, false); it.hasNext();) {
+                ElemType e = it.next();
+                elemsByKey.put(toKey(e), e);
+            }
+            final int[] edgeKeys = toSortedKeys(edge);
+            //Split the transversals into those that contain a proposition of
+            //  the new phrase (kept) and those that must be extended. At the
+            //  same time, index the kept transversals by the propositions of
+            //  the new phrase they contain. An extension (t + x) can only
+            //  contain a kept transversal 'h' that contains 'x' (since 't'
+            //  contains none of them) and it does iff (h - x) is a subset of
+            //  't'. Thus, 'h' must contain no other proposition of the new
+            //  phrase and, for each 'x', only the kept transversals containing
+            //  exactly 'x' are stored (without it).
+            final ArrayList<int[]> hits = new ArrayList<>();
+            final ArrayList<int[]> misses = new ArrayList<>();
+            final ArrayList<SetTrie<int[]>> hitsByKey = new ArrayList<>(edgeKeys.length);
+            for (int j = 0; j < edgeKeys.length; j++) {
+                hitsByKey.add(new SetTrie<int[]>());
+            }
+            for (int[] t : trans) {
+                final int only = soleCommonKey(t, edgeKeys);
+                if (only == -1) {
+                    misses.add(t);
+                } else {
+                    hits.add(t);
+                    if (only >= 0) {
+                        hitsByKey.get(only).add(without(t, edgeKeys[only]), t);
+                    }
+                }
+            }
+            if (misses.isEmpty()) {
+                continue;
+            }
+
+            final ArrayList<int[]> next;
+            if (!policy.isSequential() && ((long) misses.size() * Math.max(1, hits.size())) >= Tuning.DUALIZE_MIN_PARALLEL_PRODUCT.get()) {
+                //MULTI-THREADED APPROACH
+                //NOTE: the key arrays and the tries are not modified by reads
+                //  so they can be shared by the threads as they are.
+                final int M = misses.size();
+                DualizeTask task = new DualizeTask(misses, edgeKeys, hitsByKey, 0, M, RangeTask.grainFor(M, policy.getParallelism()));
+                policy.invoke(task);
+                next = task.result;
+                next.addAll(hits);
+            } else {
+                //SINGLE-THREADED APPROACH
+                next = hits;
+                addAllExtensions(misses, edgeKeys, hitsByKey, 0, misses.size(), next, ctx);
+            }
+            trans = next;
+            long numProps = 0;
+            for (int[] t : trans) {
+                numProps += t.length;
+            }
+            ctx.checkLimits(trans.size(), numProps);
+        }
+
+        //NOTE: the transversals already satisfy the absorption law.
+        for (int[] t : trans) {
+            final PhraseType phrase = createSingleton(null);//use 'null' to create empty phrase
+            for (int k : t) {
+                add(phrase, elemsByKey.get(k));
+            }
+            dual.data.add(phrase);
+        }
+        return target;
+    }
+
+    /**
+     * Orders the phrases of {@code this} for
+     * {@link #dualize(boolexpr.NormalForm)} by increasing size, since small
+     * phrases split the fewest transversals, and then by decreasing sum over
+     * their propositions of the number of phrases containing each. Adding the
+     * phrases that share the most propositions first means that later phrases
+     * are hit by more of the transversals, which keeps the intermediate sets
+     * of transversals small.
+     *
+     * @return the phrases of {@code this} in the order they are added
+     */
+    private ArrayList<PhraseType> dualizationOrder() {
+        final ArrayList<PhraseType> phrases = new ArrayList<>(this.data);
+        final int n = phrases.size();
+        final int[][] keys = new int[n][];
+        final HashMap<Integer, Integer> degrees = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            keys[i] = toSortedKeys(phrases.get(i));
+            for (int k : keys[i]) {
+                Integer d = degrees.get(k);
+                degrees.put(k, d == null ? 1 : d + 1);
+            }
+        }
+        final long[] scores = new long[n];
+        final Integer[] positions = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            for (int k : keys[i]) {
+                scores[i] += degrees.get(k);
+            }
+            positions[i] = i;
+        }
+        //NOTE: the sort is stable so the order is deterministic.
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int c = Integer.compare(keys[o1].length, keys[o2].length);
+                return c != 0 ? c : Long.compare(scores[o2], scores[o1]);
+            }
+        });
+        final ArrayList<PhraseType> retVal = new ArrayList<>(n);
+        for (Integer i : positions) {
+            retVal.add(phrases.get(i));
+        }
+        return retVal;
+    }
+
+    /**
+     * Adds each minimal extension of the transversals in {@code misses} in
+     * the range {@code [from, to)} to {@code dst} (see
+     * {@link #dualize(boolexpr.NormalForm)}).
+     *
+     * NOTE: the given key arrays are not modified.
+     *
+     * @param misses    sorted keys of the transversals that share no
+     *                  proposition with the current phrase
+     * @param edgeKeys  sorted keys of the current phrase
+     * @param hitsByKey for each of {@code edgeKeys}, the transversals that
+     *                  contain it but no other of {@code edgeKeys} (stored
+     *                  without it)
+     * @param from      inclusive
+     * @param to        exclusive
+     * @param dst
+     * @param ctx
+     *
+     * @throws OperationAbortedException
+     */
+    private static void addAllExtensions(List<int[]> misses, int[] edgeKeys, List<SetTrie<int[]>> hitsByKey, int from, int to, List<int[]> dst, OperationContext ctx) {
+        for (int i = from; i < to; i++) {
+            //NOTE: the number of phrases in 'dst' is a lower bound on the
+            //  number of transversals after the current phrase.
+            ctx.checkpoint();
+            ctx.checkLimits(dst.size(), 0);
+            final int[] t = misses.get(i);
+            for (int j = 0; j < edgeKeys.length; j++) {
+                if (!hitsByKey.get(j).containsSubsetOf(t)) {
+                    dst.add(with(t, edgeKeys[j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param keys  ascending and distinct keys
+     * @param other ascending and distinct keys
+     *
+     * @return the index in {@code other} of its only key that is also in
+     *         {@code keys}, -1 if there is no such key, or -2 if there are
+     *         several
+     */
+    private static int soleCommonKey(int[] keys, int[] other) {
+        int retVal = -1;
+        for (int i = 0, j = 0; i < keys.length && j < other.length;) {
+            if (keys[i] < other[j]) {
+                i++;
+            } else if (keys[i] > other[j]) {
+                j++;
+            } else if (retVal >= 0) {
+                return -2;
+            } else {
+                retVal = j;
+                i++;
+                j++;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param keys ascending and distinct keys
+     * @param key  one of {@code keys}
+     *
+     * @return the ascending keys in {@code keys} except {@code key}
+     */
+    private static int[] without(int[] keys, int key) {
+        final int[] retVal = new int[keys.length - 1];
+        for (int i = 0, j = 0; i < keys.length; i++) {
+            if (keys[i] != key) {
+                retVal[j++] = keys[i];
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param keys ascending and distinct keys
+     * @param key  not one of {@code keys}
+     *
+     * @return the ascending keys in {@code keys} and {@code key}
+     */
+    private static int[] with(int[] keys, int key) {
+        final int[] retVal = new int[keys.length + 1];
+        int i = 0;
+        for (; i < keys.length && keys[i] < key; i++) {
+            retVal[i] = keys[i];
+        }
+        retVal[i] = key;
+        System.arraycopy(keys, i, retVal, i + 1, keys.length - i);
+        return retVal;
+    }
+
+    /**
+     * Computes the minimal extensions of the transversals in the given range
+     * (see
+     * {@link #addAllExtensions(java.util.List, int[], java.util.List, int, int, java.util.List, boolexpr.OperationContext)}).
+     * The results of the halves are concatenated when they complete since
+     * extensions never absorb each other.
+     */
+    private static final class DualizeTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final ArrayList<int[]> missesRef;
+        final int[] edgeKeysRef;
+        final ArrayList<SetTrie<int[]>> hitsByKeyRef;
+        ArrayList<int[]> result;
+
+        /**
+         * @param missesRef
+         * @param edgeKeysRef
+         * @param hitsByKeyRef
+         * @param from         inclusive
+         * @param to           exclusive
+         * @param grain
+         */
+        DualizeTask(ArrayList<int[]> missesRef, int[] edgeKeysRef, ArrayList<SetTrie<int[]>> hitsByKeyRef, int from, int to, int grain) {
+            super(from, to, grain);
+            this.missesRef = missesRef;
+            this.edgeKeysRef = edgeKeysRef;
+            this.hitsByKeyRef = hitsByKeyRef;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new DualizeTask(missesRef, edgeKeysRef, hitsByKeyRef, from, to, grain);
+        }
+
+        @Override
+        protected void joined(RangeTask left, RangeTask right) {
+            ArrayList<int[]> l = ((DualizeTask) left).result;
+            ArrayList<int[]> r = ((DualizeTask) right).result;
+            l.addAll(r);
+            result = l;
+        }
+
+        @Override
+        protected void computeRange(int startIncl, int endExcl) {
+            final ArrayList<int[]> partial = new ArrayList<>();
+            addAllExtensions(missesRef, edgeKeysRef, hitsByKeyRef, startIncl, endExcl, partial, context);
+            result = partial;
+        }
     }
 
     /**
@@ -1028,8 +2104,13 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                     return false;
                 } else {
                     //In this case, just remove 'onlyElem' and add 'replacement'
+                    //NOTE: the phrase must be removed from 'data' before it is
+                    //  modified and then re-added so that it is rehashed.
+                    this.data.remove(onlyPhrase);
+                    onlyPhrase = mutable(onlyPhrase);
                     this.remove(onlyPhrase, onlyElem);
                     this.add(onlyPhrase, replacement);
+                    this.data.add(onlyPhrase);
                     return true;
                 }
             }
@@ -1049,7 +2130,12 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         //  creating a new ConcreteType to store them which would result in 
         //  many unnecessary/repeated absorption checks.
         ArrayList<PhraseType> updatedPhrases = new ArrayList<>(this.data.size());
-        for (Iterator<PhraseType> it = this.data.iterator(); it.hasNext();) {
+        //NOTE: only phrases containing some key from the Map are modified so
+        //  when the posting index is available, only those are visited.
+        final Iterator<PhraseType> phraseItr = this.data.hasPostings()
+                ? this.data.containingAny(toSortedKeys(oldToNewValue.keySet()))
+                : this.data.iterator();
+        for (Iterator<PhraseType> it = phraseItr; it.hasNext();) {
             PhraseType phrase = it.next();
             //NOTE: In general, we should expect iteration over the 'phrase' to
             //  be slow compared to iteration over the Map (ex: the SparseBitSet
@@ -1079,6 +2165,7 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                 //  then remove the phrase, update it, and add to the List.
                 if (replacement != null) {
                     it.remove();
+                    phrase = mutable(phrase);
                     remove(phrase, onlyElem);
                     add(phrase, replacement);
                     updatedPhrases.add(phrase);
@@ -1107,6 +2194,7 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                         if (!removedPhrase) {
                             removedPhrase = true;
                             it.remove();
+                            phrase = mutable(phrase);
                         }
                         //Remove the 'key' from the phrase and decrement the 
                         //  count of elements remaining in the phrase.
@@ -1174,6 +2262,37 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @return {@code true} iff any modification was made to {@code this}
      */
     public boolean resolveAll(Map<ElemType, ConcreteType> resolutionMap) {
+        return resolveAll(resolutionMap, null);
+    }
+
+    /**
+     * For every element appearing in {@code this}, if the given {@link Map}
+     * contains that element as a key, then replace it with the associated value
+     * from the {@link Map}.
+     *
+     * The cross product of the resolutions for each distinct combination of
+     * keys appearing in a phrase is computed once and stored in the given
+     * {@link ResolutionCache} so it can be reused by other phrases with the
+     * same combination of keys, in this call and in later calls given the
+     * same {@link ResolutionCache}. If {@code cache} is {@code null}, the
+     * products are only reused within this call.
+     *
+     * NOTE: a cached product is only reused when the keys are mapped to the
+     * same (i.e. identical) {@link NormalForm}s so those must not be modified
+     * while cached (consider {@link #asUnmodifiable()}).
+     *
+     * NOTE: checks the {@link OperationContext#current()} and if it aborts the
+     * resolution, {@code this} is left unchanged (but {@code cache} may
+     * contain the products computed before the resolution was aborted).
+     *
+     * @param resolutionMap
+     * @param cache         may be {@code null}
+     *
+     * @return {@code true} iff any modification was made to {@code this}
+     *
+     * @throws OperationAbortedException
+     */
+    public boolean resolveAll(Map<ElemType, ConcreteType> resolutionMap, ResolutionCache<PhraseType, ConcreteType> cache) {
         checkModifiability();
         //Handle trivial cases where no resolution can happen
         if (resolutionMap.isEmpty() || this.data.isEmpty()) {
@@ -1195,7 +2314,12 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                 } else {
                     //In this case, just clear 'this' and merge in 'resolution'
                     this.data.clear();
-                    this.merge(resolution);
+                    try {
+                        this.merge(resolution);
+                    } catch (OperationAbortedException ex) {
+                        this.data.add(onlyPhrase);
+                        throw ex;
+                    }
                     return true;
                 }
             }
@@ -1208,208 +2332,536 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         //  map.get(x).
         //
         //
-        long elapInnerCross = 0, elapPhraseCross = 0, elapPhraseMerge = 0;
-        int count = 0;//in the end, will always be original #phrases
-//        System.out.println("BEGIN: NormalForm#resolveAll(..) this.size=" + this.getNumProps() + ":" + this.getNumPhrases() + "; resMap.size=" + resolutionMap.size());
-        final long overallStart = System.nanoTime();
+        //Build a phrase containing every key from the Map so that the keys
+        //  appearing in a phrase can be found by intersecting with it rather
+        //  than iterating the Map (which is slow when the Map is large) or
+        //  looking up every element of the phrase (which is slow when the
+        //  phrase iterator is slow, ex: SparseBitSet with large values).
+        //NOTE: keys mapped to 'null' are ignored, i.e. they are not resolved.
+        final PhraseType mapKeys = createSingleton(null);//use 'null' to create empty phrase
+        for (Map.Entry<ElemType, ConcreteType> e : resolutionMap.entrySet()) {
+            if (e.getKey() != null && e.getValue() != null) {
+                add(mapKeys, e.getKey());
+            }
+        }
+        if (isEmpty(mapKeys)) {
+            return false;
+        }
 
-        //Update each phrase, replacing all occurrences of a key from the map
-        //  with the value. Modified phrases are removed from 'this.data' via
-        //  the iterator and their expansion merged with 'toAdd' which is then
-        //  merged back into 'this' at the end.
-        //
-        ConcreteType toAdd = create(null);//use 'null' to create empty sentence
-        for (Iterator<PhraseType> it = data.iterator(); it.hasNext();) {
-            count++;
+        //Remove each phrase containing some key from the Map from 'this.data'.
+        //  These phrases are replaced by their expansion (i.e. the cross
+        //  product of the resolutions of the keys and the remaining elements)
+        //  which is computed afterwards.
+        //NOTE: when the posting index is available, only the phrases that
+        //  contain some key from 'mapKeys' are visited.
+        final ArrayList<PhraseType> toResolve = new ArrayList<>();
+        final Iterator<PhraseType> phraseItr = data.hasPostings()
+                ? data.containingAny(toSortedKeys(mapKeys))
+                : data.iterator();
+        for (Iterator<PhraseType> it = phraseItr; it.hasNext();) {
             PhraseType phrase = it.next();
-            //NOTE: In general, we should expect iteration over the 'phrase' to
-            //  be slow compared to iteration over the Map (ex: the SparseBitSet
-            //  phrase iterator is slow when values are large and/or sparse).
-            //  Hence, preference should be given to iteration over the Map when
-            //  possible. However, if that map is very large, its iteration
-            //  could be the bottleneck so avoid iterating it whenever possible.
-            //
-            //NOTE: To avoid computing the new phrase size in every iteration
-            //  (used to determine when the phrase has only a single element
-            //  and the iteration over the Map need not continue), just compute
-            //  it once up front and then subtract removals until the element
-            //  count reaches 1. Hence, the overhead w/in the loop is only a
-            //  decrement and int equality check which is likely faster than any
-            //  method call for a size re-computation.
-            int elemsInPhrase = size(phrase);
-            assert elemsInPhrase > 0;//0 is handled earlier and cannot be <0
-            //With this size, we can additionally handle the easy case of size-1
-            //  phrases to avoid iterating the Map since we can quickly lookup
-            //  the single element.
-            if (elemsInPhrase == 1) {
-                ElemType onlyElem = minElem(phrase);
-                assert onlyElem != null;//sanity check
-                ConcreteType resolution = resolutionMap.get(onlyElem);
-                //When there is no resolution for the single element in the
-                //  phrase, nothing happens. However, if there is a resolution,
-                //  then remove the phrase and merge the resolution with 'toAdd'
+            if (containsAny(mapKeys, phrase)) {
+                //NOTE: Phrase must be removed before modifying it or else
+                //  HashSet.iterator().remove() will not work!
+                it.remove();
+                toResolve.add(phrase);
+            }
+        }
+        if (toResolve.isEmpty()) {
+            return false;
+        }
+
+        //Compute the expansion of every removed phrase and merge them all.
+        //  The expansions are independent so they are computed in parallel
+        //  for ranges of the removed phrases and the partial results of the
+        //  ranges are combined by a balanced tree of merges (see ResolveTask)
+        //  rather than merging everything into a single NormalForm in turn.
+        //  The result of the merges does not depend on the order.
+        final int numToResolve = toResolve.size();
+        ExecutionPolicy policy = ExecutionPolicy.current();
+        if (numToResolve < Tuning.RESOLVE_MIN_PARALLEL_PHRASES.get()) {
+            policy = ExecutionPolicy.SEQUENTIAL;
+        } else if (!policy.isSequential()) {
+            //NOTE: the resolutions are read by several threads so first make
+            //  sure their cached statistics are computed (i.e. they are not
+            //  modified by reads).
+            for (ConcreteType resolution : resolutionMap.values()) {
                 if (resolution != null) {
-                    it.remove();
-                    long start = System.nanoTime();
-                    toAdd.merge(resolution);
-                    elapPhraseMerge += System.nanoTime() - start;
-                }
-            } else if (elemsInPhrase == 2 && resolutionMap.size() > 1500) {
-                //NOTE: minElem(..) cannot be used to get the second value
-                //  unless the first is removed, thus we would always end up 
-                //  removing it and thus always removing the phrase from 'data'
-                //  and merging with 'toAdd' so it seems the better approach is
-                //  to just use the iterator to retrieve the 2 elements.
-                Iterator<ElemType> pIt = iterator(phrase, false);
-                assert pIt.hasNext();
-                ElemType e1 = pIt.next();
-                assert pIt.hasNext();
-                ElemType e2 = pIt.next();
-                assert !pIt.hasNext();
-
-                ConcreteType res1 = resolutionMap.get(e1);
-                ConcreteType res2 = resolutionMap.get(e2);
-                if (res1 != null || res2 != null) {
-                    //If either element has a replacement, remove the phrase from
-                    //  'data' and create an aggregate for the replacement(s).
-                    it.remove();
-                    ConcreteType aggregate = create(createSingleton(null));//use 'null' to create empty phrase
-                    //For both elements, cross the replacement or (if null) the
-                    //  original element into the aggregate.
-                    long startCross = System.nanoTime();
-                    if (res1 == null) {
-                        ((NormalForm<?, ElemType, ?>) aggregate).appendElemToEachPhrase_internal(e1);
-                    } else {
-                        aggregate.cross(res1);
+                    for (PhraseType p : resolution.data) {
+                        size(p);
                     }
-                    if (res2 == null) {
-                        ((NormalForm<?, ElemType, ?>) aggregate).appendElemToEachPhrase_internal(e2);
-                    } else {
-                        aggregate.cross(res2);
-                    }
-                    elapInnerCross += System.nanoTime() - startCross;
-                    //Finally, merge the aggregate into 'toAdd'
-                    long start = System.nanoTime();
-                    toAdd.merge(aggregate);
-                    elapPhraseMerge += System.nanoTime() - start;
-                } //else nothing to do when no replacements
-            } else {
-                //When there is more than one element in the phrase, compute the
-                //  cross product over all replacement values and the remainder
-                //  of the phrase after removing the replaced elements. Merge
-                //  this cross product with 'toAdd' and remove the phrase.
-                boolean removedPhrase = false;
-                ConcreteType aggregate = create(createSingleton(null));//use 'null' to create empty phrase
-                //Iterate the resolution map and, if a key is found in the phrase,
-                //  then remove it and add the mapped value to 'aggregate'.
-                assert elemsInPhrase > 1;//sanity check: inner break condition doesn't need to capture 0
-                for (Map.Entry<ElemType, ConcreteType> e : resolutionMap.entrySet()) {
-                    final ElemType key = e.getKey();
-                    if (contains(phrase, key)) {
-                        //If any key from the map is found in the phrase, remove
-                        //  the phrase from 'data' so that it's cross product
-                        //  with 'aggregate' can be re-added with absorption.
-                        //NOTE: Phrase must be removed before modifying it or
-                        //  else HashSet.iterator().remove() will not work!
-                        if (!removedPhrase) {
-                            removedPhrase = true;
-                            it.remove();
-                        }
-                        //Remove the 'key' from the phrase and decrement the 
-                        //  count of elements remaining in the phrase.
-                        remove(phrase, key);
-                        elemsInPhrase--;
+                }
+            }
+            size(mapKeys);
+        }
+        if (cache == null) {
+            cache = new ResolutionCache<>(Integer.MAX_VALUE);
+        }
+        ResolveTask task = new ResolveTask(toResolve, mapKeys, resolutionMap, cache, 0, numToResolve,
+                RangeTask.grainFor(numToResolve, policy.getParallelism()));
+        final ConcreteType toAdd;
+        try {
+            OperationContext.current().checkpoint();
+            policy.invoke(task);
+            toAdd = task.result;
+            this.merge(toAdd);
+        } catch (OperationAbortedException ex) {
+            //NOTE: the removed phrases are not modified when the resolution
+            //  can be aborted (see ResolveTask) so they can be added back.
+            this.data.addAll(toResolve);
+            throw ex;
+        }
+        return !toAdd.isEmpty();
+    }
 
-                        //Accumulate the value via cross product
-                        long startCross = System.nanoTime();
-                        aggregate.cross(e.getValue());
-                        elapInnerCross += System.nanoTime() - startCross;
+    /**
+     * Computes the expansion of a phrase containing some key(s) from
+     * {@code resolutionMap}, i.e. the cross product of the resolution of each
+     * such key with the remaining elements of the phrase. The cross product of
+     * the resolutions is taken from (or added to) the {@link ResolutionCache}
+     * when the phrase contains more than one key.
+     *
+     * NOTE: removes the resolved keys from {@code phrase} (unless it is frozen,
+     * see {@link #mutable(java.lang.Object)}).
+     *
+     * @param phrase
+     * @param mapKeys       phrase containing the keys from
+     *                      {@code resolutionMap}
+     * @param resolutionMap
+     * @param cache
+     *
+     * @return
+     */
+    /*package*/ ConcreteType expandPhrase(PhraseType phrase, PhraseType mapKeys, Map<ElemType, ConcreteType> resolutionMap,
+            ResolutionCache<PhraseType, ConcreteType> cache) {
+        //With a single element, the expansion is just a copy of its resolution
+        if (size(phrase) == 1) {
+            ConcreteType retVal = create(null);//use 'null' to create empty sentence
+            retVal.merge(resolutionMap.get(minElem(phrase)));
+            return retVal;
+        }
+        final PhraseType keysInPhrase = intersection(phrase, mapKeys);
+        final ArrayList<ConcreteType> resolutions = new ArrayList<>();
+        phrase = mutable(phrase);
+        for (Iterator<ElemType> kItr = iterator(keysInPhrase, false); kItr.hasNext();) {
+            ElemType key = kItr.next();
+            remove(phrase, key);
+            resolutions.add(resolutionMap.get(key));
+        }
+        ConcreteType aggregate;
+        if (resolutions.size() == 1) {
+            aggregate = create(null);//use 'null' to create empty sentence
+            aggregate.merge(resolutions.get(0));
+        } else {
+            ConcreteType product = cache.get(keysInPhrase, resolutions);
+            if (product == null) {
+                //Accumulate the values via cross product
+                product = create(createSingleton(null));//use 'null' to create empty phrase
+                for (ConcreteType resolution : resolutions) {
+                    product.cross(resolution);
+                }
+                //NOTE: the product may be read by several threads so make
+                //  sure the cached statistics of its phrases are computed.
+                for (PhraseType p : product.data) {
+                    size(p);
+                }
+                cache.put(keysInPhrase, resolutions, product);
+            }
+            aggregate = create(null);//use 'null' to create empty sentence
+            aggregate.merge(product);
+        }
+        //Finally, cross the aggregated replacements into what remains of the
+        //  phrase (if anything).
+        aggregate.cross(phrase);
+        return aggregate;
+    }
 
-                        //After removal of the current key, if the phrase has
-                        //  only a single element remaining, handle it trivally
-                        //  (similar to before) to avoid any further iteration.
-                        if (elemsInPhrase == 1) {
-                            ElemType onlyElem = minElem(phrase);
-                            assert onlyElem != null;//sanity check
-                            ConcreteType resolution = resolutionMap.get(onlyElem);
-                            if (resolution != null) {
-                                assert removedPhrase;//must have been removed above
+    /**
+     * Computes the merge of the expansions (see
+     * {@link #expandPhrase(java.lang.Object, java.lang.Object, java.util.Map, boolexpr.NormalForm.ResolutionCache)})
+     * of the phrases in the given range. The results of the halves are merged
+     * when they complete so they form a balanced tree of merges.
+     */
+    private final class ResolveTask extends RangeTask {
 
-                                //Remove the final element from the phrase and
-                                //  decrement the count of remaining elements.
-                                remove(phrase, onlyElem);
-                                elemsInPhrase--;
+        private static final long serialVersionUID = 1L;
 
-                                //Accumulate the 'resolution' via cross product
-                                startCross = System.nanoTime();
-                                aggregate.cross(resolution);
-                                elapInnerCross += System.nanoTime() - startCross;
-                            }
-                            //Either way, break the loop b/c there can be no
-                            //  further matches.
-                            break;
-                        }
-                    }
+        final ArrayList<PhraseType> toResolveRef;
+        final PhraseType mapKeys;
+        final Map<ElemType, ConcreteType> resolutionMap;
+        final ResolutionCache<PhraseType, ConcreteType> cache;
+        ConcreteType result;
+
+        /**
+         * @param toResolveRef
+         * @param mapKeys
+         * @param resolutionMap
+         * @param cache
+         * @param from          inclusive
+         * @param to            exclusive
+         * @param grain
+         */
+        ResolveTask(ArrayList<PhraseType> toResolveRef, PhraseType mapKeys, Map<ElemType, ConcreteType> resolutionMap,
+                ResolutionCache<PhraseType, ConcreteType> cache, int from, int to, int grain) {
+            super(from, to, grain);
+            this.toResolveRef = toResolveRef;
+            this.mapKeys = mapKeys;
+            this.resolutionMap = resolutionMap;
+            this.cache = cache;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new ResolveTask(toResolveRef, mapKeys, resolutionMap, cache, from, to, grain);
+        }
+
+        @Override
+        protected void joined(RangeTask left, RangeTask right) {
+            final ResolveTask l = half(left);
+            final ResolveTask r = half(right);
+            result = mergeLarger(l.result, r.result);
+        }
+
+        @Override
+        protected void computeRange(int startIncl, int endExcl) {
+            //NOTE: within a range, the expansions are merged one at a time into
+            //  the (growing) partial result. Once it reaches the threshold for
+            //  the subset/superset index, adding each expansion only costs an
+            //  index lookup per phrase whereas a balanced tree of merges would
+            //  add every phrase log(n) times, which was ~3x slower in my tests.
+            //  The partial results of the ranges form the balanced tree.
+            //NOTE: expandPhrase(..) modifies the phrase so it is given a clone
+            //  in order to restore the original phrases if the resolution is
+            //  aborted (which cannot happen when the context is unbounded).
+            final boolean keepOriginal = !context.isUnbounded();
+            ConcreteType partial = null;
+            for (int i = startIncl; i < endExcl; i++) {
+                context.checkpoint();
+                PhraseType phrase = toResolveRef.get(i);
+                ConcreteType current = expandPhrase(keepOriginal ? NormalForm.this.clone(phrase) : phrase, mapKeys, resolutionMap, cache);
+                partial = (partial == null) ? current : mergeLarger(partial, current);
+            }
+            result = (partial == null) ? create(null) : partial;
+        }
+    }
+
+    /**
+     * Cache of the cross products of the resolutions for combinations of keys
+     * computed by
+     * {@link NormalForm#resolveAll(java.util.Map, boolexpr.NormalForm.ResolutionCache)},
+     * which can be shared by several calls. When it contains more than the
+     * given maximum number of products, the least recently used product is
+     * discarded.
+     *
+     * NOTE: thread-safe
+     *
+     * @param <PhraseType>
+     * @param <ConcreteType>
+     */
+    public static final class ResolutionCache<PhraseType, ConcreteType extends NormalForm<PhraseType, ?, ConcreteType>> {
+
+        private static final class Product<ConcreteType> {
+
+            /**
+             * The resolutions (in the order of the keys) used to compute the
+             * product. The product is only valid for identical resolutions.
+             */
+            final ArrayList<ConcreteType> resolutions;
+
+            final ConcreteType product;
+
+            Product(ArrayList<ConcreteType> resolutions, ConcreteType product) {
+                this.resolutions = resolutions;
+                this.product = product;
+            }
+        }
+
+        private final LinkedHashMap<PhraseType, Product<ConcreteType>> entries;
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        /**
+         * @param maxProducts maximum number of products to keep
+         */
+        public ResolutionCache(final int maxProducts) {
+            if (maxProducts < 1) {
+                throw new IllegalArgumentException("maxProducts must be positive: " + maxProducts);
+            }
+            this.entries = new LinkedHashMap<PhraseType, Product<ConcreteType>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PhraseType, Product<ConcreteType>> eldest) {
+                    return size() > maxProducts;
                 }
-                assert size(phrase) == elemsInPhrase;//sanity check
+            };
+        }
 
-                //Finally, if there were any replacements, then cross the
-                //  aggregated replacements into what remains of the phrase
-                //  and merge it with 'toAdd' for later addition to 'this'.
-                if (removedPhrase) {
-                    long start = System.nanoTime();
-                    aggregate.cross(phrase);
-                    elapPhraseCross += System.nanoTime() - start;
+        /**
+         * @param keys
+         * @param resolutions
+         *
+         * @return the cached product for the given keys if it was computed
+         *         from the given resolutions, otherwise {@code null}
+         */
+        /*package*/ ConcreteType get(PhraseType keys, ArrayList<ConcreteType> resolutions) {
+            Product<ConcreteType> e;
+            synchronized (entries) {
+                e = entries.get(keys);
+            }
+            if (e != null && e.resolutions.size() == resolutions.size()) {
+                boolean same = true;
+                for (int i = 0, n = resolutions.size(); i < n && same; i++) {
+                    same = e.resolutions.get(i) == resolutions.get(i);
+                }
+                if (same) {
+                    hits.increment();
+                    RESOLUTION_HITS.increment();
+                    return e.product;
+                }
+            }
+            misses.increment();
+            RESOLUTION_MISSES.increment();
+            return null;
+        }
+
+        /*package*/ void put(PhraseType keys, ArrayList<ConcreteType> resolutions, ConcreteType product) {
+            synchronized (entries) {
+                entries.put(keys, new Product<>(resolutions, product));
+            }
+        }
 
-                    start = System.nanoTime();
-                    toAdd.merge(aggregate);
-                    elapPhraseMerge += System.nanoTime() - start;
+        /**
+         * @return the number of cached products
+         */
+        public int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+
+        /**
+         * Discards all cached products.
+         */
+        public void clear() {
+            synchronized (entries) {
+                entries.clear();
+            }
+        }
+
+        /**
+         * @return the number of times a cached product was reused
+         */
+        public long getHits() {
+            return hits.sum();
+        }
+
+        /**
+         * @return the number of times a product had to be computed
+         */
+        public long getMisses() {
+            return misses.sum();
+        }
+    }
+
+    private static final LongAdder RESOLUTION_HITS = new LongAdder();
+
+    private static final LongAdder RESOLUTION_MISSES = new LongAdder();
+
+    /**
+     * @return the number of times {@link #resolveAll(java.util.Map)} reused
+     *         the cross product of the resolutions for a combination of keys
+     *         (in any {@link ResolutionCache}) since the last
+     *         {@link #resetResolutionCounters()}
+     */
+    public static long getNumResolutionHits() {
+        return RESOLUTION_HITS.sum();
+    }
+
+    /**
+     * @return the number of times {@link #resolveAll(java.util.Map)} computed
+     *         the cross product of the resolutions for a combination of keys
+     *         since the last {@link #resetResolutionCounters()}
+     */
+    public static long getNumResolutionMisses() {
+        return RESOLUTION_MISSES.sum();
+    }
+
+    /**
+     * Resets the counters reported by {@link #getNumResolutionHits()} and
+     * {@link #getNumResolutionMisses()}.
+     */
+    public static void resetResolutionCounters() {
+        RESOLUTION_HITS.reset();
+        RESOLUTION_MISSES.reset();
+    }
+
+    private static final LongAdder WIDENINGS = new LongAdder();
+
+    private static final LongAdder WIDENED_PHRASES = new LongAdder();
+
+    /**
+     * @return the number of times a {@link NormalForm} was widened (see
+     *         {@link #widen(boolexpr.WideningPolicy)}) since the last
+     *         {@link #resetWideningCounters()}
+     */
+    public static long getNumWidenings() {
+        return WIDENINGS.sum();
+    }
+
+    /**
+     * @return the number of phrases that were shortened or dropped by
+     *         widening since the last {@link #resetWideningCounters()}
+     */
+    public static long getNumWidenedPhrases() {
+        return WIDENED_PHRASES.sum();
+    }
+
+    /**
+     * Resets the counters reported by {@link #getNumWidenings()} and
+     * {@link #getNumWidenedPhrases()}.
+     */
+    public static void resetWideningCounters() {
+        WIDENINGS.reset();
+        WIDENED_PHRASES.reset();
+    }
+
+    /**
+     * If {@code this} exceeds the bounds of the given {@link WideningPolicy},
+     * soundly over-approximates {@code this} (i.e. the result is implied by
+     * the original) until it is within the bounds (see
+     * {@link WideningPolicy} for the rules).
+     *
+     * @param policy
+     *
+     * @return {@code true} iff any modification was made to {@code this}
+     */
+    public final boolean widen(WideningPolicy policy) {
+        checkModifiability();
+        if (!policy.isExceededBy(data.size(), data.maxPhraseSize())) {
+            return false;
+        }
+        final int numWidened = formRules.widen(getConcreteThis(), policy);
+        if (numWidened > 0) {
+            WIDENINGS.increment();
+            WIDENED_PHRASES.add(numWidened);
+        }
+        return numWidened > 0;
+    }
+
+    /**
+     * Applies the {@link WideningPolicy} of the given
+     * {@link OperationContext} (if any) to {@code this}.
+     *
+     * @param ctx
+     */
+    private void widenIfNeeded(OperationContext ctx) {
+        final WideningPolicy policy = ctx.getWideningPolicy();
+        if (policy != null) {
+            widen(policy);
+        }
+    }
+
+    /**
+     * Replaces each phrase of {@code this} with more than {@code size}
+     * elements by a phrase containing only the elements chosen by
+     * {@link WideningPolicy#selectKept(java.util.List, int)} and applies the
+     * absorption law to the result.
+     *
+     * @param policy
+     * @param size
+     *
+     * @return the number of phrases that were shortened
+     *
+     * @throws IllegalStateException if the {@link WideningPolicy} chooses an
+     *                               element that is not in the phrase or too
+     *                               many elements (in which case {@code this}
+     *                               is unchanged)
+     */
+    /*package*/ final int shortenPhrases(WideningPolicy policy, int size) {
+        if (data.maxPhraseSize() <= size) {
+            return 0;
+        }
+        final ArrayList<PhraseType> phrases = new ArrayList<>(data.size());
+        final ArrayList<ElemType> elems = new ArrayList<>();
+        int retVal = 0;
+        for (PhraseType p : data) {
+            if (size(p) <= size) {
+                phrases.add(p);
+                continue;
+            }
+            elems.clear();
+            for (Iterator<ElemType> it = iterator(p, true); it.hasNext();) {
+                elems.add(it.next());
+            }
+            final List<ElemType> kept = policy.selectKept(elems, size);
+            if (kept.size() > size) {
+                throw new IllegalStateException(policy + " kept " + kept.size() + " elements but the size is " + size);
+            }
+            //NOTE: a new phrase is created since the elements of 'kept' may be
+            //  backed by the phrase.
+            final PhraseType shortened = createSingleton(null);//use 'null' to create empty phrase
+            for (ElemType e : kept) {
+                if (!contains(p, e)) {
+                    throw new IllegalStateException(policy + " kept an element that is not in the phrase: " + e);
                 }
+                add(shortened, e);
             }
+            phrases.add(shortened);
+            retVal++;
         }
+        this.data.clear();
+        addAllPhrases_unchecked(phrases, false, false);
+        return retVal;
+    }
 
-        long startFinal = System.nanoTime();
-        this.merge(toAdd);
-        long elapFinalAdd = System.nanoTime() - startFinal;
-
-//        final double overallElapsedMS = ((double) (System.nanoTime() - overallStart) / 1_000_000);
-//        System.out.println("END: NormalForm#resolveAll(..) this.size=" + this.getNumProps() + ":" + this.getNumPhrases()
-//                + "; resMap.size=" + resolutionMap.size() + " in " + overallElapsedMS + "ms"
-//                + "; count=" + count
-//                + "; innerCross(ms)=" + (((double) elapInnerCross) / 1_000_000)
-//                + "; phraseCross(ms)=" + (((double) elapPhraseCross) / 1_000_000)
-//                + "; phraseMerge(ms)=" + (((double) elapPhraseMerge) / 1_000_000)
-//                + "; finalMerge(ms)=" + (((double) elapFinalAdd) / 1_000_000)
-//        );
-//APPROACH: Iterating over the phrase (slow)
-//                countOpt1++;
-//                long startOpt = System.nanoTime();
-//                //Iterate the phrase and check for a replacement for each value.
-//                //  When an element from the phrase is found in the map, add the
-//                //  mapped value to 'newPhrase' and removing the old value.
-//                for (Iterator<ElemType> phrItr = iterator(phrase, false); phrItr.hasNext();) {
-//                    ElemType elem = phrItr.next();
-//                    ConcreteType replacement = resolutionMap.get(elem);
-//                    if (replacement != null) {
-//                        //If any key from the map is found in the phrase, we need
-//                        //  to remove the phrase from 'data' so that it's union with
-//                        //  'newPhrase' can be re-added with absorption.
-//                        //Phrase must be removed before modifying it or else
-//                        //  HashSet.iterator().remove() will not work!
-//                        if (!removedPhrase) {
-//                            removedPhrase = true;
-//                            it.remove();
-//                        }
-//                        //Remove the 'elem' from the phrase
-//                        remove(phrase, elem);
-//                        long startCross = System.nanoTime();
-//                        //Accumulate the value via cross product
-//                        aggregate.cross(replacement);
-//                        elapInnerCross1 += System.nanoTime() - startCross;
-//                    }
-//                }
-//                elapOpt1 += System.nanoTime() - startOpt;
-        return !toAdd.isEmpty();
+    /**
+     * Removes every phrase of {@code this} with more than {@code maxSize}
+     * elements and then the largest remaining phrases (in the order of
+     * {@link #toString(boolexpr.NormalForm.PrintingConnectives, boolean)})
+     * until at most {@code maxPhrases} remain.
+     *
+     * @param maxPhrases
+     * @param maxSize
+     *
+     * @return the number of phrases that were removed
+     */
+    /*package*/ final int dropLongestPhrases(int maxPhrases, int maxSize) {
+        int retVal = 0;
+        for (Iterator<PhraseType> it = data.largerThan(maxSize).iterator(); it.hasNext();) {
+            it.next();
+            it.remove();
+            retVal++;
+        }
+        if (data.size() > maxPhrases) {
+            final List<PhraseType> ordered = orderedPhrases();
+            for (int i = ordered.size() - 1; i >= maxPhrases; i--) {
+                data.remove(ordered.get(i));
+                retVal++;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Merges the smaller of the given {@link NormalForm}s into the larger one
+     * (to clone fewer phrases) and returns the larger one.
+     *
+     * @param f1
+     * @param f2
+     *
+     * @return
+     */
+    private static <P, E, C extends NormalForm<P, E, C>> C mergeLarger(C f1, C f2) {
+        if (f1.getNumPhrases() < f2.getNumPhrases()) {
+            C t = f1;
+            f1 = f2;
+            f2 = t;
+        }
+        f1.merge(f2);
+        return f1;
     }
 
     /**
@@ -1479,8 +2931,14 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
 
     @Override
     public int hashCode() {
+        if (preventModification && cachedHash != 0) {
+            return cachedHash;
+        }
         int hash = 7;
         hash = 43 * hash + Objects.hashCode(this.data);
+        if (preventModification) {
+            cachedHash = hash;
+        }
         return hash;
     }
 
@@ -1561,6 +3019,10 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      *         some phrase
      */
     public boolean containsProp(ElemType elem) {
+        if (data.hasPostings()) {
+            final int key = toKey(elem);
+            return key >= 0 && data.countContaining(key) > 0;
+        }
         for (PhraseType s : data) {
             if (contains(s, elem)) {
                 return true;
@@ -1576,6 +3038,10 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      * @return the number of phrases containing the given proposition
      */
     public int countProp(ElemType elem) {
+        if (data.hasPostings()) {
+            final int key = toKey(elem);
+            return key < 0 ? 0 : data.countContaining(key);
+        }
         int retVal = 0;
         for (PhraseType s : data) {
             if (contains(s, elem)) {
@@ -1590,6 +3056,29 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         return toString(PrintingConnectives.DEFAULT, false);
     }
 
+    /**
+     * NOTE: the phrases are already grouped by size in {@link #data} and the
+     * orderings used by {@link #order(java.util.Collection)} compare size
+     * first so only the phrases within each group need to be sorted.
+     *
+     * @return the phrases of {@code this} in the order given by
+     *         {@link #order(java.util.Collection)}
+     */
+    private List<PhraseType> orderedPhrases() {
+        ArrayList<PhraseType> retVal = new ArrayList<>(data.size());
+        for (int n = 0, max = data.maxPhraseSize(); n <= max; n++) {
+            Collection<PhraseType> bucket = data.bucket(n);
+            if (bucket.size() == 1) {
+                retVal.addAll(bucket);
+            } else if (!bucket.isEmpty()) {
+                for (PhraseType p : order(bucket)) {
+                    retVal.add(p);
+                }
+            }
+        }
+        return retVal;
+    }
+
     /**
      * Builds a {@link String} representation of {@code this} with the option to
      * sort the items in {@link String} returned.
@@ -1601,7 +3090,7 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      */
     public String toString(PrintingConnectives conn, boolean sorted) {
         StringBuilder b = new StringBuilder();
-        for (Iterator<PhraseType> itP = (sorted ? order(data) : data).iterator(); itP.hasNext();) {
+        for (Iterator<PhraseType> itP = (sorted ? orderedPhrases() : data).iterator(); itP.hasNext();) {
             PhraseType phrase = itP.next();
             b.append(conn.phraseWrapBegin);
             for (Iterator<ElemType> itE = iterator(phrase, sorted); itE.hasNext();) {
@@ -1636,7 +3125,9 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
         if (input.isEmpty()) {
             return;
         }
-        //Split the input string into phrases and parse each
+        //Split the input string into phrases and parse each, then add them
+        //  all at once to avoid pairwise absorption checks while parsing.
+        ArrayList<PhraseType> phrases = new ArrayList<>();
         for (String phraseStr : input.split(quoteForRegex(conn.outerConnective))) {
             if (phraseStr.isEmpty()) {
                 //If there are outer connectives w/ no phrase in between, just
@@ -1665,8 +3156,9 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
                     add(phrase, elem);
                 }
             }
-            tryAddWithAbsorption(phrase);
+            phrases.add(phrase);
         }
+        addAllPhrases_internal(phrases, false);
     }
 
     private static String quoteForRegex(String s) {
@@ -1741,6 +3233,54 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      */
     protected abstract PhraseType clone(PhraseType orig);
 
+    /**
+     * Marks the given phrase as frozen, i.e. it may be contained in more than
+     * one {@link NormalForm} so none of them may modify it anymore (see
+     * {@link #mutable(java.lang.Object)}).
+     *
+     * @param phrase
+     */
+    protected abstract void freeze(PhraseType phrase);
+
+    /**
+     * Returns the canonical instance of the given phrase from the intern
+     * table for the phrase type, adding the given phrase (which is frozen
+     * first) if no equal phrase is in the table. Used by {@link #data} when
+     * {@link #INTERN_PHRASES} is enabled.
+     *
+     * @param phrase
+     *
+     * @return the canonical instance equal to the given phrase
+     */
+    protected abstract PhraseType intern(PhraseType phrase);
+
+    /**
+     * NOTE: an implementation that is unable to mark a phrase as frozen must
+     * return {@code true} for every phrase.
+     *
+     * @param phrase
+     *
+     * @return {@code true} iff the phrase may be contained in more than one
+     *         {@link NormalForm} (see {@link #freeze(java.lang.Object)})
+     */
+    protected abstract boolean isFrozen(PhraseType phrase);
+
+    /**
+     * Phrases are shared between {@link NormalForm} instances (i.e. copies
+     * made by the copy constructor and phrases added by
+     * {@link #merge(boolexpr.NormalForm)}) rather than cloned. Such phrases are
+     * frozen and must be cloned before they can be modified. This must be
+     * called on any phrase taken from {@link #data} before it is modified.
+     *
+     * @param phrase
+     *
+     * @return the given phrase if it is owned by {@code this} and can be
+     *         modified or else a modifiable clone of it
+     */
+    protected final PhraseType mutable(PhraseType phrase) {
+        return isFrozen(phrase) ? clone(phrase) : phrase;
+    }
+
     /**
      *
      * @param phrase
@@ -1834,6 +3374,49 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
     protected abstract void addAll(PhraseType base, PhraseType toAdd);
 
     /**
+     * Returns a new phrase containing the elements in both {@code p1} and
+     * {@code p2}.
+     *
+     * NOTE: the default implementation iterates {@code p1}.
+     *
+     * @param p1
+     * @param p2
+     *
+     * @return the intersection of {@code p1} and {@code p2}
+     */
+    protected PhraseType intersection(PhraseType p1, PhraseType p2) {
+        PhraseType retVal = createSingleton(null);//use 'null' to create empty phrase
+        for (Iterator<ElemType> itr = iterator(p1, false); itr.hasNext();) {
+            ElemType e = itr.next();
+            if (contains(p2, e)) {
+                add(retVal, e);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Sets {@code dst} to the union of {@code p1} and {@code p2}, reusing the
+     * storage of {@code dst} where possible, and returns it. If {@code dst} is
+     * {@code null}, returns a new phrase instead.
+     *
+     * NOTE: the default implementation always returns a new phrase.
+     *
+     * @param dst
+     * @param p1
+     * @param p2
+     *
+     * @return the union of {@code p1} and {@code p2}
+     */
+    protected PhraseType unionInto(PhraseType dst, PhraseType p1, PhraseType p2) {
+        PhraseType retVal = clone(p1);
+        addAll(retVal, p2);
+        return retVal;
+    }
+
+    /**
+     * NOTE: the ordering must place smaller phrases before larger phrases
+     * (see {@link #orderedPhrases()}).
      *
      * @param phrases
      *
@@ -1862,6 +3445,67 @@ public abstract class NormalForm<PhraseType, ElemType, ConcreteType extends Norm
      */
     protected abstract ElemType minElem(PhraseType phrase);
 
+    /**
+     * Returns the elements of the given phrase as {@code int} keys in ascending
+     * order (without duplicates). The key of an element must be non-negative
+     * and unique among all elements of {@code ElemType}. These keys are used by
+     * the subset/superset index (see {@link SetTrie}).
+     *
+     * @param phrase
+     *
+     * @return
+     */
+    protected abstract int[] toSortedKeys(PhraseType phrase);
+
+    /**
+     * Computes a 64-bit signature of the given phrase such that if phrase
+     * {@code x} is a subset of phrase {@code y}, then every bit set in the
+     * signature of {@code x} is also set in the signature of {@code y}. Thus,
+     * {@code (signature(x) & ~signature(y)) != 0} implies that {@code x}
+     * cannot absorb {@code y}.
+     *
+     * NOTE: this is called for every absorption check so it should be cheap
+     * (ex: cached within the phrase). Returning a constant is always correct
+     * but disables the fast rejection.
+     *
+     * @param phrase
+     *
+     * @return
+     */
+    protected abstract long signature(PhraseType phrase);
+
+    /**
+     * NOTE: the key must be consistent with
+     * {@link #toSortedKeys(java.lang.Object)}.
+     *
+     * @param elem
+     *
+     * @return the non-negative key of the given element or a negative value if
+     *         the element cannot appear in any phrase
+     */
+    protected abstract int toKey(ElemType elem);
+
+    /**
+     * @param elems
+     *
+     * @return the ascending and distinct keys (see
+     *         {@link #toKey(java.lang.Object)}) of the given elements, skipping
+     *         {@code null} and any element that cannot appear in a phrase
+     */
+    private int[] toSortedKeys(Collection<ElemType> elems) {
+        int[] retVal = new int[elems.size()];
+        int n = 0;
+        for (ElemType e : elems) {
+            int key = e == null ? -1 : toKey(e);
+            if (key >= 0) {
+                retVal[n++] = key;
+            }
+        }
+        Arrays.sort(retVal, 0, n);
+        //NOTE: the keys of distinct elements are distinct
+        return n == retVal.length ? retVal : Arrays.copyOf(retVal, n);
+    }
+
     /**
      * Converts the given {@link String} representation of an element to the
      * element type. If the given {@link String} is empty, can return some
@@ -36,11 +36,32 @@ import java.util.Iterator;
  */
 /*package*/ abstract class NormalFormEnum<P extends Enum<P>, ConcreteType extends NormalFormEnum<P, ConcreteType>> extends NormalForm<EnumSet<P>, P, ConcreteType> {
 
+    /**
+     * Intern tables for the phrases of all {@link NormalFormEnum} (see
+     * {@link NormalForm#INTERN_PHRASES}), one per {@link Enum} type since
+     * empty {@link EnumSet}s of different types are equal.
+     */
+    private static final ClassValue<WeakInterner<EnumSet<?>>> INTERNERS = new ClassValue<WeakInterner<EnumSet<?>>>() {
+        @Override
+        protected WeakInterner<EnumSet<?>> computeValue(Class<?> type) {
+            return new WeakInterner<>();
+        }
+    };
+
     /**
      * The declaring class type of the {@link Enum} {@code P}.
      */
     protected final Class<P> enumType;
 
+    /**
+     * Whether or not {@link #signature(java.util.EnumSet)} computes a
+     * signature. For {@link Enum} types with at most 64 constants, the
+     * {@link EnumSet} is itself a single {@code long} so
+     * {@link EnumSet#containsAll(java.util.Collection)} is already as fast as
+     * the signature check and computing the signature would only add cost.
+     */
+    private final boolean computeSignatures;
+
     /**
      * Creates a {@link NormalFormEnum} with a single phrase.
      *
@@ -51,6 +72,7 @@ import java.util.Iterator;
     protected NormalFormEnum(FormRules formRules, EnumSet<P> firstPhrase) {
         super(formRules, firstPhrase);
         this.enumType = getElementType(firstPhrase);
+        this.computeSignatures = needsSignatures(enumType);
     }
 
     /**
@@ -64,6 +86,7 @@ import java.util.Iterator;
     protected NormalFormEnum(FormRules formRules, P firstProp) {
         super(formRules, EnumSet.of(firstProp));
         this.enumType = getElementType(firstProp);
+        this.computeSignatures = needsSignatures(enumType);
     }
 
     /**
@@ -72,6 +95,7 @@ import java.util.Iterator;
     protected NormalFormEnum(FormRules formRules, Class<P> elementType) {
         super(formRules);
         this.enumType = elementType;
+        this.computeSignatures = needsSignatures(enumType);
     }
 
     /**
@@ -85,6 +109,7 @@ import java.util.Iterator;
     protected NormalFormEnum(ConcreteType original, boolean unmodifiable) {
         super(original, unmodifiable);
         this.enumType = original.enumType;
+        this.computeSignatures = needsSignatures(enumType);
     }
 
     @Override
@@ -92,6 +117,25 @@ import java.util.Iterator;
         return orig.clone();
     }
 
+    @Override
+    protected final void freeze(EnumSet<P> phrase) {
+        //NOTE: an EnumSet cannot be marked so every phrase is frozen
+    }
+
+    @Override
+    protected final boolean isFrozen(EnumSet<P> phrase) {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected final EnumSet<P> intern(EnumSet<P> phrase) {
+        //NOTE: the first phrase is added by the super constructor, before
+        //  'enumType' is initialized.
+        final Class<P> type = enumType != null ? enumType : getElementType(phrase);
+        return (EnumSet<P>) INTERNERS.get(type).intern(phrase);
+    }
+
     @Override
     protected int size(EnumSet<P> set) {
         return set.size();
@@ -160,6 +204,25 @@ import java.util.Iterator;
         base.addAll(toAdd);
     }
 
+    @Override
+    protected EnumSet<P> intersection(EnumSet<P> p1, EnumSet<P> p2) {
+        EnumSet<P> retVal = p1.clone();
+        retVal.retainAll(p2);
+        return retVal;
+    }
+
+    @Override
+    protected EnumSet<P> unionInto(EnumSet<P> dst, EnumSet<P> p1, EnumSet<P> p2) {
+        if (dst == null) {
+            dst = p1.clone();
+        } else {
+            dst.clear();
+            dst.addAll(p1);
+        }
+        dst.addAll(p2);
+        return dst;
+    }
+
     @Override
     protected void collectToSet(EnumSet<P> src, HashSet<P> dst) {
         dst.addAll(src);
@@ -183,6 +246,42 @@ import java.util.Iterator;
         return itr.hasNext() ? itr.next() : null;
     }
 
+    @Override
+    protected int toKey(P elem) {
+        return elem.ordinal();
+    }
+
+    @Override
+    protected int[] toSortedKeys(EnumSet<P> phrase) {
+        //NOTE: EnumSet iterator returns elements in "natural ordering"
+        //  (i.e. order they are declared) so the ordinals are ascending.
+        int[] retVal = new int[phrase.size()];
+        int idx = 0;
+        for (P e : phrase) {
+            retVal[idx++] = e.ordinal();
+        }
+        return retVal;
+    }
+
+    private static boolean needsSignatures(Class<? extends Enum<?>> enumType) {
+        return enumType.getEnumConstants().length > Long.SIZE;
+    }
+
+    @Override
+    protected long signature(EnumSet<P> phrase) {
+        //NOTE: a constant signature never rejects a pair so the full check
+        //  is always performed (see 'computeSignatures').
+        if (!computeSignatures) {
+            return 0L;
+        }
+        //NOTE: the shift distance is taken mod 64 so larger ordinals wrap
+        long retVal = 0L;
+        for (P e : phrase) {
+            retVal |= 1L << e.ordinal();
+        }
+        return retVal;
+    }
+
     @Override
     public P parseElement(String s) {
         return Enum.valueOf(enumType, s);
@@ -37,6 +37,12 @@ import boolexpr.util.Numberer;
  */
 /*package*/ abstract class NormalFormInt<ConcreteType extends NormalFormInt<ConcreteType>> extends NormalForm<SparseBitSet, Integer, ConcreteType> {
 
+    /**
+     * Intern table for the phrases of all {@link NormalFormInt} (see
+     * {@link NormalForm#INTERN_PHRASES}).
+     */
+    private static final WeakInterner<SparseBitSet> INTERNER = new WeakInterner<>();
+
     /**
      * Creates a {@link NormalFormInt} with a single phrase, unless the given
      * {@link SparseBitSet} is {@code null}, in which case the created
@@ -110,6 +116,29 @@ import boolexpr.util.Numberer;
         return orig.clone();
     }
 
+    @Override
+    protected final void freeze(SparseBitSet phrase) {
+        phrase.freeze();
+    }
+
+    @Override
+    protected final boolean isFrozen(SparseBitSet phrase) {
+        return phrase.isFrozen();
+    }
+
+    @Override
+    protected final SparseBitSet intern(SparseBitSet phrase) {
+        if (phrase.isCanonical()) {
+            return phrase;
+        }
+        phrase.freeze();
+        SparseBitSet canonical = INTERNER.intern(phrase);
+        if (canonical == phrase) {
+            phrase.markCanonical();
+        }
+        return canonical;
+    }
+
     @Override
     protected int size(SparseBitSet set) {
         return set.cardinality();
@@ -181,6 +210,21 @@ import boolexpr.util.Numberer;
         base.or(toAdd);
     }
 
+    @Override
+    protected SparseBitSet intersection(SparseBitSet p1, SparseBitSet p2) {
+        return SparseBitSet.and(p1, p2);
+    }
+
+    @Override
+    protected SparseBitSet unionInto(SparseBitSet dst, SparseBitSet p1, SparseBitSet p2) {
+        if (dst == null) {
+            return SparseBitSet.or(p1, p2);
+        }
+        dst.copyFrom(p1);
+        dst.or(p2);
+        return dst;
+    }
+
     @Override
     protected void collectToSet(SparseBitSet src, HashSet<Integer> dst) {
         for (int i = src.minSetBit(); i >= 0; i = src.nextSetBit(i + 1)) {
@@ -204,11 +248,304 @@ import boolexpr.util.Numberer;
         return min < 0 ? null : min;
     }
 
+    @Override
+    protected long signature(SparseBitSet phrase) {
+        return phrase.signature();
+    }
+
+    @Override
+    protected int toKey(Integer elem) {
+        return elem;
+    }
+
+    @Override
+    protected int[] toSortedKeys(SparseBitSet phrase) {
+        int[] retVal = new int[phrase.cardinality()];
+        int idx = 0;
+        for (int i = phrase.minSetBit(); i >= 0; i = phrase.nextSetBit(i + 1)) {
+            retVal[idx++] = i;
+        }
+        return retVal;
+    }
+
     @Override
     public Integer parseElement(String s) {
         return s.isEmpty() ? null : Integer.parseInt(s);
     }
 
+    /**
+     * Replaces every element {@code i} of {@code this} with
+     * {@code oldToNew[i]} (if {@code i < oldToNew.length} and
+     * {@code oldToNew[i] >= 0}). Unlike {@link #replaceAll(java.util.Map)} with
+     * an equivalent {@link Map}, each affected phrase is remapped in a single
+     * scan over its own words (see {@link SparseBitSet#remap(int[])}) and the
+     * absorption law is restored once for all of the remapped phrases.
+     *
+     * @param oldToNew
+     *
+     * @return {@code true} iff any modification was made to {@code this}
+     */
+    public final boolean remapAll(int[] oldToNew) {
+        checkModifiability();
+        int count = 0;
+        for (int i = 0; i < oldToNew.length; i++) {
+            if (oldToNew[i] >= 0 && oldToNew[i] != i) {
+                count++;
+            }
+        }
+        final int[] changed = new int[count];
+        count = 0;
+        for (int i = 0; i < oldToNew.length; i++) {
+            if (oldToNew[i] >= 0 && oldToNew[i] != i) {
+                changed[count++] = i;
+            }
+        }
+        return remapAllInternal(changed, oldToNew, null, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * NOTE: when no key or value of the {@link Map} is {@code null} or
+     * negative, this is implemented via the same bulk remapping as
+     * {@link #remapAll(int[])} (using the sorted keys of the {@link Map}).
+     */
+    @Override
+    public boolean replaceAll(Map<Integer, Integer> oldToNewValue) {
+        final int num = oldToNewValue.size();
+        final int[] keys = new int[num];
+        int idx = 0;
+        for (Map.Entry<Integer, Integer> e : oldToNewValue.entrySet()) {
+            final Integer k = e.getKey();
+            final Integer v = e.getValue();
+            if (k == null || v == null || k < 0 || v < 0) {
+                return super.replaceAll(oldToNewValue);
+            }
+            keys[idx++] = k;
+        }
+        checkModifiability();
+        Arrays.sort(keys);
+        final int[] values = new int[num];
+        for (int i = 0; i < num; i++) {
+            values[i] = oldToNewValue.get(keys[i]);
+        }
+        //NOTE: keys mapped to themselves do not need to be remapped but, as in
+        //  NormalForm#replaceAll(..), 'this' is reported as modified when such
+        //  a key appears in it.
+        boolean selfMapped = false;
+        int count = 0;
+        for (int i = 0; i < num; i++) {
+            if (keys[i] != values[i]) {
+                keys[count] = keys[i];
+                values[count++] = values[i];
+            } else if (!selfMapped) {
+                selfMapped = containsProp(keys[i]);
+            }
+        }
+        final int[] changed = Arrays.copyOf(keys, count);
+        return remapAllInternal(changed, null, Arrays.copyOf(values, count), false) | selfMapped;
+    }
+
+    /**
+     * Remaps every phrase containing some element in {@code changed} via
+     * {@link SparseBitSet#remap(int[])} (if {@code oldToNew != null}) or
+     * {@link SparseBitSet#remap(int[], int[])} (otherwise) and then adds the
+     * remapped phrases back into {@code this} with a single minimization pass.
+     *
+     * @param changed   the elements that are remapped (sorted)
+     * @param oldToNew
+     * @param newValues
+     * @param injective if {@code true}, no two elements of {@code this} are
+     *                  mapped to the same element so the remapped phrases
+     *                  still satisfy the absorption law and are added back
+     *                  without any checks
+     *
+     * @return {@code true} iff any modification was made to {@code this}
+     */
+    private boolean remapAllInternal(int[] changed, int[] oldToNew, int[] newValues, boolean injective) {
+        if (changed.length == 0 || this.data.isEmpty()) {
+            return false;
+        }
+        final SparseBitSet changedSet = SparseBitSet.make(changed);
+        //NOTE: only phrases containing some remapped element are modified so
+        //  when the posting index is available, only those are visited.
+        final ArrayList<SparseBitSet> remapped = new ArrayList<>();
+        final Iterator<SparseBitSet> phraseItr = this.data.hasPostings()
+                ? this.data.containingAny(changed)
+                : this.data.iterator();
+        for (Iterator<SparseBitSet> it = phraseItr; it.hasNext();) {
+            SparseBitSet phrase = it.next();
+            if (phrase.intersects(changedSet)) {
+                it.remove();
+                remapped.add(oldToNew != null ? phrase.remap(oldToNew) : phrase.remap(changed, newValues));
+            }
+        }
+        if (remapped.isEmpty()) {
+            return false;
+        }
+        if (injective) {
+            for (SparseBitSet p : remapped) {
+                this.data.add(p);
+            }
+        } else {
+            addAllPhrases_internal(remapped, false);
+        }
+        return true;
+    }
+
+    /**
+     * Renumbers the elements of {@code this} onto the dense range
+     * {@code [0, k)} where {@code k} is the number of distinct elements (in
+     * ascending order of the original elements). Elements spread over a large
+     * range of ids use many mostly-empty blocks in each {@link SparseBitSet}
+     * so the compacted form uses less memory and its absorption checks (i.e.
+     * {@link SparseBitSet#containsAll(boolexpr.util.SparseBitSet)}) touch
+     * fewer blocks.
+     *
+     * @return the original element for each new element, i.e.
+     *         {@link #remapAll(int[])} with the returned array translates
+     *         {@code this} back to the original elements
+     *
+     * @see #compactIds(java.util.Collection, boolexpr.IdOrder)
+     */
+    public final int[] compactIds() {
+        return compactIds(IdOrder.ASCENDING);
+    }
+
+    /**
+     * Renumbers the elements of {@code this} onto the dense range
+     * {@code [0, k)} where {@code k} is the number of distinct elements (in
+     * the given order).
+     *
+     * @param order
+     *
+     * @return the original element for each new element, i.e.
+     *         {@link #remapAll(int[])} with the returned array translates
+     *         {@code this} back to the original elements
+     *
+     * @see #compactIds(java.util.Collection, boolexpr.IdOrder)
+     */
+    public final int[] compactIds(IdOrder order) {
+        return compactIds(Collections.singletonList(this), order);
+    }
+
+    /**
+     * Renumbers the elements of all of the given forms (consistently) onto the
+     * dense range {@code [0, k)} where {@code k} is the number of distinct
+     * elements among them (in the given order).
+     *
+     * @param forms
+     * @param order
+     *
+     * @return the original element for each new element, i.e.
+     *         {@link #remapAll(int[])} with the returned array translates any
+     *         of the forms back to the original elements
+     */
+    public static int[] compactIds(Collection<? extends NormalFormInt<?>> forms, IdOrder order) {
+        //Check all forms before modifying any of them
+        final SparseBitSet used = new SparseBitSet();
+        for (NormalFormInt<?> f : forms) {
+            f.checkModifiability();
+            used.or(f.getAllPropsBitSet());
+        }
+        final int k = used.cardinality();
+        final int[] sortedOld = new int[k];
+        for (int i = used.minSetBit(), idx = 0; i >= 0; i = used.nextSetBit(i + 1)) {
+            sortedOld[idx++] = i;
+        }
+
+        //Determine the new id of each element (by position in 'sortedOld')
+        final int[] newValues = new int[k];
+        final int[] newToOld;
+        switch (order) {
+            case ASCENDING: {
+                for (int i = 0; i < k; i++) {
+                    newValues[i] = i;
+                }
+                newToOld = sortedOld;
+                break;
+            }
+            case FREQUENCY: {
+                final int[] counts = new int[k];
+                for (NormalFormInt<?> f : forms) {
+                    for (SparseBitSet p : f.data) {
+                        for (int i = p.minSetBit(); i >= 0; i = p.nextSetBit(i + 1)) {
+                            counts[Arrays.binarySearch(sortedOld, i)]++;
+                        }
+                    }
+                }
+                final Integer[] positions = new Integer[k];
+                for (int i = 0; i < k; i++) {
+                    positions[i] = i;
+                }
+                Arrays.sort(positions, new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer o1, Integer o2) {
+                        int c = Integer.compare(counts[o2], counts[o1]);
+                        return c != 0 ? c : Integer.compare(o1, o2);
+                    }
+                });
+                newToOld = new int[k];
+                for (int n = 0; n < k; n++) {
+                    newValues[positions[n]] = n;
+                    newToOld[n] = sortedOld[positions[n]];
+                }
+                break;
+            }
+            case COOCCURRENCE: {
+                final ArrayList<SparseBitSet> phrases = new ArrayList<>();
+                for (NormalFormInt<?> f : forms) {
+                    phrases.addAll(f.data);
+                }
+                Collections.sort(phrases, new Comparator<SparseBitSet>() {
+                    @Override
+                    public int compare(SparseBitSet o1, SparseBitSet o2) {
+                        //NOTE: the contents break ties so the order is deterministic
+                        int c = Integer.compare(o2.cardinality(), o1.cardinality());
+                        return c != 0 ? c : Ordering.BITSET_COMPARATOR.compare(o1, o2);
+                    }
+                });
+                Arrays.fill(newValues, -1);
+                newToOld = new int[k];
+                int next = 0;
+                for (SparseBitSet p : phrases) {
+                    for (int i = p.minSetBit(); i >= 0; i = p.nextSetBit(i + 1)) {
+                        int pos = Arrays.binarySearch(sortedOld, i);
+                        if (newValues[pos] < 0) {
+                            newValues[pos] = next;
+                            newToOld[next++] = i;
+                        }
+                    }
+                }
+                assert next == k;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown order: " + order);
+        }
+
+        //Elements that keep their id do not need to be remapped
+        int count = 0;
+        for (int i = 0; i < k; i++) {
+            if (sortedOld[i] != newValues[i]) {
+                count++;
+            }
+        }
+        final int[] changed = new int[count];
+        final int[] changedValues = new int[count];
+        count = 0;
+        for (int i = 0; i < k; i++) {
+            if (sortedOld[i] != newValues[i]) {
+                changed[count] = sortedOld[i];
+                changedValues[count++] = newValues[i];
+            }
+        }
+        for (NormalFormInt<?> f : forms) {
+            f.remapAllInternal(changed, null, changedValues, true);
+        }
+        return newToOld;
+    }
+
     /**
      * Explores all phrases in {@code this} to check for elements in the given
      * {@link Set}. All phrases not containing an element in the {@link Set} are
@@ -250,7 +587,9 @@ import boolexpr.util.Numberer;
         //  and a single inserted number to replace an entire set of phrases.
         //  ex: A&B | A&C |... becomes A&Z where Z=B|C|... 
         Map<SparseBitSet, ConcreteType> relevantPhrToIrrelevantChunks = new HashMap<>();
-        for (SparseBitSet phrase : dataCopy) {
+        for (SparseBitSet original : dataCopy) {
+            //NOTE: 'phrase' is modified below so a shared phrase must be cloned
+            SparseBitSet phrase = mutable(original);
             //will contain all elements that are not in 'preserve'; initially empty
             SparseBitSet irrelevantElems = createSingletonInternal(null);
 
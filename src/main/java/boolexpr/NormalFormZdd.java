@@ -0,0 +1,318 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Alternative to {@link NormalFormInt} that stores the phrases in a
+ * zero-suppressed decision diagram (see {@link ZddManager}) rather than
+ * individually. Families of phrases with heavy overlap (e.g. the results of
+ * repeated cross products) share most of their nodes so the size of the
+ * diagram can be exponentially smaller than the number of phrases, and the
+ * operations (see {@link FormRules#and(boolexpr.ZddManager, int, int)} and
+ * {@link FormRules#or(boolexpr.ZddManager, int, int)}) are memoized on the
+ * nodes so their cost depends on the size of the diagrams rather than on the
+ * number of phrases. As with {@link NormalForm}, the phrases always satisfy
+ * the absorption law.
+ *
+ * The subclasses can be converted to and from the corresponding
+ * {@link NormalFormInt} subclasses so a {@link NormalFormInt} that is likely
+ * to blow up can be switched to this representation and back.
+ *
+ * NOTE: operands from a different {@link ZddManager} are imported into the
+ * {@link ZddManager} of {@code this}, which is correct but slower than using
+ * a single {@link ZddManager}.
+ *
+ * @author Timothy Hoffman
+ *
+ * @param <ConcreteType>
+ */
+/*package*/ abstract class NormalFormZdd<ConcreteType extends NormalFormZdd<ConcreteType>> {
+
+    /**
+     * {@link FormRules} used by {@code this} {@link NormalFormZdd}.
+     */
+    protected final FormRules formRules;
+
+    /**
+     * Contains the nodes of {@code this} {@link NormalFormZdd}.
+     */
+    protected final ZddManager manager;
+
+    /**
+     * Marks if {@code this} is modifiable. If {@code false}, any attempt to
+     * modify will throw an {@link UnsupportedOperationException}.
+     */
+    protected final boolean preventModification;
+
+    /**
+     * The node of {@link #manager} that represents the phrases of
+     * {@code this}.
+     */
+    protected int root;
+
+    /**
+     * Creates an empty and modifiable {@link NormalFormZdd}.
+     *
+     * @param formRules
+     * @param manager
+     */
+    protected NormalFormZdd(FormRules formRules, ZddManager manager) {
+        this.formRules = formRules;
+        this.manager = manager;
+        this.preventModification = false;
+        this.root = ZddManager.EMPTY;
+    }
+
+    /**
+     * Creates a {@link NormalFormZdd} with a single phrase containing a single
+     * proposition.
+     *
+     * @param formRules
+     * @param manager
+     * @param firstProp
+     *
+     * @throws IllegalArgumentException if {@code firstProp} is negative
+     */
+    protected NormalFormZdd(FormRules formRules, ZddManager manager, int firstProp) {
+        this(formRules, manager);
+        this.root = manager.singleton(firstProp);
+    }
+
+    /**
+     * Creates a {@link NormalFormZdd} with the same phrases as the given
+     * {@link NormalFormInt}.
+     *
+     * @param formRules
+     * @param manager
+     * @param form
+     */
+    protected NormalFormZdd(FormRules formRules, ZddManager manager, NormalFormInt<?> form) {
+        this(formRules, manager);
+        assert formRules == form.formRules;
+        this.root = manager.fromPhrases(form.data);
+    }
+
+    /**
+     * Copy constructor, takes constant time since the nodes are immutable.
+     *
+     * @param original     the {@link NormalFormZdd} to duplicate
+     * @param unmodifiable whether or not the new instance should be marked as
+     *                     unmodifiable/immutable
+     */
+    protected NormalFormZdd(ConcreteType original, boolean unmodifiable) {
+        this.formRules = original.formRules;
+        this.manager = original.manager;
+        this.preventModification = unmodifiable;
+        this.root = original.root;
+    }
+
+    /**
+     * Creates a copy of {@code this}.
+     *
+     * @param unmodifiable whether or not the new instance should be marked as
+     *                     unmodifiable/immutable
+     *
+     * @return
+     */
+    public abstract ConcreteType clone(boolean unmodifiable);
+
+    @SuppressWarnings("unchecked")
+    private ConcreteType getConcreteThis() {
+        return (ConcreteType) this;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if {@code this} is unmodifiable
+     */
+    protected final void checkModifiability() {
+        if (preventModification) {
+            throw new UnsupportedOperationException("Modification is not allowed");
+        }
+    }
+
+    public final boolean isUnmodifiable() {
+        return preventModification;
+    }
+
+    /**
+     * @return an unmodifiable copy of {@code this} or {@code this} if it is
+     *         already unmodifiable
+     */
+    public ConcreteType asUnmodifiable() {
+        return preventModification ? getConcreteThis() : clone(true);
+    }
+
+    /**
+     * @return the {@link ZddManager} containing the nodes of {@code this}
+     */
+    public final ZddManager getManager() {
+        return manager;
+    }
+
+    /**
+     * @return {@code true} iff {@code this} {@link NormalFormZdd} represents
+     *         the literal {@code false}.
+     */
+    public boolean isFalse() {
+        return root == formRules.getFalseNode();
+    }
+
+    /**
+     * @return {@code true} iff {@code this} {@link NormalFormZdd} represents
+     *         the literal {@code true}.
+     */
+    public boolean isTrue() {
+        return root == formRules.getTrueNode();
+    }
+
+    /**
+     * @return true iff {@code this} contains no phrases
+     */
+    public final boolean isEmpty() {
+        return root == ZddManager.EMPTY;
+    }
+
+    /**
+     * @return the number of phrases in {@code this}, or {@link Long#MAX_VALUE}
+     *         if it is larger
+     */
+    public final long getNumPhrases() {
+        return manager.count(root);
+    }
+
+    /**
+     * @return the number of (non-terminal) nodes used to represent the
+     *         phrases of {@code this}
+     */
+    public final int getNumNodes() {
+        return manager.size(root);
+    }
+
+    /**
+     * @param elem
+     *
+     * @return {@code true} iff any phrase of {@code this} contains the given
+     *         element
+     */
+    public boolean containsProp(int elem) {
+        return manager.containsElem(root, elem);
+    }
+
+    private int nodeOf(ConcreteType other) {
+        return manager.importFrom(other.manager, other.root);
+    }
+
+    /**
+     * Updates {@code this} {@link NormalFormZdd} via the "and" operation with
+     * {@code newProp} and returns a reference to {@code this}.
+     *
+     * @param newProp
+     *
+     * @return {@code this}
+     *
+     * @throws IllegalArgumentException if {@code newProp} is negative
+     */
+    public ConcreteType and(int newProp) {
+        checkModifiability();
+        root = formRules.and(manager, root, manager.singleton(newProp));
+        return getConcreteThis();
+    }
+
+    /**
+     * Updates {@code this} {@link NormalFormZdd} via the "and" operation with
+     * {@code newSentence} and returns a reference to {@code this}.
+     *
+     * @param newSentence
+     *
+     * @return {@code this}
+     */
+    public ConcreteType and(ConcreteType newSentence) {
+        checkModifiability();
+        root = formRules.and(manager, root, nodeOf(newSentence));
+        return getConcreteThis();
+    }
+
+    /**
+     * Updates {@code this} {@link NormalFormZdd} via the "or" operation with
+     * {@code newProp} and returns a reference to {@code this}.
+     *
+     * @param newProp
+     *
+     * @return {@code this}
+     *
+     * @throws IllegalArgumentException if {@code newProp} is negative
+     */
+    public ConcreteType or(int newProp) {
+        checkModifiability();
+        root = formRules.or(manager, root, manager.singleton(newProp));
+        return getConcreteThis();
+    }
+
+    /**
+     * Updates {@code this} {@link NormalFormZdd} via the "or" operation with
+     * {@code newSentence} and returns a reference to {@code this}.
+     *
+     * @param newSentence
+     *
+     * @return {@code this}
+     */
+    public ConcreteType or(ConcreteType newSentence) {
+        checkModifiability();
+        root = formRules.or(manager, root, nodeOf(newSentence));
+        return getConcreteThis();
+    }
+
+    /**
+     * Adds the phrases of {@code this} to the given (empty)
+     * {@link NormalFormInt}.
+     *
+     * @param <D>
+     * @param empty
+     *
+     * @return {@code empty}
+     */
+    protected final <D extends NormalFormInt<D>> D toNormalFormInt(D empty) {
+        assert empty.isEmpty() && empty.formRules == formRules;
+        empty.addAllPhrases(manager.toPhrases(root));
+        return empty;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 43 * hash + manager.hashOf(root);
+        return hash;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || this.getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConcreteType other = (ConcreteType) obj;
+        //NOTE: the nodes are unique so equal families are the same node
+        return this.root == nodeOf(other);
+    }
+}
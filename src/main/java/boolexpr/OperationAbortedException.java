@@ -0,0 +1,88 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * Thrown when an operation of a {@link NormalForm} is stopped early by the
+ * {@link OperationContext} in effect for the calling thread, i.e. because it
+ * was cancelled or interrupted, passed its deadline, or built a
+ * {@link NormalForm} exceeding one of the limits.
+ *
+ * NOTE: an operation that throws this exception leaves the {@link NormalForm}
+ * it was applied to unchanged (i.e. it still represents the same formula and
+ * is only made of the same phrases as before the operation started).
+ *
+ * @author Timothy Hoffman
+ */
+public class OperationAbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Why an operation was aborted.
+     */
+    public static enum Reason {
+        /**
+         * The {@link OperationContext.CancellationToken} was cancelled.
+         */
+        CANCELLED,
+        /**
+         * The thread running the operation was interrupted.
+         */
+        INTERRUPTED,
+        /**
+         * The deadline of the {@link OperationContext} passed.
+         */
+        DEADLINE,
+        /**
+         * The operation built a {@link NormalForm} with more phrases than
+         * {@link OperationContext#getMaxPhrases()}.
+         */
+        PHRASE_LIMIT,
+        /**
+         * The operation built a {@link NormalForm} with more propositions than
+         * {@link OperationContext#getMaxProps()}.
+         */
+        PROP_LIMIT
+    }
+
+    private final Reason reason;
+
+    //NOTE: the constructors are not public so a ForkJoinPool rethrows the
+    //  original exception rather than creating a new one without the reason.
+    /*package*/ OperationAbortedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    /*package*/ OperationAbortedException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    /**
+     * @return why the operation was aborted
+     */
+    public Reason getReason() {
+        return reason;
+    }
+}
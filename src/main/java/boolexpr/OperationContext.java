@@ -0,0 +1,422 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on the operations of {@link NormalForm} that can grow the
+ * {@link NormalForm}s they build very quickly (i.e. merge, cross product, and
+ * resolution) which are checked cooperatively while the operation runs. An
+ * {@link OperationContext} can give:
+ * <ul>
+ * <li>a maximum number of phrases and a maximum number of propositions for any
+ * {@link NormalForm} built by an operation (including the intermediate results
+ * that are not returned)</li>
+ * <li>a deadline</li>
+ * <li>a {@link CancellationToken} that can be cancelled from another
+ * thread</li>
+ * <li>a {@link WideningPolicy} that bounds the {@link NormalForm}s built by
+ * an operation by over-approximating them rather than stopping the
+ * operation</li>
+ * </ul>
+ * and operations also stop when a thread running them is interrupted. An
+ * operation that is stopped throws an {@link OperationAbortedException} and
+ * leaves the {@link NormalForm} it was applied to unchanged.
+ *
+ * Like {@link ExecutionPolicy}, the {@link OperationContext} used by an
+ * operation is the one given to {@link #use()} by the calling thread (and it
+ * applies to the parallel parts of the operation as well) or else
+ * {@link #UNBOUNDED}, which never stops an operation. For example:
+ * <pre>
+ * OperationContext ctx = OperationContext.builder()
+ *         .maxPhrases(100_000).timeout(10, TimeUnit.SECONDS).build();
+ * try (OperationContext.Scope s = ctx.use()) {
+ *     dnf.and(other);
+ * } catch (OperationAbortedException ex) {
+ *     //'dnf' is unchanged
+ * }
+ * </pre>
+ *
+ * NOTE: the deadline is fixed when the {@link OperationContext} is built so a
+ * single {@link OperationContext} can bound the total time of a group of
+ * operations.
+ *
+ * @author Timothy Hoffman
+ */
+public final class OperationContext {
+
+    /**
+     * Never stops an operation (not even when the thread running it is
+     * interrupted) and does not check anything.
+     */
+    public static final OperationContext UNBOUNDED = new OperationContext(Integer.MAX_VALUE, Integer.MAX_VALUE, false, 0, null, null, false);
+
+    private static final ThreadLocal<OperationContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return a new {@link Builder} with no limits, no deadline, and no
+     *         {@link CancellationToken}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the {@link OperationContext} in effect for the calling thread
+     */
+    public static OperationContext current() {
+        OperationContext retVal = CURRENT.get();
+        return retVal != null ? retVal : UNBOUNDED;
+    }
+
+    private final int maxPhrases;
+
+    private final int maxProps;
+
+    private final boolean hasDeadline;
+
+    private final long deadline;
+
+    private final CancellationToken token;
+
+    private final WideningPolicy widening;
+
+    /**
+     * {@code false} only for {@link #UNBOUNDED} so the checks can return
+     * immediately.
+     */
+    private final boolean checked;
+
+    private OperationContext(int maxPhrases, int maxProps, boolean hasDeadline, long deadline, CancellationToken token,
+            WideningPolicy widening, boolean checked) {
+        this.maxPhrases = maxPhrases;
+        this.maxProps = maxProps;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.token = token;
+        this.widening = widening;
+        this.checked = checked;
+    }
+
+    /**
+     * Makes {@code this} the {@link OperationContext} of the calling thread
+     * until the returned {@link Scope} is closed.
+     *
+     * @return
+     */
+    public Scope use() {
+        return new Scope(swap(this));
+    }
+
+    /**
+     * @return the maximum number of phrases of any {@link NormalForm} built by
+     *         an operation ({@link Integer#MAX_VALUE} if there is no limit)
+     */
+    public int getMaxPhrases() {
+        return maxPhrases;
+    }
+
+    /**
+     * @return the maximum number of propositions (see
+     *         {@link NormalForm#getNumProps()}) of any {@link NormalForm} built
+     *         by an operation ({@link Integer#MAX_VALUE} if there is no limit)
+     */
+    public int getMaxProps() {
+        return maxProps;
+    }
+
+    /**
+     * @return {@code true} iff {@code this} has a deadline
+     */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return the deadline, as a value of {@link System#nanoTime()}
+     *
+     * @throws IllegalStateException if {@code this} has no deadline
+     */
+    public long getDeadline() {
+        if (!hasDeadline) {
+            throw new IllegalStateException("no deadline");
+        }
+        return deadline;
+    }
+
+    /**
+     * @return the {@link CancellationToken} or {@code null} if there is none
+     */
+    public CancellationToken getCancellationToken() {
+        return token;
+    }
+
+    /**
+     * @return the {@link WideningPolicy} or {@code null} if there is none
+     */
+    public WideningPolicy getWideningPolicy() {
+        return widening;
+    }
+
+    /**
+     * @return {@code true} iff {@code this} is {@link #UNBOUNDED}, i.e.
+     *         operations never check it
+     */
+    public boolean isUnbounded() {
+        return !checked;
+    }
+
+    /**
+     * Checks whether the operation must stop because it was cancelled or
+     * interrupted or the deadline passed.
+     *
+     * @throws OperationAbortedException
+     */
+    /*package*/ void checkpoint() {
+        if (!checked) {
+            return;
+        }
+        if (token != null && token.isCancelled()) {
+            throw new OperationAbortedException(OperationAbortedException.Reason.CANCELLED, "operation cancelled");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new OperationAbortedException(OperationAbortedException.Reason.INTERRUPTED, "operation interrupted");
+        }
+        //NOTE: compare the difference since nanoTime() may overflow
+        if (hasDeadline && System.nanoTime() - deadline > 0) {
+            throw new OperationAbortedException(OperationAbortedException.Reason.DEADLINE, "operation passed its deadline");
+        }
+    }
+
+    /**
+     * Checks whether a {@link NormalForm} with the given number of phrases and
+     * propositions is within the limits of {@code this}.
+     *
+     * @param numPhrases
+     * @param numProps
+     *
+     * @throws OperationAbortedException
+     */
+    /*package*/ void checkLimits(int numPhrases, long numProps) {
+        if (numPhrases > maxPhrases) {
+            throw new OperationAbortedException(OperationAbortedException.Reason.PHRASE_LIMIT,
+                    "operation exceeded the maximum number of phrases: " + numPhrases + " > " + maxPhrases);
+        }
+        if (numProps > maxProps) {
+            throw new OperationAbortedException(OperationAbortedException.Reason.PROP_LIMIT,
+                    "operation exceeded the maximum number of propositions: " + numProps + " > " + maxProps);
+        }
+    }
+
+    /**
+     * Sets the {@link OperationContext} of the current thread.
+     *
+     * @param context
+     *
+     * @return the previous {@link OperationContext} of the current thread or
+     *         {@code null} if it did not have one
+     */
+    /*package*/ static OperationContext swap(OperationContext context) {
+        OperationContext prev = CURRENT.get();
+        CURRENT.set(context);
+        return prev;
+    }
+
+    /*package*/ static void restore(OperationContext prev) {
+        if (prev == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(prev);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (!checked) {
+            return "OperationContext{unbounded}";
+        }
+        return "OperationContext{maxPhrases=" + maxPhrases + ", maxProps=" + maxProps
+                + (hasDeadline ? ", deadline=" + deadline : "") + (token != null ? ", " + token : "")
+                + (widening != null ? ", " + widening : "") + "}";
+    }
+
+    /**
+     * Restores the previous {@link OperationContext} of a thread when closed.
+     *
+     * @see OperationContext#use()
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final OperationContext prev;
+
+        private Scope(OperationContext prev) {
+            this.prev = prev;
+        }
+
+        @Override
+        public void close() {
+            restore(prev);
+        }
+    }
+
+    /**
+     * Stops every operation using an {@link OperationContext} with
+     * {@code this} token once {@link #cancel()} is called (from any thread).
+     *
+     * NOTE: thread-safe
+     */
+    public static final class CancellationToken {
+
+        private volatile boolean cancelled = false;
+
+        /**
+         * Stops the operations using {@code this}. A {@link CancellationToken}
+         * cannot be reset.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return {@code true} iff {@link #cancel()} has been called
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public String toString() {
+            return "CancellationToken{cancelled=" + cancelled + "}";
+        }
+    }
+
+    /**
+     * Builds an {@link OperationContext}.
+     */
+    public static final class Builder {
+
+        private int maxPhrases = Integer.MAX_VALUE;
+
+        private int maxProps = Integer.MAX_VALUE;
+
+        private boolean hasDeadline = false;
+
+        private long deadline = 0;
+
+        private CancellationToken token = null;
+
+        private WideningPolicy widening = null;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxPhrases
+         *
+         * @return {@code this}
+         *
+         * @throws IllegalArgumentException if {@code maxPhrases} is negative
+         */
+        public Builder maxPhrases(int maxPhrases) {
+            if (maxPhrases < 0) {
+                throw new IllegalArgumentException("maxPhrases must not be negative: " + maxPhrases);
+            }
+            this.maxPhrases = maxPhrases;
+            return this;
+        }
+
+        /**
+         * @param maxProps
+         *
+         * @return {@code this}
+         *
+         * @throws IllegalArgumentException if {@code maxProps} is negative
+         */
+        public Builder maxProps(int maxProps) {
+            if (maxProps < 0) {
+                throw new IllegalArgumentException("maxProps must not be negative: " + maxProps);
+            }
+            this.maxProps = maxProps;
+            return this;
+        }
+
+        /**
+         * @param deadline a value of {@link System#nanoTime()}
+         *
+         * @return {@code this}
+         */
+        public Builder deadline(long deadline) {
+            this.hasDeadline = true;
+            this.deadline = deadline;
+            return this;
+        }
+
+        /**
+         * Sets the deadline to the given amount of time after now.
+         *
+         * @param timeout
+         * @param unit
+         *
+         * @return {@code this}
+         */
+        public Builder timeout(long timeout, TimeUnit unit) {
+            return deadline(System.nanoTime() + unit.toNanos(timeout));
+        }
+
+        /**
+         * @param token may be {@code null}
+         *
+         * @return {@code this}
+         */
+        public Builder cancellationToken(CancellationToken token) {
+            this.token = token;
+            return this;
+        }
+
+        /**
+         * NOTE: the limits given by {@link #maxPhrases(int)} and
+         * {@link #maxProps(int)} are checked before the {@link NormalForm}s
+         * are widened so they should be larger than the bounds of the
+         * {@link WideningPolicy}.
+         *
+         * NOTE: the products stored in a
+         * {@link NormalForm.ResolutionCache} while widening are widened as
+         * well so the cache should not be shared with exact resolutions.
+         *
+         * @param widening may be {@code null}
+         *
+         * @return {@code this}
+         */
+        public Builder widening(WideningPolicy widening) {
+            this.widening = widening;
+            return this;
+        }
+
+        /**
+         * @return
+         */
+        public OperationContext build() {
+            return new OperationContext(maxPhrases, maxProps, hasDeadline, deadline, token, widening, true);
+        }
+    }
+}
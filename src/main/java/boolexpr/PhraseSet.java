@@ -0,0 +1,712 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link java.util.Set} of phrases backing a {@link NormalForm}. Phrases
+ * are grouped into buckets by their size (i.e. number of elements) since a
+ * phrase can only absorb phrases that are at least as large as itself. Each
+ * bucket is a {@link HashSet} for efficient lookup and iteration over
+ * {@code this} visits the phrases by increasing size.
+ *
+ * In addition, once the number of phrases reaches
+ * {@link NormalForm#SUBSET_INDEX_THRESHOLD} a {@link SetTrie} is maintained
+ * alongside the buckets so that absorption checks do not require a scan of
+ * every phrase. Similarly, once the number of phrases reaches
+ * {@link NormalForm#POSTING_INDEX_THRESHOLD} a {@link PostingIndex} from each
+ * element to the phrases containing it is maintained. Every modification
+ * (including removal via the {@link Iterator}) keeps the buckets and indexes
+ * up to date.
+ * 
+ * NOTE: just like {@link HashSet}, a phrase must not be modified while it is
+ * contained in {@code this}. It must be removed, modified, and then re-added.
+ *
+ * A {@link PhraseSet} can be copied in constant time via
+ * {@link #share(NormalForm)}. The copies share the buckets, indexes, and phrases
+ * until one of them is modified, at which point that one first takes a private
+ * copy of the buckets and indexes (see {@link #ensureExclusive()}). The sharing
+ * is tracked by a counter common to all {@link PhraseSet} instances using the
+ * same state so the last remaining instance can be modified in place. The
+ * phrases themselves remain shared (and are frozen, see
+ * {@link NormalForm#mutable(java.lang.Object)}) so they are only cloned when
+ * they are actually modified.
+ * 
+ * @author Timothy Hoffman
+ * 
+ * @param <P> type of the phrases
+ */
+/*package*/ final class PhraseSet<P> extends AbstractSet<P> {
+
+    /**
+     * The {@link NormalForm} that owns {@code this}, used to access the phrase
+     * operations.
+     */
+    private final NormalForm<P, ?, ?> owner;
+
+    /**
+     * The number of {@link PhraseSet} instances (including {@code this}) that
+     * use the same buckets, indexes, and phrases as {@code this}. Always
+     * {@code 1} unless {@link #share(NormalForm)} was used.
+     *
+     * NOTE: this only over-approximates when a sharing instance is garbage
+     * collected without being modified, in which case one unnecessary copy is
+     * made by {@link #ensureExclusive()}.
+     */
+    private AtomicInteger sharers;
+
+    /**
+     * The phrases of size {@code i} are stored at index {@code i}. Empty
+     * buckets are {@code null} and the last bucket is never {@code null}.
+     */
+    private ArrayList<HashSet<P>> buckets;
+
+    /**
+     * Total number of phrases in all buckets.
+     */
+    private int size;
+
+    /**
+     * Total size of the phrases in all buckets.
+     */
+    private long numProps;
+
+    /**
+     * The subset/superset index, {@code null} until the number of phrases
+     * reaches {@link NormalForm#SUBSET_INDEX_THRESHOLD}.
+     */
+    private SetTrie<P> index;
+
+    /**
+     * The element-to-phrase index, {@code null} until the number of phrases
+     * reaches {@link NormalForm#POSTING_INDEX_THRESHOLD}.
+     */
+    private PostingIndex<P> postings;
+
+    /**
+     * The thresholds used instead of {@link NormalForm#SUBSET_INDEX_THRESHOLD}
+     * and {@link NormalForm#POSTING_INDEX_THRESHOLD} (resp.) when not negative
+     * (see {@link #setIndexThresholds(int, int)}).
+     */
+    private int subsetThreshold = -1, postingThreshold = -1;
+
+    /**
+     * @param owner
+     */
+    PhraseSet(NormalForm<P, ?, ?> owner) {
+        this.owner = owner;
+        this.sharers = new AtomicInteger(1);
+        this.buckets = new ArrayList<>(4);
+        this.size = 0;
+        this.numProps = 0;
+    }
+
+    /**
+     * Creates a {@link PhraseSet} for the given owner that shares all state
+     * with the given {@link PhraseSet}.
+     *
+     * @param owner
+     * @param original
+     */
+    private PhraseSet(NormalForm<P, ?, ?> owner, PhraseSet<P> original) {
+        this.owner = owner;
+        this.sharers = original.sharers;
+        this.buckets = original.buckets;
+        this.size = original.size;
+        this.numProps = original.numProps;
+        this.index = original.index;
+        this.postings = original.postings;
+        this.subsetThreshold = original.subsetThreshold;
+        this.postingThreshold = original.postingThreshold;
+        this.sharers.incrementAndGet();
+    }
+
+    /**
+     * Constant-time copy of {@code this} for the given owner. The returned
+     * {@link PhraseSet} and {@code this} share all state (including the
+     * phrases) until either one is modified.
+     *
+     * @param newOwner
+     *
+     * @return
+     */
+    PhraseSet<P> share(NormalForm<P, ?, ?> newOwner) {
+        return new PhraseSet<>(newOwner, this);
+    }
+
+    /**
+     * @return {@code true} iff {@code this} currently shares its state with
+     *         another {@link PhraseSet}
+     */
+    boolean isShared() {
+        return sharers.get() > 1;
+    }
+
+    /**
+     * Ensures {@code this} does not share its buckets and indexes with any
+     * other {@link PhraseSet} by replacing the shared state with a copy if
+     * necessary. The phrases are not copied but they are frozen since they
+     * become contained in more than one {@link PhraseSet}. This must be called
+     * before {@code this} is modified.
+     *
+     * NOTE: {@link NormalForm#checkModifiability()} calls this so every
+     * modifying operation on a {@link NormalForm} begins with exclusive
+     * ownership of its buckets and indexes.
+     */
+    void ensureExclusive() {
+        if (sharers.get() > 1) {
+            final AtomicInteger oldSharers = sharers;
+            final ArrayList<HashSet<P>> oldBuckets = buckets;
+            this.sharers = new AtomicInteger(1);
+            this.buckets = new ArrayList<>(oldBuckets.size());
+            for (HashSet<P> b : oldBuckets) {
+                if (b == null) {
+                    buckets.add(null);
+                } else {
+                    for (P p : b) {
+                        owner.freeze(p);
+                    }
+                    buckets.add(new HashSet<>(b));
+                }
+            }
+            if (index != null) {
+                index = index.copy();
+            }
+            if (postings != null) {
+                postings = postings.copy();
+            }
+            //NOTE: release the old state only after the copy is complete so
+            //  that any other sharer sees the count drop to 1 only once this
+            //  no longer reads from the old state.
+            oldSharers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Replaces the contents of {@code this} with the contents of the given
+     * {@link PhraseSet} in constant time by sharing its state (as in
+     * {@link #share(NormalForm)}).
+     *
+     * @param other
+     */
+    void replaceWithShared(PhraseSet<P> other) {
+        if (other.sharers == this.sharers) {
+            return;//already the same state
+        }
+        final AtomicInteger oldSharers = sharers;
+        other.sharers.incrementAndGet();
+        this.sharers = other.sharers;
+        this.buckets = other.buckets;
+        this.size = other.size;
+        this.numProps = other.numProps;
+        this.index = other.index;
+        this.postings = other.postings;
+        oldSharers.decrementAndGet();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        return bucket(owner.size((P) o)).contains(o);
+    }
+
+    /**
+     * Makes {@code this} (and the copies later made from it via
+     * {@link #share(NormalForm)}) use the given thresholds rather than the
+     * global ones so that the alternatives can be timed without changing the
+     * global thresholds (see {@link Tuning#calibrate()}).
+     *
+     * NOTE: only affects when an index is built by later modifications.
+     *
+     * @param subset   replaces {@link NormalForm#SUBSET_INDEX_THRESHOLD}
+     * @param postings replaces {@link NormalForm#POSTING_INDEX_THRESHOLD}
+     */
+    void setIndexThresholds(int subset, int postings) {
+        this.subsetThreshold = Math.max(1, subset);
+        this.postingThreshold = Math.max(1, postings);
+    }
+
+    private int subsetIndexThreshold() {
+        return subsetThreshold < 0 ? NormalForm.SUBSET_INDEX_THRESHOLD : subsetThreshold;
+    }
+
+    private int postingIndexThreshold() {
+        return postingThreshold < 0 ? NormalForm.POSTING_INDEX_THRESHOLD : postingThreshold;
+    }
+
+    @Override
+    public boolean add(P phrase) {
+        ensureExclusive();
+        phrase = canonical(phrase);
+        if (addToBucket(phrase)) {
+            if (index != null || postings != null) {
+                final int[] keys = owner.toSortedKeys(phrase);
+                if (index != null) {
+                    index.add(keys, phrase);
+                }
+                if (postings != null) {
+                    postings.add(keys, phrase);
+                }
+            }
+            if (index == null && size >= subsetIndexThreshold()) {
+                buildIndex();
+            }
+            if (postings == null && size >= postingIndexThreshold()) {
+                buildPostings();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param phrase
+     *
+     * @return the canonical instance of the given phrase if
+     *         {@link NormalForm#INTERN_PHRASES} is enabled or else the given
+     *         phrase
+     */
+    private P canonical(P phrase) {
+        return NormalForm.INTERN_PHRASES ? owner.intern(phrase) : phrase;
+    }
+
+    /**
+     * Add the given phrase to the bucket for its size, updating the size of
+     * {@code this} but NOT the indexes.
+     *
+     * @param phrase
+     *
+     * @return {@code true} iff the phrase was not already present
+     */
+    private boolean addToBucket(P phrase) {
+        final int phraseSize = owner.size(phrase);
+        HashSet<P> b = phraseSize < buckets.size() ? buckets.get(phraseSize) : null;
+        if (b == null) {
+            while (buckets.size() <= phraseSize) {
+                buckets.add(null);
+            }
+            buckets.set(phraseSize, b = new HashSet<>());
+        }
+        if (b.add(phrase)) {
+            size++;
+            numProps += phraseSize;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        ensureExclusive();
+        final P phrase = (P) o;
+        final int phraseSize = owner.size(phrase);
+        if (phraseSize < buckets.size() && buckets.get(phraseSize) != null && buckets.get(phraseSize).remove(phrase)) {
+            removedFromBucket(phraseSize);
+            removedFromIndexes(phrase);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Update the size of {@code this} and the buckets after a phrase of the
+     * given size has been removed from its bucket.
+     *
+     * @param phraseSize
+     */
+    private void removedFromIndexes(P phrase) {
+        if (index != null || postings != null) {
+            final int[] keys = owner.toSortedKeys(phrase);
+            if (index != null) {
+                index.remove(keys);
+            }
+            if (postings != null) {
+                postings.remove(keys, phrase);
+            }
+        }
+    }
+
+    private void removedFromBucket(int phraseSize) {
+        size--;
+        numProps -= phraseSize;
+        if (buckets.get(phraseSize).isEmpty()) {
+            buckets.set(phraseSize, null);
+            //Maintain the invariant that the last bucket is not null
+            for (int last = buckets.size() - 1; last >= 0 && buckets.get(last) == null; last--) {
+                buckets.remove(last);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (isShared()) {
+            //No need to copy the shared state since it is discarded anyway
+            final AtomicInteger oldSharers = sharers;
+            this.sharers = new AtomicInteger(1);
+            this.buckets = new ArrayList<>(4);
+            oldSharers.decrementAndGet();
+        }
+        buckets.clear();
+        size = 0;
+        numProps = 0;
+        //Drop the indexes, they are rebuilt if the threshold is reached again
+        index = null;
+        postings = null;
+    }
+
+    /**
+     * @return the total size of the phrases in {@code this}
+     */
+    long numProps() {
+        return numProps;
+    }
+
+    /**
+     * NOTE: phrases are returned by increasing size.
+     *
+     * @return
+     */
+    @Override
+    public Iterator<P> iterator() {
+        return new BucketIterator(0, buckets.size() - 1);
+    }
+
+    /**
+     * @param phraseSize
+     *
+     * @return an unmodifiable view of the phrases in {@code this} with exactly
+     *         the given size
+     */
+    Collection<P> bucket(int phraseSize) {
+        HashSet<P> b = phraseSize < buckets.size() ? buckets.get(phraseSize) : null;
+        return b == null ? Collections.<P>emptySet() : Collections.unmodifiableSet(b);
+    }
+
+    /**
+     * @return the size of the largest phrase in {@code this} or {@code -1} if
+     *         {@code this} is empty
+     */
+    int maxPhraseSize() {
+        return buckets.size() - 1;
+    }
+
+    /**
+     * NOTE: phrases are returned by increasing size and the {@link Iterator}
+     * supports removal.
+     *
+     * @param phraseSize
+     *
+     * @return an {@link Iterable} over the phrases in {@code this} with size
+     *         strictly less than the given size
+     */
+    Iterable<P> smallerThan(final int phraseSize) {
+        return new Iterable<P>() {
+            @Override
+            public Iterator<P> iterator() {
+                return new BucketIterator(0, Math.min(phraseSize, buckets.size()) - 1);
+            }
+        };
+    }
+
+    /**
+     * NOTE: phrases are returned by increasing size and the {@link Iterator}
+     * supports removal.
+     *
+     * @param phraseSize
+     *
+     * @return an {@link Iterable} over the phrases in {@code this} with size
+     *         strictly greater than the given size
+     */
+    Iterable<P> largerThan(final int phraseSize) {
+        return new Iterable<P>() {
+            @Override
+            public Iterator<P> iterator() {
+                return new BucketIterator(phraseSize + 1, buckets.size() - 1);
+            }
+        };
+    }
+
+    /**
+     * Iterates the buckets in the given (inclusive) range of sizes.
+     */
+    private final class BucketIterator implements Iterator<P> {
+
+        private final int lastBucket;
+        private int currBucket;
+        private Iterator<P> currItr;
+        private int lastSize = -1;
+        private P last = null;
+
+        BucketIterator(int firstBucket, int lastBucket) {
+            this.lastBucket = lastBucket;
+            this.currBucket = firstBucket - 1;
+            this.currItr = Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!currItr.hasNext()) {
+                if (currBucket >= Math.min(lastBucket, buckets.size() - 1)) {
+                    return false;
+                }
+                HashSet<P> b = buckets.get(++currBucket);
+                if (b != null) {
+                    currItr = b.iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public P next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastSize = currBucket;
+            return last = currItr.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            //NOTE: the state cannot be copied in the middle of an iteration
+            assert !isShared();
+            currItr.remove();
+            //NOTE: the bucket may be set to null (and trailing buckets removed)
+            //  but 'currItr' is already exhausted in that case and the buckets
+            //  beyond 'currBucket' are not affected.
+            removedFromBucket(lastSize);
+            removedFromIndexes(last);
+            last = null;
+        }
+    }
+
+    private void buildIndex() {
+        SetTrie<P> newIndex = new SetTrie<>();
+        for (P p : this) {
+            newIndex.add(owner.toSortedKeys(p), p);
+        }
+        index = newIndex;
+    }
+
+    private void buildPostings() {
+        PostingIndex<P> newPostings = new PostingIndex<>();
+        for (P p : this) {
+            newPostings.add(owner.toSortedKeys(p), p);
+        }
+        postings = newPostings;
+    }
+
+    /**
+     * Adds all of the given phrases to {@code this}, which must be empty,
+     * using the given {@link SetTrie} (which must contain exactly the given
+     * phrases) as the subset/superset index if one is needed.
+     *
+     * NOTE: assumes the given phrases are distinct and satisfy the absorption
+     * law.
+     *
+     * @param phrases
+     * @param trie
+     */
+    void addAllWithIndex(Collection<P> phrases, SetTrie<P> trie) {
+        ensureExclusive();
+        assert isEmpty();
+        assert trie.size() == phrases.size();
+        final boolean intern = NormalForm.INTERN_PHRASES;
+        for (P p : phrases) {
+            addToBucket(intern ? owner.intern(p) : p);
+        }
+        if (size >= subsetIndexThreshold()) {
+            //NOTE: the given trie references the given phrases rather than
+            //  their canonical instances so it cannot be used when interning.
+            if (intern) {
+                buildIndex();
+            } else {
+                index = trie;
+            }
+        }
+        if (size >= postingIndexThreshold()) {
+            buildPostings();
+        }
+    }
+
+    /**
+     * @return {@code true} iff the subset/superset index or the posting index
+     *         is currently maintained (i.e. the index-based absorption methods
+     *         below can be used)
+     */
+    boolean isIndexed() {
+        return index != null || postings != null;
+    }
+
+    /**
+     * @return {@code true} iff the posting index is currently maintained (i.e.
+     *         the posting-based methods below can be used)
+     */
+    boolean hasPostings() {
+        return postings != null;
+    }
+
+    /**
+     * NOTE: requires {@link #hasPostings()}
+     *
+     * @param key
+     *
+     * @return the number of phrases containing the element with the given key
+     */
+    int countContaining(int key) {
+        return postings.count(key);
+    }
+
+    /**
+     * NOTE: requires {@link #hasPostings()}
+     *
+     * NOTE: the {@link Iterator} supports removal. Phrases added to
+     * {@code this} during the iteration are not visited.
+     *
+     * @param keys ascending and distinct element keys
+     *
+     * @return an {@link Iterator} over the phrases that contain at least one
+     *         of the elements with the given keys
+     */
+    Iterator<P> containingAny(int[] keys) {
+        final Iterator<P> i = postings.phrasesContainingAny(keys).iterator();
+        return new Iterator<P>() {
+            P last = null;
+
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public P next() {
+                return last = i.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                //NOTE: the state cannot be copied in the middle of an iteration
+                assert !isShared();
+                PhraseSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * NOTE: requires {@link #isIndexed()}
+     *
+     * @param phrase
+     *
+     * @return {@code true} iff some phrase in {@code this} absorbs the given
+     *         phrase
+     */
+    boolean containsAbsorberOf(P phrase) {
+        return containsAbsorberOf(owner.toSortedKeys(phrase));
+    }
+
+    private boolean containsAbsorberOf(int[] keys) {
+        if (index != null) {
+            return index.containsSubsetOf(keys);
+        } else {
+            //NOTE: the empty phrase is not in the posting index
+            return !bucket(0).isEmpty() || postings.containsSubsetOf(keys);
+        }
+    }
+
+    /**
+     * Index-based implementation of the absorption law when adding a phrase:
+     * if some phrase in {@code this} absorbs the given phrase, nothing happens.
+     * Otherwise, all phrases absorbed by the given phrase are removed and the
+     * given phrase is added (and frozen first if {@code shared}).
+     *
+     * NOTE: requires {@link #isIndexed()}
+     *
+     * @param phrase
+     * @param shared if {@code true}, the phrase is also contained in another
+     *               {@link NormalForm}
+     *
+     * @return {@code true} iff the phrase was added
+     */
+    boolean addWithAbsorption(P phrase, boolean shared) {
+        ensureExclusive();
+        final int[] keys = owner.toSortedKeys(phrase);
+        if (containsAbsorberOf(keys)) {
+            return false;
+        }
+        ArrayList<P> absorbed = new ArrayList<>();
+        //NOTE: when both are available, the posting index is preferred for
+        //  finding the absorbed phrases since intersecting the posting lists
+        //  only touches phrases containing the rarest element whereas the
+        //  trie must visit every path through keys smaller than those given.
+        if (postings == null) {
+            index.removeSupersetsOf(keys, absorbed);
+            for (P p : absorbed) {
+                final int phraseSize = owner.size(p);
+                buckets.get(phraseSize).remove(p);
+                removedFromBucket(phraseSize);
+            }
+        } else {
+            postings.collectSupersetsOf(keys, absorbed);
+            for (P p : absorbed) {
+                remove(p);
+            }
+        }
+        if (shared) {
+            owner.freeze(phrase);
+        }
+        phrase = canonical(phrase);
+        addToBucket(phrase);
+        if (index != null) {
+            index.add(keys, phrase);
+        }
+        if (postings != null) {
+            postings.add(keys, phrase);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,273 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import boolexpr.util.SparseBitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from element keys (see
+ * {@link NormalForm#toSortedKeys(java.lang.Object)}) to the phrases containing
+ * that element. Each stored phrase is assigned an {@code int} slot and the
+ * posting list for each key is a {@link SparseBitSet} of slots so that the
+ * lists themselves do not contain boxed values or phrase references.
+ *
+ * Supports the queries needed by {@link PhraseSet}:
+ * <ul>
+ * <li>{@link #count(int)}: number of phrases containing an element</li>
+ * <li>{@link #containsSubsetOf(int[])}: does any stored phrase absorb the given
+ * phrase (i.e. is a subset of it)? Computed by counting, for each phrase, how
+ * many of the given keys it contains.</li>
+ * <li>{@link #collectSupersetsOf(int[], java.util.Collection)}: which stored
+ * phrases are absorbed by the given phrase? Computed by intersecting the
+ * posting lists of the given keys, rarest first.</li>
+ * </ul>
+ *
+ * NOTE: not thread-safe for modification but the query methods that do not
+ * modify the index may be called concurrently.
+ *
+ * @author Timothy Hoffman
+ *
+ * @param <P> type of the stored phrases
+ */
+/*package*/ final class PostingIndex<P> {
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    private static final Comparator<SparseBitSet> BY_CARDINALITY = new Comparator<SparseBitSet>() {
+        @Override
+        public int compare(SparseBitSet o1, SparseBitSet o2) {
+            return Integer.compare(o1.cardinality(), o2.cardinality());
+        }
+    };
+
+    /**
+     * The slot assigned to each stored phrase.
+     */
+    private final HashMap<P, Integer> slotOf = new HashMap<>();
+
+    /**
+     * The phrase stored in each slot or {@code null} if the slot is free.
+     */
+    private final ArrayList<P> phraseInSlot = new ArrayList<>();
+
+    /**
+     * The number of keys of the phrase in each slot.
+     */
+    private int[] slotSizes = new int[16];
+
+    /**
+     * Stack of free slots available for reuse.
+     */
+    private int[] freeSlots = NO_SLOTS;
+    private int numFreeSlots = 0;
+
+    /**
+     * Posting list for each key, never empty.
+     */
+    private final HashMap<Integer, SparseBitSet> postings = new HashMap<>();
+
+    /**
+     * @return the number of phrases stored in {@code this}
+     */
+    public int size() {
+        return slotOf.size();
+    }
+
+    /**
+     * @return a copy of {@code this} storing the same phrase objects (i.e. the
+     *         posting lists are copied but not the phrases)
+     */
+    public PostingIndex<P> copy() {
+        PostingIndex<P> retVal = new PostingIndex<>();
+        retVal.slotOf.putAll(slotOf);
+        retVal.phraseInSlot.addAll(phraseInSlot);
+        retVal.slotSizes = slotSizes.clone();
+        retVal.freeSlots = freeSlots.clone();
+        retVal.numFreeSlots = numFreeSlots;
+        for (Map.Entry<Integer, SparseBitSet> e : postings.entrySet()) {
+            retVal.postings.put(e.getKey(), e.getValue().clone());
+        }
+        return retVal;
+    }
+
+    /**
+     * Adds the given phrase.
+     *
+     * NOTE: assumes that an equal phrase is not already stored.
+     *
+     * @param keys   ascending and distinct keys of the elements in
+     *               {@code phrase}
+     * @param phrase
+     */
+    public void add(int[] keys, P phrase) {
+        final int slot;
+        if (numFreeSlots > 0) {
+            slot = freeSlots[--numFreeSlots];
+            phraseInSlot.set(slot, phrase);
+        } else {
+            slot = phraseInSlot.size();
+            phraseInSlot.add(phrase);
+            if (slot == slotSizes.length) {
+                slotSizes = Arrays.copyOf(slotSizes, slot << 1);
+            }
+        }
+        Integer prev = slotOf.put(phrase, slot);
+        assert prev == null : "phrase is already stored";
+        slotSizes[slot] = keys.length;
+        for (int k : keys) {
+            SparseBitSet posting = postings.get(k);
+            if (posting == null) {
+                postings.put(k, posting = new SparseBitSet());
+            }
+            posting.set(slot);
+        }
+    }
+
+    /**
+     * Removes the given phrase (if present).
+     *
+     * @param keys   ascending and distinct keys of the elements in
+     *               {@code phrase}
+     * @param phrase
+     *
+     * @return {@code true} iff the phrase was removed
+     */
+    public boolean remove(int[] keys, P phrase) {
+        Integer slotObj = slotOf.remove(phrase);
+        if (slotObj == null) {
+            return false;
+        }
+        final int slot = slotObj;
+        for (int k : keys) {
+            SparseBitSet posting = postings.get(k);
+            posting.clear(slot);
+            if (posting.isEmpty()) {
+                postings.remove(k);
+            }
+        }
+        phraseInSlot.set(slot, null);
+        if (numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(8, numFreeSlots << 1));
+        }
+        freeSlots[numFreeSlots++] = slot;
+        return true;
+    }
+
+    /**
+     * @param key
+     *
+     * @return the number of stored phrases containing the element with the
+     *         given key
+     */
+    public int count(int key) {
+        SparseBitSet posting = postings.get(key);
+        return posting == null ? 0 : posting.cardinality();
+    }
+
+    /**
+     * @param keys ascending and distinct keys
+     *
+     * @return the stored phrases containing at least one of the given keys
+     */
+    public ArrayList<P> phrasesContainingAny(int[] keys) {
+        SparseBitSet slots = new SparseBitSet();
+        for (int k : keys) {
+            SparseBitSet posting = postings.get(k);
+            if (posting != null) {
+                slots.or(posting);
+            }
+        }
+        return phrasesIn(slots);
+    }
+
+    /**
+     * NOTE: the empty phrase is not contained in any posting list so it must
+     * be checked separately.
+     *
+     * @param keys ascending and distinct keys of the elements in the phrase
+     *
+     * @return {@code true} iff some non-empty stored phrase is a subset of (or
+     *         equal to) the phrase with the given keys
+     */
+    public boolean containsSubsetOf(int[] keys) {
+        //A stored phrase is a subset iff the number of given keys that appear
+        //  in it equals its size. Only phrases sharing some key are visited.
+        //NOTE: the counts are local (rather than a reused field) so that
+        //  concurrent queries remain safe.
+        final int[] hits = new int[phraseInSlot.size()];
+        for (int k : keys) {
+            SparseBitSet posting = postings.get(k);
+            if (posting != null) {
+                for (int s = posting.minSetBit(); s >= 0; s = posting.nextSetBit(s + 1)) {
+                    if (++hits[s] == slotSizes[s]) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds all stored phrases that are a superset of (or equal to) the phrase
+     * with the given keys to {@code dst}.
+     *
+     * @param keys ascending and distinct keys of the elements in the phrase
+     * @param dst
+     */
+    public void collectSupersetsOf(int[] keys, Collection<? super P> dst) {
+        if (keys.length == 0) {
+            dst.addAll(slotOf.keySet());
+            return;
+        }
+        //Gather the posting lists, any missing list means no superset exists
+        SparseBitSet[] lists = new SparseBitSet[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if ((lists[i] = postings.get(keys[i])) == null) {
+                return;
+            }
+        }
+        //Intersect starting with the rarest elements so the intermediate
+        //  result is as small as possible and can become empty quickly.
+        Arrays.sort(lists, BY_CARDINALITY);
+        SparseBitSet slots = lists[0].clone();
+        for (int i = 1; i < lists.length && !slots.isEmpty(); i++) {
+            slots.and(lists[i]);
+        }
+        for (int s = slots.minSetBit(); s >= 0; s = slots.nextSetBit(s + 1)) {
+            dst.add(phraseInSlot.get(s));
+        }
+    }
+
+    private ArrayList<P> phrasesIn(SparseBitSet slots) {
+        ArrayList<P> retVal = new ArrayList<>(slots.cardinality());
+        for (int s = slots.minSetBit(); s >= 0; s = slots.nextSetBit(s + 1)) {
+            retVal.add(phraseInSlot.get(s));
+        }
+        return retVal;
+    }
+}
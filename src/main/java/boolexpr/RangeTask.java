@@ -0,0 +1,167 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link RecursiveAction} that processes the index range
+ * {@code [from, to)} by recursively splitting it in half until the ranges are
+ * no larger than a given grain size. Idle workers steal the unprocessed
+ * halves, so ranges whose elements vary in cost still finish at about the same
+ * time.
+ *
+ * Subclasses that produce a result should collect it in fields of the task
+ * and combine the results of the two halves in
+ * {@link #joined(RangeTask, RangeTask)}.
+ *
+ * NOTE: use {@link ExecutionPolicy#invoke(RangeTask)} to run a
+ * {@link RangeTask}, which may instead process the range sequentially or in
+ * chunks on an {@link java.util.concurrent.ExecutorService}.
+ *
+ * @author Timothy Hoffman
+ */
+/*package*/ abstract class RangeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final int from;
+
+    protected final int to;
+
+    protected final int grain;
+
+    /**
+     * The {@link ExecutionPolicy} running {@code this} in a
+     * {@link java.util.concurrent.ForkJoinPool}, made current for the thread
+     * processing each range so that nested operations use the same policy.
+     */
+    /*package*/ ExecutionPolicy policy;
+
+    /**
+     * The {@link OperationContext} of the thread that created {@code this},
+     * made current for the thread processing each range so that the parallel
+     * parts of an operation are bounded by the same limits.
+     */
+    /*package*/ OperationContext context = OperationContext.current();
+
+    /**
+     * @param from  inclusive
+     * @param to    exclusive
+     * @param grain the maximum size of a range that is not split further
+     */
+    protected RangeTask(int from, int to, int grain) {
+        this.from = from;
+        this.to = to;
+        this.grain = Math.max(1, grain);
+    }
+
+    /**
+     * @param total
+     * @param parallelism
+     *
+     * @return a grain size for splitting {@code total} elements that gives
+     *         several ranges to each of {@code parallelism} workers
+     */
+    public static int grainFor(int total, int parallelism) {
+        return Math.max(1, total / (parallelism * 8));
+    }
+
+    @Override
+    protected final void compute() {
+        //NOTE: the policy and context are current while the halves are
+        //  combined too since joined(..) may perform nested operations (e.g.
+        //  a merge) that must use them.
+        ExecutionPolicy prev = ExecutionPolicy.swap(policy);
+        OperationContext prevContext = OperationContext.swap(context);
+        try {
+            if (to - from <= grain) {
+                context.checkpoint();
+                computeRange(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                RangeTask left = split(from, mid);
+                RangeTask right = split(mid, to);
+                left.policy = right.policy = policy;
+                left.context = right.context = context;
+                //NOTE: unlike invokeAll(..), which rethrows the failure of 'left'
+                //  while 'right' may still be running, 'right' is always finished
+                //  (or never started) before a failure is rethrown so that no part
+                //  of the range is still processed when the caller sees it.
+                right.fork();
+                try {
+                    left.invoke();
+                } catch (RuntimeException | Error ex) {
+                    if (!right.tryUnfork()) {
+                        right.quietlyJoin();
+                    }
+                    throw ex;
+                }
+                right.join();
+                joined(left, right);
+            }
+        } finally {
+            OperationContext.restore(prevContext);
+            ExecutionPolicy.restore(prev);
+        }
+    }
+
+    /**
+     * Process the elements in the given range in the current thread.
+     *
+     * @param from inclusive
+     * @param to   exclusive
+     */
+    protected abstract void computeRange(int from, int to);
+
+    /**
+     * @param from inclusive
+     * @param to   exclusive
+     *
+     * @return a new task for the given sub-range (with the same grain size)
+     */
+    protected abstract RangeTask split(int from, int to);
+
+    /**
+     * @param <T>  the class of {@code this}
+     * @param half a task created by {@link #split(int, int)} on {@code this}
+     *
+     * @return {@code half} typed as the class of {@code this}, for use in
+     *         {@link #joined(RangeTask, RangeTask)} by subclasses that are
+     *         parameterized (e.g. inner classes of a generic class), where a
+     *         plain cast would be unchecked
+     */
+    @SuppressWarnings("unchecked")//split(..) creates tasks of the same class as 'this'
+    protected static <T extends RangeTask> T half(RangeTask half) {
+        return (T) half;
+    }
+
+    /**
+     * Called after both halves of {@code this} have completed, with the
+     * {@link ExecutionPolicy} and {@link OperationContext} of {@code this}
+     * current. Does nothing by default.
+     *
+     * @param left
+     * @param right
+     */
+    protected void joined(RangeTask left, RangeTask right) {
+    }
+}
@@ -0,0 +1,394 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import boolexpr.NormalForm.ResolutionCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves {@link NormalForm}s like
+ * {@link NormalForm#resolveAll(java.util.Map)} and remembers how each result
+ * was computed so that, when the expansion of a placeholder changes via
+ * {@link #update(java.lang.Object, boolexpr.NormalForm)}, only the results
+ * that depend on that placeholder are recomputed and, within those, only the
+ * expansions of the phrases that contain that placeholder. The expansions of
+ * the other phrases are reused as they are.
+ *
+ * The result returned by {@link #resolve(boolexpr.NormalForm)} is owned by the
+ * session and updated in place by
+ * {@link #update(java.lang.Object, boolexpr.NormalForm)} until it is given to
+ * {@link #release(boolexpr.NormalForm)}.
+ *
+ * NOTE: the expansions given to the session are used as they are (i.e. not
+ * copied) so they must not be modified afterwards (consider
+ * {@link NormalForm#asUnmodifiable()}). The results must not be modified
+ * either while they are tracked by the session.
+ *
+ * NOTE: like {@link NormalForm#resolveAll(java.util.Map)}, placeholders
+ * appearing in the expansions are not resolved. For a system of placeholders
+ * that refer to each other, give the session the final expansions computed by
+ * a {@link FixpointResolver}.
+ *
+ * NOTE: not thread-safe
+ *
+ * @author Timothy Hoffman
+ *
+ * @param <PhraseType>
+ * @param <ElemType>
+ * @param <ConcreteType>
+ */
+public final class ResolutionSession<PhraseType, ElemType, ConcreteType extends NormalForm<PhraseType, ElemType, ConcreteType>> {
+
+    /**
+     * How a result tracked by the session was computed.
+     */
+    private final class Resolved {
+
+        /**
+         * The result, i.e. the merge of {@link #fixed} and
+         * {@link #expansions}.
+         */
+        final ConcreteType result;
+
+        /**
+         * The phrases of the original form that do not contain any
+         * placeholder.
+         */
+        final ConcreteType fixed;
+
+        /**
+         * The phrases of the original form that contain some placeholder (as
+         * they were before resolution).
+         */
+        final ArrayList<PhraseType> sources = new ArrayList<>();
+
+        /**
+         * The expansion of each phrase in {@link #sources}.
+         */
+        final ArrayList<ConcreteType> expansions = new ArrayList<>();
+
+        /**
+         * The indices of the {@link #sources} containing each placeholder.
+         */
+        final HashMap<ElemType, ArrayList<Integer>> sourcesByKey = new HashMap<>();
+
+        Resolved(ConcreteType form) {
+            this.result = form.create(null);//use 'null' to create empty sentence
+            this.fixed = form.create(null);//use 'null' to create empty sentence
+        }
+
+        /**
+         * Adds the given phrase of the original form (and its expansion).
+         *
+         * @param phrase
+         */
+        void addSource(PhraseType phrase) {
+            final int idx = sources.size();
+            sources.add(phrase);
+            expansions.add(expand(phrase));
+            PhraseType keysInPhrase = result.intersection(phrase, mapKeys);
+            for (Iterator<ElemType> it = result.iterator(keysInPhrase, false); it.hasNext();) {
+                register(it.next(), idx);
+            }
+        }
+
+        /**
+         * Records that the given source contains the given placeholder.
+         *
+         * @param key
+         * @param idx
+         */
+        void register(ElemType key, int idx) {
+            ArrayList<Integer> list = sourcesByKey.get(key);
+            if (list == null) {
+                sourcesByKey.put(key, list = new ArrayList<>());
+                dependentsOf(key).add(this);
+            }
+            list.add(idx);
+        }
+
+        /**
+         * Finds the phrases containing a placeholder that had no expansion
+         * before and expands them.
+         *
+         * @param key
+         *
+         * @return {@code true} iff any phrase contains the placeholder
+         */
+        boolean addKey(ElemType key) {
+            //The phrases of the original form that contained the placeholder
+            //  are not registered for it and may be among the sources (due to
+            //  other placeholders) or among the fixed phrases.
+            final ArrayList<Integer> known = sourcesByKey.get(key);
+            boolean found = false;
+            for (int idx = 0, n = sources.size(); idx < n; idx++) {
+                PhraseType phrase = sources.get(idx);
+                if (result.contains(phrase, key) && (known == null || !known.contains(idx))) {
+                    register(key, idx);
+                    expansions.set(idx, expand(phrase));
+                    found = true;
+                }
+            }
+            //NOTE: 'fixed' may share its phrases with 'result' (see merge(..))
+            fixed.checkModifiability();
+            for (Iterator<PhraseType> it = fixed.data.iterator(); it.hasNext();) {
+                PhraseType phrase = it.next();
+                if (fixed.contains(phrase, key)) {
+                    it.remove();
+                    addSource(phrase);
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * @param phrase
+         *
+         * @return the expansion of the given phrase of the original form with
+         *         the current expansions of the placeholders
+         */
+        ConcreteType expand(PhraseType phrase) {
+            numExpansions++;
+            if (result.containsAny(mapKeys, phrase)) {
+                //NOTE: expandPhrase(..) removes the placeholders from the phrase
+                return result.expandPhrase(result.clone(phrase), mapKeys, expansionMap, cache);
+            } else {
+                //Not a placeholder anymore (see update(..))
+                return result.create(result.clone(phrase));
+            }
+        }
+
+        /**
+         * Recomputes {@link #result} from the {@link #fixed} phrases and the
+         * {@link #expansions}.
+         *
+         * @return {@code true} iff {@link #result} changed
+         */
+        boolean rebuild() {
+            ConcreteType rebuilt = result.create(null);//use 'null' to create empty sentence
+            rebuilt.merge(fixed);
+            for (ConcreteType e : expansions) {
+                rebuilt.merge(e);
+            }
+            if (rebuilt.equals(result)) {
+                return false;
+            }
+            result.data.clear();
+            result.merge(rebuilt);
+            return true;
+        }
+    }
+
+    private final HashMap<ElemType, ConcreteType> expansionMap = new HashMap<>();
+
+    private final ResolutionCache<PhraseType, ConcreteType> cache;
+
+    /**
+     * Empty {@link NormalForm} used to create and modify {@link #mapKeys},
+     * created on demand from the first form that is resolved.
+     */
+    private ConcreteType ops;
+
+    /**
+     * Phrase containing every placeholder that has an expansion.
+     */
+    private PhraseType mapKeys;
+
+    /**
+     * The results that depend on each placeholder.
+     */
+    private final HashMap<ElemType, LinkedHashSet<Resolved>> dependents = new HashMap<>();
+
+    private final IdentityHashMap<ConcreteType, Resolved> tracked = new IdentityHashMap<>();
+
+    private long numExpansions;
+
+    /**
+     * @param expansions map from each placeholder to its expansion (entries
+     *                   with a {@code null} expansion are ignored like in
+     *                   {@link NormalForm#resolveAll(java.util.Map)})
+     */
+    public ResolutionSession(Map<ElemType, ConcreteType> expansions) {
+        this(expansions, new ResolutionCache<PhraseType, ConcreteType>(Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param expansions map from each placeholder to its expansion (entries
+     *                   with a {@code null} expansion are ignored like in
+     *                   {@link NormalForm#resolveAll(java.util.Map)})
+     * @param cache      cache of the cross products of expansions
+     */
+    public ResolutionSession(Map<ElemType, ConcreteType> expansions, ResolutionCache<PhraseType, ConcreteType> cache) {
+        if (cache == null) {
+            throw new NullPointerException();
+        }
+        for (Map.Entry<ElemType, ConcreteType> e : expansions.entrySet()) {
+            if (e.getKey() != null && e.getValue() != null) {
+                expansionMap.put(e.getKey(), e.getValue());
+            }
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * Resolves a copy of the given {@link NormalForm} with the current
+     * expansions of the placeholders and tracks it so that it is updated when
+     * some of those expansions change.
+     *
+     * @param form
+     *
+     * @return the resolved copy, owned by {@code this} session
+     */
+    public ConcreteType resolve(ConcreteType form) {
+        if (ops == null) {
+            ops = form.create(null);//use 'null' to create empty sentence
+            mapKeys = ops.createSingleton(null);//use 'null' to create empty phrase
+            for (ElemType key : expansionMap.keySet()) {
+                ops.add(mapKeys, key);
+            }
+        }
+        final Resolved r = new Resolved(form);
+        for (PhraseType phrase : form.data) {
+            if (form.containsAny(mapKeys, phrase)) {
+                r.addSource(form.clone(phrase));
+            } else {
+                r.fixed.tryAddWithAbsorption(form.clone(phrase));
+            }
+        }
+        r.rebuild();
+        tracked.put(r.result, r);
+        return r.result;
+    }
+
+    /**
+     * Changes the expansion of the given placeholder and updates every result
+     * that depends on it. If the placeholder did not have an expansion before,
+     * then every result is checked for it. If the new expansion is
+     * {@code null}, the placeholder is no longer resolved (i.e. it remains in
+     * the results).
+     *
+     * @param placeholder
+     * @param expansion   may be {@code null}
+     *
+     * @return the results that changed
+     */
+    public List<ConcreteType> update(ElemType placeholder, ConcreteType expansion) {
+        final ConcreteType old = expansion == null ? expansionMap.remove(placeholder) : expansionMap.put(placeholder, expansion);
+        if (old == expansion || ops == null) {
+            return Collections.emptyList();
+        }
+        if (expansion == null) {
+            ops.remove(mapKeys, placeholder);
+        } else if (old == null) {
+            ops.add(mapKeys, placeholder);
+        }
+        //Re-expand only the phrases that contained the placeholder (when they
+        //  were resolved) in the results that depend on it.
+        final LinkedHashSet<Resolved> affected = new LinkedHashSet<>(dependentsOf(placeholder));
+        for (Resolved r : affected) {
+            for (int idx : r.sourcesByKey.get(placeholder)) {
+                r.expansions.set(idx, r.expand(r.sources.get(idx)));
+            }
+        }
+        if (old == null) {
+            //The placeholder was not resolved before so any result may contain
+            //  it without depending on it yet.
+            for (Resolved r : tracked.values()) {
+                if (r.addKey(placeholder)) {
+                    affected.add(r);
+                }
+            }
+        }
+        final ArrayList<ConcreteType> retVal = new ArrayList<>();
+        for (Resolved r : affected) {
+            if (r.rebuild()) {
+                retVal.add(r.result);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Stops tracking the given result so it is no longer updated by
+     * {@link #update(java.lang.Object, boolexpr.NormalForm)}.
+     *
+     * @param result a result returned by {@link #resolve(boolexpr.NormalForm)}
+     *
+     * @return {@code true} iff the result was tracked by {@code this} session
+     */
+    public boolean release(ConcreteType result) {
+        final Resolved r = tracked.remove(result);
+        if (r == null) {
+            return false;
+        }
+        for (ElemType key : r.sourcesByKey.keySet()) {
+            LinkedHashSet<Resolved> deps = dependents.get(key);
+            deps.remove(r);
+            if (deps.isEmpty()) {
+                dependents.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param placeholder
+     *
+     * @return the current expansion of the given placeholder (or {@code null}
+     *         if it has none)
+     */
+    public ConcreteType getExpansion(ElemType placeholder) {
+        return expansionMap.get(placeholder);
+    }
+
+    /**
+     * @return the number of results tracked by {@code this} session
+     */
+    public int getNumTracked() {
+        return tracked.size();
+    }
+
+    /**
+     * @return the number of phrase expansions computed by {@code this}
+     *         session
+     */
+    public long getNumExpansions() {
+        return numExpansions;
+    }
+
+    private LinkedHashSet<Resolved> dependentsOf(ElemType key) {
+        LinkedHashSet<Resolved> retVal = dependents.get(key);
+        if (retVal == null) {
+            dependents.put(key, retVal = new LinkedHashSet<>());
+        }
+        return retVal;
+    }
+
+}
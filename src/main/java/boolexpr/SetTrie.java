@@ -0,0 +1,326 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Set-trie (see: Savnik, "Index data structure for fast subset and superset
+ * queries") over phrases whose elements are given as ascending {@code int}
+ * keys. Each path from the root spells out the sorted keys of a stored phrase
+ * and the node at the end of the path holds a reference to the phrase itself.
+ * 
+ * Supports the two queries needed to enforce the absorption law without a full
+ * scan of the stored phrases:
+ * <ul>
+ * <li>{@link #containsSubsetOf(int[])}: does any stored phrase absorb the given
+ * phrase (i.e. is a subset of it)?</li>
+ * <li>{@link #removeSupersetsOf(int[], java.util.Collection)}: remove (and
+ * collect) all stored phrases absorbed by the given phrase (i.e. supersets of
+ * it).</li>
+ * </ul>
+ * 
+ * NOTE: not thread-safe for modification but the query methods that do not
+ * modify the trie may be called concurrently.
+ * 
+ * @author Timothy Hoffman
+ * 
+ * @param <P> type of the stored phrases
+ */
+/*package*/ final class SetTrie<P> {
+
+    private static final int[] NO_KEYS = new int[0];
+
+    private static final class Node<P> {
+
+        /**
+         * Keys of the child nodes in ascending order. Only the first
+         * {@link #count} entries are valid.
+         */
+        int[] keys = NO_KEYS;
+
+        /**
+         * Child nodes, parallel to {@link #keys}.
+         */
+        Node<P>[] children;
+
+        /**
+         * Number of child nodes.
+         */
+        int count;
+
+        /**
+         * The phrase whose sorted keys spell the path to this node or
+         * {@code null} if no stored phrase ends at this node.
+         */
+        P phrase;
+
+        /**
+         * @param key
+         *
+         * @return index of the first child with key greater than or equal to
+         *         {@code key}, starting the search at index {@code from}
+         */
+        int lowerBound(int from, int key) {
+            int lo = from, hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        Node<P> getOrCreateChild(int key) {
+            int idx = lowerBound(0, key);
+            if (idx < count && keys[idx] == key) {
+                return children[idx];
+            }
+            if (count == keys.length) {
+                int newLen = Math.max(2, count << 1);
+                keys = Arrays.copyOf(keys, newLen);
+                children = children == null ? newNodeArray(newLen) : Arrays.copyOf(children, newLen);
+            }
+            System.arraycopy(keys, idx, keys, idx + 1, count - idx);
+            System.arraycopy(children, idx, children, idx + 1, count - idx);
+            Node<P> child = new Node<>();
+            keys[idx] = key;
+            children[idx] = child;
+            count++;
+            return child;
+        }
+
+        void removeChildAt(int idx) {
+            count--;
+            System.arraycopy(keys, idx + 1, keys, idx, count - idx);
+            System.arraycopy(children, idx + 1, children, idx, count - idx);
+            children[count] = null;
+        }
+
+        boolean isUnused() {
+            return phrase == null && count == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <P> Node<P>[] newNodeArray(int len) {
+            return (Node<P>[]) new Node<?>[len];
+        }
+    }
+
+    private final Node<P> root = new Node<>();
+
+    private int size = 0;
+
+    /**
+     * @return the number of phrases stored in {@code this}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given phrase.
+     *
+     * NOTE: assumes that an equal phrase is not already stored.
+     *
+     * @param keys   ascending and distinct keys of the elements in
+     *               {@code phrase}
+     * @param phrase
+     */
+    public void add(int[] keys, P phrase) {
+        Node<P> n = root;
+        for (int k : keys) {
+            n = n.getOrCreateChild(k);
+        }
+        assert n.phrase == null : "phrase is already stored";
+        n.phrase = phrase;
+        size++;
+    }
+
+    /**
+     * Removes the phrase with the given keys (if present).
+     *
+     * @param keys ascending and distinct keys of the elements in the phrase
+     *
+     * @return {@code true} iff a phrase was removed
+     */
+    public boolean remove(int[] keys) {
+        if (remove(root, keys, 0)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean remove(Node<P> n, int[] keys, int idx) {
+        if (idx == keys.length) {
+            if (n.phrase == null) {
+                return false;
+            }
+            n.phrase = null;
+            return true;
+        }
+        int c = n.lowerBound(0, keys[idx]);
+        if (c == n.count || n.keys[c] != keys[idx]) {
+            return false;
+        }
+        Node<P> child = n.children[c];
+        boolean removed = remove(child, keys, idx + 1);
+        if (removed && child.isUnused()) {
+            n.removeChildAt(c);
+        }
+        return removed;
+    }
+
+    /**
+     * @param keys ascending and distinct keys of the elements in the phrase
+     *
+     * @return {@code true} iff a phrase with exactly the given keys is stored
+     */
+    public boolean contains(int[] keys) {
+        Node<P> n = root;
+        for (int k : keys) {
+            int c = n.lowerBound(0, k);
+            if (c == n.count || n.keys[c] != k) {
+                return false;
+            }
+            n = n.children[c];
+        }
+        return n.phrase != null;
+    }
+
+    /**
+     * @return a copy of {@code this} storing the same phrase objects (i.e. the
+     *         nodes are copied but not the phrases)
+     */
+    public SetTrie<P> copy() {
+        SetTrie<P> retVal = new SetTrie<>();
+        copyInto(root, retVal.root);
+        retVal.size = size;
+        return retVal;
+    }
+
+    private static <P> void copyInto(Node<P> src, Node<P> dst) {
+        dst.phrase = src.phrase;
+        dst.count = src.count;
+        if (src.count > 0) {
+            dst.keys = Arrays.copyOf(src.keys, src.count);
+            dst.children = Node.newNodeArray(src.count);
+            for (int c = 0; c < src.count; c++) {
+                copyInto(src.children[c], dst.children[c] = new Node<>());
+            }
+        }
+    }
+
+    /**
+     * Removes all phrases.
+     */
+    public void clear() {
+        root.keys = NO_KEYS;
+        root.children = null;
+        root.count = 0;
+        root.phrase = null;
+        size = 0;
+    }
+
+    /**
+     * @param keys ascending and distinct keys of the elements in the phrase
+     *
+     * @return {@code true} iff some stored phrase is a subset of (or equal to)
+     *         the phrase with the given keys
+     */
+    public boolean containsSubsetOf(int[] keys) {
+        return containsSubsetOf(root, keys, 0);
+    }
+
+    private static <P> boolean containsSubsetOf(Node<P> n, int[] keys, int from) {
+        if (n.phrase != null) {
+            //The path to 'n' contains only keys from 'keys'
+            return true;
+        }
+        //Walk the remaining keys and the (sorted) children of 'n' together,
+        //  descending into every child whose key appears in 'keys'.
+        for (int i = from, c = 0; i < keys.length && c < n.count; i++) {
+            c = n.lowerBound(c, keys[i]);
+            if (c < n.count && n.keys[c] == keys[i]) {
+                if (containsSubsetOf(n.children[c], keys, i + 1)) {
+                    return true;
+                }
+                c++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all stored phrases that are a superset of (or equal to) the
+     * phrase with the given keys and adds them to {@code removed}.
+     *
+     * @param keys    ascending and distinct keys of the elements in the phrase
+     * @param removed
+     */
+    public void removeSupersetsOf(int[] keys, Collection<? super P> removed) {
+        int before = removed.size();
+        removeSupersetsOf(root, keys, 0, removed);
+        size -= removed.size() - before;
+    }
+
+    /**
+     * @return {@code true} iff {@code n} became unused
+     */
+    private static <P> boolean removeSupersetsOf(Node<P> n, int[] keys, int idx, Collection<? super P> removed) {
+        if (idx == keys.length) {
+            //Every phrase in this subtree contains all of 'keys'
+            collectAll(n, removed);
+            n.phrase = null;
+            n.keys = NO_KEYS;
+            n.children = null;
+            n.count = 0;
+            return true;
+        }
+        //Only children with a key not greater than the next required key can
+        //  lead to a phrase containing that key.
+        final int need = keys[idx];
+        for (int c = 0; c < n.count && n.keys[c] <= need;) {
+            Node<P> child = n.children[c];
+            boolean unused = removeSupersetsOf(child, keys, n.keys[c] == need ? idx + 1 : idx, removed);
+            if (unused) {
+                n.removeChildAt(c);
+            } else {
+                c++;
+            }
+        }
+        return n.isUnused();
+    }
+
+    private static <P> void collectAll(Node<P> n, Collection<? super P> dst) {
+        if (n.phrase != null) {
+            dst.add(n.phrase);
+        }
+        for (int c = 0; c < n.count; c++) {
+            collectAll(n.children[c], dst);
+        }
+    }
+}
@@ -0,0 +1,617 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import boolexpr.util.SparseBitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Thresholds used by {@link NormalForm} (and {@link SparseBitSet}) to choose
+ * between alternative implementations of an operation, i.e. a cost model. Each
+ * {@link Parameter} has a default value (determined by measurements on a
+ * single machine) which can be:
+ * <ul>
+ * <li>overridden at startup via the system property named
+ * {@code "boolexpr." + name} (see {@link Parameter#getPropertyKey()}),</li>
+ * <li>changed at any time via {@link Parameter#set(long)}, or</li>
+ * <li>calibrated for the current machine via {@link #calibrate()}, which
+ * times the alternatives on synthetic inputs and is also run when the first
+ * {@link NormalForm} is created if the system property
+ * {@value #CALIBRATE_PROPERTY} is {@code true}.</li>
+ * </ul>
+ * Additionally, {@link #MERGE_PARALLEL_OVERHEAD} is adjusted online from the
+ * observed runtime of (a sample of) merges unless the system property
+ * {@value #ONLINE_PROPERTY} is {@code false}. Calibration never changes a
+ * parameter that was overridden by a system property or
+ * {@link Parameter#set(long)}.
+ *
+ * The current values (and where they came from) can be inspected via
+ * {@link #getParameters()} or {@link #describe()}.
+ *
+ * @author Timothy Hoffman
+ */
+public final class Tuning {
+
+    public static final String PROPERTY_PREFIX = "boolexpr.";
+
+    public static final String CALIBRATE_PROPERTY = PROPERTY_PREFIX + "tuning.calibrate";
+
+    public static final String ONLINE_PROPERTY = PROPERTY_PREFIX + "tuning.online";
+
+    /**
+     * Where the current value of a {@link Parameter} came from.
+     */
+    public static enum Source {
+        DEFAULT, PROPERTY, CALIBRATED, SET
+    }
+
+    /**
+     * A single named threshold. Boolean parameters use the values 0 and 1
+     * (and the system property may also be {@code true} or {@code false}).
+     */
+    public static class Parameter {
+
+        private final String name;
+
+        private final long defaultValue;
+
+        private final String description;
+
+        private volatile long value;
+
+        private volatile Source source;
+
+        private Parameter(String name, long defaultValue, String description) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.description = description;
+            this.value = defaultValue;
+            this.source = Source.DEFAULT;
+            String prop = System.getProperty(getPropertyKey());
+            if (prop != null) {
+                this.value = parse(getPropertyKey(), prop);
+                this.source = Source.PROPERTY;
+            }
+        }
+
+        private static long parse(String key, String prop) {
+            prop = prop.trim();
+            if ("true".equalsIgnoreCase(prop)) {
+                return 1;
+            } else if ("false".equalsIgnoreCase(prop)) {
+                return 0;
+            }
+            try {
+                return Long.parseLong(prop);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid value for system property " + key + ": " + prop, ex);
+            }
+        }
+
+        public final String getName() {
+            return name;
+        }
+
+        public final String getPropertyKey() {
+            return PROPERTY_PREFIX + name;
+        }
+
+        public final String getDescription() {
+            return description;
+        }
+
+        public final long getDefault() {
+            return defaultValue;
+        }
+
+        public final Source getSource() {
+            return source;
+        }
+
+        /**
+         * @return the current value
+         */
+        public long get() {
+            return value;
+        }
+
+        /**
+         * @return the current value, clamped to the range of {@code int}
+         */
+        public final int getInt() {
+            long v = get();
+            return v > Integer.MAX_VALUE ? Integer.MAX_VALUE : (v < Integer.MIN_VALUE ? Integer.MIN_VALUE : (int) v);
+        }
+
+        /**
+         * Sets the value of {@code this}. It will not be changed by
+         * calibration afterwards.
+         *
+         * @param newValue
+         */
+        public final void set(long newValue) {
+            store(newValue);
+            source = Source.SET;
+        }
+
+        /**
+         * Restores the default value of {@code this} so it can be calibrated
+         * again.
+         */
+        public final void reset() {
+            store(defaultValue);
+            source = Source.DEFAULT;
+        }
+
+        /**
+         * Sets the value of {@code this} as the result of calibration unless it
+         * was overridden by a system property or {@link #set(long)}.
+         *
+         * @param newValue
+         *
+         * @return {@code true} iff the value was set
+         */
+        /*package*/ final boolean calibrated(long newValue) {
+            if (source == Source.PROPERTY || source == Source.SET) {
+                return false;
+            }
+            store(newValue);
+            source = Source.CALIBRATED;
+            return true;
+        }
+
+        /**
+         * @return the stored value clamped to the range of {@code int},
+         *         ignoring any field backing {@code this}
+         */
+        /*package*/ final int getStored() {
+            long v = value;
+            return v > Integer.MAX_VALUE ? Integer.MAX_VALUE : (v < Integer.MIN_VALUE ? Integer.MIN_VALUE : (int) v);
+        }
+
+        /*package*/ final boolean isCalibratable() {
+            return source != Source.PROPERTY && source != Source.SET;
+        }
+
+        /*package*/ void store(long newValue) {
+            value = newValue;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + get() + " (" + source + ")";
+        }
+    }
+
+    /**
+     * The constant {@code C} in the cost model of the multi-threaded approach
+     * to {@link NormalForm#merge(NormalForm)}, i.e. the fixed overhead of
+     * using threads in units of a single absorption check. Threads are used
+     * when {@code A*B/N + N*N + C < A*B} where {@code A} and {@code B} are the
+     * number of phrases in the operands and {@code N} is the parallelism.
+     */
+    public static final Parameter MERGE_PARALLEL_OVERHEAD = new Parameter("merge.parallelOverhead", 3000,
+            "fixed overhead of a multi-threaded merge, in absorption checks");
+
+    /**
+     * Minimum number of phrases expanded by
+     * {@link NormalForm#resolveAll(java.util.Map)} for which the expansions
+     * are computed in parallel.
+     */
+    public static final Parameter RESOLVE_MIN_PARALLEL_PHRASES = new Parameter("resolveAll.minParallelPhrases", 16,
+            "minimum number of expanded phrases for a parallel resolveAll");
+
+    /**
+     * Whether {@link SparseBitSet#containsAll(SparseBitSet)} uses the loop
+     * approach when the statistics of the argument are cached.
+     */
+    public static final Parameter CONTAINS_ALL_LOOP_IF_CACHED = new Parameter("containsAll.loopIfCached", 1,
+            "SparseBitSet#containsAll loops over the argument when its statistics are cached (0/1)") {
+        @Override
+        void store(long newValue) {
+            super.store(newValue);
+            SparseBitSet.setContainsAllLoop(newValue != 0, SparseBitSet.isContainsAllLoop(false));
+        }
+    };
+
+    /**
+     * Whether {@link SparseBitSet#containsAll(SparseBitSet)} uses the loop
+     * approach when the statistics of the argument are not cached.
+     */
+    public static final Parameter CONTAINS_ALL_LOOP_IF_UNCACHED = new Parameter("containsAll.loopIfUncached", 0,
+            "SparseBitSet#containsAll loops over the argument when its statistics are not cached (0/1)") {
+        @Override
+        void store(long newValue) {
+            super.store(newValue);
+            SparseBitSet.setContainsAllLoop(SparseBitSet.isContainsAllLoop(true), newValue != 0);
+        }
+    };
+
+    /**
+     * Backed by {@link NormalForm#SUBSET_INDEX_THRESHOLD}.
+     */
+    public static final Parameter SUBSET_INDEX_THRESHOLD = new Parameter("subsetIndexThreshold", 64,
+            "minimum number of phrases for the subset/superset index") {
+        @Override
+        public long get() {
+            return NormalForm.SUBSET_INDEX_THRESHOLD;
+        }
+
+        @Override
+        void store(long newValue) {
+            super.store(newValue);
+            NormalForm.SUBSET_INDEX_THRESHOLD = (int) Math.min(Integer.MAX_VALUE, Math.max(1, newValue));
+        }
+    };
+
+    /**
+     * Backed by {@link NormalForm#POSTING_INDEX_THRESHOLD}.
+     */
+    public static final Parameter POSTING_INDEX_THRESHOLD = new Parameter("postingIndexThreshold", Integer.MAX_VALUE,
+            "minimum number of phrases for the element-to-phrase index") {
+        @Override
+        public long get() {
+            return NormalForm.POSTING_INDEX_THRESHOLD;
+        }
+
+        @Override
+        void store(long newValue) {
+            super.store(newValue);
+            NormalForm.POSTING_INDEX_THRESHOLD = (int) Math.min(Integer.MAX_VALUE, Math.max(1, newValue));
+        }
+    };
+
+    /**
+     * Boolean, backed by {@link NormalForm#INTERN_PHRASES}.
+     */
+    public static final Parameter INTERN_PHRASES = new Parameter("internPhrases", 0,
+            "intern the phrases of all forms in a global weak table (0 or 1)") {
+        @Override
+        public long get() {
+            return NormalForm.INTERN_PHRASES ? 1 : 0;
+        }
+
+        @Override
+        void store(long newValue) {
+            super.store(newValue);
+            NormalForm.INTERN_PHRASES = newValue != 0;
+        }
+    };
+
+    /**
+     * Minimum value of {@code A*B}, where {@code A} and {@code B} are the
+     * number of phrases in the operands, for which the cross product of two
+     * {@link NormalForm}s computes the partial products in parallel.
+     */
+    public static final Parameter CROSS_MIN_PARALLEL_PRODUCT = new Parameter("cross.minParallelProduct", 4096,
+            "minimum product of the operand sizes for a parallel cross product");
+
+    /**
+     * Maximum number of phrases of the second operand of a parallel cross
+     * product whose partial products are computed at once, bounding the
+     * number of partial products in memory.
+     */
+    public static final Parameter CROSS_CHUNK_SIZE = new Parameter("cross.chunkSize", 1024,
+            "maximum number of phrases per chunk of a parallel cross product");
+
+    /**
+     * Minimum value of {@code M*H}, where {@code M} is the number of
+     * transversals extended by a phrase and {@code H} is the number of
+     * transversals kept, for which the dualization of a {@link NormalForm}
+     * computes the extensions in parallel.
+     */
+    public static final Parameter DUALIZE_MIN_PARALLEL_PRODUCT = new Parameter("dualize.minParallelProduct", 4096,
+            "minimum product of the extended and kept transversals for a parallel dualization step");
+
+    /**
+     * Minimum number of phrases checked by each parallel task when building a
+     * {@link NormalForm} in parallel (see {@link NormalForm.Builder}).
+     */
+    public static final Parameter MIN_PHRASES_PER_TASK = new Parameter("parallel.minPhrasesPerTask", 1024,
+            "minimum number of phrases per task when building in parallel");
+
+    /**
+     * Minimum number of phrases with the same cardinality for which
+     * {@link DisjunctiveNormalFormInt#simplifyWithMutexNodes(boolexpr.util.SparseBitSet, boolexpr.util.SparseBitSet, boolean)}
+     * searches for matching pairs in parallel.
+     */
+    public static final Parameter MIN_PARALLEL_MUTEX_GROUP = new Parameter("mutex.minParallelGroup", 128,
+            "minimum group size for the parallel mutex pair search");
+
+    private static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+            MERGE_PARALLEL_OVERHEAD, RESOLVE_MIN_PARALLEL_PHRASES,
+            CONTAINS_ALL_LOOP_IF_CACHED, CONTAINS_ALL_LOOP_IF_UNCACHED,
+            SUBSET_INDEX_THRESHOLD, POSTING_INDEX_THRESHOLD, INTERN_PHRASES,
+            CROSS_MIN_PARALLEL_PRODUCT, CROSS_CHUNK_SIZE, DUALIZE_MIN_PARALLEL_PRODUCT,
+            MIN_PHRASES_PER_TASK, MIN_PARALLEL_MUTEX_GROUP));
+
+    private static final boolean ONLINE = !"false".equalsIgnoreCase(System.getProperty(ONLINE_PROPERTY));
+
+    static {
+        //NOTE: SparseBitSet does not depend on this class so the values from
+        //  system properties must be pushed to it. The NormalForm thresholds
+        //  are instead initialized from this class (see NormalForm).
+        CONTAINS_ALL_LOOP_IF_CACHED.store(CONTAINS_ALL_LOOP_IF_CACHED.value);
+        CONTAINS_ALL_LOOP_IF_UNCACHED.store(CONTAINS_ALL_LOOP_IF_UNCACHED.value);
+    }
+
+    //NOTE: not calibrated in the static initializer since it runs during the
+    //  initialization of NormalForm, which the worker threads of the parallel
+    //  trials would block on, and before the NormalForm thresholds are set.
+    private static volatile boolean startupCalibrationPending = Boolean.getBoolean(CALIBRATE_PROPERTY);
+
+    /**
+     * @return all {@link Parameter}s
+     */
+    public static List<Parameter> getParameters() {
+        return PARAMETERS;
+    }
+
+    /**
+     * @return a description of the current value of every {@link Parameter}
+     */
+    public static String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Parameter p : PARAMETERS) {
+            sb.append(p).append(" : ").append(p.getDescription()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    //
+    //Online calibration
+    //
+    //Merges are sampled and the runtime of each sampled merge is used to
+    //  estimate the cost of a single absorption check (from single-threaded
+    //  merges) and then the fixed overhead of a multi-threaded merge in units
+    //  of that cost. Both are exponentially weighted moving averages.
+    //
+    private static final int MERGE_SAMPLE_MASK = 63;//sample 1 of every 64
+
+    private static final double EWMA_WEIGHT = 0.1;
+
+    private static final long MAX_MERGE_PARALLEL_OVERHEAD = 1_000_000;
+
+    private static int mergeCounter = 0;//NOTE: races are harmless
+
+    private static double nsPerCheck = -1;//guarded by Tuning.class
+
+    private static int numSingleSamples = 0;//guarded by Tuning.class
+
+    private static double overheadEstimate = -1;//guarded by Tuning.class
+
+    /**
+     * @return {@code true} if the next merge should be timed
+     */
+    /*package*/ static boolean sampleMerge() {
+        return ONLINE && MERGE_PARALLEL_OVERHEAD.isCalibratable() && (++mergeCounter & MERGE_SAMPLE_MASK) == 0;
+    }
+
+    /**
+     * Records the runtime of a merge with {@code numA*numB} absorption checks.
+     *
+     * @param numA
+     * @param numB
+     * @param parallelism
+     * @param usedThreads
+     * @param elapsedNanos
+     */
+    /*package*/ static synchronized void recordMerge(int numA, int numB, int parallelism, boolean usedThreads, long elapsedNanos) {
+        final double checks = (double) numA * numB;
+        if (!usedThreads) {
+            double sample = elapsedNanos / checks;
+            nsPerCheck = nsPerCheck < 0 ? sample : (1 - EWMA_WEIGHT) * nsPerCheck + EWMA_WEIGHT * sample;
+            numSingleSamples++;
+        } else if (numSingleSamples >= 8) {
+            //Overhead (in checks) beyond the ideal time of the parallel part
+            double sample = elapsedNanos / nsPerCheck - checks / parallelism - (double) parallelism * parallelism;
+            sample = Math.max(0, Math.min(MAX_MERGE_PARALLEL_OVERHEAD, sample));
+            overheadEstimate = overheadEstimate < 0 ? sample : (1 - EWMA_WEIGHT) * overheadEstimate + EWMA_WEIGHT * sample;
+            MERGE_PARALLEL_OVERHEAD.calibrated(Math.round(overheadEstimate));
+        }
+    }
+
+    //
+    //Startup calibration
+    //
+    private static final int ROUNDS = 7;
+
+    /**
+     * Calibrates every {@link Parameter} that was not overridden by a system
+     * property or {@link Parameter#set(long)} by timing the alternatives on
+     * synthetic inputs. Takes on the order of a second.
+     *
+     * NOTE: the alternatives are timed on private instances (i.e. without
+     * changing the global thresholds) so only the final values are published
+     * and other threads may use {@link NormalForm} meanwhile.
+     */
+    public static synchronized void calibrate() {
+        startupCalibrationPending = false;
+        Random rand = new Random(42);
+        calibrateContainsAll(rand);
+        calibrateSubsetIndex(rand);
+        calibrateMergeOverhead(rand);
+    }
+
+    /**
+     * Runs {@link #calibrate()} once if the system property
+     * {@value #CALIBRATE_PROPERTY} is {@code true} and it has not run yet.
+     * Called when a {@link NormalForm} is created, i.e. after the
+     * initialization of the classes involved is complete.
+     */
+    /*package*/ static void calibrateAtStartup() {
+        if (startupCalibrationPending) {
+            synchronized (Tuning.class) {
+                if (startupCalibrationPending) {
+                    calibrate();
+                }
+            }
+        }
+    }
+
+    private static SparseBitSet randomPhrase(Random rand, int size, int range) {
+        SparseBitSet retVal = new SparseBitSet();
+        while (retVal.cardinality() < size) {
+            retVal.set(rand.nextInt(range));
+        }
+        return retVal;
+    }
+
+    /**
+     * @param subsetThreshold
+     *
+     * @return an empty form for timing the alternatives that uses the given
+     *         subset index threshold and no posting index, independent of the
+     *         global thresholds (which are not yet initialized when this runs
+     *         during the initialization of {@link NormalForm})
+     */
+    private static DisjunctiveNormalFormInt trialForm(int subsetThreshold) {
+        DisjunctiveNormalFormInt retVal = new DisjunctiveNormalFormInt();
+        retVal.data.setIndexThresholds(subsetThreshold, Integer.MAX_VALUE);
+        return retVal;
+    }
+
+    private static void calibrateContainsAll(Random rand) {
+        if (!CONTAINS_ALL_LOOP_IF_CACHED.isCalibratable() && !CONTAINS_ALL_LOOP_IF_UNCACHED.isCalibratable()) {
+            return;
+        }
+        final int n = 2000;
+        SparseBitSet[] bases = new SparseBitSet[n];
+        SparseBitSet[] others = new SparseBitSet[n];
+        for (int i = 0; i < n; i++) {
+            bases[i] = randomPhrase(rand, 1 + rand.nextInt(16), 256);
+            others[i] = (i % 2 == 0) ? randomPhrase(rand, 1 + rand.nextInt(8), 256) : SparseBitSet.and(bases[i], randomPhrase(rand, 128, 256));
+        }
+        //[cached?][loop?]
+        long[][] best = {{Long.MAX_VALUE, Long.MAX_VALUE}, {Long.MAX_VALUE, Long.MAX_VALUE}};
+        int sink = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int loop = 0; loop < 2; loop++) {
+                //Uncached: the statistics of a clone are not computed
+                SparseBitSet[] fresh = new SparseBitSet[n];
+                for (int i = 0; i < n; i++) {
+                    fresh[i] = others[i].clone();
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    sink += bases[i].containsAll(fresh[i], loop == 1) ? 1 : 0;
+                }
+                best[0][loop] = Math.min(best[0][loop], System.nanoTime() - start);
+                //Cached: compute the statistics first
+                for (int i = 0; i < n; i++) {
+                    sink += fresh[i].cardinality();
+                }
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    sink += bases[i].containsAll(fresh[i], loop == 1) ? 1 : 0;
+                }
+                best[1][loop] = Math.min(best[1][loop], System.nanoTime() - start);
+            }
+        }
+        if (sink == 42) {
+            //NOTE: only to prevent dead code elimination
+            Thread.yield();
+        }
+        CONTAINS_ALL_LOOP_IF_UNCACHED.calibrated(best[0][1] < best[0][0] ? 1 : 0);
+        CONTAINS_ALL_LOOP_IF_CACHED.calibrated(best[1][1] < best[1][0] ? 1 : 0);
+    }
+
+    private static void calibrateSubsetIndex(Random rand) {
+        if (!SUBSET_INDEX_THRESHOLD.isCalibratable()) {
+            return;
+        }
+        final int[] sizes = {16, 32, 64, 128, 256, 512};
+        long chosen = SUBSET_INDEX_THRESHOLD.getDefault();
+        for (int size : sizes) {
+            //Build a form with (about) 'size' phrases and new phrases to add
+            ArrayList<SparseBitSet> phrases = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                phrases.add(randomPhrase(rand, 3 + rand.nextInt(4), 4 * size));
+            }
+            DisjunctiveNormalFormInt base = trialForm(Integer.MAX_VALUE);
+            base.addAllPhrases(phrases);
+            ArrayList<SparseBitSet> toAdd = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                toAdd.add(randomPhrase(rand, 2 + rand.nextInt(6), 4 * size));
+            }
+            long[] best = {Long.MAX_VALUE, Long.MAX_VALUE};
+            for (int r = 0; r < ROUNDS; r++) {
+                for (int indexed = 0; indexed < 2; indexed++) {
+                    DisjunctiveNormalFormInt form = base.clone(false);
+                    form.data.setIndexThresholds(indexed == 1 ? 1 : Integer.MAX_VALUE, Integer.MAX_VALUE);
+                    long start = System.nanoTime();
+                    for (SparseBitSet p : toAdd) {
+                        form.tryAddWithAbsorption(p.clone());
+                    }
+                    best[indexed] = Math.min(best[indexed], System.nanoTime() - start);
+                }
+            }
+            if (best[1] < best[0]) {
+                chosen = size;
+                break;
+            }
+        }
+        SUBSET_INDEX_THRESHOLD.calibrated(chosen);
+    }
+
+    private static void calibrateMergeOverhead(Random rand) {
+        if (!MERGE_PARALLEL_OVERHEAD.isCalibratable()) {
+            return;
+        }
+        final ExecutionPolicy policy = ExecutionPolicy.current();
+        final int N = policy.getParallelism();
+        if (N <= 1) {
+            return;
+        }
+        //Time the same small merge in both ways and solve the cost model for
+        //  the overhead, i.e. parallel = checks/N + N*N + C (in checks).
+        DisjunctiveNormalFormInt a = trialForm(Integer.MAX_VALUE);
+        DisjunctiveNormalFormInt b = trialForm(Integer.MAX_VALUE);
+        for (int i = 0; i < 40; i++) {
+            a.tryAddWithAbsorption(randomPhrase(rand, 3 + rand.nextInt(4), 64));
+        }
+        for (int i = 0; i < 2000; i++) {
+            b.tryAddWithAbsorption(randomPhrase(rand, 3 + rand.nextInt(4), 64));
+        }
+        final double checks = (double) a.getNumPhrases() * b.getNumPhrases();
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int threads = 0; threads < 2; threads++) {
+                //R=0 forces threads, a huge overhead forbids them
+                final long overhead = threads == 1 ? -((long) N * N) : Integer.MAX_VALUE;
+                DisjunctiveNormalFormInt form = a.clone(false);
+                long start = System.nanoTime();
+                form.merge(b, overhead, false);
+                best[threads] = Math.min(best[threads], System.nanoTime() - start);
+            }
+        }
+        double nsPer = best[0] / checks;
+        double overhead = best[1] / nsPer - checks / N - (double) N * N;
+        MERGE_PARALLEL_OVERHEAD.calibrated(Math.round(Math.max(0, Math.min(MAX_MERGE_PARALLEL_OVERHEAD, overhead))));
+    }
+
+    private Tuning() {
+    }
+}
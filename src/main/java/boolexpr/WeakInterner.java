@@ -0,0 +1,111 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Weak intern table (i.e. hash-consing) for immutable values. Equal values
+ * passed to {@link #intern(java.lang.Object)} are replaced by a single
+ * canonical instance. Used for the phrases of all {@link NormalForm}s (see
+ * {@link NormalForm#INTERN_PHRASES}) so that forms built independently share
+ * the phrase objects they have in common and equality checks between
+ * canonical phrases can compare references (see
+ * {@link boolexpr.util.SparseBitSet#isCanonical()}), and for the unique table
+ * of unmodifiable {@link NormalForm}s in a {@link FormCache}.
+ *
+ * The table only weakly references the canonical values so a value that is
+ * no longer referenced elsewhere is removed from the table after it has been
+ * garbage collected. The table is split into segments by hash code, each with
+ * its own lock, so that concurrent threads rarely contend.
+ *
+ * NOTE: the values must not be modified once interned (see
+ * {@link NormalForm#freeze(java.lang.Object)}) since that would change their
+ * hash code.
+ *
+ * @author Timothy Hoffman
+ *
+ * @param <P> type of the values
+ */
+/*package*/ final class WeakInterner<P> {
+
+    private static final int NUM_SEGMENTS = 32;//power of 2
+
+    private final WeakHashMap<P, WeakReference<P>>[] segments;
+
+    public WeakInterner() {
+        this.segments = newSegmentArray(NUM_SEGMENTS);
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new WeakHashMap<>();
+        }
+    }
+
+    @SuppressWarnings("unchecked")//the array only ever holds maps of this type
+    private static <P> WeakHashMap<P, WeakReference<P>>[] newSegmentArray(int len) {
+        return (WeakHashMap<P, WeakReference<P>>[]) new WeakHashMap<?, ?>[len];
+    }
+
+    private WeakHashMap<P, WeakReference<P>> segmentFor(int hash) {
+        //NOTE: spread the high bits since WeakHashMap uses the low bits
+        return segments[(hash ^ (hash >>> 16) ^ (hash >>> 24)) & (NUM_SEGMENTS - 1)];
+    }
+
+    /**
+     * NOTE: the given value must already be immutable since it may become the
+     * canonical instance and be shared by other threads immediately.
+     *
+     * @param value
+     *
+     * @return the canonical instance equal to the given value, which is the
+     *         given value itself if no equal value was interned before
+     */
+    public P intern(P value) {
+        final WeakHashMap<P, WeakReference<P>> seg = segmentFor(value.hashCode());
+        synchronized (seg) {
+            WeakReference<P> ref = seg.get(value);
+            if (ref != null) {
+                P canonical = ref.get();
+                if (canonical != null) {
+                    return canonical;
+                }
+            }
+            //NOTE: the entry must not strongly reference its key or it would
+            //  never be removed from the WeakHashMap.
+            seg.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return the number of values currently in the table (some of which may
+     *         already be unreachable but not yet collected)
+     */
+    public int size() {
+        int retVal = 0;
+        for (WeakHashMap<P, WeakReference<P>> seg : segments) {
+            synchronized (seg) {
+                retVal += seg.size();
+            }
+        }
+        return retVal;
+    }
+}
@@ -0,0 +1,141 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.List;
+
+/**
+ * Bounds on the size of the {@link NormalForm}s built by an operation that
+ * are enforced by soundly over-approximating (i.e. widening) a
+ * {@link NormalForm} whenever it has more than {@link #getMaxPhrases()}
+ * phrases or a phrase with more than {@link #getMaxPhraseSize()} elements.
+ * The widened {@link NormalForm} is implied by the original (i.e. every
+ * assignment that satisfies the original also satisfies the widened one):
+ * <ul>
+ * <li>in disjunctive normal form, elements are dropped from the longest
+ * phrases (see {@link #selectKept(java.util.List, int)}) which then absorb
+ * other phrases, until the bounds are met</li>
+ * <li>in conjunctive normal form, the longest phrases are dropped until the
+ * bounds are met</li>
+ * </ul>
+ *
+ * A {@link WideningPolicy} is opt-in via
+ * {@link OperationContext.Builder#widening(WideningPolicy)} and is applied
+ * to the result (and intermediate results) of every merge, cross product, and
+ * resolution run with that {@link OperationContext}. It can also be applied
+ * directly via {@link NormalForm#widen(WideningPolicy)}. The number of
+ * widenings is counted by {@link NormalForm#getNumWidenings()} and
+ * {@link NormalForm#getNumWidenedPhrases()}.
+ *
+ * NOTE: subclasses can choose which elements are kept when a phrase is
+ * shortened by overriding {@link #selectKept(java.util.List, int)}.
+ *
+ * @author Timothy Hoffman
+ */
+public class WideningPolicy {
+
+    /**
+     * @param maxPhrases    at least 1
+     * @param maxPhraseSize not negative
+     *
+     * @return a {@link WideningPolicy} with the given bounds that keeps the
+     *         smallest elements (see {@link #selectKept(java.util.List, int)})
+     *
+     * @throws IllegalArgumentException if a bound is out of range
+     */
+    public static WideningPolicy of(int maxPhrases, int maxPhraseSize) {
+        return new WideningPolicy(maxPhrases, maxPhraseSize);
+    }
+
+    private final int maxPhrases;
+
+    private final int maxPhraseSize;
+
+    /**
+     * @param maxPhrases    at least 1
+     * @param maxPhraseSize not negative
+     *
+     * @throws IllegalArgumentException if a bound is out of range
+     */
+    protected WideningPolicy(int maxPhrases, int maxPhraseSize) {
+        if (maxPhrases < 1) {
+            throw new IllegalArgumentException("maxPhrases must be positive: " + maxPhrases);
+        }
+        if (maxPhraseSize < 0) {
+            throw new IllegalArgumentException("maxPhraseSize must not be negative: " + maxPhraseSize);
+        }
+        this.maxPhrases = maxPhrases;
+        this.maxPhraseSize = maxPhraseSize;
+    }
+
+    /**
+     * @return the maximum number of phrases of a {@link NormalForm} that is not
+     *         widened
+     */
+    public final int getMaxPhrases() {
+        return maxPhrases;
+    }
+
+    /**
+     * @return the maximum size of a phrase in a {@link NormalForm} that is not
+     *         widened
+     */
+    public final int getMaxPhraseSize() {
+        return maxPhraseSize;
+    }
+
+    /**
+     * @param numPhrases
+     * @param largestPhraseSize
+     *
+     * @return {@code true} iff a {@link NormalForm} with the given number of
+     *         phrases and largest phrase must be widened
+     */
+    public final boolean isExceededBy(int numPhrases, int largestPhraseSize) {
+        return numPhrases > maxPhrases || largestPhraseSize > maxPhraseSize;
+    }
+
+    /**
+     * Chooses the elements that are kept when a phrase of a disjunctive normal
+     * form is shortened to the given size. By default, the first (i.e.
+     * smallest) elements are kept so the phrases shortened together tend to
+     * become equal and absorb each other. With element ids compacted by
+     * {@link IdOrder#FREQUENCY}, these are also the most frequent elements.
+     *
+     * NOTE: the result must only contain elements from {@code elements} and
+     * at most {@code size} of them (fewer is sound but less precise).
+     *
+     * @param <E>
+     * @param elements the elements of the phrase, in order
+     * @param size     less than {@code elements.size()}
+     *
+     * @return the elements to keep
+     */
+    protected <E> List<E> selectKept(List<E> elements, int size) {
+        return elements.subList(0, size);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{maxPhrases=" + maxPhrases + ", maxPhraseSize=" + maxPhraseSize + "}";
+    }
+}
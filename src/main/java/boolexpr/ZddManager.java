@@ -0,0 +1,644 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import boolexpr.util.SparseBitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Storage for the nodes of zero-suppressed decision diagrams (ZDDs) used by
+ * {@link NormalFormZdd}. A ZDD represents a family of sets of (non-negative)
+ * {@code int} elements, i.e. the phrases of a {@link NormalForm}, as a
+ * directed acyclic graph where each node tests one element: the sets that do
+ * not contain the element are below its {@code lo} edge and the sets that do
+ * contain it (with the element removed) are below its {@code hi} edge. The
+ * elements are tested in increasing order from the root and a node whose
+ * {@code hi} edge leads to the empty family is never created, so families
+ * that share many subsets share most of their nodes.
+ *
+ * Nodes are identified by an {@code int} and are unique (i.e. hash-consed) so
+ * two families in the same {@link ZddManager} are equal iff they are the same
+ * node. There are two terminal nodes: {@link #EMPTY}, the empty family, and
+ * {@link #BASE}, the family containing only the empty set. The results of
+ * the recursive operations are memoized in a lossy computed table whose size
+ * is bounded (see {@link #MAX_CACHE_SIZE}).
+ *
+ * NOTE: nodes are never freed individually; all nodes of a
+ * {@link ZddManager} are freed together once it is no longer referenced by
+ * any {@link NormalFormZdd}. Thus a separate {@link ZddManager} should be
+ * used for each batch of related computations.
+ *
+ * NOTE: thread-safe, every operation is synchronized on the
+ * {@link ZddManager}.
+ *
+ * @author Timothy Hoffman
+ */
+public final class ZddManager {
+
+    /**
+     * The empty family.
+     */
+    /*package*/ static final int EMPTY = 0;
+
+    /**
+     * The family containing only the empty set.
+     */
+    /*package*/ static final int BASE = 1;
+
+    /**
+     * The element of the terminal nodes, which is larger than any element.
+     */
+    private static final int TERMINAL_VAR = Integer.MAX_VALUE;
+
+    private static final int MIN_CACHE_SIZE = 1 << 12;
+
+    /**
+     * Maximum number of entries in the computed table.
+     */
+    /*package*/ static final int MAX_CACHE_SIZE = 1 << 20;
+
+    private static final int OP_UNION = 1;
+
+    private static final int OP_JOIN = 2;
+
+    private static final int OP_NONSUP = 3;
+
+    private static final int OP_MINIMAL = 4;
+
+    //Node storage, indexed by node
+    private int[] var;
+
+    private int[] lo;
+
+    private int[] hi;
+
+    /**
+     * Hash code of the family represented by each node, which (unlike the
+     * node itself) does not depend on the {@link ZddManager}.
+     */
+    private int[] hash;
+
+    /**
+     * Next node in the same bucket of the unique table, or -1.
+     */
+    private int[] next;
+
+    private int numNodes;
+
+    /**
+     * Unique table, the first node in each bucket or -1.
+     */
+    private int[] buckets;
+
+    //Computed table, direct mapped (i.e. a colliding entry replaces the
+    //  previous one) with a size that grows with the number of nodes.
+    private int[] cacheOp;
+
+    private int[] cacheA;
+
+    private int[] cacheB;
+
+    private int[] cacheResult;
+
+    private long cacheHits = 0;
+
+    private long cacheMisses = 0;
+
+    /**
+     * Creates a {@link ZddManager} containing only the terminal nodes.
+     */
+    public ZddManager() {
+        final int capacity = 1024;
+        this.var = new int[capacity];
+        this.lo = new int[capacity];
+        this.hi = new int[capacity];
+        this.hash = new int[capacity];
+        this.next = new int[capacity];
+        this.buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        var[EMPTY] = TERMINAL_VAR;
+        hash[EMPTY] = 17;
+        var[BASE] = TERMINAL_VAR;
+        hash[BASE] = 31;
+        this.numNodes = 2;
+        allocateCache(MIN_CACHE_SIZE);
+    }
+
+    private void allocateCache(int size) {
+        this.cacheOp = new int[size];
+        this.cacheA = new int[size];
+        this.cacheB = new int[size];
+        this.cacheResult = new int[size];
+    }
+
+    /**
+     * @return the number of nodes, including the terminal nodes
+     */
+    public synchronized int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * @return the fraction of lookups in the computed table that were hits, or
+     *         0 if there were no lookups
+     */
+    public synchronized double getCacheHitRate() {
+        final long lookups = cacheHits + cacheMisses;
+        return lookups == 0 ? 0 : (double) cacheHits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ZddManager{nodes=" + numNodes + ", cache=" + cacheOp.length + '}';
+    }
+
+    //
+    //Node construction
+    //
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int nodeHash(int v, int l, int h) {
+        return mix(mix(mix(v) + l) + h);
+    }
+
+    /**
+     * @param v
+     * @param l
+     * @param h
+     *
+     * @return the unique node testing {@code v} with the given children, or
+     *         {@code l} if {@code h} is {@link #EMPTY} (i.e. zero-suppression)
+     */
+    private int mk(int v, int l, int h) {
+        if (h == EMPTY) {
+            return l;
+        }
+        assert v < var[l] && v < var[h];
+        int b = nodeHash(v, l, h) & (buckets.length - 1);
+        for (int n = buckets[b]; n >= 0; n = next[n]) {
+            if (var[n] == v && lo[n] == l && hi[n] == h) {
+                return n;
+            }
+        }
+        if (numNodes == var.length) {
+            grow();
+            b = nodeHash(v, l, h) & (buckets.length - 1);
+        }
+        final int n = numNodes++;
+        var[n] = v;
+        lo[n] = l;
+        hi[n] = h;
+        hash[n] = mix(mix(mix(v) + hash[l]) + hash[h]);
+        next[n] = buckets[b];
+        buckets[b] = n;
+        return n;
+    }
+
+    private void grow() {
+        final int capacity = var.length * 2;
+        var = Arrays.copyOf(var, capacity);
+        lo = Arrays.copyOf(lo, capacity);
+        hi = Arrays.copyOf(hi, capacity);
+        hash = Arrays.copyOf(hash, capacity);
+        next = Arrays.copyOf(next, capacity);
+        buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        for (int n = BASE + 1; n < numNodes; n++) {
+            final int b = nodeHash(var[n], lo[n], hi[n]) & (capacity - 1);
+            next[n] = buckets[b];
+            buckets[b] = n;
+        }
+        if (cacheOp.length < MAX_CACHE_SIZE && cacheOp.length < capacity) {
+            //NOTE: the cached results remain valid but are simply dropped
+            allocateCache(Math.min(MAX_CACHE_SIZE, capacity));
+        }
+    }
+
+    //
+    //Computed table
+    //
+    private int cacheSlot(int op, int a, int b) {
+        return nodeHash(op, a, b) & (cacheOp.length - 1);
+    }
+
+    private int cacheGet(int op, int a, int b) {
+        final int s = cacheSlot(op, a, b);
+        if (cacheOp[s] == op && cacheA[s] == a && cacheB[s] == b) {
+            cacheHits++;
+            return cacheResult[s];
+        }
+        cacheMisses++;
+        return -1;
+    }
+
+    private int cachePut(int op, int a, int b, int result) {
+        final int s = cacheSlot(op, a, b);
+        cacheOp[s] = op;
+        cacheA[s] = a;
+        cacheB[s] = b;
+        cacheResult[s] = result;
+        return result;
+    }
+
+    //
+    //Operations (the public ones are synchronized, the recursive ones are not)
+    //
+    /**
+     * @param elem
+     *
+     * @return the family containing only the set {@code {elem}}
+     *
+     * @throws IllegalArgumentException if {@code elem} is negative
+     */
+    /*package*/ synchronized int singleton(int elem) {
+        checkElem(elem);
+        return mk(elem, EMPTY, BASE);
+    }
+
+    private static void checkElem(int elem) {
+        if (elem < 0 || elem == TERMINAL_VAR) {
+            throw new IllegalArgumentException("Invalid element: " + elem);
+        }
+    }
+
+    /**
+     * NOTE: the given phrases must satisfy the absorption law (i.e. form an
+     * antichain), as the phrases of every {@link NormalForm} do.
+     *
+     * @param phrases
+     *
+     * @return the family containing exactly the given phrases
+     */
+    /*package*/ synchronized int fromPhrases(Collection<SparseBitSet> phrases) {
+        final int[] nodes = new int[phrases.size()];
+        int count = 0;
+        for (SparseBitSet p : phrases) {
+            int n = BASE;
+            for (int e = p.previousSetBit(p.length() - 1); e >= 0; e = p.previousSetBit(e - 1)) {
+                checkElem(e);
+                n = mk(e, EMPTY, n);
+            }
+            nodes[count++] = n;
+        }
+        //NOTE: union pairwise (rather than one at a time) so that the operands
+        //  of each union are of similar size.
+        for (int width = 1; width < count; width *= 2) {
+            for (int i = 0; i + width < count; i += 2 * width) {
+                nodes[i] = union(nodes[i], nodes[i + width]);
+            }
+        }
+        return count == 0 ? EMPTY : nodes[0];
+    }
+
+    /**
+     * @param root
+     *
+     * @return the sets in the family {@code root}
+     */
+    /*package*/ synchronized List<SparseBitSet> toPhrases(int root) {
+        ArrayList<SparseBitSet> retVal = new ArrayList<>();
+        collect(root, new SparseBitSet(), retVal);
+        return retVal;
+    }
+
+    private void collect(int n, SparseBitSet path, List<SparseBitSet> out) {
+        while (n > BASE) {
+            //NOTE: elements are added in increasing order and the hi child
+            //  only contains larger elements so the path can be restored by
+            //  clearing the element afterwards.
+            path.set(var[n]);
+            collect(hi[n], path, out);
+            path.clear(var[n]);
+            n = lo[n];
+        }
+        if (n == BASE) {
+            out.add(path.clone());
+        }
+    }
+
+    /**
+     * @param root
+     *
+     * @return the number of sets in the family {@code root}, or
+     *         {@link Long#MAX_VALUE} if it is larger
+     */
+    /*package*/ synchronized long count(int root) {
+        return count(root, new HashMap<Integer, Long>());
+    }
+
+    private long count(int n, HashMap<Integer, Long> memo) {
+        if (n <= BASE) {
+            return n;
+        }
+        Long retVal = memo.get(n);
+        if (retVal == null) {
+            final long l = count(lo[n], memo);
+            final long h = count(hi[n], memo);
+            retVal = l > Long.MAX_VALUE - h ? Long.MAX_VALUE : l + h;
+            memo.put(n, retVal);
+        }
+        return retVal;
+    }
+
+    /**
+     * @param root
+     *
+     * @return the number of non-terminal nodes reachable from {@code root}
+     */
+    /*package*/ synchronized int size(int root) {
+        SparseBitSet visited = new SparseBitSet();
+        int retVal = 0;
+        ArrayList<Integer> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            final int n = stack.remove(stack.size() - 1);
+            if (n > BASE && !visited.get(n)) {
+                visited.set(n);
+                retVal++;
+                stack.add(lo[n]);
+                stack.add(hi[n]);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param root
+     * @param elem
+     *
+     * @return {@code true} iff some set in the family {@code root} contains
+     *         {@code elem}
+     */
+    /*package*/ synchronized boolean containsElem(int root, int elem) {
+        return containsElem(root, elem, new SparseBitSet());
+    }
+
+    private boolean containsElem(int n, int elem, SparseBitSet visited) {
+        //NOTE: nodes below a node testing a larger element cannot test elem
+        if (var[n] > elem || visited.get(n)) {
+            return false;
+        }
+        if (var[n] == elem) {
+            return true;
+        }
+        visited.set(n);
+        return containsElem(lo[n], elem, visited) || containsElem(hi[n], elem, visited);
+    }
+
+    /**
+     * @param root
+     *
+     * @return the hash code of the family {@code root}, which is the same in
+     *         every {@link ZddManager}
+     */
+    /*package*/ synchronized int hashOf(int root) {
+        return hash[root];
+    }
+
+    /**
+     * @param other
+     * @param root  a node of {@code other}
+     *
+     * @return the node of {@code this} representing the same family as the
+     *         node {@code root} of {@code other}
+     */
+    /*package*/ int importFrom(ZddManager other, int root) {
+        if (other == this || root <= BASE) {
+            //NOTE: the terminal nodes are the same in every ZddManager
+            return root;
+        }
+        //NOTE: never hold both locks at once to avoid deadlock so first copy
+        //  the nodes reachable from root (children before parents) and then
+        //  recreate them in this.
+        final int[] triples;
+        synchronized (other) {
+            triples = other.export(root);
+        }
+        synchronized (this) {
+            final int num = triples.length / 3;
+            final int[] map = new int[num];
+            map[EMPTY] = EMPTY;
+            map[BASE] = BASE;
+            for (int i = BASE + 1; i < num; i++) {
+                map[i] = mk(triples[3 * i], map[triples[3 * i + 1]], map[triples[3 * i + 2]]);
+            }
+            return map[num - 1];
+        }
+    }
+
+    /**
+     * @param root
+     *
+     * @return the (var, lo, hi) triple of each node reachable from the
+     *         non-terminal node {@code root} where the children are given by
+     *         their position in the result, which starts with (placeholders
+     *         for) the terminal nodes and ends with {@code root}
+     */
+    private int[] export(int root) {
+        HashMap<Integer, Integer> positions = new HashMap<>();
+        positions.put(EMPTY, EMPTY);
+        positions.put(BASE, BASE);
+        int[] triples = new int[3 * 16];
+        int num = BASE + 1;
+        //iterative post-order traversal
+        ArrayList<Integer> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            final int n = stack.get(stack.size() - 1);
+            if (positions.containsKey(n)) {
+                stack.remove(stack.size() - 1);
+                continue;
+            }
+            final Integer l = positions.get(lo[n]);
+            final Integer h = positions.get(hi[n]);
+            if (l == null || h == null) {
+                if (l == null) {
+                    stack.add(lo[n]);
+                }
+                if (h == null) {
+                    stack.add(hi[n]);
+                }
+                continue;
+            }
+            stack.remove(stack.size() - 1);
+            if (3 * num + 3 > triples.length) {
+                triples = Arrays.copyOf(triples, 2 * triples.length);
+            }
+            triples[3 * num] = var[n];
+            triples[3 * num + 1] = l;
+            triples[3 * num + 2] = h;
+            positions.put(n, num++);
+        }
+        return Arrays.copyOf(triples, 3 * num);
+    }
+
+    /**
+     * @param f
+     * @param g
+     *
+     * @return the minimal sets of the union of the families {@code f} and
+     *         {@code g}, i.e. the "or" of two {@link DisjunctiveNormalFormInt}
+     */
+    /*package*/ synchronized int unionMin(int f, int g) {
+        return minimal(union(f, g));
+    }
+
+    /**
+     * @param f
+     * @param g
+     *
+     * @return the minimal sets of the unions of each set of {@code f} with
+     *         each set of {@code g}, i.e. the "and" of two
+     *         {@link DisjunctiveNormalFormInt}
+     */
+    /*package*/ synchronized int crossMin(int f, int g) {
+        return minimal(join(f, g));
+    }
+
+    private int union(int f, int g) {
+        if (f == EMPTY || f == g) {
+            return g;
+        }
+        if (g == EMPTY) {
+            return f;
+        }
+        if (f > g) {
+            final int t = f;
+            f = g;
+            g = t;
+        }
+        int r = cacheGet(OP_UNION, f, g);
+        if (r < 0) {
+            final int vf = var[f];
+            final int vg = var[g];
+            if (vf < vg) {
+                r = mk(vf, union(lo[f], g), hi[f]);
+            } else if (vf > vg) {
+                r = mk(vg, union(f, lo[g]), hi[g]);
+            } else {
+                r = mk(vf, union(lo[f], lo[g]), union(hi[f], hi[g]));
+            }
+            cachePut(OP_UNION, f, g, r);
+        }
+        return r;
+    }
+
+    private int join(int f, int g) {
+        if (f == EMPTY || g == EMPTY) {
+            return EMPTY;
+        }
+        if (f == BASE) {
+            return g;
+        }
+        if (g == BASE) {
+            return f;
+        }
+        if (f > g) {
+            final int t = f;
+            f = g;
+            g = t;
+        }
+        int r = cacheGet(OP_JOIN, f, g);
+        if (r < 0) {
+            final int vf = var[f];
+            final int vg = var[g];
+            if (vf < vg) {
+                r = mk(vf, join(lo[f], g), join(hi[f], g));
+            } else if (vf > vg) {
+                r = mk(vg, join(f, lo[g]), join(f, hi[g]));
+            } else {
+                //sets containing v come from pairs where either one contains v
+                final int h = union(union(join(hi[f], hi[g]), join(hi[f], lo[g])), join(lo[f], hi[g]));
+                r = mk(vf, join(lo[f], lo[g]), h);
+            }
+            cachePut(OP_JOIN, f, g, r);
+        }
+        return r;
+    }
+
+    private boolean containsEmptySet(int n) {
+        while (n > BASE) {
+            n = lo[n];
+        }
+        return n == BASE;
+    }
+
+    /**
+     * @param f
+     * @param g
+     *
+     * @return the sets of {@code f} that are not a superset of (or equal to)
+     *         any set of {@code g}
+     */
+    private int nonSupersets(int f, int g) {
+        if (g == EMPTY || f == EMPTY) {
+            return f;
+        }
+        if (f == g || containsEmptySet(g)) {
+            return EMPTY;
+        }
+        if (f == BASE) {
+            //the empty set is only a superset of itself, which is not in g
+            return BASE;
+        }
+        int r = cacheGet(OP_NONSUP, f, g);
+        if (r < 0) {
+            final int vf = var[f];
+            final int vg = var[g];
+            if (vf < vg) {
+                r = mk(vf, nonSupersets(lo[f], g), nonSupersets(hi[f], g));
+            } else if (vf > vg) {
+                //the sets of g containing vg cannot be subsets of any set of f
+                r = nonSupersets(f, lo[g]);
+            } else {
+                r = mk(vf, nonSupersets(lo[f], lo[g]), nonSupersets(nonSupersets(hi[f], lo[g]), hi[g]));
+            }
+            cachePut(OP_NONSUP, f, g, r);
+        }
+        return r;
+    }
+
+    /**
+     * @param f
+     *
+     * @return the sets of {@code f} that are not a proper superset of any
+     *         other set of {@code f} (i.e. applies the absorption law)
+     */
+    private int minimal(int f) {
+        if (f <= BASE) {
+            return f;
+        }
+        int r = cacheGet(OP_MINIMAL, f, 0);
+        if (r < 0) {
+            final int l = minimal(lo[f]);
+            r = mk(var[f], l, nonSupersets(minimal(hi[f]), l));
+            cachePut(OP_MINIMAL, f, 0, r);
+        }
+        return r;
+    }
+}
@@ -136,6 +136,14 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      */
     protected static int compactionCount = 2; // Note: this is not final!
 
+    /**
+     * Approach used by {@link #containsAll(SparseBitSet)} depending on whether
+     * the statistics of the argument are already cached (see
+     * {@link #setContainsAllLoop(boolean, boolean)}).
+     */
+    protected static boolean containsAllLoopIfCached = true; // Note: this is not final!
+    protected static boolean containsAllLoopIfUncached = false; // Note: this is not final!
+
     /**
      * The storage for this SparseBitSet. The <i>i</i>th bit is stored in a word
      * represented by a long value, and is at bit position <code>i % 64</code>
@@ -271,6 +279,22 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      */
     protected transient Cache cache;
 
+    /**
+     * Marks this SparseBitSet as frozen, i.e. it may be shared by several
+     * owners (see <code>boolexpr.NormalForm</code>) and must not be modified
+     * anymore. A clone of a frozen set is not frozen.
+     *
+     * @see #freeze()
+     */
+    protected transient boolean frozen;
+
+    /**
+     * Marks this SparseBitSet as the canonical instance of its value, i.e. no
+     * other canonical SparseBitSet is equal to it (see
+     * {@link #markCanonical()}). Implies {@link #frozen}.
+     */
+    protected transient boolean canonical;
+
     //=============================================================================
     //  Stack structures used for recycling blocks
     //=============================================================================
@@ -401,6 +425,34 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
         compactionCount = count;
     }
 
+    /**
+     * Selects the approach used by {@link #containsAll(SparseBitSet)}, either
+     * a loop over the set bits of the argument or a scan of both sets using a
+     * strategy. The default is to loop only when the statistics of the
+     * argument are already cached (see the note in
+     * {@link #containsAll(SparseBitSet)}).
+     *
+     * @param ifCached   use the loop when the statistics of the argument are
+     *                   cached
+     * @param ifUncached use the loop when the statistics of the argument are
+     *                   not cached
+     */
+    public static void setContainsAllLoop(boolean ifCached, boolean ifUncached) {
+        containsAllLoopIfCached = ifCached;
+        containsAllLoopIfUncached = ifUncached;
+    }
+
+    /**
+     * @param cached
+     *
+     * @return {@code true} iff {@link #containsAll(SparseBitSet)} uses the loop
+     *         approach when the statistics of the argument are (resp. are not)
+     *         cached
+     */
+    public static boolean isContainsAllLoop(boolean cached) {
+        return cached ? containsAllLoopIfCached : containsAllLoopIfUncached;
+    }
+
     /**
      * Performs a logical <b>AND</b> of the addressed target bit with the
      * argument value. This bit set is modified so that the addressed bit has
@@ -458,6 +510,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void and(SparseBitSet b) {
+        assert !frozen : "frozen";
         nullify(Math.min(bits.length, b.bits.length)); // Optimisation
         setScanner(0, Math.min(bitsLength, b.bitsLength), b, andStrategy);
     }
@@ -562,6 +615,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void andNot(SparseBitSet b) {
+        assert !frozen : "frozen";
         setScanner(0, Math.min(bitsLength, b.bitsLength), b, andNotStrategy);
     }
 
@@ -600,6 +654,24 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
         return cache.cardinality;
     }
 
+    /**
+     * Returns a 64-bit signature of the bits set to <code>true</code> in this
+     * <code>SparseBitSet</code>. Each set bit maps to one bit of the signature
+     * such that if this set contains all bits of another set, then this
+     * signature also contains all bits of the other signature. Thus, if
+     * <code>(a.signature() &amp; ~b.signature()) != 0</code> then
+     * <code>b.containsAll(a)</code> must be <code>false</code>.
+     *
+     * NOTE: the signature is cached along with the other statistics so it is
+     * computed at most once between modifications.
+     *
+     * @return the signature of this SparseBitSet
+     */
+    public long signature() {
+        statisticsUpdate();
+        return cache.signature;
+    }
+
     /**
      * Sets the bit at the specified index to <code>false</code>.
      *
@@ -610,6 +682,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void clear(int i) {
+        assert !frozen : "frozen";
         /*  In the interests of speed, no check is made here on whether the
             level3 block goes to all zero. This may be found and corrected
             in some later operation. */
@@ -657,10 +730,145 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void clear() {
+        assert !frozen : "frozen";
         /*  This simply resets to null all the entries in the set. */
         nullify(0);
     }
 
+    /**
+     * Sets the bits of this <code>SparseBitSet</code> to exactly those of the
+     * given <code>SparseBitSet</code>. Unlike {@link #clone()}, the existing
+     * storage of this set is reused where possible so this can be used to
+     * avoid allocation when a temporary set is needed repeatedly.
+     *
+     * @param b the SparseBitSet to copy
+     */
+    public void copyFrom(SparseBitSet b) {
+        assert !frozen : "frozen";
+        setScanner(0, Math.max(bitsLength, b.bitsLength), b, copyStrategy);
+    }
+
+    /**
+     * Returns a new <code>SparseBitSet</code> containing <code>f(i)</code> for
+     * each bit <code>i</code> set in this <code>SparseBitSet</code> where
+     * <code>f(i) = oldToNew[i]</code> if <code>i &lt; oldToNew.length</code>
+     * and <code>oldToNew[i] &gt;= 0</code>, otherwise <code>f(i) = i</code>.
+     * Several bits may be mapped to the same bit. The bits are scanned a word
+     * at a time from the words of this set and the words that contain no
+     * mapped bit are copied as they are.
+     *
+     * @param oldToNew
+     *
+     * @return the remapped SparseBitSet
+     */
+    public SparseBitSet remap(int[] oldToNew) {
+        return remap(oldToNew, null, null);
+    }
+
+    /**
+     * Returns a new <code>SparseBitSet</code> containing <code>f(i)</code> for
+     * each bit <code>i</code> set in this <code>SparseBitSet</code> where
+     * <code>f(i) = newValues[k]</code> if <code>i == sortedOld[k]</code>,
+     * otherwise <code>f(i) = i</code>. Several bits may be mapped to the same
+     * bit. The bits are scanned a word at a time from the words of this set
+     * and the words that contain no mapped bit are copied as they are.
+     *
+     * @param sortedOld strictly increasing bits to remap
+     * @param newValues the (non-negative) new bit for each of
+     *                  <code>sortedOld</code>
+     *
+     * @return the remapped SparseBitSet
+     */
+    public SparseBitSet remap(int[] sortedOld, int[] newValues) {
+        if (sortedOld.length != newValues.length) {
+            throw new IllegalArgumentException("Lengths differ: " + sortedOld.length + " != " + newValues.length);
+        }
+        return remap(null, sortedOld, newValues);
+    }
+
+    private SparseBitSet remap(int[] oldToNew, int[] sortedOld, int[] newValues) {
+        final SparseBitSet retVal = new SparseBitSet();
+        final long[][][] bits = this.bits;//local reference to the field for speed
+        int k = 0;//position in 'sortedOld' of the first bit that is not less than the current word
+        for (int w1 = 0, aLength = bits.length; w1 < aLength; w1++) {
+            final long[][] a2 = bits[w1];
+            if (a2 == null) {
+                continue;
+            }
+            for (int w2 = 0; w2 < LENGTH2; w2++) {
+                final long[] a3 = a2[w2];
+                if (a3 == null) {
+                    continue;
+                }
+                for (int w3 = 0; w3 < LENGTH3; w3++) {
+                    long word = a3[w3];
+                    if (word == 0L) {
+                        continue;
+                    }
+                    final int w = (w1 << SHIFT1) + (w2 << SHIFT2) + w3;
+                    final int base = w << SHIFT3;
+                    boolean copy;
+                    if (oldToNew != null) {
+                        copy = base >= oldToNew.length;
+                    } else {
+                        while (k < sortedOld.length && sortedOld[k] < base) {
+                            k++;
+                        }
+                        copy = k == sortedOld.length || sortedOld[k] - base >= LENGTH4;
+                    }
+                    if (copy) {
+                        retVal.orWord(w, word);
+                    } else {
+                        do {
+                            final int i = base + Long.numberOfTrailingZeros(word);
+                            int j = i;
+                            if (oldToNew != null) {
+                                if (i < oldToNew.length && oldToNew[i] >= 0) {
+                                    j = oldToNew[i];
+                                }
+                            } else {
+                                while (k < sortedOld.length && sortedOld[k] < i) {
+                                    k++;
+                                }
+                                if (k < sortedOld.length && sortedOld[k] == i) {
+                                    j = newValues[k];
+                                }
+                            }
+                            retVal.set(j);
+                            word &= word - 1;
+                        } while (word != 0L);
+                    }
+                }
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Sets the given bits in the word with the given index.
+     *
+     * @param w    the index of the word
+     * @param word the bits to set (not zero)
+     */
+    private void orWord(int w, long word) {
+        final int i = (w << SHIFT3) + (LENGTH4_SIZE - Long.numberOfLeadingZeros(word));
+        if (i >= bitsLength) {
+            resize(i);
+        }
+        final int w1 = w >> SHIFT1;
+        final int w2 = (w >> SHIFT2) & MASK2;
+        long[][] a2;
+        if ((a2 = bits[w1]) == null) {
+            a2 = bits[w1] = new long[LENGTH2][];
+        }
+        long[] a3;
+        if ((a3 = a2[w2]) == null) {
+            a3 = a2[w2] = new long[LENGTH3];
+        }
+        a3[w & MASK3] |= word;
+        cache.hash = 0; //Invalidate size, etc., scan
+    }
+
     /**
      * Cloning this <code>SparseBitSet</code> produces a new
      * <code>SparseBitSet</code> that is <i>equal</i>() to it. The clone of the
@@ -688,6 +896,8 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
             result.bits = null;
             result.resize(1);
             result.cache = new Cache();//reset the cache
+            result.frozen = false;
+            result.canonical = false;
             result.setScanner(0, bitsLength, this, copyStrategy);
             return result;
         } catch (CloneNotSupportedException ex) {
@@ -722,6 +932,9 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
             return false;
         }
         final SparseBitSet b = (SparseBitSet) obj;
+        if (canonical && b.canonical) {
+            return false; // Distinct canonical instances are never equal
+        }
         /*  Do the real work.  */
         EqualsStrategy equalsStrategy = new EqualsStrategy();
         setScanner(0, Math.max(bitsLength, b.bitsLength), b, equalsStrategy);
@@ -739,6 +952,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void flip(int i) {
+        assert !frozen : "frozen";
         if ((i + 1) < 1) {
             throw new IndexOutOfBoundsException("i=" + i);
         }
@@ -842,11 +1056,12 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
         //  statistics for 'other' have already been computed, the loop-based
         //  approach is generally faster (with 95% accuracy), otherwise, the
         //  strategy-based approach is faster (with 92% accuracy). Thus, we
-        //  choose the approach to take accordingly.
-        if (other.cache.hash == 0) {
-            return containsAll_Strat(other);
-        } else {
+        //  choose the approach to take accordingly by default but the choice
+        //  can be changed (i.e. calibrated) via setContainsAllLoop(..).
+        if (other.cache.hash == 0 ? containsAllLoopIfUncached : containsAllLoopIfCached) {
             return containsAll_Loop(other);
+        } else {
+            return containsAll_Strat(other);
         }
 //        boolean thisCached = this.cache.hash != 0;
 //        boolean otherCached = other.cache.hash != 0;
@@ -917,6 +1132,22 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
 //        return r1;
     }
 
+    /**
+     * Like {@link #containsAll(SparseBitSet)} but always uses the given
+     * approach rather than the one chosen via
+     * {@link #setContainsAllLoop(boolean, boolean)} (e.g. to time both
+     * approaches without changing the global choice).
+     *
+     * @param other
+     * @param loop  use a loop over the set bits of {@code other} rather than a
+     *              scan of both sets using a strategy
+     *
+     * @return
+     */
+    public boolean containsAll(SparseBitSet other, boolean loop) {
+        return loop ? containsAll_Loop(other) : containsAll_Strat(other);
+    }
+
     protected boolean containsAll_Loop(SparseBitSet other) {
         if (this == other) {
             return true; // Identity
@@ -1024,6 +1255,45 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
         return intersects(0, Math.max(bitsLength, b.bitsLength), b);
     }
 
+    /**
+     * Marks this <code>SparseBitSet</code> as frozen. A frozen set may be
+     * referenced by several owners so none of them may modify it anymore (this
+     * is checked by assertions in the modifying methods). It stays frozen
+     * until it is garbage collected but its clones are not frozen.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * @return <code>true</code> iff {@link #freeze()} was called on this
+     *         <code>SparseBitSet</code>
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Marks this <code>SparseBitSet</code> as the canonical instance of its
+     * value, which also freezes it (see {@link #freeze()}). Comparing two
+     * canonical instances via {@link #equals(java.lang.Object)} only compares
+     * their references so the caller (i.e. an intern table) must guarantee
+     * that no two canonical instances that are reachable at the same time are
+     * equal. Clones are not canonical.
+     */
+    public void markCanonical() {
+        frozen = true;
+        canonical = true;
+    }
+
+    /**
+     * @return <code>true</code> iff {@link #markCanonical()} was called on
+     *         this <code>SparseBitSet</code>
+     */
+    public boolean isCanonical() {
+        return canonical;
+    }
+
     /**
      * Returns true if this <code>SparseBitSet</code> contains no bits that are
      * set to <code>true</code>.
@@ -1396,6 +1666,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void or(SparseBitSet b) {
+        assert !frozen : "frozen";
         setScanner(0, b.bitsLength, b, orStrategy);
     }
 
@@ -1464,6 +1735,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void set(int i) {
+        assert !frozen : "frozen";
         if ((i + 1) < 1) {
             throw new IndexOutOfBoundsException("i=" + i);
         }
@@ -1837,6 +2109,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
      * @since 1.6
      */
     public void xor(SparseBitSet b) {
+        assert !frozen : "frozen";
         setScanner(0, b.bitsLength, b, xorStrategy);
     }
 
@@ -2513,6 +2786,13 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
          * <i>hash</i> value is must be zero for all values to be updated.
          */
         protected transient int a3Count = 0;
+
+        /**
+         * <i>signature</i> is updated by the <i>statisticsUpdate</i>() method.
+         * If the <i>hash</i> value is zero, it is assumed the all the cached
+         * values are stale, and must be updated.
+         */
+        protected transient long signature = 0L;
     }
 
     //=============================================================================
@@ -3149,7 +3429,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
 
     //-----------------------------------------------------------------------------
     /**
-     * Update the seven statistics that are computed for each set. These are
+     * Update the eight statistics that are computed for each set. These are
      * updated by calling <i>statisticsUpdate</i>, which uses this strategy.
      *
      * <pre>
@@ -3219,6 +3499,15 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
          */
         protected transient int cardinality;
 
+        /**
+         * Working space for computing the signature of the bit set. Holds the
+         * current state of the computation of the signature. This value is
+         * ultimately transferred to the Cache object.
+         *
+         * @see SparseBitSet#signature()
+         */
+        protected transient long signature;
+
         @Override
         //  UpdateStrategy
         protected int properties() {
@@ -3244,6 +3533,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
             this.wordMax = 0L; // word at that index
             this.count = 0; // count of non-zero words in whole set
             this.cardinality = 0; // count of non-zero bits in the whole set
+            this.signature = 0L; // union of the rotated non-zero words
         }
 
         @Override
@@ -3277,6 +3567,7 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
             cache.a3Count = a3Count;
             cache.count = count;
             cache.cardinality = cardinality;
+            cache.signature = signature;
             cache.length = (wMax + 1) * LENGTH4 - Long.numberOfLeadingZeros(wordMax);
             cache.size = cache.length - wMin * LENGTH4 - Long.numberOfTrailingZeros(wordMin);
             if (wMin < 0) {
@@ -3322,6 +3613,11 @@ public class SparseBitSet implements Cloneable, Serializable, Iterable<Integer>
             wordMax = word;
             /*  Count the actual bits, so as to get the cardinality of the set. */
             cardinality += Long.bitCount(word);
+            /*  Fold the word into the signature. Rotating by an odd multiple
+                of the word index spreads the bits of different words but it
+                maps each bit to a single position so a subset of the bits
+                always yields a subset of the signature. */
+            signature |= Long.rotateLeft(word, index * 29);
         }
     }
 
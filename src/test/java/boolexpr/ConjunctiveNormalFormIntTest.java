@@ -159,4 +159,16 @@ public class ConjunctiveNormalFormIntTest extends NormalFormTestBase<SparseBitSe
         thrown.expect(java.lang.IllegalArgumentException.class);
         ConjunctiveNormalFormInt.fromString(str);
     }
+
+    @Test
+    public void testWiden() {
+        System.out.println("test_widen");
+
+        ConjunctiveNormalFormInt f = ConjunctiveNormalFormInt.fromString("<(1|2|3)&(1|2|4)&(5)>");
+        Assert.assertFalse(f.widen(WideningPolicy.of(3, 3)));
+        Assert.assertTrue(f.widen(WideningPolicy.of(2, 5)));
+        Assert.assertEquals("(5)(1,2,3)", f.toString(TestHelpers.FORMAT, true));
+        Assert.assertTrue(f.widen(WideningPolicy.of(1, 0)));
+        Assert.assertTrue(f.isTrue());
+    }
 }
@@ -44,6 +44,8 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
 
     public D newFromClone(D existing, boolean unmodifiable);
 
+    public NormalForm.Builder<P, E, D, ?> newBuilder();
+
     public D staticGetFalse();
 
     public D staticGetTrue();
@@ -69,6 +71,11 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
 
     public D staticAnd(D src1, D src2);
 
+    //Note: the Construction for the other normal form with the same elements
+    public Construction<P, E, ?> getDual();
+
+    public NormalForm<P, E, ?> toDual(D form);
+
     /**
      *
      */
@@ -95,6 +102,11 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
             return new DisjunctiveNormalFormInt(existing, unmodifiable);
         }
 
+        @Override
+        public DisjunctiveNormalFormInt.Builder newBuilder() {
+            return new DisjunctiveNormalFormInt.Builder();
+        }
+
         @Override
         public DisjunctiveNormalFormInt staticGetFalse() {
             return DisjunctiveNormalFormInt.getFalse();
@@ -161,6 +173,16 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
         public DisjunctiveNormalFormInt staticAnd(DisjunctiveNormalFormInt src1, DisjunctiveNormalFormInt src2) {
             return DisjunctiveNormalFormInt.and(src1, src2);
         }
+
+        @Override
+        public Construction<SparseBitSet, Integer, ConjunctiveNormalFormInt> getDual() {
+            return CNF_INT;
+        }
+
+        @Override
+        public ConjunctiveNormalFormInt toDual(DisjunctiveNormalFormInt form) {
+            return form.toCNF();
+        }
     };
 
     /**
@@ -189,6 +211,11 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
             return new DisjunctiveNormalFormEnum<>(existing, unmodifiable);
         }
 
+        @Override
+        public DisjunctiveNormalFormEnum.Builder<BLOCK> newBuilder() {
+            return new DisjunctiveNormalFormEnum.Builder<>(BLOCK.class);
+        }
+
         @Override
         public DisjunctiveNormalFormEnum<BLOCK> staticGetFalse() {
             return DisjunctiveNormalFormEnum.getFalse(BLOCK.class);
@@ -253,6 +280,16 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
         public DisjunctiveNormalFormEnum<BLOCK> staticAnd(DisjunctiveNormalFormEnum<BLOCK> src1, DisjunctiveNormalFormEnum<BLOCK> src2) {
             return DisjunctiveNormalFormEnum.and(src1, src2);
         }
+
+        @Override
+        public Construction<EnumSet<BLOCK>, BLOCK, ConjunctiveNormalFormEnum<BLOCK>> getDual() {
+            return CNF_ENUM;
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> toDual(DisjunctiveNormalFormEnum<BLOCK> form) {
+            return form.toCNF();
+        }
     };
 
     /**
@@ -281,6 +318,11 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
             return new ConjunctiveNormalFormInt(existing, unmodifiable);
         }
 
+        @Override
+        public ConjunctiveNormalFormInt.Builder newBuilder() {
+            return new ConjunctiveNormalFormInt.Builder();
+        }
+
         @Override
         public ConjunctiveNormalFormInt staticGetFalse() {
             return ConjunctiveNormalFormInt.getFalse();
@@ -347,5 +389,122 @@ public interface Construction<P, E, D extends NormalForm<P, E, D>> {
         public ConjunctiveNormalFormInt staticAnd(ConjunctiveNormalFormInt src1, ConjunctiveNormalFormInt src2) {
             return ConjunctiveNormalFormInt.and(src1, src2);
         }
+
+        @Override
+        public Construction<SparseBitSet, Integer, DisjunctiveNormalFormInt> getDual() {
+            return DNF_INT;
+        }
+
+        @Override
+        public DisjunctiveNormalFormInt toDual(ConjunctiveNormalFormInt form) {
+            return form.toDNF();
+        }
+    };
+
+    /**
+     *
+     */
+    public final Construction<EnumSet<BLOCK>, BLOCK, ConjunctiveNormalFormEnum<BLOCK>> CNF_ENUM
+            = new Construction<EnumSet<BLOCK>, BLOCK, ConjunctiveNormalFormEnum<BLOCK>>() {
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> newFromEmpty() {
+            return new ConjunctiveNormalFormEnum<>(BLOCK.class);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> newFromElem(BLOCK firstProp) {
+            return new ConjunctiveNormalFormEnum<>(firstProp);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> newFromPhrase(EnumSet<BLOCK> firstPhrase) {
+            return new ConjunctiveNormalFormEnum<>(firstPhrase);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> newFromClone(ConjunctiveNormalFormEnum<BLOCK> existing, boolean unmodifiable) {
+            return new ConjunctiveNormalFormEnum<>(existing, unmodifiable);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum.Builder<BLOCK> newBuilder() {
+            return new ConjunctiveNormalFormEnum.Builder<>(BLOCK.class);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> staticGetFalse() {
+            return ConjunctiveNormalFormEnum.getFalse(BLOCK.class);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> staticGetTrue() {
+            return ConjunctiveNormalFormEnum.getTrue(BLOCK.class);
+        }
+
+        @Override
+        public boolean isDisjunctive() {
+            return false;
+        }
+
+        @Override
+        public BLOCK getElemFor(int value) {
+            return BLOCK.values()[value];
+        }
+
+        @Override
+        public EnumSet<BLOCK> buildPhrase(int... values) {
+            EnumSet<BLOCK> phrase = EnumSet.noneOf(BLOCK.class);
+            for (int x : values) {
+                phrase.add(getElemFor(x));
+            }
+            return phrase;
+        }
+
+        @Override
+        public EnumSet<BLOCK> buildPhrase(BLOCK[] values) {
+            EnumSet<BLOCK> phrase = EnumSet.noneOf(BLOCK.class);
+            phrase.addAll(Arrays.asList(values));
+            return phrase;
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> buildSentence(List<EnumSet<BLOCK>> phrases) {
+            ConjunctiveNormalFormEnum<BLOCK> retVal = new ConjunctiveNormalFormEnum<>(BLOCK.class);
+            for (EnumSet<BLOCK> x : phrases) {
+                retVal.merge(new ConjunctiveNormalFormEnum<>(x));
+            }
+            return retVal;
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> staticOr(int src1, int src2) {
+            return ConjunctiveNormalFormEnum.or(getElemFor(src1), getElemFor(src2));
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> staticOr(ConjunctiveNormalFormEnum<BLOCK> src1, ConjunctiveNormalFormEnum<BLOCK> src2) {
+            return ConjunctiveNormalFormEnum.or(src1, src2);
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> staticAnd(int src1, int src2) {
+            return ConjunctiveNormalFormEnum.and(getElemFor(src1), getElemFor(src2));
+        }
+
+        @Override
+        public ConjunctiveNormalFormEnum<BLOCK> staticAnd(ConjunctiveNormalFormEnum<BLOCK> src1, ConjunctiveNormalFormEnum<BLOCK> src2) {
+            return ConjunctiveNormalFormEnum.and(src1, src2);
+        }
+
+        @Override
+        public Construction<EnumSet<BLOCK>, BLOCK, DisjunctiveNormalFormEnum<BLOCK>> getDual() {
+            return DNF_ENUM;
+        }
+
+        @Override
+        public DisjunctiveNormalFormEnum<BLOCK> toDual(ConjunctiveNormalFormEnum<BLOCK> form) {
+            return form.toDNF();
+        }
     };
 }
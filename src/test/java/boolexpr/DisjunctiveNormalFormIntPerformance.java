@@ -21,9 +21,11 @@ package boolexpr;
  */
 
 import boolexpr.util.SparseBitSet;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import org.junit.*;
 
 /**
@@ -683,4 +685,139 @@ public class DisjunctiveNormalFormIntPerformance {
         //
         //OBSERVATION: on average, v2 is ~17x faster
     }
+
+    @Test
+    public void test_addAllPhrases() {
+        //Compare bulk addition of phrases against adding them one at a time.
+        //  The one-at-a-time approach is skipped for the larger inputs b/c it
+        //  takes too long.
+        addAllPhrasesHelper(10_000, true);
+        addAllPhrasesHelper(30_000, true);
+        addAllPhrasesHelper(100_000, false);
+        addAllPhrasesHelper(1_000_000, false);
+        //    CASE 10000: (ms) single=1065.0, bulk=594.0 (9959 phrases)
+        //    CASE 30000: (ms) single=6411.0, bulk=529.0 (29492 phrases)
+        //    CASE 100000: (ms) bulk=861.0 (94616 phrases)
+        //    CASE 1000000: (ms) bulk=11846.0 (619447 phrases)
+        //      OBSERVATION: single is roughly quadratic, bulk is near linear
+    }
+
+    private void addAllPhrasesHelper(final int NUM_PHRASES, boolean compare) {
+        Random rand = new Random(NUM_PHRASES);
+        ArrayList<SparseBitSet> phrases = new ArrayList<>(NUM_PHRASES);
+        for (int i = 0; i < NUM_PHRASES; i++) {
+            SparseBitSet phrase = new SparseBitSet();
+            for (int j = 3 + rand.nextInt(6); j > 0; j--) {
+                phrase.set(rand.nextInt(400));
+            }
+            phrases.add(phrase);
+        }
+
+        long start = System.nanoTime();
+        DisjunctiveNormalFormInt bulk = new DisjunctiveNormalFormInt();
+        bulk.addAllPhrases(phrases);
+        double elapsedBulkMS = (System.nanoTime() - start) / 1_000_000;
+
+        if (compare) {
+            Assert.assertTrue(bulk.satisfiesAbsorptionLaw());//NOTE: quadratic
+            start = System.nanoTime();
+            DisjunctiveNormalFormInt single = new DisjunctiveNormalFormInt();
+            for (SparseBitSet phrase : phrases) {
+                single.tryAddWithAbsorption(phrase.clone());
+            }
+            double elapsedSingleMS = (System.nanoTime() - start) / 1_000_000;
+            Assert.assertEquals(single, bulk);
+            System.out.println("CASE " + NUM_PHRASES + ": (ms) single=" + elapsedSingleMS + ", bulk=" + elapsedBulkMS + " (" + bulk.getNumPhrases() + " phrases)");
+        } else {
+            System.out.println("CASE " + NUM_PHRASES + ": (ms) bulk=" + elapsedBulkMS + " (" + bulk.getNumPhrases() + " phrases)");
+        }
+    }
+//    @Test
+    public void test_compactIds() {
+        //Compare memory use and absorption speed of forms whose elements are
+        //  scattered over a large range of ids against their compacted version.
+        compactIdsHelper(2_000, 1_000);
+        compactIdsHelper(2_000, 100_003);
+        compactIdsHelper(5_000, 100_003);
+    }
+
+    private void compactIdsHelper(final int NUM_PHRASES, final int SPREAD) {
+        Random rand = new Random(NUM_PHRASES);
+        ArrayList<SparseBitSet> phrases = new ArrayList<>(NUM_PHRASES);
+        for (int i = 0; i < NUM_PHRASES; i++) {
+            SparseBitSet phrase = new SparseBitSet();
+            for (int j = 3 + rand.nextInt(6); j > 0; j--) {
+                //Half of the elements are "concrete" (small) and half are
+                //  scattered "placeholders" (large)
+                int e = rand.nextInt(400);
+                phrase.set(rand.nextBoolean() ? e : 10_000 + e * SPREAD);
+            }
+            phrases.add(phrase);
+        }
+        DisjunctiveNormalFormInt scattered = new DisjunctiveNormalFormInt();
+        scattered.addAllPhrases(phrases);
+
+        for (IdOrder order : IdOrder.values()) {
+            DisjunctiveNormalFormInt compacted = scattered.clone(false);
+            long start = System.nanoTime();
+            int[] newToOld = compacted.compactIds(order);
+            double elapsedCompactMS = (System.nanoTime() - start) / 1_000_000;
+
+            //Absorption: add all phrases of the form (in a random order) to an
+            //  empty form one at a time (i.e. many containsAll checks)
+            double scatteredMS = timeAbsorption(scattered);
+            double compactedMS = timeAbsorption(compacted);
+
+            System.out.println("CASE " + NUM_PHRASES + "/" + SPREAD + "/" + order + ": " + newToOld.length + " ids compacted in " + elapsedCompactMS
+                    + "ms; bytes " + estimateBytes(scattered) + " -> " + estimateBytes(compacted)
+                    + "; absorption (ms) " + scatteredMS + " -> " + compactedMS);
+        }
+        //    CASE 2000/1000/ASCENDING: 800 ids compacted in 183.0ms; bytes 3880544 -> 1040000; absorption (ms) 122.0 -> 73.0
+        //    CASE 2000/1000/FREQUENCY: 800 ids compacted in 72.0ms; bytes 3880544 -> 1040000; absorption (ms) 52.0 -> 46.0
+        //    CASE 2000/1000/COOCCURRENCE: 800 ids compacted in 165.0ms; bytes 3880544 -> 1040000; absorption (ms) 64.0 -> 55.0
+        //    CASE 2000/100003/ASCENDING: 800 ids compacted in 317.0ms; bytes 14406448 -> 1040000; absorption (ms) 84.0 -> 62.0
+        //    CASE 2000/100003/FREQUENCY: 800 ids compacted in 459.0ms; bytes 14406448 -> 1040000; absorption (ms) 66.0 -> 27.0
+        //    CASE 2000/100003/COOCCURRENCE: 800 ids compacted in 507.0ms; bytes 14406448 -> 1040000; absorption (ms) 42.0 -> 30.0
+        //    CASE 5000/100003/ASCENDING: 800 ids compacted in 694.0ms; bytes 36158184 -> 2597920; absorption (ms) 172.0 -> 154.0
+        //    CASE 5000/100003/FREQUENCY: 800 ids compacted in 655.0ms; bytes 36158184 -> 2597920; absorption (ms) 203.0 -> 135.0
+        //    CASE 5000/100003/COOCCURRENCE: 800 ids compacted in 1024.0ms; bytes 36158184 -> 2597920; absorption (ms) 171.0 -> 171.0
+        //      OBSERVATION: compaction shrinks the phrases 4-14x (the wider the
+        //          spread of ids, the bigger the win) and absorption is usually
+        //          somewhat faster afterwards. The order of the ids has little
+        //          effect here since the phrases are random.
+    }
+
+    private static double timeAbsorption(DisjunctiveNormalFormInt form) {
+        ArrayList<SparseBitSet> phrases = new ArrayList<>();
+        for (SparseBitSet p : form.getPhrases()) {
+            phrases.add(p.clone());
+        }
+        Collections.shuffle(phrases, new Random(0));
+        long start = System.nanoTime();
+        DisjunctiveNormalFormInt result = new DisjunctiveNormalFormInt();
+        for (SparseBitSet p : phrases) {
+            result.tryAddWithAbsorption(p);
+        }
+        Assert.assertEquals(form.getNumPhrases(), result.getNumPhrases());
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * @return estimated number of bytes used by the arrays of all
+     *         {@link SparseBitSet SparseBitSets} in the given form
+     */
+    private static long estimateBytes(DisjunctiveNormalFormInt form) {
+        long retVal = 0;
+        String[] stats = new String[SparseBitSet.Statistics.values().length];
+        for (SparseBitSet p : form.getPhrases()) {
+            p.statistics(stats);
+            long level1 = Long.parseLong(stats[SparseBitSet.Statistics.Set_array_length.ordinal()]);
+            long level2 = Long.parseLong(stats[SparseBitSet.Statistics.Level2_areas.ordinal()])
+                    * Long.parseLong(stats[SparseBitSet.Statistics.Level2_area_length.ordinal()]);
+            long level3 = Long.parseLong(stats[SparseBitSet.Statistics.Level3_blocks.ordinal()])
+                    * Long.parseLong(stats[SparseBitSet.Statistics.Level3_block_length.ordinal()]);
+            retVal += 8 * (level1 + level2 + level3);
+        }
+        return retVal;
+    }
 }
@@ -21,6 +21,8 @@ package boolexpr;
  */
 
 import boolexpr.util.SparseBitSet;
+import java.util.Arrays;
+import java.util.HashMap;
 import org.junit.*;
 
 /**
@@ -55,6 +57,152 @@ public class DisjunctiveNormalFormIntTest extends NormalFormTestBase<SparseBitSe
         return Construction.DNF_INT;
     }
 
+    @Test
+    public void testSimplifyWithMutexNodes() {
+        System.out.println("test_simplifyWithMutexNodes");
+        SparseBitSet mutexNodes = new SparseBitSet();
+        mutexNodes.set(1);
+        mutexNodes.set(2);
+        SparseBitSet joinPoints = new SparseBitSet();
+        joinPoints.set(0);
+        {
+            //(1&3&4)|(2&3&4)|(1&5) => (1&5)|(0&3&4)
+            DisjunctiveNormalFormInt instance = new DisjunctiveNormalFormInt();
+            instance.tryAddWithAbsorption(getCons().buildPhrase(1, 3, 4));
+            instance.tryAddWithAbsorption(getCons().buildPhrase(2, 3, 4));
+            instance.tryAddWithAbsorption(getCons().buildPhrase(1, 5));
+            instance.simplifyWithMutexNodes(mutexNodes, joinPoints, false);
+            Assert.assertEquals("<(1&5)|(0&3&4)>", instance.toString(true));
+        }
+        {
+            //The parallel search for matching phrases gives the same result
+            DisjunctiveNormalFormInt base = new DisjunctiveNormalFormInt();
+            for (int i = 0; i < 600; i++) {
+                SparseBitSet phrase = new SparseBitSet();
+                for (int e : TestHelpers.getRandomInRange(4, 3, 14, false)) {
+                    phrase.set(e);
+                }
+                phrase.set(TestHelpers.getRandomInRange(1, 3));
+                base.tryAddWithAbsorption(phrase);
+            }
+            String expected = null;
+            ExecutionPolicy[] policies = {ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3)};
+            for (ExecutionPolicy policy : policies) {
+                DisjunctiveNormalFormInt actual = base.clone(false);
+                try (ExecutionPolicy.Scope s = policy.use()) {
+                    actual.simplifyWithMutexNodes(mutexNodes, joinPoints, false);
+                }
+                Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+                if (expected == null) {
+                    expected = actual.toString(true);
+                } else {
+                    Assert.assertEquals(expected, actual.toString(true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRemapAll() {
+        System.out.println("test_remapAll");
+        Construction<SparseBitSet, Integer, DisjunctiveNormalFormInt> cons = getCons();
+
+        for (int t = 0; t < 50; t++) {
+            DisjunctiveNormalFormInt base = cons.newFromEmpty();
+            for (int i = 0; i < 40; i++) {
+                base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 60, false)));
+            }
+            //Includes swaps, merging several elements into one, and elements
+            //  mapped to themselves
+            int[] oldToNew = new int[50];
+            HashMap<Integer, Integer> map = new HashMap<>();
+            HashMap<Integer, DisjunctiveNormalFormInt> resolutions = new HashMap<>();
+            for (int i = 0; i < oldToNew.length; i++) {
+                oldToNew[i] = TestHelpers.getRandomInRange(0, 3) == 0 ? TestHelpers.getRandomInRange(0, 80) : -1;
+                if (oldToNew[i] >= 0) {
+                    map.put(i, oldToNew[i]);
+                    resolutions.put(i, new DisjunctiveNormalFormInt(oldToNew[i]));
+                }
+            }
+            DisjunctiveNormalFormInt expected = base.clone(false);
+            expected.resolveAll(resolutions);
+
+            DisjunctiveNormalFormInt actual = base.clone(false);
+            actual.remapAll(oldToNew);
+            Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+            Assert.assertEquals(expected, actual);
+
+            actual = base.clone(false);
+            actual.replaceAll(map);
+            Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+            Assert.assertEquals(expected, actual);
+        }
+
+        //Nothing to remap
+        DisjunctiveNormalFormInt f = DisjunctiveNormalFormInt.fromString("<(1&2)|(3)>");
+        Assert.assertFalse(f.remapAll(new int[]{-1, 1, 2, -1}));
+        Assert.assertFalse(f.remapAll(new int[]{0, 1, 2, 3, 5}));
+        Assert.assertTrue(f.remapAll(new int[]{-1, 3, -1, 1}));
+        Assert.assertEquals("(1)(2,3)", f.toString(TestHelpers.FORMAT, true));
+    }
+
+    @Test
+    public void testCompactIds() {
+        System.out.println("test_compactIds");
+        Construction<SparseBitSet, Integer, DisjunctiveNormalFormInt> cons = getCons();
+
+        for (IdOrder order : IdOrder.values()) {
+            for (int t = 0; t < 20; t++) {
+                DisjunctiveNormalFormInt f1 = cons.newFromEmpty();
+                DisjunctiveNormalFormInt f2 = cons.newFromEmpty();
+                for (int i = 0; i < 30; i++) {
+                    int[] elems = TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 60, false);
+                    for (int j = 0; j < elems.length; j++) {
+                        elems[j] = elems[j] * 100_003 + 7;
+                    }
+                    (i % 2 == 0 ? f1 : f2).tryAddWithAbsorption(cons.buildPhrase(elems));
+                }
+                DisjunctiveNormalFormInt orig1 = f1.clone(false);
+                DisjunctiveNormalFormInt orig2 = f2.clone(false);
+                SparseBitSet used = SparseBitSet.or(f1.getAllPropsBitSet(), f2.getAllPropsBitSet());
+
+                int[] newToOld = DisjunctiveNormalFormInt.compactIds(Arrays.asList(f1, f2), order);
+                Assert.assertEquals(used.cardinality(), newToOld.length);
+                SparseBitSet compacted = SparseBitSet.or(f1.getAllPropsBitSet(), f2.getAllPropsBitSet());
+                Assert.assertEquals(newToOld.length, compacted.cardinality());
+                Assert.assertEquals(newToOld.length - 1, compacted.maxSetBit());
+                Assert.assertTrue(f1.satisfiesAbsorptionLaw());
+                Assert.assertEquals(orig1.getNumPhrases(), f1.getNumPhrases());
+
+                //Translate back
+                f1.remapAll(newToOld);
+                f2.remapAll(newToOld);
+                Assert.assertEquals(orig1, f1);
+                Assert.assertEquals(orig2, f2);
+            }
+        }
+
+        //Ordering
+        DisjunctiveNormalFormInt f = DisjunctiveNormalFormInt.fromString("<(10&500&900)|(10&70)|(10&300)|(70&42)>");
+        Assert.assertArrayEquals(new int[]{10, 42, 70, 300, 500, 900}, f.clone(false).compactIds());
+        Assert.assertArrayEquals(new int[]{10, 70, 42, 300, 500, 900}, f.clone(false).compactIds(IdOrder.FREQUENCY));
+        Assert.assertArrayEquals(new int[]{10, 500, 900, 70, 300, 42}, f.clone(false).compactIds(IdOrder.COOCCURRENCE));
+        f.compactIds(IdOrder.FREQUENCY);
+        Assert.assertEquals("(0,1)(0,3)(1,2)(0,4,5)", f.toString(TestHelpers.FORMAT, true));
+    }
+
+    @Test
+    public void testWiden() {
+        System.out.println("test_widen");
+
+        DisjunctiveNormalFormInt f = DisjunctiveNormalFormInt.fromString("<(1&2&3)|(1&2&4)|(5&6)>");
+        Assert.assertFalse(f.widen(WideningPolicy.of(3, 3)));
+        Assert.assertTrue(f.widen(WideningPolicy.of(2, 2)));
+        Assert.assertEquals("(1,2)(5,6)", f.toString(TestHelpers.FORMAT, true));
+        Assert.assertTrue(f.widen(WideningPolicy.of(1, 5)));
+        Assert.assertTrue(f.isTrue());
+    }
+
     @Test
     public void testFromString() {
         System.out.println("test_fromString");
@@ -22,8 +22,23 @@ package boolexpr;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -131,7 +146,8 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
     /**
      * Tests copy constructors.
      *
-     * Ensures the objects match on equals() but not referential equality
+     * Ensures the objects match on equals() and share their phrases until
+     * either one is modified
      */
     @Test
     public void testCopyConstructor() {
@@ -166,12 +182,179 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
             //ensure such a phrase was found
             Assert.assertNotNull("no matching phrase found in clone", phr2);
 
-            //ensure the phrases are not the same object
-            Assert.assertNotSame("phrase reference matches", phr1, phr2);
+            //ensure the phrases are shared until one of them is modified
+            Assert.assertSame("phrase reference does not match", phr1, phr2);
 
             //ensure the items phr1 and phr2 are the same
             //NOTE: this is gauranteed becasue phr2 was found
         }
+
+        //modifying the clone must copy the phrases first
+        final String original = instance1.toString();
+        instance2.merge(cons.buildSentence(Arrays.asList(cons.buildPhrase(2))));
+        Assert.assertEquals(original, instance1.toString());
+        Assert.assertFalse(instance1.equals(instance2));
+        for (P phr1 : instance1.data) {
+            for (P temp : instance2.data) {
+                Assert.assertNotSame("phrase reference matches", phr1, temp);
+            }
+        }
+
+        //modifying the original must leave the copy unchanged
+        D instance3 = cons.newFromClone(instance1, false);
+        D unmod = instance1.asUnmodifiable();
+        Assert.assertSame(unmod, unmod.asUnmodifiable());
+        instance1.merge(cons.buildSentence(Arrays.asList(cons.buildPhrase(4))));
+        Assert.assertEquals(original, instance3.toString());
+        Assert.assertEquals(original, unmod.toString());
+        instance3.merge(cons.buildSentence(Arrays.asList(cons.buildPhrase(4))));
+        Assert.assertEquals(instance1, instance3);
+        Assert.assertEquals(original, unmod.toString());
+    }
+
+    /**
+     * Tests that phrases shared between instances (by merge) are cloned
+     * before either instance modifies them.
+     */
+    @Test
+    public void test_phraseSharing() {
+        System.out.println("test_phraseSharing");
+        Construction<P, E, D> cons = getCons();
+
+        D source = cons.buildSentence(Arrays.asList(cons.buildPhrase(1, 2), cons.buildPhrase(3, 4, 5)));
+        final String sourceStr = source.toString();
+
+        //merging into an empty instance shares every phrase
+        D empty = cons.newFromEmpty();
+        empty.merge(source);
+        Assert.assertEquals(source, empty);
+        Assert.assertEquals(2, countSharedPhrases(source, empty));
+
+        //merging into a non-empty instance shares the phrases that are added
+        D other = cons.buildSentence(Arrays.asList(cons.buildPhrase(1), cons.buildPhrase(7, 8)));
+        other.merge(source);
+        Assert.assertEquals(1, countSharedPhrases(source, other));
+
+        //modifying any of them must not affect the others
+        empty.appendElemToEachPhrase(cons.getElemFor(6));
+        Assert.assertEquals(sourceStr, source.toString());
+        Map<E, E> replacements = new LinkedHashMap<>();
+        replacements.put(cons.getElemFor(3), cons.getElemFor(9));
+        replacements.put(cons.getElemFor(1), cons.getElemFor(2));
+        other.replaceAll(replacements);
+        Assert.assertEquals(sourceStr, source.toString());
+        final String emptyStr = empty.toString();
+        final String otherStr = other.toString();
+        source.appendElemToEachPhrase(cons.getElemFor(4));
+        source.cross(cons.buildPhrase(5, 8));
+        Assert.assertEquals(emptyStr, empty.toString());
+        Assert.assertEquals(otherStr, other.toString());
+        Assert.assertTrue(source.satisfiesAbsorptionLaw());
+        Assert.assertTrue(empty.satisfiesAbsorptionLaw());
+        Assert.assertTrue(other.satisfiesAbsorptionLaw());
+    }
+
+    private int countSharedPhrases(D a, D b) {
+        int retVal = 0;
+        for (P p : a.data) {
+            for (P q : b.data) {
+                if (p == q) {
+                    retVal++;
+                }
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Tests that equal phrases of independently built instances are the same
+     * object when {@link NormalForm#INTERN_PHRASES} is enabled.
+     */
+    @Test
+    public void test_internPhrases() {
+        System.out.println("test_internPhrases");
+        Construction<P, E, D> cons = getCons();
+
+        final boolean origIntern = NormalForm.INTERN_PHRASES;
+        NormalForm.INTERN_PHRASES = true;
+        try {
+            D a = cons.buildSentence(Arrays.asList(cons.buildPhrase(1, 2), cons.buildPhrase(3, 4, 5)));
+            D b = cons.buildSentence(Arrays.asList(cons.buildPhrase(3, 4, 5), cons.buildPhrase(7)));
+            Assert.assertEquals(1, countSharedPhrases(a, b));
+
+            //phrases created by operations are interned as well
+            a.appendElemToEachPhrase(cons.getElemFor(6));
+            b.appendElemToEachPhrase(cons.getElemFor(6));
+            Assert.assertEquals(1, countSharedPhrases(a, b));
+
+            //modifying either of them must not affect the other
+            final String aStr = a.toString();
+            b.appendElemToEachPhrase(cons.getElemFor(8));
+            Assert.assertEquals(aStr, a.toString());
+            Assert.assertEquals(0, countSharedPhrases(a, b));
+            Assert.assertTrue(a.satisfiesAbsorptionLaw());
+            Assert.assertTrue(b.satisfiesAbsorptionLaw());
+        } finally {
+            NormalForm.INTERN_PHRASES = origIntern;
+        }
+    }
+
+    @Test
+    public void test_formCache() {
+        System.out.println("test_formCache");
+        Construction<P, E, D> cons = getCons();
+
+        try {
+            new FormCache<D>(0);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        FormCache<D> cache = new FormCache<>(2);
+        D a = cons.buildSentence(Arrays.asList(cons.buildPhrase(1, 2), cons.buildPhrase(3)));
+        D b = cons.buildSentence(Arrays.asList(cons.buildPhrase(4), cons.buildPhrase(5, 6)));
+        final String aStr = a.toString();
+        final String bStr = b.toString();
+
+        //structurally equal forms have the same unmodifiable canonical instance
+        D canonA = cache.canonical(a);
+        Assert.assertTrue(canonA.isUnmodifiable());
+        Assert.assertEquals(a, canonA);
+        Assert.assertSame(canonA, cache.canonical(a.clone(false)));
+
+        //equal operands (in either order) hit the computed table
+        D and = cache.and(a, b);
+        Assert.assertEquals(a.clone(false).and(b), and);
+        Assert.assertTrue(and.isUnmodifiable());
+        Assert.assertSame(and, cache.and(b.clone(false), a.clone(false)));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        D or = cache.or(a, b);
+        Assert.assertEquals(a.clone(false).or(b), or);
+        Assert.assertEquals(aStr, a.toString());
+        Assert.assertEquals(bStr, b.toString());
+        try {
+            or.and(cons.getElemFor(7));
+            Assert.fail();
+        } catch (UnsupportedOperationException ex) {
+        }
+
+        //the least recently used entry is evicted
+        Assert.assertSame(and, cache.and(a, b));
+        cache.and(a, a);
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertSame(and, cache.and(a, b));
+        Assert.assertSame(or, cache.or(b, a));
+        Assert.assertEquals(2, cache.getEvictions());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(3, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+        Assert.assertEquals(3.0 / 7, cache.getHitRate(), 1e-9);
+
+        cache.clear();
+        cache.resetStatistics();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getHitRate(), 0);
     }
 
     @Test
@@ -238,6 +421,264 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
         Assert.assertEquals("()", instance.toString(TestHelpers.FORMAT, true));
     }
 
+    /**
+     * Ensures the results are the same whether or not the subset/superset
+     * index is used by {@link NormalForm}.
+     */
+    @Test
+    public void test_subsetIndex() {
+        System.out.println("test_subsetIndex");
+        Construction<P, E, D> cons = getCons();
+
+        final int origThreshold = NormalForm.SUBSET_INDEX_THRESHOLD;
+        try {
+            //Build random phrases (reused for both runs)
+            ArrayList<int[]> phrases = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                phrases.add(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 20, false));
+            }
+            String[] results = new String[2];
+            for (int run = 0; run < 2; run++) {
+                //First run never builds the index, second run always does
+                NormalForm.SUBSET_INDEX_THRESHOLD = (run == 0) ? Integer.MAX_VALUE : 1;
+
+                D instanceA = cons.newFromEmpty();
+                D instanceB = cons.newFromEmpty();
+                for (int i = 0; i < phrases.size(); i++) {
+                    (i % 2 == 0 ? instanceA : instanceB).tryAddWithAbsorption(cons.buildPhrase(phrases.get(i)));
+                }
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                Assert.assertTrue(instanceB.satisfiesAbsorptionLaw());
+
+                StringBuilder sb = new StringBuilder();
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true)).append('|');
+                sb.append(instanceB.toString(TestHelpers.FORMAT, true)).append('|');
+
+                instanceA.merge(instanceB);
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                Assert.assertTrue(instanceA.absorbs(instanceB));
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true)).append('|');
+
+                instanceA.appendElemToEachPhrase(cons.getElemFor(3));
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true)).append('|');
+
+                instanceA.cross(cons.buildPhrase(5, 7));
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true));
+
+                results[run] = sb.toString();
+            }
+            Assert.assertEquals(results[0], results[1]);
+        } finally {
+            NormalForm.SUBSET_INDEX_THRESHOLD = origThreshold;
+        }
+    }
+
+    @Test
+    public void test_addAllPhrases() {
+        System.out.println("test_addAllPhrases");
+        Construction<P, E, D> cons = getCons();
+
+        for (int run = 0; run < 20; run++) {
+            //Start both instances from the same random phrases
+            D expected = cons.newFromEmpty();
+            D actual = cons.newFromEmpty();
+            for (int i = TestHelpers.getRandomInRange(0, 20); i > 0; i--) {
+                int[] phrase = TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 5), 0, 16, false);
+                expected.tryAddWithAbsorption(cons.buildPhrase(phrase));
+                actual.tryAddWithAbsorption(cons.buildPhrase(phrase));
+            }
+            //Build random new phrases (including duplicates)
+            ArrayList<P> phrases = new ArrayList<>();
+            for (int i = TestHelpers.getRandomInRange(0, 300); i > 0; i--) {
+                P phrase = cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 16, false));
+                phrases.add(phrase);
+                if (i % 7 == 0) {
+                    phrases.add(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 16, false)));
+                    phrases.add(phrase);
+                }
+            }
+            for (P phrase : phrases) {
+                expected.tryAddWithAbsorption(expected.clone(phrase));
+            }
+            actual.addAllPhrases(phrases);
+
+            Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+            //The given phrases must not be owned by 'actual'
+            for (Iterator<P> it = actual.getUnsafePhraseIterator(); it.hasNext();) {
+                P p = it.next();
+                for (P q : phrases) {
+                    Assert.assertNotSame(p, q);
+                }
+            }
+        }
+        {
+            //Adding the empty phrase absorbs everything
+            D instance = cons.newFromPhrase(cons.buildPhrase(1, 4, 7));
+            ArrayList<P> phrases = new ArrayList<>();
+            phrases.add(cons.buildPhrase(2, 3));
+            phrases.add(cons.buildPhrase());
+            instance.addAllPhrases(phrases);
+            Assert.assertEquals(1, instance.getNumPhrases());
+            Assert.assertEquals(0, instance.getNumProps());
+        }
+    }
+
+    @Test
+    public void test_builder() {
+        System.out.println("test_builder");
+        Construction<P, E, D> cons = getCons();
+
+        for (int run = 0; run < 20; run++) {
+            //Build random phrases (including duplicates)
+            NormalForm.Builder<P, E, D, ?> builder = cons.newBuilder();
+            D expected = cons.newFromEmpty();
+            for (int i = TestHelpers.getRandomInRange(0, 300); i > 0; i--) {
+                P phrase = cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 16, false));
+                expected.merge(cons.newFromPhrase(expected.clone(phrase)));
+                builder.addPhrase(phrase);
+                if (i % 7 == 0) {
+                    builder.addPhrase(phrase);
+                }
+            }
+            D actual = builder.unmodifiable(run % 2 == 0).build();
+            Assert.assertEquals(run % 2 == 0, actual.isUnmodifiable());
+            Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+            Assert.assertEquals(expected, actual);
+            Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+            //The builder is empty and reusable after build()
+            Assert.assertEquals(0, builder.getNumPhrases());
+            Assert.assertEquals(cons.newFromEmpty(), builder.unmodifiable(false).build());
+            Assert.assertEquals(expected, builder.addAllPhrases(actual).build());
+        }
+        {
+            //Parallel and sequential builds give the same result
+            D largest = TestHelpers.buildLargestInstance(cons, 16);
+            ArrayList<P> phrases = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                phrases.add(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(7, 10), 0, 16, false)));
+            }
+            D sequential = cons.newBuilder().addAllPhrases(largest).build();
+            sequential.addAllPhrases(phrases);
+            NormalForm.Builder<P, E, D, ?> builder = cons.newBuilder().parallel(true).addAllPhrases(largest);
+            for (P phrase : phrases) {
+                builder.addPhrase(phrase);
+            }
+            D parallel = builder.build();
+            Assert.assertTrue(parallel.satisfiesAbsorptionLaw());
+            Assert.assertEquals(sequential, parallel);
+            Assert.assertEquals(sequential.toString(TestHelpers.FORMAT, true), parallel.toString(TestHelpers.FORMAT, true));
+        }
+    }
+
+    @Test
+    public void test_postingIndex() {
+        System.out.println("test_postingIndex");
+        Construction<P, E, D> cons = getCons();
+
+        final int origThreshold = NormalForm.POSTING_INDEX_THRESHOLD;
+        try {
+            //Build random phrases (reused for both runs)
+            ArrayList<int[]> phrases = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                phrases.add(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 6), 0, 24, false));
+            }
+            String[] results = new String[2];
+            for (int run = 0; run < 2; run++) {
+                //First run never builds the index, second run always does
+                NormalForm.POSTING_INDEX_THRESHOLD = (run == 0) ? Integer.MAX_VALUE : 1;
+
+                D instanceA = cons.newFromEmpty();
+                D instanceB = cons.newFromEmpty();
+                for (int i = 0; i < phrases.size(); i++) {
+                    (i % 2 == 0 ? instanceA : instanceB).tryAddWithAbsorption(cons.buildPhrase(phrases.get(i)));
+                }
+                instanceA.merge(instanceB);
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                Assert.assertTrue(instanceA.absorbs(instanceB));
+
+                StringBuilder sb = new StringBuilder();
+                for (int e = 0; e < 30; e++) {
+                    sb.append(instanceA.containsProp(cons.getElemFor(e))).append(instanceA.countProp(cons.getElemFor(e))).append(',');
+                }
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true)).append('|');
+
+                Map<E, E> replacements = new LinkedHashMap<>();
+                replacements.put(cons.getElemFor(2), cons.getElemFor(30));
+                replacements.put(cons.getElemFor(30), cons.getElemFor(5));
+                replacements.put(cons.getElemFor(7), cons.getElemFor(8));
+                instanceA.replaceAll(replacements);
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                Assert.assertFalse(instanceA.containsProp(cons.getElemFor(2)));
+                Assert.assertFalse(instanceA.containsProp(cons.getElemFor(7)));
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true)).append('|');
+
+                //A null key is ignored, as when the index is not used
+                Map<E, D> resolutions = new LinkedHashMap<>();
+                resolutions.put(null, cons.buildSentence(Arrays.asList(cons.buildPhrase(1))));
+                resolutions.put(cons.getElemFor(5), cons.buildSentence(Arrays.asList(cons.buildPhrase(25), cons.buildPhrase(26, 27))));
+                instanceA.resolveAll(resolutions);
+                Assert.assertTrue(instanceA.satisfiesAbsorptionLaw());
+                Assert.assertFalse(instanceA.containsProp(cons.getElemFor(5)));
+                sb.append(instanceA.toString(TestHelpers.FORMAT, true));
+
+                results[run] = sb.toString();
+            }
+            Assert.assertEquals(results[0], results[1]);
+        } finally {
+            NormalForm.POSTING_INDEX_THRESHOLD = origThreshold;
+        }
+    }
+
+    @Test
+    public void test_phraseSizeBuckets() {
+        System.out.println("test_phraseSizeBuckets");
+        Construction<P, E, D> cons = getCons();
+
+        D instance = cons.newFromEmpty();
+        for (int i = 0; i < 200; i++) {
+            instance.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 8), 0, 30, false)));
+        }
+        Assert.assertTrue(instance.satisfiesAbsorptionLaw());
+
+        //Phrases are iterated by increasing size
+        int prevSize = 0, count = 0;
+        for (Iterator<P> it = instance.getUnsafePhraseIterator(); it.hasNext();) {
+            int size = instance.size(it.next());
+            Assert.assertTrue(prevSize <= size);
+            prevSize = size;
+            count++;
+        }
+        Assert.assertEquals(instance.getNumPhrases(), count);
+
+        //Sorting within each size matches sorting all phrases at once
+        StringBuilder expected = new StringBuilder();
+        for (P p : instance.order(new ArrayList<>(instance.data))) {
+            expected.append(cons.newFromPhrase(p).toString(TestHelpers.FORMAT, true));
+        }
+        Assert.assertEquals(expected.toString(), instance.toString(TestHelpers.FORMAT, true));
+
+        //Removal via the iterator keeps the sizes consistent
+        int removed = 0;
+        for (Iterator<P> it = instance.data.iterator(); it.hasNext();) {
+            P p = it.next();
+            if (instance.size(p) % 2 == 0) {
+                it.remove();
+                removed++;
+                Assert.assertFalse(instance.data.contains(p));
+            }
+        }
+        Assert.assertEquals(count - removed, instance.getNumPhrases());
+        for (Iterator<P> it = instance.getUnsafePhraseIterator(); it.hasNext();) {
+            P p = it.next();
+            Assert.assertTrue(instance.size(p) % 2 == 1);
+            Assert.assertTrue(instance.data.contains(p));
+        }
+    }
+
     @Test
     public void test_addSingletonPhrase() {
         System.out.println("test_addSingletonPhrase");
@@ -371,6 +812,272 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
         }
     }
 
+    @Test
+    public void test_mergeNested() throws Exception {
+        System.out.println("test_mergeNested");
+        Construction<P, E, D> cons = getCons();
+
+        //A large 'other' and small 'this' uses the multi-threaded merge
+        final D other = TestHelpers.buildLargestInstance(cons, 14);
+        ArrayList<P> otherPhrases = new ArrayList<>();
+        for (Iterator<P> it = other.getUnsafePhraseIterator(); it.hasNext();) {
+            otherPhrases.add(it.next());
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(3);
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            ExecutorService[] executors = {forkJoinPool, fixedPool};
+            for (ExecutorService executor : executors) {
+                final ExecutionPolicy policy = ExecutionPolicy.of(executor, 2);
+                ArrayList<Callable<D>> tasks = new ArrayList<>();
+                ArrayList<D> expected = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    final D instance = cons.newFromEmpty();
+                    for (int i = 0; i < 40; i++) {
+                        instance.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 10), 0, 20, false)));
+                    }
+                    D exp = instance.clone(false);
+                    exp.addAllPhrases(otherPhrases);
+                    expected.add(exp);
+                    tasks.add(new Callable<D>() {
+                        @Override
+                        public D call() {
+                            try (ExecutionPolicy.Scope s = policy.use()) {
+                                instance.merge(other);
+                            }
+                            return instance;
+                        }
+                    });
+                }
+                //Run every merge within a thread of the executor used by the
+                //  merge itself so that each one is nested within another task
+                //  and all use the executor concurrently.
+                List<Future<D>> results = executor.invokeAll(tasks);
+                for (int t = 0; t < results.size(); t++) {
+                    D actual = results.get(t).get();
+                    Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+                    Assert.assertEquals(expected.get(t), actual);
+                }
+            }
+        } finally {
+            forkJoinPool.shutdown();
+            fixedPool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_executionPolicy() {
+        System.out.println("test_executionPolicy");
+        Construction<P, E, D> cons = getCons();
+
+        final D other = TestHelpers.buildLargestInstance(cons, 12);
+        D base = cons.newFromEmpty();
+        for (int i = 0; i < 20; i++) {
+            base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 8), 0, 14, false)));
+        }
+        ExecutorService fixedPool = Executors.newFixedThreadPool(3);
+        try {
+            ExecutionPolicy[] policies = {
+                ExecutionPolicy.SEQUENTIAL,
+                ExecutionPolicy.ofThreads(3),
+                ExecutionPolicy.of(fixedPool, 3)
+            };
+            String expected = null;
+            //NOTE: the default policy may be SEQUENTIAL (i.e. on a single
+            //  processor) so compare with the policy from before each scope.
+            final ExecutionPolicy outer = ExecutionPolicy.current();
+            for (ExecutionPolicy policy : policies) {
+                D actual = base.clone(false);
+                try (ExecutionPolicy.Scope s = policy.use()) {
+                    Assert.assertSame(policy, ExecutionPolicy.current());
+                    actual.merge(other);
+                    actual.cross(cons.buildSentence(TestHelpers.list(cons.buildPhrase(2), cons.buildPhrase(13))));
+                }
+                Assert.assertSame(outer, ExecutionPolicy.current());
+                Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+                if (expected == null) {
+                    expected = actual.toString(TestHelpers.FORMAT, true);
+                } else {
+                    Assert.assertEquals(expected, actual.toString(TestHelpers.FORMAT, true));
+                }
+            }
+        } finally {
+            fixedPool.shutdown();
+        }
+        Assert.assertTrue(ExecutionPolicy.ofThreads(1).isSequential());
+        Assert.assertFalse(ExecutionPolicy.getDefault().isSequential() && Runtime.getRuntime().availableProcessors() > 1);
+
+        //A failure is only rethrown after every other part of the range ended
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(pool, 3)}) {
+                AtomicInteger running = new AtomicInteger();
+                try {
+                    policy.invoke(new FailingTask(running, 0, 6, 1));
+                    Assert.fail();
+                } catch (IllegalStateException ex) {
+                }
+                Assert.assertEquals(0, running.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * {@link RangeTask} that fails for the range starting at 0 (after the
+     * other ranges have been started) and takes a while for any other range.
+     */
+    private static final class FailingTask extends RangeTask {
+
+        private static final long serialVersionUID = 1L;
+
+        final AtomicInteger running;
+
+        FailingTask(AtomicInteger running, int from, int to, int grain) {
+            super(from, to, grain);
+            this.running = running;
+        }
+
+        @Override
+        protected RangeTask split(int from, int to) {
+            return new FailingTask(running, from, to, grain);
+        }
+
+        @Override
+        protected void computeRange(int from, int to) {
+            running.incrementAndGet();
+            try {
+                if (from == 0) {
+                    Thread.sleep(20);
+                    throw new IllegalStateException();
+                }
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void test_crossParallel() {
+        System.out.println("test_crossParallel");
+        Construction<P, E, D> cons = getCons();
+
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.set(0);
+            Tuning.CROSS_CHUNK_SIZE.set(5);
+            for (int t = 0; t < 20; t++) {
+                D base = cons.newFromEmpty();
+                D other = cons.newFromEmpty();
+                for (int i = 0; i < 15; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 14, false)));
+                    other.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 14, false)));
+                }
+                D expected = base.clone(false);
+                try (ExecutionPolicy.Scope s = ExecutionPolicy.SEQUENTIAL.use()) {
+                    expected.cross(other);
+                }
+                for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                    D actual = base.clone(false);
+                    try (ExecutionPolicy.Scope s = policy.use()) {
+                        actual.cross(other);
+                    }
+                    Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+                    Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+                }
+            }
+        } finally {
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.reset();
+            Tuning.CROSS_CHUNK_SIZE.reset();
+            fixedPool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_tuning() throws InterruptedException {
+        System.out.println("test_tuning");
+        Construction<P, E, D> cons = getCons();
+
+        final D other = TestHelpers.buildLargestInstance(cons, 12);
+        D base = cons.newFromEmpty();
+        for (int i = 0; i < 20; i++) {
+            base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 8), 0, 14, false)));
+        }
+        D expected = base.clone(false);
+        expected.merge(other);
+        try {
+            //Parameters backed by a field
+            Tuning.SUBSET_INDEX_THRESHOLD.set(1);
+            Assert.assertEquals(1, NormalForm.SUBSET_INDEX_THRESHOLD);
+            Assert.assertEquals(1, Tuning.SUBSET_INDEX_THRESHOLD.get());
+            Assert.assertEquals(Tuning.Source.SET, Tuning.SUBSET_INDEX_THRESHOLD.getSource());
+            Assert.assertTrue(Tuning.describe().contains("subsetIndexThreshold=1 (SET)"));
+            Assert.assertTrue(Tuning.getParameters().contains(Tuning.MERGE_PARALLEL_OVERHEAD));
+            D actual = base.clone(false);
+            actual.merge(other);
+            Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+
+            //Force the multi-threaded merge
+            Tuning.SUBSET_INDEX_THRESHOLD.set(Integer.MAX_VALUE);
+            Tuning.MERGE_PARALLEL_OVERHEAD.set(-1_000_000);
+            try (ExecutionPolicy.Scope s = ExecutionPolicy.ofThreads(3).use()) {
+                actual = base.clone(false);
+                actual.merge(other);
+            }
+            Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+
+            //Calibration does not change parameters that were set
+            Tuning.calibrate();
+            Assert.assertEquals(-1_000_000, Tuning.MERGE_PARALLEL_OVERHEAD.get());
+            Assert.assertEquals(Integer.MAX_VALUE, NormalForm.SUBSET_INDEX_THRESHOLD);
+            Assert.assertEquals(Tuning.Source.SET, Tuning.MERGE_PARALLEL_OVERHEAD.getSource());
+        } finally {
+            for (Tuning.Parameter p : Tuning.getParameters()) {
+                p.reset();
+            }
+        }
+        Assert.assertEquals(64, NormalForm.SUBSET_INDEX_THRESHOLD);
+        Assert.assertEquals(Tuning.Source.DEFAULT, Tuning.SUBSET_INDEX_THRESHOLD.getSource());
+
+        //Calibration of the remaining parameters must not affect the results
+        //  and other threads only see the final values of the parameters
+        try {
+            final int threshold = NormalForm.SUBSET_INDEX_THRESHOLD;
+            final long overhead = Tuning.MERGE_PARALLEL_OVERHEAD.get();
+            final Set<Long> seen = Collections.synchronizedSet(new HashSet<Long>());
+            final AtomicBoolean stop = new AtomicBoolean();
+            Thread watcher = new Thread() {
+                @Override
+                public void run() {
+                    while (!stop.get()) {
+                        seen.add((long) NormalForm.SUBSET_INDEX_THRESHOLD);
+                        seen.add(Tuning.MERGE_PARALLEL_OVERHEAD.get());
+                    }
+                }
+            };
+            watcher.start();
+            Tuning.calibrate();
+            stop.set(true);
+            watcher.join();
+            seen.removeAll(Arrays.asList((long) threshold, overhead, (long) NormalForm.SUBSET_INDEX_THRESHOLD, Tuning.MERGE_PARALLEL_OVERHEAD.get()));
+            Assert.assertTrue(seen.toString(), seen.isEmpty());
+            for (Tuning.Parameter p : Tuning.getParameters()) {
+                Assert.assertNotSame(Tuning.Source.SET, p.getSource());
+            }
+            D actual = base.clone(false);
+            actual.merge(other);
+            Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+        } finally {
+            for (Tuning.Parameter p : Tuning.getParameters()) {
+                p.reset();
+            }
+        }
+    }
+
     @Test
     public void test_merge() {
         System.out.println("test_merge");
@@ -725,6 +1432,80 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
         return retVal;
     }
 
+    @Test
+    public void test_dualize() {
+        System.out.println("test_dualize");
+        checkDualize(getCons(), getCons().getDual());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D2 extends NormalForm<P, E, D2>> void checkDualize(Construction<P, E, D> cons, Construction<P, E, D2> dual) {
+        //constants
+        Assert.assertEquals(dual.staticGetFalse(), cons.toDual(cons.staticGetFalse()));
+        Assert.assertEquals(dual.staticGetTrue(), cons.toDual(cons.staticGetTrue()));
+        Assert.assertEquals(dual.newFromElem(cons.getElemFor(3)), cons.toDual(cons.newFromElem(cons.getElemFor(3))));
+
+        //(1,2)(3) has the dual (1,3)(2,3)
+        D form = cons.buildSentence(Arrays.asList(cons.buildPhrase(1, 2), cons.buildPhrase(3)));
+        final String formStr = form.toString(TestHelpers.FORMAT, true);
+        D2 result = (D2) cons.toDual(form);
+        Assert.assertEquals(dual.buildSentence(Arrays.asList(cons.buildPhrase(1, 3), cons.buildPhrase(2, 3))), result);
+        Assert.assertEquals(formStr, form.toString(TestHelpers.FORMAT, true));
+        Assert.assertFalse(result.isUnmodifiable());
+        Assert.assertEquals(form, dual.toDual(result));
+        Assert.assertEquals(result, cons.toDual(form.asUnmodifiable()));
+
+        //random forms give the same result as combining the phrases with the
+        //  dual operation and the result converts back to the original
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            for (int t = 0; t < 20; t++) {
+                ArrayList<int[]> phrases = new ArrayList<>();
+                for (int i = TestHelpers.getRandomInRange(0, 12); i > 0; i--) {
+                    phrases.add(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 16, false));
+                }
+                D original = cons.newFromEmpty();
+                D2 expected = cons.isDisjunctive() ? dual.staticGetFalse() : dual.staticGetTrue();
+                for (int[] phrase : phrases) {
+                    original.tryAddWithAbsorption(cons.buildPhrase(phrase));
+                    ArrayList<P> singletons = new ArrayList<>();
+                    for (int x : phrase) {
+                        singletons.add(cons.buildPhrase(x));
+                    }
+                    D2 term = dual.buildSentence(singletons);
+                    expected = cons.isDisjunctive() ? expected.or(term) : expected.and(term);
+                }
+                for (long minProduct : new long[]{Tuning.DUALIZE_MIN_PARALLEL_PRODUCT.getDefault(), 0}) {
+                    Tuning.DUALIZE_MIN_PARALLEL_PRODUCT.set(minProduct);
+                    for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                        try (ExecutionPolicy.Scope s = policy.use()) {
+                            D2 actual = (D2) cons.toDual(original);
+                            Assert.assertEquals(expected, actual);
+                            Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+                            Assert.assertEquals(original, dual.toDual(actual));
+                        }
+                    }
+                }
+            }
+        } finally {
+            Tuning.DUALIZE_MIN_PARALLEL_PRODUCT.reset();
+            fixedPool.shutdown();
+        }
+
+        //the conversion is bounded by the OperationContext
+        D wide = cons.newFromEmpty();
+        for (int i = 0; i < 8; i += 2) {
+            wide.tryAddWithAbsorption(cons.buildPhrase(i, i + 1));
+        }
+        Assert.assertEquals(16, cons.toDual(wide).getNumPhrases());
+        try (OperationContext.Scope c = OperationContext.builder().maxPhrases(10).build().use()) {
+            cons.toDual(wide);
+            Assert.fail();
+        } catch (OperationAbortedException ex) {
+            Assert.assertEquals(OperationAbortedException.Reason.PHRASE_LIMIT, ex.getReason());
+        }
+    }
+
     @Test
     public void test_resolve_TF() {
         System.out.println("test_resolve_TF");
@@ -1135,6 +1916,697 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
         return retVal;
     }
 
+    @Test
+    public void test_resolveAllCache() {
+        System.out.println("test_resolveAllCache");
+        Construction<P, E, D> cons = getCons();
+
+        //Keys 10 and 11 appear together in 3 phrases, 10 and 12 in 2 phrases
+        D base = cons.buildSentence(Arrays.asList(
+                cons.buildPhrase(1, 10, 11), cons.buildPhrase(2, 10, 11), cons.buildPhrase(3, 4, 10, 11),
+                cons.buildPhrase(1, 10, 12), cons.buildPhrase(5, 10, 12), cons.buildPhrase(6, 12)));
+        LinkedHashMap<E, D> replacements = new LinkedHashMap<>();
+        replacements.put(cons.getElemFor(10), cons.buildSentence(Arrays.asList(cons.buildPhrase(20), cons.buildPhrase(21))));
+        replacements.put(cons.getElemFor(11), cons.buildSentence(Arrays.asList(cons.buildPhrase(22), cons.buildPhrase(23))));
+        replacements.put(cons.getElemFor(12), cons.buildSentence(Arrays.asList(cons.buildPhrase(24, 25))));
+
+        D expected = base.clone(false);
+        for (Map.Entry<E, D> e : replacements.entrySet()) {
+            expected.resolve(e.getKey(), e.getValue());
+        }
+
+        //Within a single call, each combination of keys is computed once
+        NormalForm.resetResolutionCounters();
+        D actual = resolved(base, replacements);
+        Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+        Assert.assertEquals(2, NormalForm.getNumResolutionMisses());
+        Assert.assertEquals(3, NormalForm.getNumResolutionHits());
+
+        //Across calls with the same cache
+        NormalForm.ResolutionCache<P, D> cache = new NormalForm.ResolutionCache<>(10);
+        actual = base.clone(false);
+        actual.resolveAll(replacements, cache);
+        Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(3, cache.getHits());
+        Assert.assertEquals(2, cache.size());
+        actual = base.clone(false);
+        actual.resolveAll(replacements, cache);
+        Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(8, cache.getHits());
+
+        //A different resolution (even if equal) is not reused
+        replacements.put(cons.getElemFor(12), cons.buildSentence(Arrays.asList(cons.buildPhrase(24, 25))));
+        actual = base.clone(false);
+        actual.resolveAll(replacements, cache);
+        Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+        Assert.assertEquals(3, cache.getMisses());
+
+        //The number of cached products is bounded
+        NormalForm.ResolutionCache<P, D> small = new NormalForm.ResolutionCache<>(1);
+        actual = base.clone(false);
+        actual.resolveAll(replacements, small);
+        Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+        Assert.assertEquals(1, small.size());
+    }
+
+    @Test
+    public void test_resolveAllParallel() {
+        System.out.println("test_resolveAllParallel");
+        Construction<P, E, D> cons = getCons();
+
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            Tuning.RESOLVE_MIN_PARALLEL_PHRASES.set(0);
+            for (int t = 0; t < 20; t++) {
+                D base = cons.newFromEmpty();
+                for (int i = 0; i < 30; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 5), 0, 20, false)));
+                }
+                //The resolutions only use elements that are not keys so the
+                //  result is the same as resolving one key at a time.
+                LinkedHashMap<E, D> replacements = new LinkedHashMap<>();
+                D expected = base.clone(false);
+                for (int k = 0; k < 20; k += 3) {
+                    D res = cons.newFromEmpty();
+                    for (int i = 0; i < 3; i++) {
+                        res.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 3), 40, 60, false)));
+                    }
+                    replacements.put(cons.getElemFor(k), res);
+                    expected.resolve(cons.getElemFor(k), res);
+                }
+                for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                    D actual = base.clone(false);
+                    try (ExecutionPolicy.Scope s = policy.use()) {
+                        actual.resolveAll(replacements);
+                    }
+                    Assert.assertTrue(actual.satisfiesAbsorptionLaw());
+                    Assert.assertEquals(expected.toString(TestHelpers.FORMAT, true), actual.toString(TestHelpers.FORMAT, true));
+                }
+            }
+        } finally {
+            Tuning.RESOLVE_MIN_PARALLEL_PHRASES.reset();
+            fixedPool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_parallelJoinPolicy() {
+        System.out.println("test_parallelJoinPolicy");
+        Construction<P, E, D> cons = getCons();
+
+        //The partial results of a parallel cross or resolveAll are merged on
+        //  the worker threads, which must use the policy of the operation
+        //  rather than the default one (which counts its threads here).
+        final AtomicInteger defaultThreads = new AtomicInteger();
+        final ForkJoinPool defaultPool = new ForkJoinPool(2, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                defaultThreads.incrementAndGet();
+                return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            }
+        }, null, false);
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        final ExecutionPolicy origDefault = ExecutionPolicy.getDefault();
+        final int origThreshold = NormalForm.SUBSET_INDEX_THRESHOLD;
+        ExecutionPolicy.setDefault(ExecutionPolicy.of(defaultPool));
+        try {
+            //NOTE: every merge of partial results uses threads
+            NormalForm.SUBSET_INDEX_THRESHOLD = Integer.MAX_VALUE;
+            Tuning.MERGE_PARALLEL_OVERHEAD.set(0);
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.set(0);
+            Tuning.RESOLVE_MIN_PARALLEL_PHRASES.set(0);
+            for (int t = 0; t < 5; t++) {
+                D base = cons.newFromEmpty();
+                D other = cons.newFromEmpty();
+                for (int i = 0; i < 30; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 20, false)));
+                    other.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 20, false)));
+                }
+                LinkedHashMap<E, D> replacements = new LinkedHashMap<>();
+                for (int k = 0; k < 20; k += 3) {
+                    D res = cons.newFromEmpty();
+                    for (int i = 0; i < 3; i++) {
+                        res.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 3), 40, 60, false)));
+                    }
+                    replacements.put(cons.getElemFor(k), res);
+                }
+                D expectedCross = base.clone(false);
+                D expectedResolved = base.clone(false);
+                try (ExecutionPolicy.Scope s = ExecutionPolicy.SEQUENTIAL.use()) {
+                    expectedCross.cross(other);
+                    expectedResolved.resolveAll(replacements);
+                }
+                D actualCross = base.clone(false);
+                D actualResolved = base.clone(false);
+                try (ExecutionPolicy.Scope s = ExecutionPolicy.of(pool).use()) {
+                    actualCross.cross(other);
+                    actualResolved.resolveAll(replacements);
+                }
+                Assert.assertEquals(expectedCross.toString(TestHelpers.FORMAT, true), actualCross.toString(TestHelpers.FORMAT, true));
+                Assert.assertEquals(expectedResolved.toString(TestHelpers.FORMAT, true), actualResolved.toString(TestHelpers.FORMAT, true));
+            }
+            Assert.assertEquals(0, defaultThreads.get());
+        } finally {
+            ExecutionPolicy.setDefault(origDefault);
+            NormalForm.SUBSET_INDEX_THRESHOLD = origThreshold;
+            Tuning.MERGE_PARALLEL_OVERHEAD.reset();
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.reset();
+            Tuning.RESOLVE_MIN_PARALLEL_PHRASES.reset();
+            pool.shutdown();
+            defaultPool.shutdown();
+        }
+    }
+
+    /**
+     * An operation on a {@link NormalForm} for
+     * {@link #assertAborts(boolexpr.OperationAbortedException.Reason, boolexpr.OperationContext, boolexpr.NormalForm, boolexpr.NormalFormTestBase.Operation, java.lang.String)}.
+     */
+    private static abstract class Operation<D> {
+
+        abstract void apply(D form);
+    }
+
+    /**
+     * Asserts that the given {@link Operation} is aborted for the given
+     * {@link OperationAbortedException.Reason} when run with the given
+     * {@link OperationContext}, that the form is unchanged afterwards, and
+     * that it can still be used (i.e. the same operation without limits gives
+     * the expected result).
+     */
+    private void assertAborts(OperationAbortedException.Reason reason, OperationContext ctx, D form, Operation<D> op, String expected) {
+        final String before = form.toString(TestHelpers.FORMAT, true);
+        try (OperationContext.Scope s = ctx.use()) {
+            op.apply(form);
+            Assert.fail("not aborted: " + ctx);
+        } catch (OperationAbortedException ex) {
+            Assert.assertEquals(reason, ex.getReason());
+        } finally {
+            //NOTE: clears the interrupt status
+            Thread.interrupted();
+        }
+        Assert.assertEquals(before, form.toString(TestHelpers.FORMAT, true));
+        Assert.assertTrue(form.satisfiesAbsorptionLaw());
+        op.apply(form);
+        Assert.assertEquals(expected, form.toString(TestHelpers.FORMAT, true));
+    }
+
+    @Test
+    public void test_operationContext() {
+        System.out.println("test_operationContext");
+        Construction<P, E, D> cons = getCons();
+
+        Assert.assertSame(OperationContext.UNBOUNDED, OperationContext.current());
+        Assert.assertTrue(OperationContext.UNBOUNDED.isUnbounded());
+        Assert.assertFalse(OperationContext.builder().build().isUnbounded());
+        try {
+            OperationContext.builder().maxPhrases(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.set(0);
+            Tuning.RESOLVE_MIN_PARALLEL_PHRASES.set(0);
+            for (int t = 0; t < 10; t++) {
+                final D base = cons.newFromEmpty();
+                final D other = cons.newFromEmpty();
+                for (int i = 0; i < 25; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 20, false)));
+                    other.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 20, false)));
+                }
+                final LinkedHashMap<E, D> replacements = new LinkedHashMap<>();
+                for (int k = 0; k < 20; k += 3) {
+                    D res = cons.newFromEmpty();
+                    for (int i = 0; i < 3; i++) {
+                        res.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 3), 40, 60, false)));
+                    }
+                    replacements.put(cons.getElemFor(k), res);
+                }
+                ArrayList<Operation<D>> ops = new ArrayList<>();
+                ops.add(new Operation<D>() {
+                    @Override
+                    void apply(D form) {
+                        form.cross(other);
+                    }
+                });
+                ops.add(new Operation<D>() {
+                    @Override
+                    void apply(D form) {
+                        form.merge(other);
+                    }
+                });
+                ops.add(new Operation<D>() {
+                    @Override
+                    void apply(D form) {
+                        form.resolveAll(replacements);
+                    }
+                });
+                for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                    try (ExecutionPolicy.Scope s = policy.use()) {
+                        for (Operation<D> op : ops) {
+                            D result = base.clone(false);
+                            op.apply(result);
+                            final String expected = result.toString(TestHelpers.FORMAT, true);
+
+                            //Limits that are not reached give the same result
+                            OperationContext.CancellationToken token = new OperationContext.CancellationToken();
+                            D actual = base.clone(false);
+                            try (OperationContext.Scope c = OperationContext.builder().maxPhrases(100_000).maxProps(1_000_000)
+                                    .timeout(1, TimeUnit.HOURS).cancellationToken(token).build().use()) {
+                                op.apply(actual);
+                            }
+                            Assert.assertEquals(expected, actual.toString(TestHelpers.FORMAT, true));
+
+                            //NOTE: an operation that does not change the form
+                            //  may not check the context at all
+                            if (result.equals(base)) {
+                                continue;
+                            }
+                            token.cancel();
+                            assertAborts(OperationAbortedException.Reason.CANCELLED, OperationContext.builder().cancellationToken(token).build(),
+                                    base.clone(false), op, expected);
+                            assertAborts(OperationAbortedException.Reason.DEADLINE, OperationContext.builder().deadline(System.nanoTime() - 1).build(),
+                                    base.clone(false), op, expected);
+                            Thread.currentThread().interrupt();
+                            assertAborts(OperationAbortedException.Reason.INTERRUPTED, OperationContext.builder().build(),
+                                    base.clone(false), op, expected);
+                            if (result.getNumPhrases() > base.getNumPhrases()) {
+                                assertAborts(OperationAbortedException.Reason.PHRASE_LIMIT, OperationContext.builder().maxPhrases(result.getNumPhrases() - 1).build(),
+                                        base.clone(false), op, expected);
+                            }
+                            if (result.getNumProps() > base.getNumProps() && other.getNumPhrases() > 1) {
+                                assertAborts(OperationAbortedException.Reason.PROP_LIMIT, OperationContext.builder().maxProps(result.getNumProps() - 1).build(),
+                                        base.clone(false), op, expected);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.reset();
+            Tuning.RESOLVE_MIN_PARALLEL_PHRASES.reset();
+            fixedPool.shutdown();
+        }
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void test_operationContextParallelLimit() {
+        System.out.println("test_operationContextParallelLimit");
+        Construction<P, E, D> cons = getCons();
+
+        //The partial products of a parallel cross are merged on the worker
+        //  threads, which must check the limits as the sequential cross does.
+        //NOTE: the phrases of 'base' and 'other' use disjoint elements so no
+        //  product is absorbed and with the index, each merge checks the
+        //  limits after every phrase it adds (i.e. both abort at limit + 1).
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        final int origThreshold = NormalForm.SUBSET_INDEX_THRESHOLD;
+        try {
+            NormalForm.SUBSET_INDEX_THRESHOLD = 1;
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.set(0);
+            for (int t = 0; t < 5; t++) {
+                final D base = cons.newFromEmpty();
+                final D other = cons.newFromEmpty();
+                for (int i = 0; i < 30; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 2), 0, 20, false)));
+                    other.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 2), 20, 40, false)));
+                }
+                final int maxPhrases = base.getNumPhrases() * other.getNumPhrases() / 3;
+                String expected = null;
+                for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.of(pool), ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                    D actual = base.clone(false);
+                    try (ExecutionPolicy.Scope s = policy.use();
+                            OperationContext.Scope c = OperationContext.builder().maxPhrases(maxPhrases).build().use()) {
+                        actual.cross(other);
+                        Assert.fail("not aborted: " + policy);
+                    } catch (OperationAbortedException ex) {
+                        Assert.assertEquals(OperationAbortedException.Reason.PHRASE_LIMIT, ex.getReason());
+                        if (expected == null) {
+                            expected = ex.getMessage();
+                            Assert.assertTrue(expected, expected.endsWith((maxPhrases + 1) + " > " + maxPhrases));
+                        } else {
+                            Assert.assertEquals(policy.toString(), expected, ex.getMessage());
+                        }
+                    }
+                    Assert.assertEquals(base, actual);
+                }
+            }
+        } finally {
+            NormalForm.SUBSET_INDEX_THRESHOLD = origThreshold;
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.reset();
+            pool.shutdown();
+            fixedPool.shutdown();
+        }
+    }
+
+    /**
+     * Asserts that {@code widened} is implied by {@code exact} (checked
+     * syntactically) and within the bounds of the given {@link WideningPolicy}.
+     */
+    private void assertWidened(D exact, D widened, WideningPolicy policy) {
+        Assert.assertTrue(widened.satisfiesAbsorptionLaw());
+        Assert.assertFalse(policy.isExceededBy(widened.getNumPhrases(), widened.data.maxPhraseSize()));
+        if (exact.formRules == FormRules.DISJUNCTIVE) {
+            //every phrase (i.e. conjunction) of 'exact' implies some phrase of 'widened'
+            Assert.assertTrue(widened.absorbs(exact));
+        } else {
+            //every phrase (i.e. disjunction) of 'widened' is implied by some phrase of 'exact'
+            Assert.assertTrue(exact.absorbs(widened));
+        }
+    }
+
+    @Test
+    public void test_widening() {
+        System.out.println("test_widening");
+        Construction<P, E, D> cons = getCons();
+
+        try {
+            WideningPolicy.of(0, 5);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        //A policy that keeps the largest elements instead
+        WideningPolicy keepLast = new WideningPolicy(6, 3) {
+            @Override
+            protected <T> List<T> selectKept(List<T> elements, int size) {
+                return elements.subList(elements.size() - size, elements.size());
+            }
+        };
+        //An invalid policy that keeps too many elements
+        WideningPolicy invalid = new WideningPolicy(6, 3) {
+            @Override
+            protected <T> List<T> selectKept(List<T> elements, int size) {
+                return elements;
+            }
+        };
+
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.set(0);
+            for (int t = 0; t < 20; t++) {
+                D base = cons.newFromEmpty();
+                D other = cons.newFromEmpty();
+                for (int i = 0; i < 12; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 20, false)));
+                    other.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 0, 20, false)));
+                }
+                D exact = base.clone(false);
+                exact.cross(other);
+                exact.merge(other);
+
+                for (WideningPolicy policy : new WideningPolicy[]{WideningPolicy.of(10, 4), WideningPolicy.of(1, 0), keepLast}) {
+                    for (ExecutionPolicy ep : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                        NormalForm.resetWideningCounters();
+                        D widened = base.clone(false);
+                        try (ExecutionPolicy.Scope s = ep.use();
+                                OperationContext.Scope c = OperationContext.builder().widening(policy).build().use()) {
+                            widened.cross(other);
+                            widened.merge(other);
+                        }
+                        assertWidened(exact, widened, policy);
+                        if (!widened.equals(exact)) {
+                            Assert.assertTrue(NormalForm.getNumWidenings() > 0);
+                            Assert.assertTrue(NormalForm.getNumWidenedPhrases() > 0);
+                        }
+                    }
+                    //Widening directly
+                    D widened = exact.clone(false);
+                    Assert.assertEquals(policy.isExceededBy(exact.getNumPhrases(), exact.data.maxPhraseSize()), widened.widen(policy));
+                    assertWidened(exact, widened, policy);
+                    Assert.assertFalse(widened.widen(policy));
+                }
+
+                //An invalid policy is rejected (only DNF shortens phrases)
+                if (exact.formRules == FormRules.DISJUNCTIVE && invalid.isExceededBy(exact.getNumPhrases(), exact.data.maxPhraseSize())) {
+                    D widened = exact.clone(false);
+                    try {
+                        widened.widen(invalid);
+                        Assert.fail();
+                    } catch (IllegalStateException ex) {
+                    }
+                    Assert.assertEquals(exact, widened);
+                }
+            }
+
+            //The partial products of a parallel cross are widened when they
+            //  are merged on the worker threads too, so two of them never
+            //  exceed twice the bound (i.e. the phrase limit is not reached).
+            //NOTE: the phrases of 'base' and 'other' use disjoint elements so
+            //  the exact product is much larger than the limit.
+            final WideningPolicy bound = WideningPolicy.of(10, 4);
+            for (int t = 0; t < 5; t++) {
+                D base = cons.newFromEmpty();
+                D other = cons.newFromEmpty();
+                for (int i = 0; i < 20; i++) {
+                    base.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 2), 0, 20, false)));
+                    other.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 2), 20, 40, false)));
+                }
+                D exact = base.clone(false);
+                exact.cross(other);
+                for (ExecutionPolicy ep : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                    D widened = base.clone(false);
+                    try (ExecutionPolicy.Scope s = ep.use();
+                            OperationContext.Scope c = OperationContext.builder().widening(bound).maxPhrases(2 * bound.getMaxPhrases() + 2).build().use()) {
+                        widened.cross(other);
+                    }
+                    assertWidened(exact, widened, bound);
+                }
+            }
+        } finally {
+            Tuning.CROSS_MIN_PARALLEL_PRODUCT.reset();
+            fixedPool.shutdown();
+        }
+    }
+
+    /**
+     * Resolves the given system by repeatedly resolving every expansion with
+     * the expansions from the previous round until none of them change.
+     *
+     * @return {@code null} if the expansions still change after the given
+     *         number of rounds (ex: x=y|1, y=z, z=x oscillates)
+     */
+    private Map<E, D> resolvedRepeatedly(Map<E, D> system, int maxRounds) {
+        Map<E, D> current = new LinkedHashMap<>(system);
+        for (boolean changed = true; changed;) {
+            if (maxRounds-- == 0) {
+                return null;
+            }
+            changed = false;
+            Map<E, D> next = new LinkedHashMap<>();
+            for (Map.Entry<E, D> e : current.entrySet()) {
+                D r = resolved(e.getValue(), current);
+                changed |= !r.equals(e.getValue());
+                next.put(e.getKey(), r);
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * Asserts that the given resolved system is a fixpoint and that it is the
+     * same as the expected one once the phrases that still refer to some
+     * placeholder (i.e. recursively) are removed.
+     */
+    private void assertSameFixpoint(Map<E, D> expected, Map<E, D> actual) {
+        for (Map.Entry<E, D> e : actual.entrySet()) {
+            D f = e.getValue();
+            Assert.assertEquals(f, resolved(f, actual));
+            if (expected != null) {
+                Assert.assertEquals(withoutPlaceholders(expected.get(e.getKey()), expected.keySet()), withoutPlaceholders(f, actual.keySet()));
+            }
+        }
+    }
+
+    private D withoutPlaceholders(D f, Collection<E> placeholders) {
+        D retVal = getCons().newFromEmpty();
+        for (P p : f.getPhrases()) {
+            boolean symbolic = false;
+            for (E k : placeholders) {
+                symbolic |= f.contains(p, k);
+            }
+            if (!symbolic) {
+                retVal.tryAddWithAbsorption(f.clone(p));
+            }
+        }
+        return retVal;
+    }
+
+    @Test
+    public void test_fixpointResolver() {
+        System.out.println("test_fixpointResolver");
+        Construction<P, E, D> cons = getCons();
+
+        //Elements 40 and above are placeholders:
+        //  40 is a leaf, 41 refers to 40, 42 and 43 refer to each other,
+        //  44 refers to itself, and 45 refers to both cycles.
+        LinkedHashMap<E, D> system = new LinkedHashMap<>();
+        system.put(cons.getElemFor(40), cons.buildSentence(Arrays.asList(cons.buildPhrase(1, 2), cons.buildPhrase(3))));
+        system.put(cons.getElemFor(41), cons.buildSentence(Arrays.asList(cons.buildPhrase(4, 40), cons.buildPhrase(5))));
+        system.put(cons.getElemFor(42), cons.buildSentence(Arrays.asList(cons.buildPhrase(6), cons.buildPhrase(7, 43))));
+        system.put(cons.getElemFor(43), cons.buildSentence(Arrays.asList(cons.buildPhrase(8), cons.buildPhrase(41, 42))));
+        system.put(cons.getElemFor(44), cons.buildSentence(Arrays.asList(cons.buildPhrase(9), cons.buildPhrase(10, 44))));
+        system.put(cons.getElemFor(45), cons.buildSentence(Arrays.asList(cons.buildPhrase(42, 44), cons.buildPhrase(11))));
+        String before = system.toString();
+
+        FixpointResolver<P, E, D> resolver = new FixpointResolver<>(system);
+        Map<E, D> actual = resolver.resolve();
+        Assert.assertEquals(before, system.toString());
+        Assert.assertEquals(new ArrayList<>(system.keySet()), new ArrayList<>(actual.keySet()));
+        assertSameFixpoint(resolvedRepeatedly(system, 100), actual);
+        Assert.assertEquals(5, resolver.getNumComponents());
+        Assert.assertEquals(2, resolver.getNumCyclicComponents());
+        Assert.assertEquals(4, resolver.getNumLevels());
+        Assert.assertTrue(resolver.getNumIterations() > 0);
+        //The references to 41 (which is not recursive) are fully resolved
+        for (D f : actual.values()) {
+            for (P p : f.getPhrases()) {
+                Assert.assertFalse(f.contains(p, cons.getElemFor(40)));
+                Assert.assertFalse(f.contains(p, cons.getElemFor(41)));
+            }
+        }
+
+        //Random systems, with and without parallelism
+        ExecutorService fixedPool = Executors.newFixedThreadPool(2);
+        try {
+            //NOTE: resolving repeatedly can blow up (or oscillate) quickly so
+            //  the systems are small.
+            for (int t = 0; t < 50; t++) {
+                system = new LinkedHashMap<>();
+                final int numKeys = TestHelpers.getRandomInRange(3, 7);
+                for (int k = 40; k < 40 + numKeys; k++) {
+                    D f = cons.newFromEmpty();
+                    for (int i = 0; i < 2; i++) {
+                        P p = cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 3), 0, 20, false));
+                        if (TestHelpers.getRandomInRange(0, 3) == 0) {
+                            p = cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 3), 40, 40 + numKeys, false));
+                        }
+                        f.tryAddWithAbsorption(p);
+                    }
+                    system.put(cons.getElemFor(k), f);
+                }
+                Map<E, D> expected = resolvedRepeatedly(system, 30);
+                for (ExecutionPolicy policy : new ExecutionPolicy[]{ExecutionPolicy.SEQUENTIAL, ExecutionPolicy.ofThreads(3), ExecutionPolicy.of(fixedPool, 2)}) {
+                    try (ExecutionPolicy.Scope s = policy.use()) {
+                        actual = new FixpointResolver<>(system).resolve();
+                    }
+                    assertSameFixpoint(expected, actual);
+                }
+            }
+        } finally {
+            fixedPool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_resolutionSession() {
+        System.out.println("test_resolutionSession");
+        Construction<P, E, D> cons = getCons();
+
+        LinkedHashMap<E, D> expansions = new LinkedHashMap<>();
+        expansions.put(cons.getElemFor(40), cons.buildSentence(Arrays.asList(cons.buildPhrase(10), cons.buildPhrase(11, 12))));
+        expansions.put(cons.getElemFor(41), cons.buildSentence(Arrays.asList(cons.buildPhrase(13, 14))));
+        expansions.put(cons.getElemFor(42), cons.buildSentence(Arrays.asList(cons.buildPhrase(15), cons.buildPhrase(16))));
+        ArrayList<D> forms = new ArrayList<>();
+        forms.add(cons.buildSentence(Arrays.asList(cons.buildPhrase(1, 40), cons.buildPhrase(2, 41), cons.buildPhrase(3))));
+        forms.add(cons.buildSentence(Arrays.asList(cons.buildPhrase(40, 41, 42), cons.buildPhrase(4))));
+        forms.add(cons.buildSentence(Arrays.asList(cons.buildPhrase(5, 6))));
+        forms.add(cons.buildSentence(Arrays.asList(cons.buildPhrase(7, 43), cons.buildPhrase(8, 42))));
+
+        ResolutionSession<P, E, D> session = new ResolutionSession<>(expansions);
+        ArrayList<D> results = new ArrayList<>();
+        for (D f : forms) {
+            results.add(session.resolve(f));
+        }
+        Assert.assertEquals(4, session.getNumTracked());
+        Assert.assertEquals(4, session.getNumExpansions());
+        for (int i = 0; i < forms.size(); i++) {
+            Assert.assertEquals(resolved(forms.get(i), expansions), results.get(i));
+        }
+
+        //Only the phrases containing 41 are expanded again
+        expansions.put(cons.getElemFor(41), cons.buildSentence(Arrays.asList(cons.buildPhrase(17), cons.buildPhrase(18))));
+        List<D> changed = session.update(cons.getElemFor(41), expansions.get(cons.getElemFor(41)));
+        Assert.assertEquals(6, session.getNumExpansions());
+        Assert.assertEquals(2, changed.size());
+        Assert.assertSame(results.get(0), changed.get(0));
+        Assert.assertSame(results.get(1), changed.get(1));
+        for (int i = 0; i < forms.size(); i++) {
+            Assert.assertEquals(resolved(forms.get(i), expansions), results.get(i));
+        }
+
+        //A placeholder that had no expansion
+        expansions.put(cons.getElemFor(43), cons.buildSentence(Arrays.asList(cons.buildPhrase(19))));
+        changed = session.update(cons.getElemFor(43), expansions.get(cons.getElemFor(43)));
+        Assert.assertEquals(7, session.getNumExpansions());
+        Assert.assertEquals(1, changed.size());
+        Assert.assertSame(results.get(3), changed.get(0));
+        for (int i = 0; i < forms.size(); i++) {
+            Assert.assertEquals(resolved(forms.get(i), expansions), results.get(i));
+        }
+
+        //Removing and restoring an expansion
+        D exp40 = expansions.remove(cons.getElemFor(40));
+        session.update(cons.getElemFor(40), null);
+        for (int i = 0; i < forms.size(); i++) {
+            Assert.assertEquals(resolved(forms.get(i), expansions), results.get(i));
+        }
+        expansions.put(cons.getElemFor(40), exp40);
+        session.update(cons.getElemFor(40), exp40);
+        for (int i = 0; i < forms.size(); i++) {
+            Assert.assertEquals(resolved(forms.get(i), expansions), results.get(i));
+        }
+
+        //A released result is no longer updated
+        String before = results.get(1).toString();
+        Assert.assertTrue(session.release(results.get(1)));
+        Assert.assertFalse(session.release(results.get(1)));
+        changed = session.update(cons.getElemFor(42), cons.buildSentence(Arrays.asList(cons.buildPhrase(20))));
+        Assert.assertEquals(1, changed.size());
+        Assert.assertSame(results.get(3), changed.get(0));
+        Assert.assertEquals(before, results.get(1).toString());
+        Assert.assertEquals(3, session.getNumTracked());
+
+        //Random forms and updates
+        for (int t = 0; t < 20; t++) {
+            expansions = new LinkedHashMap<>();
+            session = new ResolutionSession<>(expansions);
+            forms.clear();
+            results.clear();
+            for (int f = 0; f < 10; f++) {
+                D form = cons.newFromEmpty();
+                for (int i = 0; i < 4; i++) {
+                    form.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 4), 30, 50, false)));
+                }
+                forms.add(form);
+                results.add(session.resolve(form));
+            }
+            for (int u = 0; u < 20; u++) {
+                E key = cons.getElemFor(TestHelpers.getRandomInRange(40, 50));
+                D exp = null;
+                if (TestHelpers.getRandomInRange(0, 4) != 0) {
+                    exp = cons.newFromEmpty();
+                    for (int i = 0; i < 2; i++) {
+                        exp.tryAddWithAbsorption(cons.buildPhrase(TestHelpers.getRandomInRange(TestHelpers.getRandomInRange(1, 3), 0, 20, false)));
+                    }
+                    expansions.put(key, exp);
+                } else {
+                    expansions.remove(key);
+                }
+                session.update(key, exp);
+                for (int i = 0; i < forms.size(); i++) {
+                    Assert.assertEquals(resolved(forms.get(i), expansions), results.get(i));
+                }
+            }
+        }
+    }
+
     @Test
     public void test_replaceAll() {
         System.out.println("test_replaceAll");
@@ -1180,6 +2652,12 @@ public abstract class NormalFormTestBase<P, E, D extends NormalForm<P, E, D>> {
             Assert.assertEquals(a, a_0);
             D b_0 = replaced(b, replacements);
             Assert.assertEquals(b, b_0);
+
+            //A key mapped to itself is a modification iff it appears
+            Assert.assertTrue(a.clone(false).replaceAll(replacements));
+            Assert.assertTrue(a.clone(false).replaceAll(Collections.singletonMap(cons.getElemFor(3), cons.getElemFor(3))));
+            Assert.assertFalse(a.clone(false).replaceAll(Collections.singletonMap(cons.getElemFor(0), cons.getElemFor(0))));
+            Assert.assertTrue(b.clone(false).replaceAll(Collections.singletonMap(cons.getElemFor(0), cons.getElemFor(0))));
         }
 
         {//replace w/ values not appearing previously
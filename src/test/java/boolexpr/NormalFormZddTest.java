@@ -0,0 +1,203 @@
+package boolexpr;
+
+/*-
+ * #%L
+ * BoolExpr
+ * %%
+ * Copyright (C) 2020 Timothy Hoffman
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import boolexpr.util.SparseBitSet;
+import java.util.Random;
+import org.junit.*;
+
+/**
+ * Tests {@link DisjunctiveNormalFormZdd} and {@link ConjunctiveNormalFormZdd}
+ * against the equivalent {@link DisjunctiveNormalFormInt} and
+ * {@link ConjunctiveNormalFormInt}.
+ *
+ * @author Timothy Hoffman
+ */
+public class NormalFormZddTest {
+
+    public NormalFormZddTest() {
+    }
+
+    private static SparseBitSet phrase(int... elems) {
+        SparseBitSet retVal = new SparseBitSet();
+        for (int e : elems) {
+            retVal.set(e);
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testConstants() {
+        System.out.println("testConstants");
+        ZddManager m = new ZddManager();
+
+        Assert.assertTrue(DisjunctiveNormalFormZdd.getFalse(m).isFalse());
+        Assert.assertTrue(DisjunctiveNormalFormZdd.getTrue(m).isTrue());
+        Assert.assertTrue(new DisjunctiveNormalFormZdd(m).isFalse());
+        Assert.assertEquals(DisjunctiveNormalFormInt.getTrue(), DisjunctiveNormalFormZdd.getTrue(m).toNormalForm());
+        Assert.assertTrue(ConjunctiveNormalFormZdd.getFalse(m).isFalse());
+        Assert.assertTrue(ConjunctiveNormalFormZdd.getTrue(m).isTrue());
+        Assert.assertTrue(new ConjunctiveNormalFormZdd(m).isTrue());
+        Assert.assertEquals(ConjunctiveNormalFormInt.getFalse(), ConjunctiveNormalFormZdd.getFalse(m).toNormalForm());
+
+        //in DNF, the empty phrase (i.e. TRUE) absorbs every other phrase
+        DisjunctiveNormalFormZdd d = new DisjunctiveNormalFormZdd(m, 3).or(4);
+        d.or(DisjunctiveNormalFormZdd.getTrue(m));
+        Assert.assertTrue(d.isTrue());
+        d.and(DisjunctiveNormalFormZdd.getFalse(m));
+        Assert.assertTrue(d.isFalse());
+
+        try {
+            new DisjunctiveNormalFormZdd(m, -1);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    @Test
+    public void testConversion() {
+        System.out.println("testConversion");
+        ZddManager m = new ZddManager();
+
+        DisjunctiveNormalFormInt dnf = new DisjunctiveNormalFormInt.Builder()
+                .addPhrase(1, 2).addPhrase(2, 3, 4).addPhrase(5).addPhrase(0, 64, 1000).build();
+        DisjunctiveNormalFormZdd zdnf = new DisjunctiveNormalFormZdd(m, dnf);
+        Assert.assertEquals(4, zdnf.getNumPhrases());
+        Assert.assertEquals(dnf, zdnf.toNormalForm());
+        Assert.assertEquals(dnf.toString(true), zdnf.toString(true));
+        Assert.assertTrue(zdnf.containsProp(1000));
+        Assert.assertFalse(zdnf.containsProp(6));
+
+        ConjunctiveNormalFormInt cnf = new ConjunctiveNormalFormInt.Builder()
+                .addPhrase(1, 2).addPhrase(2, 3, 4).addPhrase(5).build();
+        ConjunctiveNormalFormZdd zcnf = new ConjunctiveNormalFormZdd(m, cnf);
+        Assert.assertEquals(cnf, zcnf.toNormalForm());
+        Assert.assertEquals(cnf.toString(true), zcnf.toString(true));
+
+        //equal forms are equal regardless of the manager
+        DisjunctiveNormalFormZdd other = new DisjunctiveNormalFormZdd(new ZddManager(), dnf);
+        Assert.assertEquals(zdnf, other);
+        Assert.assertEquals(zdnf.hashCode(), other.hashCode());
+        Assert.assertFalse(zdnf.equals(new DisjunctiveNormalFormZdd(m, 1)));
+    }
+
+    @Test
+    public void testUnmodifiable() {
+        System.out.println("testUnmodifiable");
+        ZddManager m = new ZddManager();
+
+        DisjunctiveNormalFormZdd d = new DisjunctiveNormalFormZdd(m, 1);
+        DisjunctiveNormalFormZdd u = d.asUnmodifiable();
+        Assert.assertSame(u, u.asUnmodifiable());
+        d.and(2);
+        Assert.assertEquals(new DisjunctiveNormalFormZdd(m, 1), u);
+        try {
+            u.or(3);
+            Assert.fail();
+        } catch (UnsupportedOperationException ex) {
+        }
+    }
+
+    /**
+     * The "and" of {@code n} clauses {@code (x_i | y_i)} has {@code 2^n}
+     * phrases in disjunctive normal form but only {@code 2n} nodes.
+     */
+    @Test
+    public void testBlowUp() {
+        System.out.println("testBlowUp");
+        ZddManager m = new ZddManager();
+
+        final int n = 40;
+        DisjunctiveNormalFormZdd d = DisjunctiveNormalFormZdd.getTrue(m);
+        ConjunctiveNormalFormZdd c = ConjunctiveNormalFormZdd.getFalse(m);
+        for (int i = 0; i < n; i++) {
+            d.and(new DisjunctiveNormalFormZdd(m, 2 * i).or(2 * i + 1));
+            //the dual: or of (x_i & y_i)
+            c.or(new ConjunctiveNormalFormZdd(m, 2 * i).and(2 * i + 1));
+        }
+        Assert.assertEquals(1L << n, d.getNumPhrases());
+        Assert.assertEquals(2 * n, d.getNumNodes());
+        Assert.assertEquals(1L << n, c.getNumPhrases());
+        Assert.assertEquals(2 * n, c.getNumNodes());
+
+        //absorbed by a single phrase
+        d.or(new DisjunctiveNormalFormZdd(m, 0));
+        Assert.assertEquals((1L << (n - 1)) + 1, d.getNumPhrases());
+    }
+
+    /**
+     * Applies the same random operations to both representations.
+     */
+    @Test
+    public void testRandomOperations() {
+        System.out.println("testRandomOperations");
+        Random rand = new Random(42);
+        for (int t = 0; t < 200; t++) {
+            final int univ = 4 + rand.nextInt(16);
+            ZddManager m = new ZddManager();
+            DisjunctiveNormalFormInt d = new DisjunctiveNormalFormInt();
+            ConjunctiveNormalFormInt c = new ConjunctiveNormalFormInt();
+            DisjunctiveNormalFormZdd zd = new DisjunctiveNormalFormZdd(m);
+            ConjunctiveNormalFormZdd zc = new ConjunctiveNormalFormZdd(m);
+            for (int step = 0; step < 8; step++) {
+                final int e = rand.nextInt(univ);
+                DisjunctiveNormalFormInt bd = new DisjunctiveNormalFormInt();
+                ConjunctiveNormalFormInt bc = new ConjunctiveNormalFormInt();
+                for (int i = 0, num = 1 + rand.nextInt(3); i < num; i++) {
+                    SparseBitSet p = phrase(rand.nextInt(univ), rand.nextInt(univ));
+                    bd.tryAddWithAbsorption(p);
+                    bc.tryAddWithAbsorption(p.clone());
+                }
+                switch (rand.nextInt(4)) {
+                    case 0:
+                        d.and(e);
+                        zd.and(e);
+                        c.or(e);
+                        zc.or(e);
+                        break;
+                    case 1:
+                        d.or(e);
+                        zd.or(e);
+                        c.and(e);
+                        zc.and(e);
+                        break;
+                    case 2:
+                        d.and(bd);
+                        zd.and(new DisjunctiveNormalFormZdd(m, bd));
+                        c.or(bc);
+                        zc.or(new ConjunctiveNormalFormZdd(m, bc));
+                        break;
+                    default:
+                        d.or(bd);
+                        zd.or(new DisjunctiveNormalFormZdd(m, bd));
+                        c.and(bc);
+                        zc.and(new ConjunctiveNormalFormZdd(m, bc));
+                        break;
+                }
+                Assert.assertEquals(d, zd.toNormalForm());
+                Assert.assertEquals(c, zc.toNormalForm());
+                Assert.assertEquals(d.getNumPhrases(), zd.getNumPhrases());
+                Assert.assertEquals(d.isTrue(), zd.isTrue());
+                Assert.assertEquals(c.isFalse(), zc.isFalse());
+            }
+        }
+    }
+}
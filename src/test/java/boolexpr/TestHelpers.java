@@ -179,11 +179,11 @@ public class TestHelpers {
      */
     public static <P, E, D extends NormalForm<P, E, D>> D buildLargestInstance(Construction<P, E, D> cons, int numVars) {
         E[] universe = TestHelpers.buildElemList(cons, 0, numVars);
-        D instance = cons.newFromEmpty();
+        NormalForm.Builder<P, E, D, ?> builder = cons.newBuilder();
         for (E[] s : TestHelpers.combinationsNoRepetition(universe, (int) Math.ceil(universe.length / 2.0))) {
-            instance.merge(cons.newFromPhrase(cons.buildPhrase(s)));
+            builder.addPhrase(cons.buildPhrase(s));
         }
-        return instance;
+        return builder.build();
     }
 
     private TestHelpers() {
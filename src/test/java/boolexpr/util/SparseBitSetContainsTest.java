@@ -215,4 +215,35 @@ public class SparseBitSetContainsTest {
         assertContainsAll(a, b, true);
         assertContainsAll(b, a, true);
     }
+
+    @Test
+    public void testSignature() {
+        Random rand = new Random(42);
+        for (int n = 0; n < 500; n++) {
+            SparseBitSet a = new SparseBitSet();
+            SparseBitSet b = new SparseBitSet();
+            final int bound = (n % 2 == 0) ? 200 : 5_000_000;
+            for (int i = rand.nextInt(8); i >= 0; i--) {
+                int v = rand.nextInt(bound);
+                a.set(v);
+                b.set(v);
+            }
+            //'b' is a superset of 'a' so the signature of 'b' must cover 'a'
+            for (int i = rand.nextInt(8); i >= 0; i--) {
+                b.set(rand.nextInt(bound));
+            }
+            Assert.assertEquals(0L, a.signature() & ~b.signature());
+            //The signature must be refreshed after modification
+            long sigBefore = a.signature();
+            a.clear();
+            Assert.assertEquals(0L, a.signature());
+            Assert.assertTrue(sigBefore != 0L);
+            //A signature rejection must imply the sets are not contained
+            SparseBitSet c = new SparseBitSet();
+            c.set(rand.nextInt(bound));
+            if ((c.signature() & ~b.signature()) != 0L) {
+                Assert.assertFalse(b.containsAll(c));
+            }
+        }
+    }
 }
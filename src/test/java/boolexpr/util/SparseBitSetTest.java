@@ -143,6 +143,81 @@ public class SparseBitSetTest {
         }
     }
 
+    @Test
+    public void testCopyFrom() {
+        SparseBitSet small = new SparseBitSet();
+        small.set(3);
+        small.set(70, 81);
+        SparseBitSet large = new SparseBitSet();
+        large.set(5);
+        large.set(100_000);
+        large.set(2_000_000);
+
+        SparseBitSet sb = new SparseBitSet();
+        sb.copyFrom(large);
+        Assert.assertEquals(large, sb);
+        Assert.assertEquals(large.hashCode(), sb.hashCode());
+        Assert.assertEquals(3, sb.cardinality());
+
+        //copying a smaller set must clear the bits beyond it
+        sb.copyFrom(small);
+        Assert.assertEquals(small, sb);
+        Assert.assertEquals(12, sb.cardinality());
+        Assert.assertEquals(80, sb.maxSetBit());
+
+        sb.or(large);
+        Assert.assertEquals(SparseBitSet.or(small, large), sb);
+
+        sb.copyFrom(new SparseBitSet());
+        Assert.assertTrue(sb.isEmpty());
+        Assert.assertEquals(-1, sb.maxSetBit());
+    }
+
+    @Test
+    public void testRemap() {
+        java.util.Random rand = new java.util.Random(42);
+        for (int t = 0; t < 200; t++) {
+            SparseBitSet sb = new SparseBitSet();
+            for (int i = rand.nextInt(40); i > 0; i--) {
+                sb.set(rand.nextBoolean() ? rand.nextInt(300) : rand.nextInt(5_000_000));
+            }
+            //map some bits (and some bits that are not set) to random bits
+            int[] oldToNew = new int[rand.nextInt(400)];
+            java.util.TreeMap<Integer, Integer> sparse = new java.util.TreeMap<>();
+            for (int i = 0; i < oldToNew.length; i++) {
+                oldToNew[i] = rand.nextInt(3) == 0 ? rand.nextInt(1_000_000) : -1;
+                if (oldToNew[i] >= 0) {
+                    sparse.put(i, oldToNew[i]);
+                }
+            }
+            for (int i = sb.minSetBit(); i >= 0; i = sb.nextSetBit(i + 1)) {
+                if (i >= oldToNew.length && rand.nextInt(3) == 0) {
+                    sparse.put(i, rand.nextInt(300));
+                }
+            }
+            SparseBitSet expectedDense = new SparseBitSet();
+            SparseBitSet expectedSparse = new SparseBitSet();
+            for (int i = sb.minSetBit(); i >= 0; i = sb.nextSetBit(i + 1)) {
+                expectedDense.set(i < oldToNew.length && oldToNew[i] >= 0 ? oldToNew[i] : i);
+                expectedSparse.set(sparse.containsKey(i) ? sparse.get(i) : i);
+            }
+            String before = sb.toString();
+            Assert.assertEquals(expectedDense, sb.remap(oldToNew));
+            int[] keys = new int[sparse.size()];
+            int[] values = new int[sparse.size()];
+            int idx = 0;
+            for (Map.Entry<Integer, Integer> e : sparse.entrySet()) {
+                keys[idx] = e.getKey();
+                values[idx++] = e.getValue();
+            }
+            SparseBitSet actual = sb.remap(keys, values);
+            Assert.assertEquals(expectedSparse, actual);
+            Assert.assertEquals(expectedSparse.hashCode(), actual.hashCode());
+            Assert.assertEquals(expectedSparse.cardinality(), actual.cardinality());
+            Assert.assertEquals(before, sb.toString());
+        }
+    }
+
     @Test
     public void testBitsetIteratorPerformance() {
         if (RUN_PERFORMANCE_TESTS) {